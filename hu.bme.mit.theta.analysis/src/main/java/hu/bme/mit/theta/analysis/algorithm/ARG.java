@@ -20,10 +20,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.stream.Collectors.toList;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
-import java.util.OptionalInt;
 import java.util.stream.Stream;
 
 import hu.bme.mit.theta.analysis.Action;
@@ -41,10 +43,22 @@ public final class ARG<S extends State, A extends Action> {
 	private int nextId = 0;
 	final PartialOrd<S> partialOrd;
 
+	// Indexes maintained incrementally on node creation, expansion and pruning
+	private final Collection<ArgNode<S, A>> targetNodes;
+	private final Collection<ArgNode<S, A>> incompleteNodes;
+	private int[] nodesPerDepth;
+	private int maxDepth;
+	private long size;
+
 	private ARG(final PartialOrd<S> partialOrd) {
 		initNodes = new HashSet<>();
 		this.partialOrd = partialOrd;
 		this.initialized = false;
+		targetNodes = new LinkedHashSet<>();
+		incompleteNodes = new LinkedHashSet<>();
+		nodesPerDepth = new int[16];
+		maxDepth = -1;
+		size = 0;
 	}
 
 	public static <S extends State, A extends Action> ARG<S, A> create(final PartialOrd<S> partialOrd) {
@@ -65,12 +79,21 @@ public final class ARG<S extends State, A extends Action> {
 		return getInitNodes().flatMap(ArgNode::descendants);
 	}
 
+	/**
+	 * Gets the unsafe nodes, i.e., target nodes that are not excluded. Only the
+	 * target nodes are visited, the rest of the ARG is not traversed.
+	 */
 	public Stream<ArgNode<S, A>> getUnsafeNodes() {
-		return getInitNodes().flatMap(ArgNode::unexcludedDescendants).filter(ArgNode::isTarget);
+		return targetNodes.stream().filter(n -> !n.isExcluded());
 	}
 
+	/**
+	 * Gets the incomplete nodes, i.e., nodes that are neither expanded nor
+	 * excluded. The incomplete nodes are indexed, the rest of the ARG is not
+	 * traversed.
+	 */
 	public Stream<ArgNode<S, A>> getIncompleteNodes() {
-		return getInitNodes().flatMap(ArgNode::unexcludedDescendants).filter(n -> !n.isExpanded());
+		return incompleteNodes.stream();
 	}
 
 	////
@@ -80,14 +103,14 @@ public final class ARG<S extends State, A extends Action> {
 	 * its nodes are complete.
 	 */
 	public boolean isComplete() {
-		return isInitialized() && getNodes().allMatch(ArgNode::isComplete);
+		return isInitialized() && incompleteNodes.isEmpty();
 	}
 
 	/**
 	 * Checks if the ARG is safe, i.e., whether all of its nodes are safe.
 	 */
 	public boolean isSafe() {
-		return getNodes().allMatch(ArgNode::isSafe);
+		return !getUnsafeNodes().findAny().isPresent();
 	}
 
 	/**
@@ -98,12 +121,21 @@ public final class ARG<S extends State, A extends Action> {
 		return initialized;
 	}
 
+	/**
+	 * Marks the ARG as initialized, i.e., all of its initial nodes are
+	 * present.
+	 */
+	public void setInitialized() {
+		initialized = true;
+	}
+
 	////
 
 	public ArgNode<S, A> createInitNode(final S initState, final boolean target) {
 		checkNotNull(initState);
 		final ArgNode<S, A> initNode = createNode(initState, 0, target);
 		initNodes.add(initNode);
+		updateIncomplete(initNode);
 		return initNode;
 	}
 
@@ -116,19 +148,65 @@ public final class ARG<S extends State, A extends Action> {
 		checkArgument(!node.isTarget(), "Node is target");
 		final ArgNode<S, A> succNode = createNode(succState, node.getDepth() + 1, target);
 		createEdge(node, action, succNode);
+		updateIncomplete(succNode);
 		return succNode;
 	}
 
 	private ArgNode<S, A> createNode(final S state, final int depth, final boolean target) {
 		final ArgNode<S, A> node = new ArgNode<>(this, state, nextId, depth, target);
 		nextId = nextId + 1;
+		register(node);
 		return node;
 	}
 
+	private void register(final ArgNode<S, A> node) {
+		final int depth = node.getDepth();
+		if (depth >= nodesPerDepth.length) {
+			nodesPerDepth = Arrays.copyOf(nodesPerDepth, Math.max(2 * nodesPerDepth.length, depth + 1));
+		}
+		nodesPerDepth[depth]++;
+		maxDepth = Math.max(maxDepth, depth);
+		size++;
+		if (node.isTarget()) {
+			targetNodes.add(node);
+		}
+	}
+
+	private void unregister(final ArgNode<S, A> node) {
+		nodesPerDepth[node.getDepth()]--;
+		while (maxDepth >= 0 && nodesPerDepth[maxDepth] == 0) {
+			maxDepth--;
+		}
+		size--;
+		targetNodes.remove(node);
+		incompleteNodes.remove(node);
+	}
+
+	/**
+	 * Marks a node as expanded (i.e., all of its successors are present) or
+	 * not expanded.
+	 */
+	public void setExpanded(final ArgNode<S, A> node, final boolean expanded) {
+		checkNotNull(node);
+		checkArgument(node.arg == this, "Node does not belong to this ARG");
+		node.expanded = expanded;
+		updateIncomplete(node);
+	}
+
+	// Called when the node is attached, expanded or its exclusion changes
+	void updateIncomplete(final ArgNode<S, A> node) {
+		if (node.isComplete()) {
+			incompleteNodes.remove(node);
+		} else {
+			incompleteNodes.add(node);
+		}
+	}
+
 	private ArgEdge<S, A> createEdge(final ArgNode<S, A> source, final A action, final ArgNode<S, A> target) {
 		final ArgEdge<S, A> edge = new ArgEdge<>(source, action, target);
 		source.outEdges.add(edge);
 		target.inEdge = Optional.of(edge);
+		target.setParent(source);
 		return edge;
 	}
 
@@ -142,15 +220,16 @@ public final class ARG<S extends State, A extends Action> {
 			final ArgEdge<S, A> edge = node.getInEdge().get();
 			final ArgNode<S, A> parent = edge.getSource();
 			parent.outEdges.remove(edge);
-			parent.expanded = false;
+			setExpanded(parent, false);
 		} else {
 			assert initNodes.contains(node);
 			initNodes.remove(node);
 			this.initialized = false;
 		}
-		node.descendants().forEach(ArgNode::unsetCoveringNode);
-		node.descendants().forEach(ArgNode::clearCoveredNodes);
-
+		final List<ArgNode<S, A>> prunedNodes = node.descendants().collect(toList());
+		prunedNodes.forEach(ArgNode::unsetCoveringNode);
+		prunedNodes.forEach(ArgNode::clearCoveredNodes);
+		prunedNodes.forEach(this::unregister);
 	}
 
 	public void minimize() {
@@ -179,7 +258,7 @@ public final class ARG<S extends State, A extends Action> {
 	 * Gets the size of the ARG, i.e., the number of nodes.
 	 */
 	public long size() {
-		return getNodes().count();
+		return size;
 	}
 
 	/**
@@ -188,9 +267,8 @@ public final class ARG<S extends State, A extends Action> {
 	 * ARG.
 	 */
 	public int getDepth() {
-		final OptionalInt maxOpt = getNodes().mapToInt(ArgNode::getDepth).max();
-		checkState(maxOpt.isPresent(), "Depth is undefined for an empty ARG.");
-		return maxOpt.getAsInt();
+		checkState(maxDepth >= 0, "Depth is undefined for an empty ARG.");
+		return maxDepth;
 	}
 
 	/**
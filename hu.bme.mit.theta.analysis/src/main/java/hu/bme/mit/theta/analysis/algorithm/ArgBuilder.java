@@ -15,19 +15,26 @@
  */
 package hu.bme.mit.theta.analysis.algorithm;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Analysis;
 import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.PartialOrd;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.TransFunc;
+import hu.bme.mit.theta.common.Tuple3;
 
 /**
  * Helper class for building the ARG with a given analysis and precision.
@@ -88,9 +95,20 @@ public final class ArgBuilder<S extends State, A extends Action, P extends Prec>
 	public Collection<ArgNode<S, A>> expand(final ArgNode<S, A> node, final P prec) {
 		checkNotNull(node);
 		checkNotNull(prec);
+		return addSuccs(node, getSuccs(node.getState(), prec));
+	}
 
-		final Collection<ArgNode<S, A>> newSuccNodes = new ArrayList<>();
-		final S state = node.getState();
+	/**
+	 * Calculates the successors (action, successor state and whether it is a
+	 * target) of a state without modifying the ARG. This can be done
+	 * concurrently with modifying the ARG, as long as each thread uses its own
+	 * ArgBuilder.
+	 */
+	public Collection<Tuple3<A, S, Boolean>> getSuccs(final S state, final P prec) {
+		checkNotNull(state);
+		checkNotNull(prec);
+
+		final Collection<Tuple3<A, S, Boolean>> succs = new ArrayList<>();
 		final Collection<? extends A> actions = lts.getEnabledActionsFor(state);
 		final TransFunc<S, ? super A, ? super P> transFunc = analysis.getTransFunc();
 		for (final A action : actions) {
@@ -99,18 +117,112 @@ public final class ArgBuilder<S extends State, A extends Action, P extends Prec>
 				if (excludeBottom && succState.isBottom()) {
 					continue;
 				}
-				if (node.getSuccStates().noneMatch(s -> analysis.getPartialOrd().isLeq(succState, s))) {
-					final boolean isTarget = target.test(succState);
-					final ArgNode<S, A> newNode = node.arg.createSuccNode(node, action, succState, isTarget);
-					newSuccNodes.add(newNode);
-				}
+				final boolean isTarget = target.test(succState);
+				succs.add(Tuple3.of(action, succState, isTarget));
 			}
 		}
-		node.expanded = true;
+		return succs;
+	}
+
+	/**
+	 * Adds successors calculated by getSuccs to a node and marks the node as
+	 * expanded. Successors that are covered by an existing successor of the
+	 * node are skipped.
+	 */
+	public Collection<ArgNode<S, A>> addSuccs(final ArgNode<S, A> node,
+			final Collection<Tuple3<A, S, Boolean>> succs) {
+		checkNotNull(node);
+		checkNotNull(succs);
+
+		final Collection<ArgNode<S, A>> newSuccNodes = new ArrayList<>();
+		for (final Tuple3<A, S, Boolean> succ : succs) {
+			final S succState = succ.get2();
+			if (node.getSuccStates().noneMatch(s -> analysis.getPartialOrd().isLeq(succState, s))) {
+				final ArgNode<S, A> newNode = node.arg.createSuccNode(node, succ.get1(), succState, succ.get3());
+				newSuccNodes.add(newNode);
+			}
+		}
+		node.arg.setExpanded(node, true);
 
 		return newSuccNodes;
 	}
 
+	/**
+	 * Recalculates the states in the subtree of a (non-initial) node with a
+	 * refined precision instead of pruning the subtree. Nodes are kept and
+	 * relabeled as long as their action yields a single successor with the
+	 * same target flag, otherwise they are pruned and their parent is expanded
+	 * again with the new successors. Coverings that no longer hold are
+	 * removed, so the covered nodes become incomplete. The parent of the node
+	 * is marked as not expanded, as its other successors may have been skipped
+	 * due to the old state of the node.
+	 */
+	public void strengthen(final ArgNode<S, A> node, final P prec) {
+		checkNotNull(node);
+		checkNotNull(prec);
+		checkArgument(node.getInEdge().isPresent(), "Initial nodes cannot be strengthened");
+		final ARG<S, A> arg = node.arg;
+		final ArgEdge<S, A> inEdge = node.getInEdge().get();
+		final ArgNode<S, A> parent = inEdge.getSource();
+
+		final List<? extends S> succStates = getSuccStates(parent.getState(), inEdge.getAction(), prec);
+		if (succStates.size() != 1 || target.test(succStates.get(0)) != node.isTarget()) {
+			arg.prune(node);
+			return;
+		}
+		relabel(node, succStates.get(0));
+		arg.setExpanded(parent, false);
+
+		final Deque<ArgNode<S, A>> waiting = new ArrayDeque<>();
+		waiting.push(node);
+		while (!waiting.isEmpty()) {
+			final ArgNode<S, A> running = waiting.pop();
+			if (running.isSubsumed() || !running.isExpanded()) {
+				continue;
+			}
+			final Collection<Tuple3<A, S, Boolean>> succs = getSuccs(running.getState(), prec);
+			for (final ArgEdge<S, A> outEdge : running.getOutEdges().collect(toList())) {
+				final ArgNode<S, A> child = outEdge.getTarget();
+				final List<Tuple3<A, S, Boolean>> matchingSuccs = succs.stream()
+						.filter(t -> t.get1().equals(outEdge.getAction())).collect(toList());
+				if (matchingSuccs.size() == 1 && matchingSuccs.get(0).get3() == child.isTarget()) {
+					final Tuple3<A, S, Boolean> succ = matchingSuccs.get(0);
+					succs.remove(succ);
+					relabel(child, succ.get2());
+					waiting.push(child);
+				} else {
+					arg.prune(child);
+				}
+			}
+			addSuccs(running, succs);
+		}
+	}
+
+	private List<? extends S> getSuccStates(final S state, final A action, final P prec) {
+		final Collection<? extends S> succStates = analysis.getTransFunc().getSuccStates(state, action, prec);
+		return succStates.stream().filter(s -> !(excludeBottom && s.isBottom())).collect(toList());
+	}
+
+	private void relabel(final ArgNode<S, A> node, final S state) {
+		node.setState(state);
+		if (!node.isFeasible()) {
+			// The subtree is excluded, so it cannot cover other nodes
+			node.clearCoveredNodes();
+			node.children().collect(toList()).forEach(node.arg::prune);
+			return;
+		}
+		final PartialOrd<S> partialOrd = analysis.getPartialOrd();
+		if (node.getCoveringNode().isPresent()
+				&& !partialOrd.isLeq(state, node.getCoveringNode().get().getState())) {
+			node.unsetCoveringNode();
+		}
+		for (final ArgNode<S, A> coveredNode : node.getCoveredNodes().collect(toList())) {
+			if (!partialOrd.isLeq(coveredNode.getState(), state)) {
+				coveredNode.unsetCoveringNode();
+			}
+		}
+	}
+
 	public void close(final ArgNode<S, A> node) {
 		checkNotNull(node);
 		if (!node.isSubsumed()) {
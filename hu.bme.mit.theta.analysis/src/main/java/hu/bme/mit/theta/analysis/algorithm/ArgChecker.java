@@ -16,6 +16,9 @@
 package hu.bme.mit.theta.analysis.algorithm;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
+import static hu.bme.mit.theta.core.utils.PathUtils.unfold;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
@@ -30,7 +33,10 @@ import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.analysis.expr.ExprOrd;
 import hu.bme.mit.theta.analysis.expr.ExprState;
 import hu.bme.mit.theta.analysis.expr.ExprStateUtils;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.WithPushPop;
 
 public final class ArgChecker {
 
@@ -78,12 +84,26 @@ public final class ArgChecker {
 		if (optCoveringNode.isPresent()) {
 			final ArgNode<? extends ExprState, ?> coveringNode = optCoveringNode.get();
 			return isCoveredBy(node, coveringNode) && !coveringNode.isExcluded();
+		} else if (node.getUnionCoveringNodes().findAny().isPresent()) {
+			final Collection<? extends ArgNode<? extends ExprState, ?>> coveringNodes = node.getUnionCoveringNodes()
+					.collect(toList());
+			return isCoveredByUnion(node, coveringNodes) && coveringNodes.stream().noneMatch(ArgNode::isExcluded);
 		} else {
 			return true;
 		}
 
 	}
 
+	private boolean isCoveredByUnion(final ArgNode<? extends ExprState, ?> node,
+			final Collection<? extends ArgNode<? extends ExprState, ?>> coveringNodes) {
+		final Expr<BoolType> union = Or(coveringNodes.stream().map(n -> n.getState().toExpr()).collect(toList()));
+		try (WithPushPop wpp = new WithPushPop(solver)) {
+			solver.add(unfold(node.getState().toExpr(), 0));
+			solver.add(unfold(Not(union), 0));
+			return solver.check().isUnsat();
+		}
+	}
+
 	private boolean isCoveredBy(final ArgNode<? extends ExprState, ?> node,
 			final ArgNode<? extends ExprState, ?> coveringNode) {
 		return partialOrd.isLeq(node.getState(), coveringNode.getState());
@@ -18,8 +18,11 @@ package hu.bme.mit.theta.analysis.algorithm;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -45,9 +48,17 @@ public final class ArgNode<S extends State, A extends Action> {
 	final Collection<ArgEdge<S, A>> outEdges;
 
 	Optional<ArgNode<S, A>> coveringNode; // Set by ARG
+	private Collection<ArgNode<S, A>> unionCoveringNodes;
 	final Collection<ArgNode<S, A>> coveredNodes;
 
-	boolean expanded; // Set by ArgBuilder
+	boolean expanded; // Set by ARG
+
+	// Number of subsumed nodes among the ancestors of the node (including
+	// itself), the node is excluded iff this is positive
+	private int subsumedAncestors;
+
+	// Jump pointer for finding ancestors in logarithmic time
+	private ArgNode<S, A> jump;
 
 	ArgNode(final ARG<S, A> arg, final S state, final int id, final int depth, final boolean target) {
 		this.arg = arg;
@@ -58,8 +69,21 @@ public final class ArgNode<S extends State, A extends Action> {
 		inEdge = Optional.empty();
 		outEdges = new ArrayList<>();
 		coveringNode = Optional.empty();
+		unionCoveringNodes = Collections.emptyList();
 		coveredNodes = new HashSet<>();
 		expanded = false;
+		subsumedAncestors = state.isBottom() ? 1 : 0;
+		jump = this;
+	}
+
+	// Called by ARG when the node is attached to its parent
+	void setParent(final ArgNode<S, A> parent) {
+		subsumedAncestors += parent.subsumedAncestors;
+		if (parent.depth - parent.jump.depth == parent.jump.depth - parent.jump.jump.depth) {
+			jump = parent.jump.jump;
+		} else {
+			jump = parent;
+		}
 	}
 
 	////
@@ -82,14 +106,16 @@ public final class ArgNode<S extends State, A extends Action> {
 
 	public void setState(final S state) {
 		checkNotNull(state);
+		final boolean wasSubsumed = isSubsumed();
 		this.state = state;
+		updateSubsumed(wasSubsumed);
 	}
 
 	public boolean mayCover(final ArgNode<S, A> node) {
-		if (arg.partialOrd.isLeq(node.getState(), this.getState())) {
-			return ancestors().noneMatch(n -> n.equals(node) || n.isSubsumed());
-		} else {
+		if (this.isExcluded() || this.hasAncestor(node)) {
 			return false;
+		} else {
+			return arg.partialOrd.isLeq(node.getState(), this.getState());
 		}
 	}
 
@@ -97,19 +123,41 @@ public final class ArgNode<S extends State, A extends Action> {
 		checkNotNull(node);
 		checkArgument(node.arg == this.arg, "Nodes belong to different ARGs");
 		unsetCoveringNode();
-		coveringNode = Optional.of(node);
+		updateCoveringNode(Optional.of(node));
 		node.coveredNodes.add(this);
 	}
 
+	/**
+	 * Covers the node by a set of nodes whose states together (but not
+	 * necessarily one by one) include the state of the node, e.g., a union of
+	 * zones. The inclusion is not checked.
+	 */
+	public void setUnionCoveringNodes(final Collection<ArgNode<S, A>> nodes) {
+		checkNotNull(nodes);
+		checkArgument(!nodes.isEmpty(), "No covering nodes");
+		checkArgument(nodes.stream().allMatch(n -> n.arg == this.arg), "Nodes belong to different ARGs");
+		unsetCoveringNode();
+		final boolean wasSubsumed = isSubsumed();
+		unionCoveringNodes = new ArrayList<>(nodes);
+		unionCoveringNodes.forEach(n -> n.coveredNodes.add(this));
+		updateSubsumed(wasSubsumed);
+	}
+
 	public void unsetCoveringNode() {
 		if (coveringNode.isPresent()) {
 			coveringNode.get().coveredNodes.remove(this);
-			coveringNode = Optional.empty();
+			updateCoveringNode(Optional.empty());
+		}
+		if (!unionCoveringNodes.isEmpty()) {
+			final boolean wasSubsumed = isSubsumed();
+			unionCoveringNodes.forEach(n -> n.coveredNodes.remove(this));
+			unionCoveringNodes = Collections.emptyList();
+			updateSubsumed(wasSubsumed);
 		}
 	}
 
 	public void clearCoveredNodes() {
-		coveredNodes.forEach(n -> n.coveringNode = Optional.empty());
+		new ArrayList<>(coveredNodes).forEach(ArgNode::unsetCoveringNode);
 		coveredNodes.clear();
 	}
 
@@ -139,6 +187,14 @@ public final class ArgNode<S extends State, A extends Action> {
 		return coveringNode;
 	}
 
+	/**
+	 * Gets the nodes whose union covers the node, which is empty if the node
+	 * is not covered by a union.
+	 */
+	public Stream<ArgNode<S, A>> getUnionCoveringNodes() {
+		return unionCoveringNodes.stream();
+	}
+
 	public Stream<ArgNode<S, A>> getCoveredNodes() {
 		return coveredNodes.stream();
 	}
@@ -157,10 +213,10 @@ public final class ArgNode<S extends State, A extends Action> {
 
 	/**
 	 * Checks if the node is covered, i.e., there is a covering edge for the
-	 * node.
+	 * node or it is covered by a union of nodes.
 	 */
 	public boolean isCovered() {
-		return coveringNode.isPresent();
+		return coveringNode.isPresent() || !unionCoveringNodes.isEmpty();
 	}
 
 	/**
@@ -183,7 +239,7 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * excluded parent.
 	 */
 	public boolean isExcluded() {
-		return ancestors().anyMatch(ArgNode::isSubsumed);
+		return subsumedAncestors > 0;
 	}
 
 	/**
@@ -262,6 +318,47 @@ public final class ArgNode<S extends State, A extends Action> {
 
 	////
 
+	private void updateCoveringNode(final Optional<ArgNode<S, A>> node) {
+		final boolean wasSubsumed = isSubsumed();
+		coveringNode = node;
+		updateSubsumed(wasSubsumed);
+	}
+
+	private void updateSubsumed(final boolean wasSubsumed) {
+		final boolean subsumed = isSubsumed();
+		if (subsumed != wasSubsumed) {
+			final int delta = subsumed ? 1 : -1;
+			final Deque<ArgNode<S, A>> nodes = new ArrayDeque<>();
+			nodes.push(this);
+			while (!nodes.isEmpty()) {
+				final ArgNode<S, A> n = nodes.pop();
+				final boolean wasExcluded = n.isExcluded();
+				n.subsumedAncestors += delta;
+				if (n.isExcluded() != wasExcluded) {
+					arg.updateIncomplete(n);
+				}
+				n.outEdges.forEach(e -> nodes.push(e.getTarget()));
+			}
+		}
+	}
+
+	private boolean hasAncestor(final ArgNode<S, A> node) {
+		if (node.arg != this.arg || node.depth > this.depth) {
+			return false;
+		}
+		ArgNode<S, A> running = this;
+		while (running.depth > node.depth) {
+			if (running.jump.depth >= node.depth) {
+				running = running.jump;
+			} else {
+				running = running.inEdge.get().getSource();
+			}
+		}
+		return running == node;
+	}
+
+	////
+
 	@Override
 	public int hashCode() {
 		int result = hashCode;
@@ -17,13 +17,15 @@ package hu.bme.mit.theta.analysis.algorithm;
 
 import java.io.Serializable;
 import java.util.Comparator;
+import java.util.Objects;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.common.Utils;
 
 /**
- * A collection of comparators for ArgNodes.
+ * A collection of comparators for ArgNodes. Comparators built from the same
+ * parts are equal.
  */
 public class ArgNodeComparators {
 
@@ -78,6 +80,16 @@ public class ArgNodeComparators {
 		public String toString() {
 			return getClass().getSimpleName();
 		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof DepthOrder;
+		}
+
+		@Override
+		public int hashCode() {
+			return DepthOrder.class.getSimpleName().hashCode();
+		}
 	}
 
 	private static final class CreationOrder implements ArgNodeComparator {
@@ -93,6 +105,16 @@ public class ArgNodeComparators {
 		public String toString() {
 			return getClass().getSimpleName();
 		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof CreationOrder;
+		}
+
+		@Override
+		public int hashCode() {
+			return CreationOrder.class.getSimpleName().hashCode();
+		}
 	}
 
 	private static final class TargetFirst implements ArgNodeComparator {
@@ -108,6 +130,16 @@ public class ArgNodeComparators {
 		public String toString() {
 			return getClass().getSimpleName();
 		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof TargetFirst;
+		}
+
+		@Override
+		public int hashCode() {
+			return TargetFirst.class.getSimpleName().hashCode();
+		}
 	}
 
 	private static final class Inverter implements ArgNodeComparator {
@@ -128,6 +160,23 @@ public class ArgNodeComparators {
 		public String toString() {
 			return Utils.lispStringBuilder(getClass().getSimpleName()).add(comparator).toString();
 		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof Inverter) {
+				final Inverter that = (Inverter) obj;
+				return this.comparator.equals(that.comparator);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * comparator.hashCode() + 1;
+		}
 	}
 
 	private static final class Combinator implements ArgNodeComparator {
@@ -154,5 +203,22 @@ public class ArgNodeComparators {
 		public String toString() {
 			return Utils.lispStringBuilder(getClass().getSimpleName()).add(first).add(then).toString();
 		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof Combinator) {
+				final Combinator that = (Combinator) obj;
+				return this.first.equals(that.first) && this.then.equals(that.then);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(first, then);
+		}
 	}
 }
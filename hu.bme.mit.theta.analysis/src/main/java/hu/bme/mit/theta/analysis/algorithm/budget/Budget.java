@@ -0,0 +1,204 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.budget;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Resource budget for a verification run, which can also be used as a
+ * cancellation token. A budget limits the wall time (measured from the first
+ * call to start, or from its creation if it is not started), the number of ARG
+ * nodes, the number of iterations and the used heap. A limit of 0 means
+ * unlimited. Algorithms call the check methods periodically, which throw a
+ * BudgetExceededException if a limit is reached or the budget was cancelled.
+ * <p>
+ * The heap usage is approximate: it is the live data found by the latest
+ * garbage collection of each heap pool, so it ignores garbage, but does not
+ * include the allocations since that collection.
+ */
+public final class Budget {
+	private static final List<MemoryPoolMXBean> MEMORY_POOLS = ManagementFactory.getMemoryPoolMXBeans();
+
+	private final long timeoutMs;
+	private final int maxNodes;
+	private final int maxIterations;
+	private final long maxHeapBytes;
+
+	private final AtomicBoolean started;
+	private volatile long startNanos;
+	private volatile boolean cancelled;
+
+	private Budget(final long timeoutMs, final int maxNodes, final int maxIterations, final long maxHeapBytes) {
+		checkArgument(timeoutMs >= 0, "Timeout must be non-negative");
+		checkArgument(maxNodes >= 0, "Maximal number of nodes must be non-negative");
+		checkArgument(maxIterations >= 0, "Maximal number of iterations must be non-negative");
+		checkArgument(maxHeapBytes >= 0, "Heap threshold must be non-negative");
+		this.timeoutMs = timeoutMs;
+		this.maxNodes = maxNodes;
+		this.maxIterations = maxIterations;
+		this.maxHeapBytes = maxHeapBytes;
+		this.started = new AtomicBoolean(false);
+		this.startNanos = System.nanoTime();
+		this.cancelled = false;
+	}
+
+	public static Budget unlimited() {
+		return builder().build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Start the wall time measurement. Only the first call has an effect, so
+	 * that checkers sharing a budget (e.g., in a portfolio) do not reset the
+	 * time of each other.
+	 */
+	public void start() {
+		if (started.compareAndSet(false, true)) {
+			startNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Cancel the run, making the next check fail. Can be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public long getElapsedMs() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Check cancellation, wall time and heap usage.
+	 */
+	public void check() {
+		if (cancelled) {
+			throw new BudgetExceededException("Cancelled");
+		}
+		if (timeoutMs > 0) {
+			final long elapsedMs = getElapsedMs();
+			if (elapsedMs >= timeoutMs) {
+				throw new BudgetExceededException("Timeout after " + elapsedMs + " ms");
+			}
+		}
+		if (maxHeapBytes > 0) {
+			final long usedBytes = getHeapUsageAfterGc();
+			if (usedBytes >= maxHeapBytes) {
+				throw new BudgetExceededException("Heap usage of " + usedBytes + " bytes");
+			}
+		}
+	}
+
+	private static long getHeapUsageAfterGc() {
+		long usedBytes = 0;
+		for (final MemoryPoolMXBean pool : MEMORY_POOLS) {
+			if (pool.getType() == MemoryType.HEAP) {
+				// Null if the pool does not support collection usage
+				final MemoryUsage usage = pool.getCollectionUsage();
+				if (usage != null) {
+					usedBytes += usage.getUsed();
+				}
+			}
+		}
+		return usedBytes;
+	}
+
+	/**
+	 * Check the budget and the number of ARG nodes.
+	 */
+	public void checkNodes(final long nodes) {
+		check();
+		if (maxNodes > 0 && nodes >= maxNodes) {
+			throw new BudgetExceededException("Node limit of " + maxNodes + " reached");
+		}
+	}
+
+	/**
+	 * Check the budget and the number of completed iterations.
+	 */
+	public void checkIterations(final int iterations) {
+		check();
+		if (maxIterations > 0 && iterations >= maxIterations) {
+			throw new BudgetExceededException("Iteration limit of " + maxIterations + " reached");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("timeoutMs " + timeoutMs)
+				.add("maxNodes " + maxNodes).add("maxIterations " + maxIterations)
+				.add("maxHeapBytes " + maxHeapBytes).toString();
+	}
+
+	public static final class Builder {
+		private long timeoutMs;
+		private int maxNodes;
+		private int maxIterations;
+		private long maxHeapBytes;
+
+		private Builder() {
+			this.timeoutMs = 0;
+			this.maxNodes = 0;
+			this.maxIterations = 0;
+			this.maxHeapBytes = 0;
+		}
+
+		public Builder timeout(final long timeout, final TimeUnit unit) {
+			checkNotNull(unit);
+			this.timeoutMs = unit.toMillis(timeout);
+			return this;
+		}
+
+		public Builder maxNodes(final int maxNodes) {
+			this.maxNodes = maxNodes;
+			return this;
+		}
+
+		public Builder maxIterations(final int maxIterations) {
+			this.maxIterations = maxIterations;
+			return this;
+		}
+
+		public Builder maxHeapBytes(final long maxHeapBytes) {
+			this.maxHeapBytes = maxHeapBytes;
+			return this;
+		}
+
+		public Budget build() {
+			return new Budget(timeoutMs, maxNodes, maxIterations, maxHeapBytes);
+		}
+	}
+
+}
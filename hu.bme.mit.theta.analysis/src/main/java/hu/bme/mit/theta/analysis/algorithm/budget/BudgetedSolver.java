@@ -0,0 +1,99 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.budget;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+final class BudgetedSolver implements Solver {
+	private final Solver solver;
+	private final Budget budget;
+
+	BudgetedSolver(final Solver solver, final Budget budget) {
+		this.solver = checkNotNull(solver);
+		this.budget = checkNotNull(budget);
+	}
+
+	@Override
+	public void add(final Expr<BoolType> assertion) {
+		solver.add(assertion);
+	}
+
+	@Override
+	public void track(final Expr<BoolType> assertion) {
+		solver.track(assertion);
+	}
+
+	@Override
+	public SolverStatus check() {
+		budget.check();
+		return solver.check();
+	}
+
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		budget.check();
+		return solver.check(assumptions);
+	}
+
+	@Override
+	public void push() {
+		solver.push();
+	}
+
+	@Override
+	public void pop(final int n) {
+		solver.pop(n);
+	}
+
+	@Override
+	public void reset() {
+		solver.reset();
+	}
+
+	@Override
+	public SolverStatus getStatus() {
+		return solver.getStatus();
+	}
+
+	@Override
+	public Valuation getModel() {
+		return solver.getModel();
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getUnsatCore() {
+		return solver.getUnsatCore();
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getAssertions() {
+		return solver.getAssertions();
+	}
+
+	@Override
+	public void close() {
+		solver.close();
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.budget;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+
+/**
+ * Solver factory decorator whose solvers check a budget before each
+ * satisfiability check.
+ */
+public final class BudgetedSolverFactory implements SolverFactory {
+	private final SolverFactory solverFactory;
+	private final Budget budget;
+
+	private BudgetedSolverFactory(final SolverFactory solverFactory, final Budget budget) {
+		this.solverFactory = checkNotNull(solverFactory);
+		this.budget = checkNotNull(budget);
+	}
+
+	public static BudgetedSolverFactory create(final SolverFactory solverFactory, final Budget budget) {
+		return new BudgetedSolverFactory(solverFactory, budget);
+	}
+
+	@Override
+	public Solver createSolver() {
+		return new BudgetedSolver(solverFactory.createSolver(), budget);
+	}
+
+	@Override
+	public ItpSolver createItpSolver() {
+		return new BudgetedItpSolver(solverFactory.createItpSolver(), budget);
+	}
+
+}
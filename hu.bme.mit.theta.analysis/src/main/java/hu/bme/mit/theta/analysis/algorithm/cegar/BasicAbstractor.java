@@ -19,6 +19,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
 import java.util.function.Function;
 
 import hu.bme.mit.theta.analysis.Action;
@@ -27,9 +29,11 @@ import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
-import hu.bme.mit.theta.analysis.reachedset.Partition;
+import hu.bme.mit.theta.analysis.reachedset.IndexedReachedSet;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSet;
 import hu.bme.mit.theta.analysis.waitlist.FifoWaitlist;
 import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.common.Utils;
@@ -44,16 +48,24 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 
 	private final ArgBuilder<S, A, P> argBuilder;
 	private final Function<? super S, ?> projection;
+	private final Function<? super S, ?> fingerprint;
+	private final Function<? super S, ? extends Collection<?>> literals;
 	private final Waitlist<ArgNode<S, A>> waitlist;
 	private final StopCriterion<S, A> stopCriterion;
+	private final Budget budget;
 	private final Logger logger;
 
 	private BasicAbstractor(final ArgBuilder<S, A, P> argBuilder, final Function<? super S, ?> projection,
-			final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion, final Logger logger) {
+			final Function<? super S, ?> fingerprint, final Function<? super S, ? extends Collection<?>> literals,
+			final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion, final Budget budget,
+			final Logger logger) {
 		this.argBuilder = checkNotNull(argBuilder);
 		this.projection = checkNotNull(projection);
+		this.fingerprint = checkNotNull(fingerprint);
+		this.literals = checkNotNull(literals);
 		this.waitlist = checkNotNull(waitlist);
 		this.stopCriterion = checkNotNull(stopCriterion);
+		this.budget = checkNotNull(budget);
 		this.logger = checkNotNull(logger);
 	}
 
@@ -81,20 +93,24 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 
 		assert arg.isInitialized();
 
-		logger.write(Level.INFO, "|  |  Starting ARG: %d nodes, %d incomplete, %d unsafe%n", arg.getNodes().count(),
+		logger.write(Level.INFO, "|  |  Starting ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
 				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
 		logger.write(Level.SUBSTEP, "|  |  Building ARG...");
 
-		final Partition<ArgNode<S, A>, ?> reachedSet = Partition.of(n -> projection.apply(n.getState()));
+		final ReachedSet<S, A> reachedSet = IndexedReachedSet.create(projection, fingerprint, literals);
 		waitlist.clear();
 
 		reachedSet.addAll(arg.getNodes());
 		waitlist.addAll(arg.getIncompleteNodes());
 
 		while (!waitlist.isEmpty() && !stopCriterion.canStop(arg)) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new CancellationException("Interrupted while building ARG.");
+			}
+			budget.checkNodes(arg.size());
 			final ArgNode<S, A> node = waitlist.remove();
 
-			close(node, reachedSet.get(node));
+			close(node, reachedSet);
 			if (!node.isSubsumed() && !node.isTarget()) {
 				final Collection<ArgNode<S, A>> newNodes = argBuilder.expand(node, prec);
 				reachedSet.addAll(newNodes);
@@ -103,7 +119,7 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 		}
 
 		logger.write(Level.SUBSTEP, "done%n");
-		logger.write(Level.INFO, "|  |  Finished ARG: %d nodes, %d incomplete, %d unsafe%n", arg.getNodes().count(),
+		logger.write(Level.INFO, "|  |  Finished ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
 				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
 
 		waitlist.clear(); // Optimization
@@ -116,16 +132,11 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 		}
 	}
 
-	private void close(final ArgNode<S, A> node, final Collection<ArgNode<S, A>> candidates) {
+	private void close(final ArgNode<S, A> node, final ReachedSet<S, A> reachedSet) {
 		if (!node.isLeaf()) {
 			return;
 		}
-		for (final ArgNode<S, A> candidate : candidates) {
-			if (candidate.mayCover(node)) {
-				node.cover(candidate);
-				return;
-			}
-		}
+		reachedSet.tryToCover(node);
 	}
 
 	@Override
@@ -136,15 +147,21 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 	public static final class Builder<S extends State, A extends Action, P extends Prec> {
 		private final ArgBuilder<S, A, P> argBuilder;
 		private Function<? super S, ?> projection;
+		private Function<? super S, ?> fingerprint;
+		private Function<? super S, ? extends Collection<?>> literals;
 		private Waitlist<ArgNode<S, A>> waitlist;
 		private StopCriterion<S, A> stopCriterion;
+		private Budget budget;
 		private Logger logger;
 
 		private Builder(final ArgBuilder<S, A, P> argBuilder) {
 			this.argBuilder = argBuilder;
 			this.projection = s -> 0;
+			this.fingerprint = s -> 0;
+			this.literals = s -> Collections.emptySet();
 			this.waitlist = FifoWaitlist.create();
 			this.stopCriterion = StopCriterions.firstCex();
+			this.budget = Budget.unlimited();
 			this.logger = NullLogger.getInstance();
 		}
 
@@ -153,6 +170,16 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 			return this;
 		}
 
+		public Builder<S, A, P> fingerprint(final Function<? super S, ?> fingerprint) {
+			this.fingerprint = fingerprint;
+			return this;
+		}
+
+		public Builder<S, A, P> literals(final Function<? super S, ? extends Collection<?>> literals) {
+			this.literals = literals;
+			return this;
+		}
+
 		public Builder<S, A, P> waitlist(final Waitlist<ArgNode<S, A>> waitlist) {
 			this.waitlist = waitlist;
 			return this;
@@ -163,13 +190,19 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 			return this;
 		}
 
+		public Builder<S, A, P> budget(final Budget budget) {
+			this.budget = budget;
+			return this;
+		}
+
 		public Builder<S, A, P> logger(final Logger logger) {
 			this.logger = logger;
 			return this;
 		}
 
 		public BasicAbstractor<S, A, P> build() {
-			return new BasicAbstractor<>(argBuilder, projection, waitlist, stopCriterion, logger);
+			return new BasicAbstractor<>(argBuilder, projection, fingerprint, literals, waitlist, stopCriterion, budget,
+					logger);
 		}
 	}
 
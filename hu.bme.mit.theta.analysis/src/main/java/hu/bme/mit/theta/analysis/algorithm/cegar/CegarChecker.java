@@ -17,6 +17,7 @@ package hu.bme.mit.theta.analysis.algorithm.cegar;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
@@ -27,6 +28,8 @@ import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetExceededException;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
@@ -36,34 +39,45 @@ import hu.bme.mit.theta.common.logging.Logger.Level;
  * Counterexample-Guided Abstraction Refinement (CEGAR) loop implementation,
  * that uses an Abstractor to explore the abstract state space and a Refiner to
  * check counterexamples and refine them if needed. It also provides certain
- * statistics about its execution.
+ * statistics about its execution. If a budget is given and it is exceeded, the
+ * result is unknown.
  */
 public final class CegarChecker<S extends State, A extends Action, P extends Prec> implements SafetyChecker<S, A, P> {
 
 	private final Abstractor<S, A, P> abstractor;
 	private final Refiner<S, A, P> refiner;
+	private final Budget budget;
 	private final Logger logger;
 
-	private CegarChecker(final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger) {
+	private CegarChecker(final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Budget budget,
+			final Logger logger) {
 		this.abstractor = checkNotNull(abstractor);
 		this.refiner = checkNotNull(refiner);
+		this.budget = checkNotNull(budget);
 		this.logger = checkNotNull(logger);
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
 			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner) {
-		return new CegarChecker<>(abstractor, refiner, NullLogger.getInstance());
+		return new CegarChecker<>(abstractor, refiner, Budget.unlimited(), NullLogger.getInstance());
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
 			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger) {
-		return new CegarChecker<>(abstractor, refiner, logger);
+		return new CegarChecker<>(abstractor, refiner, Budget.unlimited(), logger);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
+			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Budget budget,
+			final Logger logger) {
+		return new CegarChecker<>(abstractor, refiner, budget, logger);
 	}
 
 	@Override
 	public SafetyResult<S, A> check(final P initPrec) {
 		logger.write(Level.INFO, "Configuration: %s%n", this);
 		final Stopwatch stopwatch = Stopwatch.createStarted();
+		budget.start();
 		long abstractorTime = 0;
 		long refinerTime = 0;
 		RefinerResult<S, A, P> refinerResult = null;
@@ -71,38 +85,58 @@ public final class CegarChecker<S extends State, A extends Action, P extends Pre
 		final ARG<S, A> arg = abstractor.createArg();
 		P prec = initPrec;
 		int iteration = 0;
-		do {
-			++iteration;
-
-			logger.write(Level.MAINSTEP, "Iteration %d%n", iteration);
-			logger.write(Level.MAINSTEP, "| Checking abstraction...%n");
-			final long abstractorStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
-			abstractorResult = abstractor.check(arg, prec);
-			abstractorTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - abstractorStartTime;
-			logger.write(Level.MAINSTEP, "| Checking abstraction done, result: %s%n", abstractorResult);
-
-			if (abstractorResult.isUnsafe()) {
-				logger.write(Level.MAINSTEP, "| Refining abstraction...%n");
-				final long refinerStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
-				refinerResult = refiner.refine(arg, prec);
-				refinerTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - refinerStartTime;
-				logger.write(Level.MAINSTEP, "Refining abstraction done, result: %s%n", refinerResult);
-
-				if (refinerResult.isSpurious()) {
-					prec = refinerResult.asSpurious().getRefinedPrec();
+		boolean budgetExceeded = false;
+		try {
+			do {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new CancellationException("Interrupted in iteration " + (iteration + 1) + ".");
+				}
+				budget.checkIterations(iteration);
+				++iteration;
+
+				logger.write(Level.MAINSTEP, "Iteration %d%n", iteration);
+				logger.write(Level.MAINSTEP, "| Checking abstraction...%n");
+				final long abstractorStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+				// Measured in finally, so that an iteration interrupted by the
+				// budget is also counted
+				try {
+					abstractorResult = abstractor.check(arg, prec);
+				} finally {
+					abstractorTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - abstractorStartTime;
+				}
+				logger.write(Level.MAINSTEP, "| Checking abstraction done, result: %s%n", abstractorResult);
+
+				if (abstractorResult.isUnsafe()) {
+					logger.write(Level.MAINSTEP, "| Refining abstraction...%n");
+					final long refinerStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+					try {
+						refinerResult = refiner.refine(arg, prec);
+					} finally {
+						refinerTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - refinerStartTime;
+					}
+					logger.write(Level.MAINSTEP, "Refining abstraction done, result: %s%n", refinerResult);
+
+					if (refinerResult.isSpurious()) {
+						prec = refinerResult.asSpurious().getRefinedPrec();
+					}
 				}
-			}
 
-		} while (!abstractorResult.isSafe() && !refinerResult.isUnsafe());
+			} while (!abstractorResult.isSafe() && !refinerResult.isUnsafe());
+		} catch (final BudgetExceededException e) {
+			logger.write(Level.MAINSTEP, "Budget exceeded: %s%n", e.getMessage());
+			budgetExceeded = true;
+		}
 
 		stopwatch.stop();
 		SafetyResult<S, A> cegarResult = null;
 		final CegarStatistics stats = new CegarStatistics(stopwatch.elapsed(TimeUnit.MILLISECONDS), abstractorTime,
 				refinerTime, iteration);
 
-		assert abstractorResult.isSafe() || (refinerResult != null && refinerResult.isUnsafe());
+		assert budgetExceeded || abstractorResult.isSafe() || (refinerResult != null && refinerResult.isUnsafe());
 
-		if (abstractorResult.isSafe()) {
+		if (budgetExceeded) {
+			cegarResult = SafetyResult.unknown(arg, stats);
+		} else if (abstractorResult.isSafe()) {
 			cegarResult = SafetyResult.safe(arg, stats);
 		} else if (refinerResult.isUnsafe()) {
 			cegarResult = SafetyResult.unsafe(refinerResult.asUnsafe().getCex(), arg, stats);
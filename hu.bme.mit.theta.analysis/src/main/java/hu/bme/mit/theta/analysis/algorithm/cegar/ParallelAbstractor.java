@@ -0,0 +1,303 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
+import hu.bme.mit.theta.analysis.reachedset.IndexedReachedSet;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSet;
+import hu.bme.mit.theta.analysis.waitlist.FifoWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.common.Tuple2;
+import hu.bme.mit.theta.common.Tuple3;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * Parallel implementation for the abstractor. Successors of nodes are
+ * calculated concurrently by a work-stealing pool, where each worker thread
+ * uses its own ArgBuilder (and thus its own solver) obtained from a factory.
+ * The ARG, the reached set and the waitlist are only modified by the thread
+ * calling check, so they need no synchronization. In reproducible mode the
+ * results of the workers are processed in the order the nodes were submitted,
+ * making the resulting ARG independent of the scheduling of the threads.
+ * Closing the abstractor shuts down its pool, the solvers of the workers are
+ * owned (and closed) by whoever supplied them.
+ */
+public final class ParallelAbstractor<S extends State, A extends Action, P extends Prec>
+		implements Abstractor<S, A, P>, AutoCloseable {
+
+	private final ArgBuilder<S, A, P> argBuilder;
+	private final ThreadLocal<ArgBuilder<S, A, P>> workerArgBuilder;
+	private final Function<? super S, ?> projection;
+	private final Function<? super S, ?> fingerprint;
+	private final Function<? super S, ? extends Collection<?>> literals;
+	private final Waitlist<ArgNode<S, A>> waitlist;
+	private final StopCriterion<S, A> stopCriterion;
+	private final Budget budget;
+	private final Logger logger;
+	private final int threads;
+	private final boolean reproducible;
+	private final ForkJoinPool pool;
+
+	private ParallelAbstractor(final ArgBuilder<S, A, P> argBuilder,
+			final Supplier<? extends ArgBuilder<S, A, P>> workerArgBuilderFactory,
+			final Function<? super S, ?> projection,
+			final Function<? super S, ?> fingerprint, final Function<? super S, ? extends Collection<?>> literals,
+			final Waitlist<ArgNode<S, A>> waitlist,
+			final StopCriterion<S, A> stopCriterion, final Budget budget, final Logger logger, final int threads,
+			final boolean reproducible) {
+		checkNotNull(workerArgBuilderFactory);
+		checkArgument(threads > 0, "Number of threads must be positive.");
+		this.argBuilder = checkNotNull(argBuilder);
+		this.workerArgBuilder = ThreadLocal.withInitial(workerArgBuilderFactory::get);
+		this.projection = checkNotNull(projection);
+		this.fingerprint = checkNotNull(fingerprint);
+		this.literals = checkNotNull(literals);
+		this.waitlist = checkNotNull(waitlist);
+		this.stopCriterion = checkNotNull(stopCriterion);
+		this.budget = checkNotNull(budget);
+		this.logger = checkNotNull(logger);
+		this.threads = threads;
+		this.reproducible = reproducible;
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> Builder<S, A, P> builder(
+			final ArgBuilder<S, A, P> argBuilder, final Supplier<? extends ArgBuilder<S, A, P>> workerArgBuilderFactory) {
+		return new Builder<>(argBuilder, workerArgBuilderFactory);
+	}
+
+	@Override
+	public ARG<S, A> createArg() {
+		return argBuilder.createArg();
+	}
+
+	@Override
+	public AbstractorResult check(final ARG<S, A> arg, final P prec) {
+		checkNotNull(arg);
+		checkNotNull(prec);
+		checkState(!pool.isShutdown(), "Abstractor is closed.");
+		logger.write(Level.DETAIL, "|  |  Precision: %s%n", prec);
+
+		if (!arg.isInitialized()) {
+			logger.write(Level.SUBSTEP, "|  |  (Re)initializing ARG...");
+			argBuilder.init(arg, prec);
+			logger.write(Level.SUBSTEP, "done%n");
+		}
+
+		assert arg.isInitialized();
+
+		logger.write(Level.INFO, "|  |  Starting ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
+				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
+		logger.write(Level.SUBSTEP, "|  |  Building ARG with %d threads...", threads);
+
+		final ReachedSet<S, A> reachedSet = IndexedReachedSet.create(projection, fingerprint, literals);
+		final CompletionService<Tuple2<ArgNode<S, A>, Collection<Tuple3<A, S, Boolean>>>> completionService = new ExecutorCompletionService<>(
+				pool);
+		final Queue<Future<Tuple2<ArgNode<S, A>, Collection<Tuple3<A, S, Boolean>>>>> inProgress = new ArrayDeque<>();
+		waitlist.clear();
+
+		reachedSet.addAll(arg.getNodes());
+		waitlist.addAll(arg.getIncompleteNodes());
+
+		try {
+			while (!stopCriterion.canStop(arg)) {
+				budget.checkNodes(arg.size());
+				while (inProgress.size() < threads && !waitlist.isEmpty()) {
+					final ArgNode<S, A> node = waitlist.remove();
+					close(node, reachedSet);
+					if (!node.isSubsumed() && !node.isTarget()) {
+						final S state = node.getState();
+						final Callable<Tuple2<ArgNode<S, A>, Collection<Tuple3<A, S, Boolean>>>> task = () -> Tuple2
+								.of(node, workerArgBuilder.get().getSuccs(state, prec));
+						// In reproducible mode results are taken in submission
+						// order, so the completion queue would never be drained
+						inProgress.add(reproducible ? pool.submit(task) : completionService.submit(task));
+					}
+				}
+
+				if (inProgress.isEmpty()) {
+					break;
+				}
+
+				final Future<Tuple2<ArgNode<S, A>, Collection<Tuple3<A, S, Boolean>>>> done;
+				if (reproducible) {
+					done = inProgress.remove();
+				} else {
+					done = completionService.take();
+					inProgress.remove(done);
+				}
+				final Tuple2<ArgNode<S, A>, Collection<Tuple3<A, S, Boolean>>> result = done.get();
+				final Collection<ArgNode<S, A>> newNodes = argBuilder.addSuccs(result.get1(), result.get2());
+				reachedSet.addAll(newNodes);
+				waitlist.addAll(newNodes);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while building ARG.");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new IllegalStateException(e.getCause());
+			}
+		} finally {
+			// Nodes that are still in progress are not expanded, they are
+			// incomplete and will be put back to the waitlist next time
+			inProgress.forEach(f -> f.cancel(false));
+		}
+
+		logger.write(Level.SUBSTEP, "done%n");
+		logger.write(Level.INFO, "|  |  Finished ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
+				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
+
+		waitlist.clear(); // Optimization
+
+		if (arg.isSafe()) {
+			checkState(arg.isComplete(), "Returning incomplete ARG as safe");
+			return AbstractorResult.safe();
+		} else {
+			return AbstractorResult.unsafe();
+		}
+	}
+
+	@Override
+	public void close() {
+		pool.shutdownNow();
+	}
+
+	private void close(final ArgNode<S, A> node, final ReachedSet<S, A> reachedSet) {
+		if (!node.isLeaf()) {
+			return;
+		}
+		reachedSet.tryToCover(node);
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(waitlist).add("threads = " + threads)
+				.add("reproducible = " + reproducible).toString();
+	}
+
+	public static final class Builder<S extends State, A extends Action, P extends Prec> {
+		private final ArgBuilder<S, A, P> argBuilder;
+		private final Supplier<? extends ArgBuilder<S, A, P>> workerArgBuilderFactory;
+		private Function<? super S, ?> projection;
+		private Function<? super S, ?> fingerprint;
+		private Function<? super S, ? extends Collection<?>> literals;
+		private Waitlist<ArgNode<S, A>> waitlist;
+		private StopCriterion<S, A> stopCriterion;
+		private Budget budget;
+		private Logger logger;
+		private int threads;
+		private boolean reproducible;
+
+		private Builder(final ArgBuilder<S, A, P> argBuilder,
+				final Supplier<? extends ArgBuilder<S, A, P>> workerArgBuilderFactory) {
+			this.argBuilder = argBuilder;
+			this.workerArgBuilderFactory = workerArgBuilderFactory;
+			this.projection = s -> 0;
+			this.fingerprint = s -> 0;
+			this.literals = s -> Collections.emptySet();
+			this.waitlist = FifoWaitlist.create();
+			this.stopCriterion = StopCriterions.firstCex();
+			this.budget = Budget.unlimited();
+			this.logger = NullLogger.getInstance();
+			this.threads = Runtime.getRuntime().availableProcessors();
+			this.reproducible = false;
+		}
+
+		public Builder<S, A, P> projection(final Function<? super S, ?> projection) {
+			this.projection = projection;
+			return this;
+		}
+
+		public Builder<S, A, P> fingerprint(final Function<? super S, ?> fingerprint) {
+			this.fingerprint = fingerprint;
+			return this;
+		}
+
+		public Builder<S, A, P> literals(final Function<? super S, ? extends Collection<?>> literals) {
+			this.literals = literals;
+			return this;
+		}
+
+		public Builder<S, A, P> waitlist(final Waitlist<ArgNode<S, A>> waitlist) {
+			this.waitlist = waitlist;
+			return this;
+		}
+
+		public Builder<S, A, P> stopCriterion(final StopCriterion<S, A> stopCriterion) {
+			this.stopCriterion = stopCriterion;
+			return this;
+		}
+
+		public Builder<S, A, P> budget(final Budget budget) {
+			this.budget = budget;
+			return this;
+		}
+
+		public Builder<S, A, P> logger(final Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		public Builder<S, A, P> threads(final int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		public Builder<S, A, P> reproducible(final boolean reproducible) {
+			this.reproducible = reproducible;
+			return this;
+		}
+
+		public ParallelAbstractor<S, A, P> build() {
+			return new ParallelAbstractor<>(argBuilder, workerArgBuilderFactory, projection, fingerprint, literals,
+					waitlist,
+					stopCriterion, budget, logger, threads, reproducible);
+		}
+	}
+
+}
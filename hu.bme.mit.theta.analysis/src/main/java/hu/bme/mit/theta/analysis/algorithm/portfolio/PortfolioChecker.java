@@ -0,0 +1,224 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.portfolio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.common.Tuple2;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * Safety checker that runs multiple named checkers concurrently, each on its
+ * own thread, and returns the first conclusive (safe or unsafe) result. The
+ * other checkers are then interrupted, which they are expected to handle
+ * cooperatively. If no checker is conclusive, an unknown result is returned
+ * (if any). Checkers should create their own solvers
+ * (e.g., build their configuration) when called, so that they do not share
+ * solver contexts. Checkers of different precision types can be combined by
+ * giving each of them its own initial precision, in which case the precision
+ * of the portfolio (e.g., UnitPrec) is not passed to them.
+ */
+public final class PortfolioChecker<S extends State, A extends Action, P extends Prec>
+		implements SafetyChecker<S, A, P> {
+
+	private final Map<String, SafetyChecker<? extends S, ? extends A, ? super P>> checkers;
+	private final boolean awaitTermination;
+	private final Logger logger;
+
+	private PortfolioChecker(final Map<String, SafetyChecker<? extends S, ? extends A, ? super P>> checkers,
+			final boolean awaitTermination, final Logger logger) {
+		checkArgument(!checkers.isEmpty(), "No checkers in portfolio");
+		this.checkers = new LinkedHashMap<>(checkers);
+		this.awaitTermination = awaitTermination;
+		this.logger = checkNotNull(logger);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> Builder<S, A, P> builder() {
+		return new Builder<>();
+	}
+
+	@Override
+	public SafetyResult<S, A> check(final P prec) {
+		checkNotNull(prec);
+		logger.write(Level.INFO, "Configuration: %s%n", this);
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(checkers.size(), r -> {
+			final Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			return thread;
+		});
+		final CompletionService<Tuple2<String, SafetyResult<? extends S, ? extends A>>> completionService = new ExecutorCompletionService<>(
+				executor);
+		final List<Future<Tuple2<String, SafetyResult<? extends S, ? extends A>>>> futures = new ArrayList<>();
+
+		try {
+			for (final Map.Entry<String, SafetyChecker<? extends S, ? extends A, ? super P>> entry : checkers
+					.entrySet()) {
+				futures.add(completionService.submit(() -> Tuple2.of(entry.getKey(), entry.getValue().check(prec))));
+			}
+
+			Throwable lastError = null;
+			Tuple2<String, SafetyResult<? extends S, ? extends A>> unknown = null;
+			for (int i = 0; i < futures.size(); ++i) {
+				try {
+					final Tuple2<String, SafetyResult<? extends S, ? extends A>> result = completionService.take()
+							.get();
+					if (result.get2().isUnknown()) {
+						logger.write(Level.SUBSTEP, "Checker %s is inconclusive%n", result.get1());
+						unknown = result;
+					} else {
+						logger.write(Level.MAINSTEP, "Winner: %s%n", result.get1());
+						return withStats(result, stopwatch);
+					}
+				} catch (final ExecutionException e) {
+					lastError = e.getCause();
+					logger.write(Level.SUBSTEP, "Checker failed: %s%n", e.getCause());
+				}
+			}
+			if (unknown != null) {
+				return withStats(unknown, stopwatch);
+			}
+			checkState(lastError != null);
+			throw new IllegalStateException("All checkers in the portfolio failed", lastError);
+
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the portfolio.", e);
+		} finally {
+			futures.forEach(f -> f.cancel(true));
+			executor.shutdownNow();
+			if (awaitTermination) {
+				awaitTermination(executor);
+			}
+		}
+	}
+
+	// Interrupted checkers are expected to stop soon, so the wait is not limited
+	private static void awaitTermination(final ExecutorService executor) {
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Results are only read after the checker terminates, so the (covariant)
+	// cast is safe
+	@SuppressWarnings("unchecked")
+	private SafetyResult<S, A> withStats(final Tuple2<String, SafetyResult<? extends S, ? extends A>> result,
+			final Stopwatch stopwatch) {
+		stopwatch.stop();
+		final SafetyResult<S, A> castResult = (SafetyResult<S, A>) result.get2();
+		final PortfolioStatistics stats = new PortfolioStatistics(stopwatch.elapsed(TimeUnit.MILLISECONDS),
+				result.get1(), castResult.getStats());
+		if (castResult.isSafe()) {
+			return SafetyResult.safe(castResult.getArg(), stats);
+		} else if (castResult.isUnsafe()) {
+			return SafetyResult.unsafe(castResult.asUnsafe().getTrace(), castResult.getArg(), stats);
+		} else {
+			return SafetyResult.unknown(castResult.getArg(), stats);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(checkers.keySet()).toString();
+	}
+
+	public static final class Builder<S extends State, A extends Action, P extends Prec> {
+		private final Map<String, SafetyChecker<? extends S, ? extends A, ? super P>> checkers;
+		private boolean awaitTermination;
+		private Logger logger;
+
+		private Builder() {
+			this.checkers = new LinkedHashMap<>();
+			this.awaitTermination = false;
+			this.logger = NullLogger.getInstance();
+		}
+
+		public Builder<S, A, P> add(final String name,
+				final SafetyChecker<? extends S, ? extends A, ? super P> checker) {
+			checkNotNull(name);
+			checkNotNull(checker);
+			checkArgument(!checkers.containsKey(name), "Duplicate checker name: " + name);
+			checkers.put(name, checker);
+			return this;
+		}
+
+		/**
+		 * Adds a checker that is started from its own initial precision
+		 * instead of the precision of the portfolio.
+		 */
+		public <S2 extends S, A2 extends A, Q extends Prec> Builder<S, A, P> add(final String name,
+				final SafetyChecker<S2, A2, ? super Q> checker, final Q initPrec) {
+			checkNotNull(checker);
+			checkNotNull(initPrec);
+			final SafetyChecker<S2, A2, P> member = p -> checker.check(initPrec);
+			return add(name, member);
+		}
+
+		/**
+		 * Wait for the interrupted checkers to terminate before returning, so
+		 * that the caller can release resources shared by the checkers (e.g.,
+		 * a solver pool).
+		 */
+		public Builder<S, A, P> awaitTermination(final boolean awaitTermination) {
+			this.awaitTermination = awaitTermination;
+			return this;
+		}
+
+		public Builder<S, A, P> logger(final Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		public PortfolioChecker<S, A, P> build() {
+			return new PortfolioChecker<>(checkers, awaitTermination, logger);
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.portfolio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Optional;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+/**
+ * Represents statistics collected by the PortfolioChecker algorithm, including
+ * the statistics of the winning checker (if it has any).
+ */
+public final class PortfolioStatistics extends Statistics {
+	private final long algorithmTimeMs;
+	private final String winner;
+	private final Optional<Statistics> winnerStats;
+
+	public PortfolioStatistics(final long algorithmTimeMs, final String winner,
+			final Optional<Statistics> winnerStats) {
+		this.algorithmTimeMs = algorithmTimeMs;
+		this.winner = checkNotNull(winner);
+		this.winnerStats = checkNotNull(winnerStats);
+
+		addStat("PortfolioTimeMs", this::getAlgorithmTimeMs);
+		addStat("Winner", this::getWinner);
+		winnerStats.ifPresent(s -> s.keySet().forEach(k -> addStat(k, () -> s.get(k))));
+	}
+
+	public long getAlgorithmTimeMs() {
+		return algorithmTimeMs;
+	}
+
+	public String getWinner() {
+		return winner;
+	}
+
+	public Optional<Statistics> getWinnerStats() {
+		return winnerStats;
+	}
+
+}
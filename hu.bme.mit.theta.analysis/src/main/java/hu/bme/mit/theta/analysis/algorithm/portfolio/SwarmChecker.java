@@ -0,0 +1,189 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.portfolio;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.RandomWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * Swarm verification: runs several independent, diversified instances of a
+ * checker concurrently and returns the first conclusive result (e.g., a
+ * counterexample confirmed by the refiner). Workers are created by a factory
+ * from their index and a budget shared by all workers. The shared budget is
+ * cancelled as soon as the swarm terminates, so that the remaining workers stop
+ * at their next budget check. Workers can use createWaitlist to diversify their
+ * search order.
+ */
+public final class SwarmChecker<S extends State, A extends Action, P extends Prec> implements SafetyChecker<S, A, P> {
+
+	private static final List<ArgNodeComparator> COMPARATORS = ImmutableList.of(
+			ArgNodeComparators.combine(ArgNodeComparators.targetFirst(), ArgNodeComparators.bfs()),
+			ArgNodeComparators.combine(ArgNodeComparators.targetFirst(), ArgNodeComparators.dfs()),
+			ArgNodeComparators.combine(ArgNodeComparators.targetFirst(), ArgNodeComparators.creationDesc()),
+			ArgNodeComparators.bfs(), ArgNodeComparators.dfs());
+
+	private final BiFunction<Integer, Budget, ? extends SafetyChecker<? extends S, ? extends A, ? super P>> workerFactory;
+	private final int workers;
+	private final Supplier<Budget> budgetFactory;
+	private final boolean awaitTermination;
+	private final Logger logger;
+
+	private SwarmChecker(
+			final BiFunction<Integer, Budget, ? extends SafetyChecker<? extends S, ? extends A, ? super P>> workerFactory,
+			final int workers, final Supplier<Budget> budgetFactory, final boolean awaitTermination,
+			final Logger logger) {
+		checkArgument(workers > 0, "Number of workers must be positive.");
+		this.workerFactory = checkNotNull(workerFactory);
+		this.workers = workers;
+		this.budgetFactory = checkNotNull(budgetFactory);
+		this.awaitTermination = awaitTermination;
+		this.logger = checkNotNull(logger);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> Builder<S, A, P> builder(
+			final BiFunction<Integer, Budget, ? extends SafetyChecker<? extends S, ? extends A, ? super P>> workerFactory) {
+		return new Builder<>(workerFactory);
+	}
+
+	/**
+	 * Create the waitlist of a given worker. Worker 0 uses the given comparator,
+	 * the next workers use the other combinations of the comparators in
+	 * ArgNodeComparators (skipping the ones equal to the given comparator), and
+	 * the rest use random waitlists with different seeds.
+	 */
+	public static <S extends State, A extends Action> Waitlist<ArgNode<S, A>> createWaitlist(final int worker,
+			final long seed, final ArgNodeComparator comparator) {
+		checkArgument(worker >= 0, "Worker index must be non-negative.");
+		checkNotNull(comparator);
+		final List<ArgNodeComparator> others = COMPARATORS.stream().filter(c -> !c.equals(comparator))
+				.collect(Collectors.toList());
+		if (worker == 0) {
+			return PriorityWaitlist.create(comparator);
+		} else if (worker <= others.size()) {
+			return PriorityWaitlist.create(others.get(worker - 1));
+		} else {
+			return RandomWaitlist.create(seed + worker);
+		}
+	}
+
+	@Override
+	public SafetyResult<S, A> check(final P prec) {
+		checkNotNull(prec);
+		final Budget budget = budgetFactory.get();
+		final PortfolioChecker.Builder<S, A, P> portfolio = PortfolioChecker.<S, A, P>builder()
+				.awaitTermination(awaitTermination).logger(logger);
+		for (int i = 0; i < workers; ++i) {
+			portfolio.add("Worker " + i, createWorker(i, budget));
+		}
+		try {
+			return portfolio.build().check(prec);
+		} finally {
+			budget.cancel();
+		}
+	}
+
+	// Workers are created lazily, on their own thread. A conclusive worker
+	// cancels the budget, so that the others stop even before the portfolio
+	// interrupts them. Results are only read, so the (covariant) cast is safe.
+	@SuppressWarnings("unchecked")
+	private SafetyChecker<S, A, P> createWorker(final int worker, final Budget budget) {
+		return p -> {
+			final SafetyResult<S, A> result = (SafetyResult<S, A>) workerFactory.apply(worker, budget).check(p);
+			if (!result.isUnknown()) {
+				budget.cancel();
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("workers = " + workers).toString();
+	}
+
+	public static final class Builder<S extends State, A extends Action, P extends Prec> {
+		private final BiFunction<Integer, Budget, ? extends SafetyChecker<? extends S, ? extends A, ? super P>> workerFactory;
+		private int workers;
+		private Supplier<Budget> budgetFactory;
+		private boolean awaitTermination;
+		private Logger logger;
+
+		private Builder(
+				final BiFunction<Integer, Budget, ? extends SafetyChecker<? extends S, ? extends A, ? super P>> workerFactory) {
+			this.workerFactory = workerFactory;
+			this.workers = Runtime.getRuntime().availableProcessors();
+			this.budgetFactory = Budget::unlimited;
+			this.awaitTermination = false;
+			this.logger = NullLogger.getInstance();
+		}
+
+		public Builder<S, A, P> workers(final int workers) {
+			this.workers = workers;
+			return this;
+		}
+
+		/**
+		 * Factory for the budget shared by the workers in a single check.
+		 */
+		public Builder<S, A, P> budget(final Supplier<Budget> budgetFactory) {
+			this.budgetFactory = budgetFactory;
+			return this;
+		}
+
+		/**
+		 * Wait for the losing workers to terminate before returning.
+		 *
+		 * @see PortfolioChecker.Builder#awaitTermination
+		 */
+		public Builder<S, A, P> awaitTermination(final boolean awaitTermination) {
+			this.awaitTermination = awaitTermination;
+			return this;
+		}
+
+		public Builder<S, A, P> logger(final Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		public SwarmChecker<S, A, P> build() {
+			return new SwarmChecker<>(workerFactory, workers, budgetFactory, awaitTermination, logger);
+		}
+	}
+
+}
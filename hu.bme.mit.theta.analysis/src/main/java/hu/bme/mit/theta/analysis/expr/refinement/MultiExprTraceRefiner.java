@@ -0,0 +1,230 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.ArgTrace;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.RefinerResult;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * A Refiner implementation that checks multiple counterexamples of the ARG
+ * (all of them or the first N) using ExprTraceCheckers. If any of them is
+ * feasible, the result is unsafe. Otherwise the refutations are all joined
+ * into the precision and the spurious subtrees are pruned in a single pass.
+ * Traces can be checked in parallel, each worker thread using its own
+ * ExprTraceChecker (and thus its own solver). Closing the refiner shuts down
+ * its pool, the solvers of the workers are owned (and closed) by whoever
+ * supplied them.
+ */
+public final class MultiExprTraceRefiner<S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation>
+		implements Refiner<S, A, P>, AutoCloseable {
+
+	private final ExprTraceChecker<R> exprTraceChecker;
+	private final ThreadLocal<ExprTraceChecker<R>> workerExprTraceChecker;
+	private final PrecRefiner<S, A, P, R> precRefiner;
+	private final int maxCexs;
+	private final int threads;
+	private final Logger logger;
+	private final ForkJoinPool pool;
+
+	private MultiExprTraceRefiner(final ExprTraceChecker<R> exprTraceChecker,
+			final Supplier<? extends ExprTraceChecker<R>> workerExprTraceCheckerFactory,
+			final PrecRefiner<S, A, P, R> precRefiner, final int maxCexs, final int threads, final Logger logger) {
+		checkNotNull(workerExprTraceCheckerFactory);
+		checkArgument(maxCexs >= 0, "Number of counterexamples must be non-negative.");
+		checkArgument(threads > 0, "Number of threads must be positive.");
+		this.exprTraceChecker = checkNotNull(exprTraceChecker);
+		this.workerExprTraceChecker = ThreadLocal.withInitial(workerExprTraceCheckerFactory::get);
+		this.precRefiner = checkNotNull(precRefiner);
+		this.maxCexs = maxCexs;
+		this.threads = threads;
+		this.logger = checkNotNull(logger);
+		this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	public static <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> Builder<S, A, P, R> builder(
+			final ExprTraceChecker<R> exprTraceChecker,
+			final Supplier<? extends ExprTraceChecker<R>> workerExprTraceCheckerFactory,
+			final PrecRefiner<S, A, P, R> precRefiner) {
+		return new Builder<>(exprTraceChecker, workerExprTraceCheckerFactory, precRefiner);
+	}
+
+	@Override
+	public RefinerResult<S, A, P> refine(final ARG<S, A> arg, final P prec) {
+		checkNotNull(arg);
+		checkNotNull(prec);
+		checkState(pool == null || !pool.isShutdown(), "Refiner is closed.");
+		assert !arg.isSafe() : "ARG must be unsafe";
+
+		final Stream<ArgTrace<S, A>> allCexs = arg.getCexs();
+		final List<ArgTrace<S, A>> cexsToConcretize = (maxCexs == 0 ? allCexs : allCexs.limit(maxCexs))
+				.collect(toList());
+		final List<Trace<S, A>> tracesToConcretize = cexsToConcretize.stream().map(ArgTrace::toTrace)
+				.collect(toList());
+		logger.write(Level.INFO, "|  |  Number of traces: %d%n", tracesToConcretize.size());
+
+		logger.write(Level.SUBSTEP, "|  |  Checking traces...");
+		final List<ExprTraceStatus<R>> cexStatuses = check(tracesToConcretize);
+		logger.write(Level.SUBSTEP, "done%n");
+
+		for (int i = 0; i < cexStatuses.size(); ++i) {
+			final ExprTraceStatus<R> cexStatus = cexStatuses.get(i);
+			assert cexStatus.isFeasible() || cexStatus.isInfeasible() : "Unknown CEX status";
+			if (cexStatus.isFeasible()) {
+				logger.write(Level.DETAIL, "|  |  Feasible trace: %s%n", tracesToConcretize.get(i));
+				return RefinerResult.unsafe(tracesToConcretize.get(i));
+			}
+		}
+
+		P refinedPrec = prec;
+		final List<ArgNode<S, A>> nodesToPrune = new ArrayList<>(cexStatuses.size());
+		for (int i = 0; i < cexStatuses.size(); ++i) {
+			final R refutation = cexStatuses.get(i).asInfeasible().getRefutation();
+			logger.write(Level.DETAIL, "|  |  |  Refutation: %s%n", refutation);
+			refinedPrec = precRefiner.refine(refinedPrec, tracesToConcretize.get(i), refutation);
+			final int pruneIndex = refutation.getPruneIndex();
+			assert 0 <= pruneIndex : "Pruning index must be non-negative";
+			assert pruneIndex <= cexsToConcretize.get(i).length() : "Pruning index larger than cex length";
+			nodesToPrune.add(cexsToConcretize.get(i).node(pruneIndex));
+		}
+
+		logger.write(Level.SUBSTEP, "|  |  Pruning %d subtrees...", nodesToPrune.size());
+		// Shallower nodes first, so that nodes in already pruned subtrees can
+		// be skipped
+		nodesToPrune.sort(Comparator.comparingInt(ArgNode::getDepth));
+		final Collection<ArgNode<S, A>> prunedNodes = new HashSet<>();
+		for (final ArgNode<S, A> node : nodesToPrune) {
+			if (node.ancestors().noneMatch(prunedNodes::contains)) {
+				arg.prune(node);
+				prunedNodes.add(node);
+			}
+		}
+		logger.write(Level.SUBSTEP, "done%n");
+
+		return RefinerResult.spurious(refinedPrec);
+	}
+
+	private List<ExprTraceStatus<R>> check(final List<Trace<S, A>> traces) {
+		if (threads == 1 || traces.size() == 1) {
+			return traces.stream().map(exprTraceChecker::check).collect(toList());
+		}
+
+		final List<Future<ExprTraceStatus<R>>> futures = traces.stream()
+				.map(t -> pool.submit(() -> workerExprTraceChecker.get().check(t))).collect(toList());
+		try {
+			final List<ExprTraceStatus<R>> statuses = new ArrayList<>(futures.size());
+			for (final Future<ExprTraceStatus<R>> future : futures) {
+				statuses.add(future.get());
+			}
+			return statuses;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while checking traces.", e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new IllegalStateException(e.getCause());
+			}
+		} finally {
+			futures.forEach(f -> f.cancel(false));
+		}
+	}
+
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(exprTraceChecker).add(precRefiner)
+				.add("cexs = " + maxCexs).add("threads = " + threads).toString();
+	}
+
+	public static final class Builder<S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> {
+		private final ExprTraceChecker<R> exprTraceChecker;
+		private final Supplier<? extends ExprTraceChecker<R>> workerExprTraceCheckerFactory;
+		private final PrecRefiner<S, A, P, R> precRefiner;
+		private int maxCexs;
+		private int threads;
+		private Logger logger;
+
+		private Builder(final ExprTraceChecker<R> exprTraceChecker,
+				final Supplier<? extends ExprTraceChecker<R>> workerExprTraceCheckerFactory,
+				final PrecRefiner<S, A, P, R> precRefiner) {
+			this.exprTraceChecker = exprTraceChecker;
+			this.workerExprTraceCheckerFactory = workerExprTraceCheckerFactory;
+			this.precRefiner = precRefiner;
+			this.maxCexs = 0;
+			this.threads = 1;
+			this.logger = NullLogger.getInstance();
+		}
+
+		/**
+		 * Maximal number of counterexamples to check in each iteration (0:
+		 * all).
+		 */
+		public Builder<S, A, P, R> maxCexs(final int maxCexs) {
+			this.maxCexs = maxCexs;
+			return this;
+		}
+
+		public Builder<S, A, P, R> threads(final int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		public Builder<S, A, P, R> logger(final Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		public MultiExprTraceRefiner<S, A, P, R> build() {
+			return new MultiExprTraceRefiner<>(exprTraceChecker, workerExprTraceCheckerFactory, precRefiner, maxCexs,
+					threads, logger);
+		}
+	}
+
+}
@@ -17,9 +17,12 @@ package hu.bme.mit.theta.analysis.expr.refinement;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Optional;
+
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgTrace;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
@@ -32,26 +35,37 @@ import hu.bme.mit.theta.common.logging.Logger.Level;
 
 /**
  * A Refiner implementation that can refine a single trace (of ExprStates and
- * ExprActions) using an ExprTraceChecker and a PrecRefiner.
+ * ExprActions) using an ExprTraceChecker and a PrecRefiner. If an ArgBuilder
+ * is given, the ARG is strengthened in place with the refined precision instead
+ * of pruning it.
  */
 public final class SingleExprTraceRefiner<S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation>
 		implements Refiner<S, A, P> {
 
 	private final ExprTraceChecker<R> exprTraceChecker;
 	private final PrecRefiner<S, A, P, R> precRefiner;
+	private final Optional<ArgBuilder<S, A, P>> argBuilder;
 	private final Logger logger;
 
 	private SingleExprTraceRefiner(final ExprTraceChecker<R> exprTraceChecker,
-			final PrecRefiner<S, A, P, R> precRefiner, final Logger logger) {
+			final PrecRefiner<S, A, P, R> precRefiner, final Optional<ArgBuilder<S, A, P>> argBuilder,
+			final Logger logger) {
 		this.exprTraceChecker = checkNotNull(exprTraceChecker);
 		this.precRefiner = checkNotNull(precRefiner);
+		this.argBuilder = checkNotNull(argBuilder);
 		this.logger = checkNotNull(logger);
 	}
 
 	public static <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> SingleExprTraceRefiner<S, A, P, R> create(
 			final ExprTraceChecker<R> exprTraceChecker, final PrecRefiner<S, A, P, R> precRefiner,
 			final Logger logger) {
-		return new SingleExprTraceRefiner<>(exprTraceChecker, precRefiner, logger);
+		return new SingleExprTraceRefiner<>(exprTraceChecker, precRefiner, Optional.empty(), logger);
+	}
+
+	public static <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> SingleExprTraceRefiner<S, A, P, R> create(
+			final ExprTraceChecker<R> exprTraceChecker, final PrecRefiner<S, A, P, R> precRefiner,
+			final ArgBuilder<S, A, P> argBuilder, final Logger logger) {
+		return new SingleExprTraceRefiner<>(exprTraceChecker, precRefiner, Optional.of(argBuilder), logger);
 	}
 
 	@Override
@@ -81,10 +95,16 @@ public final class SingleExprTraceRefiner<S extends ExprState, A extends ExprAct
 			assert 0 <= pruneIndex : "Pruning index must be non-negative";
 			assert pruneIndex <= cexToConcretize.length() : "Pruning index larger than cex length";
 
-			logger.write(Level.SUBSTEP, "|  |  Pruning from index %d...", pruneIndex);
 			final ArgNode<S, A> nodeToPrune = cexToConcretize.node(pruneIndex);
-			arg.prune(nodeToPrune);
-			logger.write(Level.SUBSTEP, "done%n");
+			if (argBuilder.isPresent() && nodeToPrune.getParent().isPresent()) {
+				logger.write(Level.SUBSTEP, "|  |  Strengthening from index %d...", pruneIndex);
+				argBuilder.get().strengthen(nodeToPrune, refinedPrec);
+				logger.write(Level.SUBSTEP, "done%n");
+			} else {
+				logger.write(Level.SUBSTEP, "|  |  Pruning from index %d...", pruneIndex);
+				arg.prune(nodeToPrune);
+				logger.write(Level.SUBSTEP, "done%n");
+			}
 
 			return RefinerResult.spurious(refinedPrec);
 		}
@@ -25,30 +25,48 @@ import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import hu.bme.mit.theta.common.Tuple2;
+import hu.bme.mit.theta.common.Tuple4;
+
 import hu.bme.mit.theta.core.decl.ConstDecl;
 import hu.bme.mit.theta.core.decl.Decls;
+import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolExprs;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.core.utils.IndexedVars;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.core.utils.VarIndexing;
 import hu.bme.mit.theta.solver.Solver;
-import hu.bme.mit.theta.solver.utils.WithPushPop;
+import hu.bme.mit.theta.solver.utils.WithGuard;
 
 /**
  * Strategies for performing predicate abstraction over an expression.
  */
 public class PredAbstractors {
 
+	private static final int DEFAULT_CACHE_SIZE = 10_000;
+
 	/**
 	 * Interface for performing predicate abstraction over an expression.
 	 */
@@ -98,6 +116,23 @@ public class PredAbstractors {
 		return new CartesianAbstractor(solver);
 	}
 
+	/**
+	 * Get the strategy that uses Boolean abstraction with an all-SAT engine
+	 * and splits the disjuncts. Predicates and conjuncts of the expression are
+	 * partitioned into independent components based on their common variables,
+	 * and each component is enumerated separately with blocking cubes over its
+	 * own predicates only. Each cube is minimized before it is blocked by
+	 * dropping literals whose both values are satisfiable with the rest of the
+	 * cube. Components that do not constrain their predicates are omitted.
+	 * Results are cached for each expression and precision.
+	 *
+	 * @param solver
+	 * @return
+	 */
+	public static PredAbstractor allSatAbstractor(final Solver solver) {
+		return new AllSatAbstractor(solver, DEFAULT_CACHE_SIZE);
+	}
+
 	private static final class BooleanAbstractor implements PredAbstractor {
 
 		private final Solver solver;
@@ -127,13 +162,17 @@ public class PredAbstractors {
 
 			assert actLits.size() >= preds.size();
 
+			// The expression and the predicates are assumed rather than asserted,
+			// so the solver can keep what it learned about them between calls
+			final List<Expr<BoolType>> assumptions = new ArrayList<>(preds.size() + 1);
+			assumptions.add(PathUtils.unfold(expr, exprIndexing));
+			for (int i = 0; i < preds.size(); ++i) {
+				assumptions.add(Iff(actLits.get(i).getRef(), PathUtils.unfold(preds.get(i), precIndexing)));
+			}
+
 			final List<PredState> states = new LinkedList<>();
-			try (WithPushPop wp = new WithPushPop(solver)) {
-				solver.add(PathUtils.unfold(expr, exprIndexing));
-				for (int i = 0; i < preds.size(); ++i) {
-					solver.add(Iff(actLits.get(i).getRef(), PathUtils.unfold(preds.get(i), precIndexing)));
-				}
-				while (solver.check().isSat()) {
+			try (WithGuard guard = new WithGuard(solver)) {
+				while (guard.check(assumptions).isSat()) {
 					final Valuation model = solver.getModel();
 					final Set<Expr<BoolType>> newStatePreds = new HashSet<>();
 					final List<Expr<BoolType>> feedback = new LinkedList<>();
@@ -153,7 +192,7 @@ public class PredAbstractors {
 						}
 					}
 					states.add(PredState.of(newStatePreds));
-					solver.add(Not(And(feedback)));
+					guard.add(Not(And(feedback)));
 				}
 			}
 			if (!split && states.size() > 1) {
@@ -171,49 +210,249 @@ public class PredAbstractors {
 		}
 	}
 
-	private static final class CartesianAbstractor implements PredAbstractor {
+	private static final class AllSatAbstractor implements PredAbstractor {
+
+		// Checking whether a literal can be dropped from a cube takes 2^k
+		// solver calls if k literals are already dropped
+		private static final int MAX_DROPPED_LITERALS = 3;
 
 		private final Solver solver;
+		private final List<ConstDecl<BoolType>> actLits;
+		private final String litPrefix;
+		private static int instanceCounter = 0;
+		private final Cache<Tuple4<Expr<BoolType>, VarIndexing, PredPrec, VarIndexing>, Collection<PredState>> cache;
 
-		public CartesianAbstractor(final Solver solver) {
-			this.solver = solver;
+		public AllSatAbstractor(final Solver solver, final long cacheSize) {
+			this.solver = checkNotNull(solver);
+			this.actLits = new ArrayList<>();
+			this.litPrefix = "__" + getClass().getSimpleName() + "_" + instanceCounter + "_";
+			instanceCounter++;
+			this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
 		}
 
 		@Override
 		public Collection<PredState> createStatesForExpr(final Expr<BoolType> expr, final VarIndexing exprIndexing,
 				final PredPrec prec, final VarIndexing precIndexing) {
-			final List<Expr<BoolType>> newStatePreds = new ArrayList<>();
+			checkNotNull(expr);
+			checkNotNull(exprIndexing);
+			checkNotNull(prec);
+			checkNotNull(precIndexing);
+
+			final Tuple4<Expr<BoolType>, VarIndexing, PredPrec, VarIndexing> key = Tuple4.of(expr, exprIndexing, prec,
+					precIndexing);
+			Collection<PredState> states = cache.getIfPresent(key);
+			if (states == null) {
+				states = abstractExpr(expr, exprIndexing, prec, precIndexing);
+				cache.put(key, states);
+			}
+			return states;
+		}
+
+		private Collection<PredState> abstractExpr(final Expr<BoolType> expr, final VarIndexing exprIndexing,
+				final PredPrec prec, final VarIndexing precIndexing) {
+			final List<Expr<BoolType>> preds = new ArrayList<>(prec.getPreds());
+			generateActivationLiterals(preds.size());
+
+			// Formulas are the conjuncts of the expression followed by the
+			// predicates, all of them unfolded
+			final List<Expr<BoolType>> formulas = new ArrayList<>(
+					ExprUtils.getConjuncts(PathUtils.unfold(expr, exprIndexing)));
+			final int nConjuncts = formulas.size();
+			for (final Expr<BoolType> pred : preds) {
+				formulas.add(PathUtils.unfold(pred, precIndexing));
+			}
+
+			final Set<Expr<BoolType>> commonPreds = new HashSet<>();
+			final List<List<PredState>> splitComponents = new ArrayList<>();
+			for (final List<Integer> component : getComponents(formulas)) {
+				final List<Expr<BoolType>> assumptions = new ArrayList<>(component.size());
+				final List<Integer> predIndexes = new ArrayList<>(component.size());
+				for (final int i : component) {
+					if (i < nConjuncts) {
+						assumptions.add(formulas.get(i));
+					} else {
+						assumptions.add(Iff(actLits.get(i - nConjuncts).getRef(), formulas.get(i)));
+						predIndexes.add(i - nConjuncts);
+					}
+				}
 
-			try (WithPushPop wp = new WithPushPop(solver)) {
-				solver.add(PathUtils.unfold(expr, exprIndexing));
-				solver.check();
-				if (solver.getStatus().isUnsat()) {
+				final List<PredState> cubes = enumerateCubes(assumptions, predIndexes, preds, prec);
+				if (cubes.isEmpty()) {
 					return Collections.emptySet();
+				} else if (cubes.size() == 1) {
+					commonPreds.addAll(cubes.get(0).getPreds());
+				} else if (!isTautology(cubes, predIndexes.size())) {
+					splitComponents.add(cubes);
 				}
+			}
 
-				for (final Expr<BoolType> pred : prec.getPreds()) {
-					final boolean ponEntailed;
-					final boolean negEntailed;
-					try (WithPushPop wp1 = new WithPushPop(solver)) {
-						solver.add(PathUtils.unfold(prec.negate(pred), precIndexing));
-						ponEntailed = solver.check().isUnsat();
+			// States only consist of predicates of the precision (or their
+			// negations), so the cubes of the components are combined
+			final List<PredState> states = new ArrayList<>();
+			for (final List<PredState> cubes : Lists.cartesianProduct(splitComponents)) {
+				final Set<Expr<BoolType>> newStatePreds = new HashSet<>(commonPreds);
+				cubes.forEach(cube -> newStatePreds.addAll(cube.getPreds()));
+				states.add(PredState.of(newStatePreds));
+			}
+			return states;
+		}
+
+		// The cubes of a component cover every valuation of its predicates if
+		// one of them is empty, or they are all different and complete, so the
+		// component can be omitted
+		private static boolean isTautology(final List<PredState> cubes, final int nPreds) {
+			return cubes.stream().anyMatch(cube -> cube.getPreds().isEmpty())
+					|| nPreds < Integer.SIZE - 1 && cubes.size() == 1 << nPreds
+							&& cubes.stream().allMatch(cube -> cube.getPreds().size() == nPreds);
+		}
+
+		private List<PredState> enumerateCubes(final List<Expr<BoolType>> assumptions, final List<Integer> predIndexes,
+				final List<Expr<BoolType>> preds, final PredPrec prec) {
+			final List<PredState> cubes = new LinkedList<>();
+			try (WithGuard guard = new WithGuard(solver)) {
+				while (guard.check(assumptions).isSat()) {
+					final Valuation model = solver.getModel();
+					final Map<Integer, Boolean> cube = new TreeMap<>();
+					for (final int i : predIndexes) {
+						final Optional<LitExpr<BoolType>> eval = model.eval(actLits.get(i));
+						if (eval.isPresent()) {
+							cube.put(i, eval.get().equals(True()));
+						}
 					}
-					try (WithPushPop wp2 = new WithPushPop(solver)) {
-						solver.add(PathUtils.unfold(pred, precIndexing));
-						negEntailed = solver.check().isUnsat();
+					minimize(assumptions, cube);
+
+					final Set<Expr<BoolType>> cubePreds = new HashSet<>();
+					final List<Expr<BoolType>> feedback = new LinkedList<>();
+					feedback.add(True());
+					for (final Entry<Integer, Boolean> entry : cube.entrySet()) {
+						final Expr<BoolType> pred = preds.get(entry.getKey());
+						cubePreds.add(entry.getValue() ? pred : prec.negate(pred));
+						feedback.add(literal(entry.getKey(), entry.getValue()));
 					}
+					cubes.add(PredState.of(cubePreds));
+					guard.add(Not(And(feedback)));
+				}
+			}
+			return cubes;
+		}
 
-					assert !(ponEntailed && negEntailed) : "Ponated and negated predicates are both entailed.";
+		// Drops literals from the cube as long as every valuation of the
+		// dropped literals is satisfiable with the rest of the cube, so the
+		// minimized cube still only contains states of the abstraction. The
+		// blocked cubes are not assumed, as cubes may overlap.
+		private void minimize(final List<Expr<BoolType>> assumptions, final Map<Integer, Boolean> cube) {
+			final List<Integer> dropped = new ArrayList<>();
+			for (final int i : new ArrayList<>(cube.keySet())) {
+				if (dropped.size() >= MAX_DROPPED_LITERALS) {
+					break;
+				}
+				// Valuations with the original value are known to be
+				// satisfiable, so only the flipped value has to be checked
+				final boolean value = cube.remove(i);
+				if (isSatForAll(assumptions, cube, i, !value, dropped)) {
+					dropped.add(i);
+				} else {
+					cube.put(i, value);
+				}
+			}
+		}
 
-					if (ponEntailed) {
-						newStatePreds.add(pred);
-					}
-					if (negEntailed) {
-						newStatePreds.add(prec.negate(pred));
+		private boolean isSatForAll(final List<Expr<BoolType>> assumptions, final Map<Integer, Boolean> cube,
+				final int flipped, final boolean flippedValue, final List<Integer> dropped) {
+			for (int mask = 0; mask < 1 << dropped.size(); ++mask) {
+				final List<Expr<BoolType>> cubeAssumptions = new ArrayList<>(assumptions);
+				cube.forEach((i, value) -> cubeAssumptions.add(literal(i, value)));
+				cubeAssumptions.add(literal(flipped, flippedValue));
+				for (int j = 0; j < dropped.size(); ++j) {
+					cubeAssumptions.add(literal(dropped.get(j), (mask & 1 << j) != 0));
+				}
+				if (!solver.check(cubeAssumptions).isSat()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private Expr<BoolType> literal(final int i, final boolean value) {
+			final Expr<BoolType> lit = actLits.get(i).getRef();
+			return value ? lit : Not(lit);
+		}
+
+		// Partitions the formulas into components, where two formulas are in
+		// the same component if they are connected by common (indexed)
+		// variables
+		private static List<List<Integer>> getComponents(final List<Expr<BoolType>> formulas) {
+			final int[] parent = new int[formulas.size()];
+			final Map<Tuple2<Integer, VarDecl<?>>, Integer> varToFormula = new HashMap<>();
+			for (int i = 0; i < formulas.size(); ++i) {
+				parent[i] = i;
+				final IndexedVars indexedVars = ExprUtils.getVarsIndexed(formulas.get(i));
+				for (final int index : indexedVars.getNonEmptyIndexes()) {
+					for (final VarDecl<?> var : indexedVars.getVars(index)) {
+						final Integer j = varToFormula.putIfAbsent(Tuple2.of(index, var), i);
+						if (j != null) {
+							parent[find(parent, i)] = find(parent, j);
+						}
 					}
 				}
 			}
 
+			final Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+			for (int i = 0; i < formulas.size(); ++i) {
+				components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(i);
+			}
+			return new ArrayList<>(components.values());
+		}
+
+		private static int find(final int[] parent, final int i) {
+			int root = i;
+			while (parent[root] != root) {
+				root = parent[root];
+			}
+			return root;
+		}
+
+		private void generateActivationLiterals(final int n) {
+			while (actLits.size() < n) {
+				actLits.add(Decls.Const(litPrefix + actLits.size(), BoolExprs.Bool()));
+			}
+		}
+	}
+
+	private static final class CartesianAbstractor implements PredAbstractor {
+
+		private final Solver solver;
+
+		public CartesianAbstractor(final Solver solver) {
+			this.solver = solver;
+		}
+
+		@Override
+		public Collection<PredState> createStatesForExpr(final Expr<BoolType> expr, final VarIndexing exprIndexing,
+				final PredPrec prec, final VarIndexing precIndexing) {
+			final List<Expr<BoolType>> newStatePreds = new ArrayList<>();
+
+			final Expr<BoolType> unfoldedExpr = PathUtils.unfold(expr, exprIndexing);
+			if (solver.check(ImmutableList.of(unfoldedExpr)).isUnsat()) {
+				return Collections.emptySet();
+			}
+
+			for (final Expr<BoolType> pred : prec.getPreds()) {
+				final Expr<BoolType> unfoldedPred = PathUtils.unfold(pred, precIndexing);
+				final Expr<BoolType> unfoldedNegPred = PathUtils.unfold(prec.negate(pred), precIndexing);
+				final boolean ponEntailed = solver.check(ImmutableList.of(unfoldedExpr, unfoldedNegPred)).isUnsat();
+				final boolean negEntailed = solver.check(ImmutableList.of(unfoldedExpr, unfoldedPred)).isUnsat();
+
+				assert !(ponEntailed && negEntailed) : "Ponated and negated predicates are both entailed.";
+
+				if (ponEntailed) {
+					newStatePreds.add(pred);
+				}
+				if (negEntailed) {
+					newStatePreds.add(prec.negate(pred));
+				}
+			}
+
 			return Collections.singleton(PredState.of(newStatePreds));
 		}
 
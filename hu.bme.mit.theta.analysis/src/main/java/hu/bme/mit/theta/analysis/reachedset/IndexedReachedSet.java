@@ -0,0 +1,179 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSet;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+
+/**
+ * Reached set that indexes nodes on three levels. The partitioning key (e.g.,
+ * the location) must be equal for a node and the node covering it, so only
+ * nodes in the same partition are considered as candidates. Within a
+ * partition, nodes are also indexed by a fingerprint (e.g., the state itself)
+ * and nodes with an equal fingerprint are tried first, since they are the
+ * most likely to cover. The remaining candidates are looked up in an inverted
+ * index of literals: a state can only be covered by states whose literals are
+ * a subset of its own literals (e.g., the variable assignments of an explicit
+ * state). By default states have no literals, and all nodes of the partition
+ * are candidates.
+ */
+public final class IndexedReachedSet<S extends State, A extends Action, K> implements ReachedSet<S, A> {
+
+	private final Function<? super S, ? extends K> partitioning;
+	private final Function<? super S, ?> fingerprint;
+	private final Function<? super S, ? extends Collection<?>> literals;
+
+	private final Map<K, IndexedPartition<S, A>> partitions;
+
+	private IndexedReachedSet(final Function<? super S, ? extends K> partitioning,
+			final Function<? super S, ?> fingerprint, final Function<? super S, ? extends Collection<?>> literals) {
+		this.partitioning = checkNotNull(partitioning);
+		this.fingerprint = checkNotNull(fingerprint);
+		this.literals = checkNotNull(literals);
+		partitions = new HashMap<>();
+	}
+
+	/**
+	 * Creates a reached set with a literal index. The literals of a state must
+	 * be a necessary condition of covering: if a state is less or equal than
+	 * an other one, the literals of the other state must all be literals of the
+	 * state.
+	 */
+	public static <S extends State, A extends Action, K> IndexedReachedSet<S, A, K> create(
+			final Function<? super S, ? extends K> partitioning, final Function<? super S, ?> fingerprint,
+			final Function<? super S, ? extends Collection<?>> literals) {
+		return new IndexedReachedSet<>(partitioning, fingerprint, literals);
+	}
+
+	public static <S extends State, A extends Action, K> IndexedReachedSet<S, A, K> create(
+			final Function<? super S, ? extends K> partitioning, final Function<? super S, ?> fingerprint) {
+		return new IndexedReachedSet<>(partitioning, fingerprint, s -> Collections.emptySet());
+	}
+
+	public static <S extends State, A extends Action, K> IndexedReachedSet<S, A, K> create(
+			final Function<? super S, ? extends K> partitioning) {
+		return create(partitioning, s -> 0);
+	}
+
+	@Override
+	public void add(final ArgNode<S, A> node) {
+		checkNotNull(node);
+		final S state = node.getState();
+		final K key = partitioning.apply(state);
+		final IndexedPartition<S, A> partition = partitions.computeIfAbsent(key, k -> new IndexedPartition<>());
+		partition.add(fingerprint.apply(state), ImmutableSet.copyOf(literals.apply(state)), node);
+	}
+
+	@Override
+	public void tryToCover(final ArgNode<S, A> node) {
+		checkNotNull(node);
+		final S state = node.getState();
+		final K key = partitioning.apply(state);
+		final IndexedPartition<S, A> partition = partitions.get(key);
+		if (partition == null) {
+			return;
+		}
+
+		final Object nodeFingerprint = fingerprint.apply(state);
+		final List<ArgNode<S, A>> exactCandidates = partition.get(nodeFingerprint);
+		for (final ArgNode<S, A> candidate : exactCandidates) {
+			if (candidate.mayCover(node)) {
+				node.cover(candidate);
+				return;
+			}
+		}
+
+		if (exactCandidates.size() == partition.size()) {
+			return;
+		}
+
+		for (final ArgNode<S, A> candidate : partition.getCandidates(ImmutableSet.copyOf(literals.apply(state)))) {
+			if (!nodeFingerprint.equals(fingerprint.apply(candidate.getState())) && candidate.mayCover(node)) {
+				node.cover(candidate);
+				return;
+			}
+		}
+	}
+
+	////
+
+	private static final class IndexedPartition<S extends State, A extends Action> {
+		private int size;
+		private final Map<Object, List<ArgNode<S, A>>> nodesByFingerprint;
+		private final Map<Object, List<ArgNode<S, A>>> nodesByLiteral;
+		private final Map<ArgNode<S, A>, Integer> literalCounts;
+		private final List<ArgNode<S, A>> nodesWithoutLiterals;
+
+		private IndexedPartition() {
+			size = 0;
+			nodesByFingerprint = new HashMap<>();
+			nodesByLiteral = new HashMap<>();
+			literalCounts = new HashMap<>();
+			nodesWithoutLiterals = new ArrayList<>();
+		}
+
+		private void add(final Object fingerprint, final Set<?> literals, final ArgNode<S, A> node) {
+			size++;
+			nodesByFingerprint.computeIfAbsent(fingerprint, f -> new ArrayList<>()).add(node);
+			if (literals.isEmpty()) {
+				nodesWithoutLiterals.add(node);
+			} else {
+				literalCounts.put(node, literals.size());
+				for (final Object literal : literals) {
+					nodesByLiteral.computeIfAbsent(literal, l -> new ArrayList<>()).add(node);
+				}
+			}
+		}
+
+		private List<ArgNode<S, A>> get(final Object fingerprint) {
+			return nodesByFingerprint.getOrDefault(fingerprint, Collections.emptyList());
+		}
+
+		// Nodes whose literals are all among the given literals
+		private List<ArgNode<S, A>> getCandidates(final Set<?> literals) {
+			final List<ArgNode<S, A>> candidates = new ArrayList<>(nodesWithoutLiterals);
+			final Map<ArgNode<S, A>, Integer> hits = new HashMap<>();
+			for (final Object literal : literals) {
+				for (final ArgNode<S, A> node : nodesByLiteral.getOrDefault(literal, Collections.emptyList())) {
+					final int nodeHits = hits.merge(node, 1, Integer::sum);
+					if (nodeHits == literalCounts.get(node)) {
+						candidates.add(node);
+					}
+				}
+			}
+			return candidates;
+		}
+
+		private int size() {
+			return size;
+		}
+	}
+
+}
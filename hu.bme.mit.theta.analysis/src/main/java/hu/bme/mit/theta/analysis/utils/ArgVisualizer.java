@@ -127,6 +127,16 @@ public final class ArgVisualizer<S extends State, A extends Action> {
 					.lineStyle(COVER_EDGE_STYLE).weight(0).build();
 			graph.addEdge(sourceId, targetId, eAttributes);
 		}
+
+		for (final ArgNode<? extends S, ? extends A> coveringNode : node.getUnionCoveringNodes()
+				.collect(Collectors.toList())) {
+			traverse(graph, coveringNode, traversed);
+			final String sourceId = NODE_ID_PREFIX + node.getId();
+			final String targetId = NODE_ID_PREFIX + coveringNode.getId();
+			final EdgeAttributes eAttributes = EdgeAttributes.builder().label("").color(LINE_COLOR)
+					.lineStyle(COVER_EDGE_STYLE).weight(0).build();
+			graph.addEdge(sourceId, targetId, eAttributes);
+		}
 	}
 
 }
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.waitlist;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Thread-safe FIFO (First In First Out) waitlist based on a lock-free queue,
+ * supporting multiple producers and consumers. The size is maintained
+ * separately and is an upper bound of the actual size during concurrent
+ * modifications, so consumers should use poll.
+ */
+public final class ConcurrentFifoWaitlist<T> implements Waitlist<T> {
+
+	private final Queue<T> items;
+	private final AtomicInteger size;
+
+	private ConcurrentFifoWaitlist() {
+		items = new ConcurrentLinkedQueue<>();
+		size = new AtomicInteger(0);
+	}
+
+	public static <T> ConcurrentFifoWaitlist<T> create() {
+		return new ConcurrentFifoWaitlist<>();
+	}
+
+	@Override
+	public void add(final T item) {
+		checkNotNull(item);
+		size.incrementAndGet();
+		items.add(item);
+	}
+
+	@Override
+	public void addAll(final Collection<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public void addAll(final Stream<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	@Override
+	public T remove() {
+		return poll().orElseThrow(NoSuchElementException::new);
+	}
+
+	@Override
+	public Optional<T> poll() {
+		final T item = items.poll();
+		if (item == null) {
+			return Optional.empty();
+		}
+		size.decrementAndGet();
+		return Optional.of(item);
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		while (poll().isPresent()) {
+			// Removing one by one keeps the size consistent
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(items).toString();
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.waitlist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Thread-safe relaxed priority waitlist (multi-queue). Items are distributed
+ * randomly among several priority queues, each guarded by its own lock. An item
+ * is removed from the queue with the lesser minimum of two randomly chosen
+ * queues, so the removed item is not always the least, but it is close to it
+ * in the ordering. With a single queue, it behaves as a priority waitlist.
+ *
+ * @see ArgNodeComparators
+ */
+public final class MultiQueueWaitlist<T> implements Waitlist<T> {
+
+	private final Comparator<? super T> comparator;
+	private final List<LockedQueue<T>> queues;
+	private final AtomicInteger size;
+
+	private MultiQueueWaitlist(final Comparator<? super T> comparator, final int queues) {
+		checkArgument(queues > 0, "Number of queues must be positive.");
+		this.comparator = checkNotNull(comparator);
+		this.queues = new ArrayList<>(queues);
+		for (int i = 0; i < queues; ++i) {
+			this.queues.add(new LockedQueue<>(comparator));
+		}
+		this.size = new AtomicInteger(0);
+	}
+
+	public static <T> MultiQueueWaitlist<T> create(final Comparator<? super T> comparator, final int queues) {
+		return new MultiQueueWaitlist<>(comparator, queues);
+	}
+
+	/**
+	 * Create a multi-queue with two queues per available processor.
+	 */
+	public static <T> MultiQueueWaitlist<T> create(final Comparator<? super T> comparator) {
+		return new MultiQueueWaitlist<>(comparator, 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public void add(final T item) {
+		checkNotNull(item);
+		size.incrementAndGet();
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		LockedQueue<T> queue = queues.get(random.nextInt(queues.size()));
+		for (int i = 0; !queue.lock.tryLock(); ++i) {
+			if (i >= queues.size()) {
+				queue.lock.lock();
+				break;
+			}
+			queue = queues.get(random.nextInt(queues.size()));
+		}
+		try {
+			queue.add(item);
+		} finally {
+			queue.lock.unlock();
+		}
+	}
+
+	@Override
+	public void addAll(final Collection<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public void addAll(final Stream<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	@Override
+	public T remove() {
+		return poll().orElseThrow(NoSuchElementException::new);
+	}
+
+	@Override
+	public Optional<T> poll() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < queues.size(); ++i) {
+			final LockedQueue<T> queue1 = queues.get(random.nextInt(queues.size()));
+			final LockedQueue<T> queue2 = queues.get(random.nextInt(queues.size()));
+			final LockedQueue<T> queue = lesser(queue1, queue2);
+			if (queue != null && queue.lock.tryLock()) {
+				try {
+					final T item = queue.poll();
+					if (item != null) {
+						size.decrementAndGet();
+						return Optional.of(item);
+					}
+				} finally {
+					queue.lock.unlock();
+				}
+			}
+		}
+		// Fall back to scanning all the queues if random choices fail
+		for (final LockedQueue<T> queue : queues) {
+			queue.lock.lock();
+			try {
+				final T item = queue.poll();
+				if (item != null) {
+					size.decrementAndGet();
+					return Optional.of(item);
+				}
+			} finally {
+				queue.lock.unlock();
+			}
+		}
+		return Optional.empty();
+	}
+
+	private LockedQueue<T> lesser(final LockedQueue<T> queue1, final LockedQueue<T> queue2) {
+		final T top1 = queue1.top;
+		final T top2 = queue2.top;
+		if (top1 == null) {
+			return top2 == null ? null : queue2;
+		} else if (top2 == null) {
+			return queue1;
+		} else {
+			return comparator.compare(top1, top2) <= 0 ? queue1 : queue2;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		for (final LockedQueue<T> queue : queues) {
+			queue.lock.lock();
+			try {
+				while (queue.poll() != null) {
+					size.decrementAndGet();
+				}
+			} finally {
+				queue.lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(comparator).add("queues = " + queues.size())
+				.toString();
+	}
+
+	private static final class LockedQueue<T> {
+		private final ReentrantLock lock;
+		private final PriorityQueue<T> items;
+		// Least item, readable without locking
+		private volatile T top;
+
+		private LockedQueue(final Comparator<? super T> comparator) {
+			lock = new ReentrantLock();
+			items = new PriorityQueue<>(comparator);
+			top = null;
+		}
+
+		private void add(final T item) {
+			items.add(item);
+			top = items.peek();
+		}
+
+		private T poll() {
+			final T item = items.poll();
+			top = items.peek();
+			return item;
+		}
+	}
+}
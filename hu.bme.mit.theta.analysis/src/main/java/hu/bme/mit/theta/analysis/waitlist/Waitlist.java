@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.analysis.waitlist;
 
 import java.util.Collection;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
@@ -33,6 +34,15 @@ public interface Waitlist<T> {
 
 	T remove();
 
+	/**
+	 * Remove an item if the waitlist is not empty. Concurrent waitlists do this
+	 * atomically, so it should be used instead of isEmpty and remove when the
+	 * waitlist is shared between threads.
+	 */
+	default Optional<T> poll() {
+		return isEmpty() ? Optional.empty() : Optional.of(remove());
+	}
+
 	int size();
 
 	void clear();
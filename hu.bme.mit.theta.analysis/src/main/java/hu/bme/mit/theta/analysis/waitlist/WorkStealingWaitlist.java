@@ -0,0 +1,128 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.waitlist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Thread-safe waitlist with a lock-free deque for each worker. Threads are
+ * assigned to the deques in a round-robin manner on their first access. Each
+ * worker adds and removes items at the head of its own deque (LIFO, yielding a
+ * depth-first order) and if it is empty, steals the oldest item of another
+ * deque. Used by a single thread, it behaves as a LIFO waitlist.
+ */
+public final class WorkStealingWaitlist<T> implements Waitlist<T> {
+
+	private final List<Deque<T>> deques;
+	private final AtomicInteger size;
+	private final AtomicInteger nextWorker;
+	private final ThreadLocal<Integer> worker;
+
+	private WorkStealingWaitlist(final int workers) {
+		checkArgument(workers > 0, "Number of workers must be positive.");
+		deques = new ArrayList<>(workers);
+		for (int i = 0; i < workers; ++i) {
+			deques.add(new ConcurrentLinkedDeque<>());
+		}
+		size = new AtomicInteger(0);
+		nextWorker = new AtomicInteger(0);
+		worker = ThreadLocal.withInitial(() -> Math.floorMod(nextWorker.getAndIncrement(), workers));
+	}
+
+	public static <T> WorkStealingWaitlist<T> create(final int workers) {
+		return new WorkStealingWaitlist<>(workers);
+	}
+
+	public static <T> WorkStealingWaitlist<T> create() {
+		return new WorkStealingWaitlist<>(Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public void add(final T item) {
+		checkNotNull(item);
+		size.incrementAndGet();
+		deques.get(worker.get()).addFirst(item);
+	}
+
+	@Override
+	public void addAll(final Collection<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public void addAll(final Stream<? extends T> items) {
+		checkNotNull(items);
+		items.forEach(this::add);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	@Override
+	public T remove() {
+		return poll().orElseThrow(NoSuchElementException::new);
+	}
+
+	@Override
+	public Optional<T> poll() {
+		final int own = worker.get();
+		T item = deques.get(own).pollFirst();
+		for (int i = 1; item == null && i < deques.size(); ++i) {
+			item = deques.get((own + i) % deques.size()).pollLast();
+		}
+		if (item == null) {
+			return Optional.empty();
+		}
+		size.decrementAndGet();
+		return Optional.of(item);
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void clear() {
+		for (final Deque<T> deque : deques) {
+			while (deque.pollFirst() != null) {
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("workers = " + deques.size())
+				.addAll(deques.stream().flatMap(Deque::stream)).toString();
+	}
+}
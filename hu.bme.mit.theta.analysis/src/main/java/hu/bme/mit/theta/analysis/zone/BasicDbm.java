@@ -17,6 +17,7 @@ package hu.bme.mit.theta.analysis.zone;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static hu.bme.mit.theta.analysis.zone.DiffBounds.Inf;
 import static hu.bme.mit.theta.analysis.zone.DiffBounds.Leq;
 import static hu.bme.mit.theta.analysis.zone.DiffBounds.Lt;
@@ -29,10 +30,19 @@ import java.util.function.IntBinaryOperator;
 
 import hu.bme.mit.theta.common.IntMatrix;
 
+/**
+ * Difference bound matrix over clocks 0..n, where the bound at (x, y)
+ * constrains x - y. Bounds are stored in a flat row-major array; indices are
+ * only checked at the package-visible entry points.
+ */
 final class BasicDbm {
 
+	private static final short PACKED_INF = Short.MAX_VALUE;
+
 	private final int nClocks;
-	private final IntMatrix matrix;
+	private final int size;
+	private int[] matrix;
+	private short[] packed;
 
 	////
 
@@ -40,13 +50,22 @@ final class BasicDbm {
 		checkArgument(size > 0, "Zero sized DBM");
 		checkNotNull(values);
 		this.nClocks = size - 1;
-		matrix = IntMatrix.create(size, size);
+		this.size = size;
+		matrix = new int[size * size];
 		fill(values);
 	}
 
 	BasicDbm(final BasicDbm dbm) {
 		this.nClocks = dbm.nClocks;
-		this.matrix = IntMatrix.copyOf(dbm.matrix);
+		this.size = dbm.size;
+		if (dbm.isPacked()) {
+			matrix = new int[size * size];
+			for (int i = 0; i < matrix.length; i++) {
+				matrix[i] = dbm.bound(i);
+			}
+		} else {
+			matrix = dbm.matrix.clone();
+		}
 	}
 
 	////
@@ -64,49 +83,96 @@ final class BasicDbm {
 
 	////
 
+	/**
+	 * Switches to a read-only representation that stores each bound in a
+	 * {@code short}, if all finite bounds fit. Packed DBMs are copied (see the
+	 * copy constructor) before they are modified.
+	 */
+	void pack() {
+		if (isPacked()) {
+			return;
+		}
+		final short[] result = new short[matrix.length];
+		for (int i = 0; i < matrix.length; i++) {
+			final int b = matrix[i];
+			if (b == Inf()) {
+				result[i] = PACKED_INF;
+			} else if (b >= Short.MIN_VALUE && b < PACKED_INF) {
+				result[i] = (short) b;
+			} else {
+				return;
+			}
+		}
+		packed = result;
+		matrix = null;
+	}
+
+	boolean isPacked() {
+		return packed != null;
+	}
+
 	int get(final int x, final int y) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		return matrix.get(x, y);
+		return bound(x, y);
 	}
 
 	void set(final int x, final int y, final int b) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		matrix.set(x, y, b);
+		checkState(!isPacked(), "Packed DBM");
+		matrix[x * size + y] = b;
 	}
 
 	void fill(final IntBinaryOperator values) {
 		checkNotNull(values);
-		matrix.fill(values);
+		checkState(!isPacked(), "Packed DBM");
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix[i * size + j] = values.applyAsInt(i, j);
+			}
+		}
+	}
+
+	private int bound(final int x, final int y) {
+		return bound(x * size + y);
+	}
+
+	private int bound(final int index) {
+		if (packed != null) {
+			final short b = packed[index];
+			return b == PACKED_INF ? Inf() : b;
+		} else {
+			return matrix[index];
+		}
 	}
 
 	////
 
 	public int size() {
-		return nClocks + 1;
+		return size;
 	}
 
 	////
 
 	public boolean isConsistent() {
-		return matrix.get(0, 0) > 0;
+		return bound(0) > 0;
 	}
 
 	public boolean isSatisfied(final int x, final int y, final int b) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		return add(matrix.get(y, x), b) >= Leq(0);
+		return add(bound(y, x), b) >= Leq(0);
 	}
 
 	public boolean constrains(final int x) {
 		checkArgument(isClock(x));
 		for (int i = 0; i <= nClocks; i++) {
-			if (matrix.get(x, i) < defaultBound(x, i)) {
+			if (bound(x, i) < defaultBound(x, i)) {
 				return true;
 			}
 
-			if (matrix.get(i, x) < defaultBound(i, x)) {
+			if (bound(i, x) < defaultBound(i, x)) {
 				return true;
 			}
 		}
@@ -115,10 +181,74 @@ final class BasicDbm {
 
 	////
 
+	boolean isLeq(final BasicDbm that) {
+		checkArgument(this.size == that.size);
+		for (int i = 0; i < size * size; i++) {
+			if (this.bound(i) > that.bound(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if two closed DBMs over the same clocks might intersect, i.e., if
+	 * they do not form a negative cycle of length two. Disjoint DBMs with
+	 * longer negative cycles only are not detected.
+	 */
+	boolean mayIntersect(final BasicDbm that) {
+		checkArgument(this.size == that.size);
+		if (!this.isConsistent() || !that.isConsistent()) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (add(this.bound(i, j), that.bound(j, i)) < Leq(0)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * LU-abstraction inclusion check. The arrays hold (-U(x), <=) and (-L(x),
+	 * <) for each clock, or infinity if the clock has no upper or lower bound.
+	 */
+	boolean isLeq(final BasicDbm that, final int[] leqMinusU, final int[] ltMinusL) {
+		checkArgument(this.size == that.size);
+		for (int x = 0; x < size; x++) {
+			final int Zx0 = this.bound(0, x);
+
+			// Zx0 >= (-Ux, <=)
+			if (Zx0 < leqMinusU[x]) {
+				continue;
+			}
+
+			for (int y = 0; y < size; y++) {
+				final int Zxy = this.bound(y, x);
+				final int Zpxy = that.bound(y, x);
+
+				if (Zpxy >= Zxy) {
+					continue;
+				}
+
+				if (add(Zpxy, ltMinusL[y]) >= Zx0) {
+					continue;
+				}
+
+				return false;
+			}
+		}
+		return true;
+	}
+
+	////
+
 	public void up() {
 		if (isConsistent()) {
 			for (int i = 1; i <= nClocks; i++) {
-				matrix.set(i, 0, Inf());
+				matrix[i * size] = Inf();
 			}
 			assert isClosed();
 		}
@@ -127,12 +257,16 @@ final class BasicDbm {
 	public void down() {
 		if (isConsistent()) {
 			for (int i = 1; i <= nClocks; i++) {
-				matrix.set(0, i, Inf());
+				matrix[i] = Inf();
 			}
 			assert isClosed();
 		}
 	}
 
+	/**
+	 * Intersects the DBM with x - y (b) and restores closure by relaxing all
+	 * paths through the new edge, which takes O(n^2) steps.
+	 */
 	public void and(final int x, final int y, final int b) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
@@ -141,18 +275,23 @@ final class BasicDbm {
 			// do nothing
 
 		} else if (!isSatisfied(x, y, b)) {
-			matrix.set(0, 0, Leq(-1));
+			matrix[0] = Leq(-1);
 
-		} else if (b < matrix.get(x, y)) {
-			matrix.set(x, y, b);
+		} else if (b < matrix[x * size + y]) {
+			matrix[x * size + y] = b;
 
-			for (int i = 0; i <= nClocks; i++) {
-				for (int j = 0; j <= nClocks; j++) {
-					if (add(matrix.get(i, x), matrix.get(x, j)) < matrix.get(i, j)) {
-						matrix.set(i, j, add(matrix.get(i, x), matrix.get(x, j)));
-					}
-					if (add(matrix.get(i, y), matrix.get(y, j)) < matrix.get(i, j)) {
-						matrix.set(i, j, add(matrix.get(i, y), matrix.get(y, j)));
+			// Row y and column x are not changed as the new edge is satisfiable
+			final int rowY = y * size;
+			for (int i = 0; i < size; i++) {
+				final int ixy = add(matrix[i * size + x], b);
+				if (ixy == Inf()) {
+					continue;
+				}
+				final int rowI = i * size;
+				for (int j = 0; j < size; j++) {
+					final int newBound = add(ixy, matrix[rowY + j]);
+					if (newBound < matrix[rowI + j]) {
+						matrix[rowI + j] = newBound;
 					}
 				}
 			}
@@ -160,34 +299,71 @@ final class BasicDbm {
 		assert !isConsistent() || isClosed();
 	}
 
+	/**
+	 * Intersects the DBM with x - y (b) without restoring closure. Only an
+	 * immediate contradiction with the bound for y - x is detected; the caller
+	 * is responsible for calling {@link #close()} afterwards.
+	 */
+	void tighten(final int x, final int y, final int b) {
+		checkArgument(isClock(x));
+		checkArgument(isClock(y));
+
+		if (!isConsistent()) {
+			// do nothing
+
+		} else if (!isSatisfied(x, y, b)) {
+			matrix[0] = Leq(-1);
+
+		} else if (b < matrix[x * size + y]) {
+			matrix[x * size + y] = b;
+		}
+	}
+
 	public void nonnegative() {
 		if (!isConsistent()) {
 			return;
 		}
 
+		boolean changed = false;
 		for (int k = 1; k <= nClocks; k++) {
-			if (!isSatisfied(0, k, Leq(0))) {
-				matrix.set(0, 0, Leq(-1));
-				return;
+			if (Leq(0) < matrix[k]) {
+				changed = true;
+				break;
 			}
+		}
+		if (!changed) {
+			return;
+		}
 
-			if (Leq(0) < matrix.get(0, k)) {
-				matrix.set(0, k, Leq(0));
+		// All new edges start from 0, so a shortest path uses at most one of
+		// them: first close row 0, then relax every other row through 0
+		for (int j = 0; j <= nClocks; j++) {
+			int newBound = matrix[j];
+			for (int k = 1; k <= nClocks; k++) {
+				newBound = min(newBound, matrix[k * size + j]);
+			}
+			if (j == 0 && newBound < Leq(0)) {
+				matrix[0] = Leq(-1);
+				return;
+			}
+			matrix[j] = newBound;
+		}
 
-				for (int i = 0; i <= nClocks; i++) {
-					for (int j = 0; j <= nClocks; j++) {
-						if (add(matrix.get(i, 0), matrix.get(0, j)) < matrix.get(i, j)) {
-							matrix.set(i, j, add(matrix.get(i, 0), matrix.get(0, j)));
-						}
-						if (add(matrix.get(i, k), matrix.get(k, j)) < matrix.get(i, j)) {
-							matrix.set(i, j, add(matrix.get(i, k), matrix.get(k, j)));
-						}
-					}
+		for (int i = 1; i <= nClocks; i++) {
+			final int i0 = matrix[i * size];
+			if (i0 == Inf()) {
+				continue;
+			}
+			final int rowI = i * size;
+			for (int j = 0; j <= nClocks; j++) {
+				final int newBound = add(i0, matrix[j]);
+				if (newBound < matrix[rowI + j]) {
+					matrix[rowI + j] = newBound;
 				}
 			}
 		}
 
-		assert !isConsistent() || isClosed();
+		assert isClosed();
 	}
 
 	public void free(final int x) {
@@ -196,8 +372,8 @@ final class BasicDbm {
 		if (isConsistent()) {
 			for (int i = 0; i <= nClocks; i++) {
 				if (i != x) {
-					matrix.set(x, i, Inf());
-					matrix.set(i, x, Inf());
+					matrix[x * size + i] = Inf();
+					matrix[i * size + x] = Inf();
 				}
 			}
 			assert isClosed();
@@ -213,8 +389,8 @@ final class BasicDbm {
 
 		if (isConsistent()) {
 			for (int i = 0; i <= nClocks; i++) {
-				matrix.set(x, i, add(Leq(m), matrix.get(0, i)));
-				matrix.set(i, x, add(matrix.get(i, 0), Leq(-m)));
+				matrix[x * size + i] = add(Leq(m), matrix[i]);
+				matrix[i * size + x] = add(matrix[i * size], Leq(-m));
 			}
 
 			assert isClosed();
@@ -226,12 +402,12 @@ final class BasicDbm {
 
 		for (int i = 0; i <= nClocks; i++) {
 			if (i != x) {
-				matrix.set(x, i, matrix.get(y, i));
-				matrix.set(i, x, matrix.get(i, y));
+				matrix[x * size + i] = matrix[y * size + i];
+				matrix[i * size + x] = matrix[i * size + y];
 			}
 		}
-		matrix.set(x, y, Leq(0));
-		matrix.set(y, x, Leq(0));
+		matrix[x * size + y] = Leq(0);
+		matrix[y * size + x] = Leq(0);
 		assert isClosed();
 	}
 
@@ -240,24 +416,49 @@ final class BasicDbm {
 
 		for (int i = 0; i <= nClocks; i++) {
 			if (i != x) {
-				matrix.set(x, i, add(matrix.get(x, i), Leq(m)));
-				matrix.set(i, x, add(matrix.get(i, x), Leq(-m)));
+				matrix[x * size + i] = add(matrix[x * size + i], Leq(m));
+				matrix[i * size + x] = add(matrix[i * size + x], Leq(-m));
 			}
 		}
 		assert isClosed();
 	}
 
+	/**
+	 * Renames the clocks so that the bounds of clock source[i] become the
+	 * bounds of clock i. The zero clock must be mapped to itself.
+	 */
+	public void permute(final int[] source) {
+		checkNotNull(source);
+		checkArgument(source.length == size);
+		checkArgument(source[0] == 0, "Zero clock is moved");
+		checkState(!isPacked(), "Packed DBM");
+
+		final boolean[] used = new boolean[size];
+		for (final int i : source) {
+			checkArgument(isClock(i) && !used[i], "Not a permutation");
+			used[i] = true;
+		}
+
+		final int[] original = matrix.clone();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix[i * size + j] = original[source[i] * size + source[j]];
+			}
+		}
+	}
+
 	public void norm(final int[] k) {
 		checkNotNull(k);
 		checkArgument(k.length == nClocks + 1);
 
 		for (int i = 0; i <= nClocks; i++) {
 			for (int j = 0; j <= nClocks; j++) {
-				if (matrix.get(i, j) != Inf()) {
-					if (matrix.get(i, j) > Leq(k[i])) {
-						matrix.set(i, j, Inf());
-					} else if (matrix.get(i, j) < Lt(-k[j])) {
-						matrix.set(i, j, Lt(-k[j]));
+				final int b = matrix[i * size + j];
+				if (b != Inf()) {
+					if (b > Leq(k[i])) {
+						matrix[i * size + j] = Inf();
+					} else if (b < Lt(-k[j])) {
+						matrix[i * size + j] = Lt(-k[j]);
 					}
 				}
 			}
@@ -265,16 +466,67 @@ final class BasicDbm {
 		close();
 	}
 
+	/**
+	 * Extra+_LU extrapolation (Behrmann et al., 2006). The arrays hold (L(x),
+	 * <=), (-L(x), <) and (-U(x), <) for each clock; a missing lower bound is
+	 * encoded as {@link Integer#MIN_VALUE} and {@link DiffBounds#Inf()} in the
+	 * second array, a missing upper bound as {@link DiffBounds#Inf()}.
+	 */
+	public void extraLuPlus(final int[] leqL, final int[] ltMinusL, final int[] ltMinusU) {
+		checkArgument(leqL.length == size);
+		checkArgument(ltMinusL.length == size);
+		checkArgument(ltMinusU.length == size);
+
+		if (!isConsistent()) {
+			return;
+		}
+
+		final int[] row0 = Arrays.copyOf(matrix, size);
+		boolean changed = false;
+		for (int i = 0; i <= nClocks; i++) {
+			for (int j = 0; j <= nClocks; j++) {
+				final int b = matrix[i * size + j];
+				if (i == j || b == Inf()) {
+					continue;
+				}
+
+				final int newBound;
+				if (b > leqL[i] || row0[i] < ltMinusL[i]) {
+					newBound = Inf();
+				} else if (row0[j] < ltMinusU[j]) {
+					newBound = i == 0 ? ltMinusU[j] : Inf();
+				} else {
+					newBound = b;
+				}
+
+				if (newBound != b) {
+					matrix[i * size + j] = newBound;
+					changed = true;
+				}
+			}
+		}
+
+		if (changed) {
+			close();
+		}
+	}
+
 	void close() {
 		for (int k = 0; k <= nClocks; k++) {
+			final int rowK = k * size;
 			for (int i = 0; i <= nClocks; i++) {
+				final int ik = matrix[i * size + k];
+				if (ik == Inf()) {
+					continue;
+				}
+				final int rowI = i * size;
 				for (int j = 0; j <= nClocks; j++) {
-					final int newBound = min(matrix.get(i, j), add(matrix.get(i, k), matrix.get(k, j)));
+					final int newBound = min(matrix[rowI + j], add(ik, matrix[rowK + j]));
 					if (i == j && newBound < Leq(0)) {
-						matrix.set(0, 0, Leq(-1));
+						matrix[0] = Leq(-1);
 						return;
 					} else {
-						matrix.set(i, j, newBound);
+						matrix[rowI + j] = newBound;
 					}
 				}
 			}
@@ -289,9 +541,9 @@ final class BasicDbm {
 		for (int k = 0; k <= nClocks; k++) {
 			for (int i = 0; i <= nClocks; i++) {
 				for (int j = 0; j <= nClocks; j++) {
-					final int newBound = add(matrix.get(i, k), matrix.get(k, j));
-					if (newBound < matrix.get(i, j)) {
-						matrix.set(i, j, newBound);
+					final int newBound = add(matrix[i * size + k], matrix[k * size + j]);
+					if (newBound < matrix[i * size + j]) {
+						matrix[i * size + j] = newBound;
 						next.set(i, j, next.get(i, k));
 						if (i == j && newBound < Leq(0)) {
 							final int[] cycle = path(next, i, j);
@@ -324,7 +576,7 @@ final class BasicDbm {
 		for (int i = 0; i <= nClocks; i++) {
 			for (int j = 0; j <= nClocks; j++) {
 				for (int k = 0; k <= nClocks; k++) {
-					if (matrix.get(i, j) > add(matrix.get(i, k), matrix.get(k, j))) {
+					if (bound(i, j) > add(bound(i, k), bound(k, j))) {
 						return false;
 					}
 				}
@@ -337,14 +589,36 @@ final class BasicDbm {
 
 	@Override
 	public int hashCode() {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("TODO: auto-generated method stub");
+		if (!isConsistent()) {
+			return 0;
+		}
+		int result = nClocks;
+		for (int i = 0; i < size * size; i++) {
+			result = 31 * result + bound(i);
+		}
+		return result;
 	}
 
 	@Override
 	public boolean equals(final Object obj) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("TODO: auto-generated method stub");
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof BasicDbm) {
+			final BasicDbm that = (BasicDbm) obj;
+			if (!this.isConsistent() || !that.isConsistent()) {
+				return !this.isConsistent() && !that.isConsistent();
+			} else if (this.nClocks != that.nClocks) {
+				return false;
+			}
+			for (int i = 0; i < size * size; i++) {
+				if (this.bound(i) != that.bound(i)) {
+					return false;
+				}
+			}
+			return true;
+		} else {
+			return false;
+		}
 	}
 
 	@Override
@@ -352,7 +626,7 @@ final class BasicDbm {
 		final StringBuilder sb = new StringBuilder();
 		for (int i = 0; i <= nClocks; i++) {
 			for (int j = 0; j <= nClocks; j++) {
-				sb.append(String.format("%-12s", asString(matrix.get(i, j))));
+				sb.append(String.format("%-12s", asString(bound(i, j))));
 			}
 			sb.append(System.lineSeparator());
 		}
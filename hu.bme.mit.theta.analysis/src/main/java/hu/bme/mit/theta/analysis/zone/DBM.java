@@ -32,6 +32,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.IntBinaryOperator;
@@ -371,6 +372,57 @@ final class DBM {
 		return intersection(this, dbm).isConsistent();
 	}
 
+	public boolean intersects(final DBM that) {
+		checkNotNull(that);
+		if (this.signature.equals(that.signature) && !this.dbm.mayIntersect(that.dbm)) {
+			return false;
+		}
+		return isConsistentWith(that);
+	}
+
+	/**
+	 * Returns pairwise disjoint DBMs whose union is the difference of this DBM
+	 * and the given one. Each DBM adds the negation of one bound of the
+	 * subtrahend to the bounds of the subtrahend that precede it, so implied
+	 * bounds of the subtrahend do not cause further splits.
+	 */
+	public Collection<DBM> subtract(final DBM that) {
+		checkNotNull(that);
+		if (!this.isConsistent()) {
+			return Collections.emptyList();
+		}
+		if (this.signature.equals(that.signature) && !this.dbm.mayIntersect(that.dbm)) {
+			return Collections.singleton(copyOf(this));
+		}
+
+		final DbmSignature signature = DbmSignature.union(this.signature, that.signature);
+		final DBM rest = new DBM(signature, this::getOrDefault);
+		final Collection<DBM> result = new ArrayList<>();
+		for (final VarDecl<RatType> x : that.signature) {
+			for (final VarDecl<RatType> y : that.signature) {
+				final int b = that.get(x, y);
+				if (b >= rest.get(x, y)) {
+					continue;
+				}
+
+				final int i = signature.indexOf(x);
+				final int j = signature.indexOf(y);
+
+				final DBM piece = new DBM(rest);
+				piece.dbm.and(j, i, negate(b));
+				if (piece.isConsistent()) {
+					result.add(piece);
+				}
+				rest.dbm.and(i, j, b);
+			}
+		}
+		if (!rest.isConsistent()) {
+			// the two DBMs are disjoint
+			return Collections.singleton(copyOf(this));
+		}
+		return result;
+	}
+
 	public boolean isSatisfied(final ClockConstr constr) {
 		// TODO Auto-generated method stub
 		throw new UnsupportedOperationException("TODO: auto-generated method stub");
@@ -392,6 +444,10 @@ final class DBM {
 	}
 
 	public boolean isLeq(final DBM that) {
+		if (this.signature.equals(that.signature)) {
+			return this.dbm.isLeq(that.dbm);
+		}
+
 		final Set<VarDecl<RatType>> vars = Sets.union(this.signature.toSet(), that.signature.toSet());
 
 		for (final VarDecl<RatType> x : vars) {
@@ -428,8 +484,6 @@ final class DBM {
 	}
 
 	public boolean isLeq(final DBM that, final BoundFunc bound) {
-		final Set<VarDecl<RatType>> vars = Sets.union(this.signature.toSet(), that.signature.toSet());
-
 		if (!this.isConsistent()) {
 			return true;
 		}
@@ -438,6 +492,19 @@ final class DBM {
 			return false;
 		}
 
+		if (this.signature.equals(that.signature)) {
+			final int[] leqMinusU = new int[signature.size()];
+			final int[] ltMinusL = new int[signature.size()];
+			for (int i = 0; i < signature.size(); i++) {
+				final VarDecl<RatType> varDecl = signature.getVar(i);
+				leqMinusU[i] = LeqMinusUx(varDecl, bound);
+				ltMinusL[i] = LtMinusLy(varDecl, bound);
+			}
+			return this.dbm.isLeq(that.dbm, leqMinusU, ltMinusL);
+		}
+
+		final Set<VarDecl<RatType>> vars = Sets.union(this.signature.toSet(), that.signature.toSet());
+
 		for (final VarDecl<RatType> x : vars) {
 			final VarDecl<RatType> zero = ZeroVar.getInstance();
 
@@ -522,6 +589,26 @@ final class DBM {
 		constr.accept(AndOperationVisitor.INSTANCE, this);
 	}
 
+	/**
+	 * Intersects the DBM with all the given constraints. Few constraints are
+	 * added one by one with incremental closure; otherwise all bounds are
+	 * tightened first and the DBM is closed once.
+	 */
+	public void and(final Collection<? extends ClockConstr> constrs) {
+		checkNotNull(constrs);
+		final boolean incremental = constrs.size() < signature.size();
+		final AndOperationVisitor visitor = incremental ? AndOperationVisitor.INSTANCE : AndOperationVisitor.DEFERRED;
+		for (final ClockConstr constr : constrs) {
+			constr.accept(visitor, this);
+			if (!dbm.isConsistent()) {
+				return;
+			}
+		}
+		if (!incremental) {
+			close();
+		}
+	}
+
 	public void free(final VarDecl<RatType> varDecl) {
 		checkNotNull(varDecl);
 		checkArgument(!isZeroClock(varDecl), "Var is zero");
@@ -566,22 +653,81 @@ final class DBM {
 		dbm.norm(k);
 	}
 
+	/**
+	 * Renames the clocks according to the given bijection, i.e., the bounds of
+	 * clock x become the bounds of clock permutation(x). Clocks not in the map
+	 * are left unchanged.
+	 */
+	public void permute(final Map<? extends VarDecl<RatType>, ? extends VarDecl<RatType>> permutation) {
+		checkNotNull(permutation);
+		final int[] source = new int[signature.size()];
+		for (int i = 0; i < source.length; i++) {
+			source[i] = i;
+		}
+		permutation.forEach((x, y) -> {
+			checkArgument(!isZeroClock(x) && !isZeroClock(y), "Var is zero");
+			checkArgument(tracks(x) == tracks(y), "Permutation of tracked and untracked vars");
+			if (tracks(x)) {
+				source[signature.indexOf(y)] = signature.indexOf(x);
+			}
+		});
+		dbm.permute(source);
+	}
+
+	/**
+	 * Applies Extra+_LU extrapolation with respect to the given bounds. Clocks
+	 * without a lower and an upper bound are freed.
+	 */
+	public void extraLuPlus(final BoundFunc bound) {
+		checkNotNull(bound);
+		final int[] leqL = new int[signature.size()];
+		final int[] ltMinusL = new int[signature.size()];
+		final int[] ltMinusU = new int[signature.size()];
+		for (int i = 0; i < signature.size(); i++) {
+			final Optional<Integer> lower = bound.getLower(signature.getVar(i));
+			final Optional<Integer> upper = bound.getUpper(signature.getVar(i));
+			leqL[i] = lower.map(L -> Leq(L)).orElse(Integer.MIN_VALUE);
+			ltMinusL[i] = lower.map(L -> Lt(-L)).orElse(Inf());
+			ltMinusU[i] = upper.map(U -> Lt(-U)).orElse(Inf());
+		}
+		dbm.extraLuPlus(leqL, ltMinusL, ltMinusU);
+	}
+
 	private void close() {
 		dbm.close();
 	}
 
+	void pack() {
+		dbm.pack();
+	}
+
+	boolean isPacked() {
+		return dbm.isPacked();
+	}
+
 	////
 
 	@Override
 	public int hashCode() {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("TODO: auto-generated method stub");
+		if (!dbm.isConsistent()) {
+			return 0;
+		}
+		return 31 * signature.hashCode() + dbm.hashCode();
 	}
 
 	@Override
 	public boolean equals(final Object obj) {
-		// TODO Auto-generated method stub
-		throw new UnsupportedOperationException("TODO: auto-generated method stub");
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof DBM) {
+			final DBM that = (DBM) obj;
+			if (!this.dbm.isConsistent() || !that.dbm.isConsistent()) {
+				return !this.dbm.isConsistent() && !that.dbm.isConsistent();
+			}
+			return this.signature.equals(that.signature) && this.dbm.equals(that.dbm);
+		} else {
+			return false;
+		}
 	}
 
 	@Override
@@ -681,9 +827,21 @@ final class DBM {
 
 	private static final class AndOperationVisitor implements ClockConstrVisitor<DBM, Void> {
 
-		private static final AndOperationVisitor INSTANCE = new AndOperationVisitor();
+		private static final AndOperationVisitor INSTANCE = new AndOperationVisitor(true);
+		private static final AndOperationVisitor DEFERRED = new AndOperationVisitor(false);
 
-		private AndOperationVisitor() {
+		private final boolean closing;
+
+		private AndOperationVisitor(final boolean closing) {
+			this.closing = closing;
+		}
+
+		private void and(final DBM dbm, final int x, final int y, final int b) {
+			if (closing) {
+				dbm.dbm.and(x, y, b);
+			} else {
+				dbm.dbm.tighten(x, y, b);
+			}
 		}
 
 		@Override
@@ -693,7 +851,7 @@ final class DBM {
 
 		@Override
 		public Void visit(final FalseConstr constr, final DBM dbm) {
-			dbm.dbm.and(0, 0, Lt(-1));
+			and(dbm, 0, 0, Lt(-1));
 			return null;
 		}
 
@@ -703,7 +861,7 @@ final class DBM {
 			if (dbm.tracks(varDecl)) {
 				final int x = dbm.signature.indexOf(varDecl);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, 0, Lt(m));
+				and(dbm, x, 0, Lt(m));
 			}
 			return null;
 		}
@@ -714,7 +872,7 @@ final class DBM {
 			if (dbm.tracks(varDecl)) {
 				final int x = dbm.signature.indexOf(varDecl);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, 0, Leq(m));
+				and(dbm, x, 0, Leq(m));
 			}
 			return null;
 		}
@@ -725,7 +883,7 @@ final class DBM {
 			if (dbm.tracks(varDecl)) {
 				final int x = dbm.signature.indexOf(varDecl);
 				final int m = constr.getBound();
-				dbm.dbm.and(0, x, Lt(-m));
+				and(dbm, 0, x, Lt(-m));
 			}
 			return null;
 		}
@@ -736,7 +894,7 @@ final class DBM {
 			if (dbm.tracks(varDecl)) {
 				final int x = dbm.signature.indexOf(varDecl);
 				final int m = constr.getBound();
-				dbm.dbm.and(0, x, Leq(-m));
+				and(dbm, 0, x, Leq(-m));
 			}
 			return null;
 		}
@@ -747,8 +905,8 @@ final class DBM {
 			if (dbm.tracks(varDecl)) {
 				final int x = dbm.signature.indexOf(varDecl);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, 0, Leq(m));
-				dbm.dbm.and(0, x, Leq(-m));
+				and(dbm, x, 0, Leq(m));
+				and(dbm, 0, x, Leq(-m));
 			}
 			return null;
 		}
@@ -761,7 +919,7 @@ final class DBM {
 				final int x = dbm.signature.indexOf(leftVar);
 				final int y = dbm.signature.indexOf(rightVar);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, y, Lt(m));
+				and(dbm, x, y, Lt(m));
 			}
 			return null;
 		}
@@ -774,7 +932,7 @@ final class DBM {
 				final int x = dbm.signature.indexOf(leftVar);
 				final int y = dbm.signature.indexOf(rightVar);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, y, Leq(m));
+				and(dbm, x, y, Leq(m));
 			}
 			return null;
 		}
@@ -787,7 +945,7 @@ final class DBM {
 				final int x = dbm.signature.indexOf(leftVar);
 				final int y = dbm.signature.indexOf(rightVar);
 				final int m = constr.getBound();
-				dbm.dbm.and(y, x, Lt(-m));
+				and(dbm, y, x, Lt(-m));
 			}
 			return null;
 		}
@@ -800,7 +958,7 @@ final class DBM {
 				final int x = dbm.signature.indexOf(leftVar);
 				final int y = dbm.signature.indexOf(rightVar);
 				final int m = constr.getBound();
-				dbm.dbm.and(y, x, Leq(-m));
+				and(dbm, y, x, Leq(-m));
 			}
 			return null;
 		}
@@ -813,8 +971,8 @@ final class DBM {
 				final int x = dbm.signature.indexOf(leftVar);
 				final int y = dbm.signature.indexOf(rightVar);
 				final int m = constr.getBound();
-				dbm.dbm.and(x, y, Leq(m));
-				dbm.dbm.and(y, x, Leq(-m));
+				and(dbm, x, y, Leq(m));
+				and(dbm, y, x, Leq(-m));
 			}
 			return null;
 		}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.zone;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Immutable union of zones. Zones that are included in another zone of the
+ * federation are not stored.
+ */
+public final class ZoneFederation {
+
+	private static final ZoneFederation EMPTY = new ZoneFederation(ImmutableList.of());
+
+	private final List<ZoneState> zones;
+
+	private ZoneFederation(final List<ZoneState> zones) {
+		this.zones = zones;
+	}
+
+	public static ZoneFederation empty() {
+		return EMPTY;
+	}
+
+	public static ZoneFederation of(final Iterable<ZoneState> zones) {
+		checkNotNull(zones);
+		ZoneFederation result = EMPTY;
+		for (final ZoneState zone : zones) {
+			result = result.add(zone);
+		}
+		return result;
+	}
+
+	////
+
+	public List<ZoneState> getZones() {
+		return zones;
+	}
+
+	public boolean isEmpty() {
+		return zones.isEmpty();
+	}
+
+	/**
+	 * Returns the union of this federation and the given zone, dropping the
+	 * zones that the new zone includes.
+	 */
+	public ZoneFederation add(final ZoneState zone) {
+		checkNotNull(zone);
+		if (zone.isBottom()) {
+			return this;
+		}
+
+		final ImmutableList.Builder<ZoneState> builder = ImmutableList.builder();
+		for (final ZoneState existing : zones) {
+			if (zone.isLeq(existing)) {
+				return this;
+			} else if (!existing.isLeq(zone)) {
+				builder.add(existing);
+			}
+		}
+		builder.add(zone);
+		return new ZoneFederation(builder.build());
+	}
+
+	/**
+	 * Checks if the given zone is included in the union of the zones of the
+	 * federation, by subtracting the zones one by one.
+	 */
+	public boolean covers(final ZoneState zone) {
+		checkNotNull(zone);
+		if (zone.isBottom()) {
+			return true;
+		}
+
+		for (final ZoneState existing : zones) {
+			if (zone.isLeq(existing)) {
+				return true;
+			}
+		}
+
+		Collection<DBM> rest = Collections.singleton(zone.getDbm());
+		for (final ZoneState existing : zones) {
+			final Collection<DBM> newRest = new ArrayList<>();
+			for (final DBM dbm : rest) {
+				newRest.addAll(dbm.subtract(existing.getDbm()));
+			}
+			if (newRest.isEmpty()) {
+				return true;
+			}
+			rest = newRest;
+		}
+		return false;
+	}
+
+	////
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(zones).toString();
+	}
+
+}
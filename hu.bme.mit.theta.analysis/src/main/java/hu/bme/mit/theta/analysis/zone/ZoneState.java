@@ -26,6 +26,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterables;
 
 import hu.bme.mit.theta.analysis.expr.ExprState;
@@ -44,6 +46,8 @@ public final class ZoneState implements ExprState {
 	private static final ZoneState TOP = new ZoneState(DBM.top(Collections.emptySet()));
 	private static final ZoneState BOTTOM = new ZoneState(DBM.bottom(Collections.emptySet()));
 
+	private static final Interner<ZoneState> INTERNER = Interners.newWeakInterner();
+
 	private static final int HASH_SEED = 4349;
 
 	private volatile int hashCode = 0;
@@ -53,10 +57,11 @@ public final class ZoneState implements ExprState {
 
 	private ZoneState(final DBM dbm) {
 		this.dbm = dbm;
+		dbm.pack();
 	}
 
 	private ZoneState(final Builder ops) {
-		this.dbm = ops.dbm;
+		this(ops.dbm);
 	}
 
 	////
@@ -152,6 +157,14 @@ public final class ZoneState implements ExprState {
 
 	////
 
+	/**
+	 * Returns a canonical representative of this zone: equal zones are
+	 * represented by the same instance as long as any of them is reachable.
+	 */
+	public ZoneState intern() {
+		return INTERNER.intern(this);
+	}
+
 	public boolean isTop() {
 		return DBM.top(Collections.emptySet()).getRelation(dbm) == DbmRelation.EQUAL;
 	}
@@ -177,6 +190,10 @@ public final class ZoneState implements ExprState {
 		return this.dbm.isConsistentWith(that.dbm);
 	}
 
+	DBM getDbm() {
+		return dbm;
+	}
+
 	////
 
 	@Override
@@ -274,6 +291,11 @@ public final class ZoneState implements ExprState {
 			return this;
 		}
 
+		public Builder and(final Collection<? extends ClockConstr> constrs) {
+			dbm.and(constrs);
+			return this;
+		}
+
 		public Builder free(final VarDecl<RatType> varDecl) {
 			dbm.free(varDecl);
 			return this;
@@ -294,10 +316,20 @@ public final class ZoneState implements ExprState {
 			return this;
 		}
 
+		public Builder extraLuPlus(final BoundFunc boundFunc) {
+			dbm.extraLuPlus(boundFunc);
+			return this;
+		}
+
 		public Builder norm(final Map<? extends VarDecl<RatType>, ? extends Integer> ceilings) {
 			dbm.norm(ceilings);
 			return this;
 		}
+
+		public Builder permute(final Map<? extends VarDecl<RatType>, ? extends VarDecl<RatType>> permutation) {
+			dbm.permute(permutation);
+			return this;
+		}
 	}
 
 }
@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.analysis.stubs.StateStub;
+
+public class ArgExclusionTest {
+
+	private static final int SEED = 4321;
+	private static final int STEPS = 2000;
+
+	private static final State BOTTOM = new State() {
+		@Override
+		public boolean isBottom() {
+			return true;
+		}
+	};
+
+	@Test
+	public void test() {
+		final Random random = new Random(SEED);
+		final ARG<State, Action> arg = ARG.create((s1, s2) -> true);
+		final Action act = new ActionStub("A");
+		final List<ArgNode<State, Action>> nodes = new ArrayList<>();
+
+		nodes.add(arg.createInitNode(new StateStub("S0"), false));
+
+		for (int i = 1; i <= STEPS; i++) {
+			final ArgNode<State, Action> node = nodes.get(random.nextInt(nodes.size()));
+			final int choice = random.nextInt(12);
+			if (choice < 6) {
+				nodes.add(arg.createSuccNode(node, act, new StateStub("S" + i), false));
+			} else if (choice < 8) {
+				final ArgNode<State, Action> other = nodes.get(random.nextInt(nodes.size()));
+				if (other.mayCover(node)) {
+					node.cover(other);
+				}
+			} else if (choice < 9) {
+				node.unsetCoveringNode();
+			} else if (choice < 11) {
+				node.setState(node.isFeasible() && random.nextInt(4) == 0 ? BOTTOM : new StateStub("S" + i));
+			} else if (node.getParent().isPresent()) {
+				arg.prune(node);
+				nodes.retainAll(arg.getNodes().collect(toSet()));
+			}
+			assertConsistent(arg, random);
+		}
+	}
+
+	private static void assertConsistent(final ARG<State, Action> arg, final Random random) {
+		final List<ArgNode<State, Action>> nodes = arg.getNodes().collect(toList());
+		for (final ArgNode<State, Action> node : nodes) {
+			assertEquals(node.ancestors().anyMatch(ArgNode::isSubsumed), node.isExcluded());
+			final ArgNode<State, Action> other = nodes.get(random.nextInt(nodes.size()));
+			assertEquals(node.ancestors().noneMatch(n -> n.equals(other) || n.isSubsumed()), node.mayCover(other));
+		}
+	}
+
+}
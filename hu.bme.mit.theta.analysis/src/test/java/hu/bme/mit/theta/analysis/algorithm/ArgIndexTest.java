@@ -0,0 +1,85 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.analysis.stubs.PartialOrdStub;
+import hu.bme.mit.theta.analysis.stubs.StateStub;
+
+public class ArgIndexTest {
+
+	private static final int SEED = 1234;
+	private static final int STEPS = 2000;
+
+	@Test
+	public void test() {
+		final Random random = new Random(SEED);
+		final ARG<State, Action> arg = ARG.create(new PartialOrdStub());
+		final Action act = new ActionStub("A");
+		final List<ArgNode<State, Action>> nodes = new ArrayList<>();
+
+		nodes.add(arg.createInitNode(new StateStub("S0"), false));
+		arg.initialized = true;
+
+		for (int i = 1; i <= STEPS; i++) {
+			final ArgNode<State, Action> node = nodes.get(random.nextInt(nodes.size()));
+			final int choice = random.nextInt(10);
+			if (choice < 6 && !node.isTarget()) {
+				final boolean target = random.nextInt(8) == 0;
+				nodes.add(arg.createSuccNode(node, act, new StateStub("S" + i), target));
+				if (random.nextBoolean()) {
+					arg.setExpanded(node, true);
+				}
+			} else if (choice < 8) {
+				final ArgNode<State, Action> other = nodes.get(random.nextInt(nodes.size()));
+				if (!other.isExcluded() && node.ancestors().noneMatch(n -> n.equals(other))) {
+					node.cover(other);
+				}
+			} else if (choice < 9) {
+				node.unsetCoveringNode();
+			} else if (node.getParent().isPresent()) {
+				arg.prune(node);
+				nodes.retainAll(arg.getNodes().collect(toSet()));
+			}
+			assertConsistent(arg);
+		}
+	}
+
+	private static void assertConsistent(final ARG<State, Action> arg) {
+		final List<ArgNode<State, Action>> nodes = arg.getNodes().collect(toList());
+		assertEquals(nodes.size(), arg.size());
+		assertEquals(nodes.stream().mapToInt(ArgNode::getDepth).max().getAsInt(), arg.getDepth());
+		assertEquals(nodes.stream().filter(n -> n.isTarget() && !n.isExcluded()).collect(toSet()),
+				arg.getUnsafeNodes().collect(toSet()));
+		assertEquals(nodes.stream().filter(n -> !n.isExpanded() && !n.isExcluded()).collect(toSet()),
+				arg.getIncompleteNodes().collect(toSet()));
+		assertEquals(nodes.stream().allMatch(ArgNode::isSafe), arg.isSafe());
+		assertEquals(nodes.stream().allMatch(ArgNode::isComplete), arg.isComplete());
+	}
+
+}
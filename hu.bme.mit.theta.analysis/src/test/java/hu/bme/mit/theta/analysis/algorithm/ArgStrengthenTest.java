@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Analysis;
+import hu.bme.mit.theta.analysis.InitFunc;
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.PartialOrd;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.TransFunc;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
+
+public class ArgStrengthenTest {
+
+	private static final int MAX = 5;
+
+	private final LTS<CounterState, CounterAction> lts = s -> s.value < MAX
+			? Arrays.asList(CounterAction.INC, CounterAction.STAY)
+			: Collections.emptyList();
+
+	private final Analysis<CounterState, CounterAction, BoundPrec> analysis = new Analysis<CounterState, CounterAction, BoundPrec>() {
+		@Override
+		public PartialOrd<CounterState> getPartialOrd() {
+			return (s1, s2) -> s1.isBottom() || s1.value == s2.value;
+		}
+
+		@Override
+		public InitFunc<CounterState, BoundPrec> getInitFunc() {
+			return p -> Collections.singleton(new CounterState(0));
+		}
+
+		@Override
+		public TransFunc<CounterState, CounterAction, BoundPrec> getTransFunc() {
+			return (s, a, p) -> {
+				final int value = a == CounterAction.INC ? s.value + 1 : s.value;
+				return Collections.singleton(value > p.bound ? new CounterState(-1) : new CounterState(value));
+			};
+		}
+	};
+
+	private final ArgBuilder<CounterState, CounterAction, BoundPrec> argBuilder = ArgBuilder.create(lts, analysis,
+			s -> s.value == MAX, true);
+
+	@Test
+	public void testStrengthen() {
+		final Abstractor<CounterState, CounterAction, BoundPrec> abstractor = BasicAbstractor.builder(argBuilder)
+				.build();
+		final ARG<CounterState, CounterAction> arg = abstractor.createArg();
+
+		abstractor.check(arg, new BoundPrec(MAX));
+		assertFalse(arg.isSafe());
+
+		final ArgTrace<CounterState, CounterAction> cex = arg.getCexs().findFirst().get();
+		final ArgNode<CounterState, CounterAction> node = cex.node(2);
+		argBuilder.strengthen(node, new BoundPrec(3));
+		assertTrue(arg.isSafe());
+		assertConsistent(arg);
+
+		abstractor.check(arg, new BoundPrec(3));
+		assertTrue(arg.isSafe());
+		assertTrue(arg.isComplete());
+		assertSame(node, cex.node(0).getSuccNodes().flatMap(ArgNode::getSuccNodes).filter(n -> n.getState().value == 2)
+				.findFirst().get());
+		assertConsistent(arg);
+	}
+
+	@Test
+	public void testStrengthenToBottom() {
+		final Abstractor<CounterState, CounterAction, BoundPrec> abstractor = BasicAbstractor.builder(argBuilder)
+				.build();
+		final ARG<CounterState, CounterAction> arg = abstractor.createArg();
+
+		abstractor.check(arg, new BoundPrec(MAX));
+		final ArgTrace<CounterState, CounterAction> cex = arg.getCexs().findFirst().get();
+		argBuilder.strengthen(cex.node(1), new BoundPrec(0));
+		assertFalse(arg.getNodes().anyMatch(n -> n.equals(cex.node(1))));
+
+		abstractor.check(arg, new BoundPrec(0));
+		assertTrue(arg.isSafe());
+		assertTrue(arg.isComplete());
+		assertConsistent(arg);
+	}
+
+	private void assertConsistent(final ARG<CounterState, CounterAction> arg) {
+		final List<ArgNode<CounterState, CounterAction>> nodes = arg.getNodes().collect(toList());
+		for (final ArgNode<CounterState, CounterAction> node : nodes) {
+			if (node.getCoveringNode().isPresent()) {
+				final ArgNode<CounterState, CounterAction> coveringNode = node.getCoveringNode().get();
+				assertTrue(nodes.contains(coveringNode));
+				assertTrue(analysis.getPartialOrd().isLeq(node.getState(), coveringNode.getState()));
+			}
+		}
+	}
+
+	private static final class CounterState implements State {
+		private final int value;
+
+		private CounterState(final int value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean isBottom() {
+			return value < 0;
+		}
+	}
+
+	private enum CounterAction implements Action {
+		INC, STAY
+	}
+
+	private static final class BoundPrec implements Prec {
+		private final int bound;
+
+		private BoundPrec(final int bound) {
+			this.bound = bound;
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.budget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.AbstractorResult;
+import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.CegarStatistics;
+import hu.bme.mit.theta.analysis.algorithm.cegar.RefinerResult;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.analysis.stubs.PrecStub;
+import hu.bme.mit.theta.analysis.stubs.StateStub;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+public class BudgetTest {
+
+	// Abstractor and refiner that never terminate on their own
+	private final Abstractor<StateStub, ActionStub, PrecStub> abstractor = new Abstractor<StateStub, ActionStub, PrecStub>() {
+		@Override
+		public ARG<StateStub, ActionStub> createArg() {
+			return ARG.create((s1, s2) -> false);
+		}
+
+		@Override
+		public AbstractorResult check(final ARG<StateStub, ActionStub> arg, final PrecStub prec) {
+			return AbstractorResult.unsafe();
+		}
+	};
+
+	@Test
+	public void testUnlimited() {
+		final Budget budget = Budget.unlimited();
+		budget.checkNodes(Integer.MAX_VALUE);
+		budget.checkIterations(Integer.MAX_VALUE);
+	}
+
+	@Test(expected = BudgetExceededException.class)
+	public void testNodes() {
+		final Budget budget = Budget.builder().maxNodes(10).build();
+		budget.checkNodes(9);
+		budget.checkNodes(10);
+	}
+
+	@Test(expected = BudgetExceededException.class)
+	public void testCancel() {
+		final Budget budget = Budget.unlimited();
+		budget.check();
+		budget.cancel();
+		budget.check();
+	}
+
+	@Test(expected = BudgetExceededException.class)
+	public void testTimeout() throws InterruptedException {
+		final Budget budget = Budget.builder().timeout(1, TimeUnit.MILLISECONDS).build();
+		Thread.sleep(10);
+		budget.check();
+	}
+
+	@Test(expected = BudgetExceededException.class)
+	public void testStartOnce() throws InterruptedException {
+		final Budget budget = Budget.builder().timeout(5, TimeUnit.MILLISECONDS).build();
+		budget.start();
+		Thread.sleep(10);
+		budget.start();
+		budget.check();
+	}
+
+	@Test
+	public void testCegarIterations() {
+		final Budget budget = Budget.builder().maxIterations(3).build();
+		final CegarChecker<StateStub, ActionStub, PrecStub> checker = CegarChecker.create(abstractor,
+				(arg, prec) -> RefinerResult.spurious(prec), budget, NullLogger.getInstance());
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isUnknown());
+		assertEquals(3, ((CegarStatistics) result.getStats().get()).getIterations());
+	}
+
+	@Test
+	public void testCegarCancel() {
+		final Budget budget = Budget.unlimited();
+		final CegarChecker<StateStub, ActionStub, PrecStub> checker = CegarChecker.create(abstractor,
+				(arg, prec) -> {
+					budget.cancel();
+					return RefinerResult.spurious(prec);
+				}, budget, NullLogger.getInstance());
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isUnknown());
+		assertEquals(1, ((CegarStatistics) result.getStats().get()).getIterations());
+	}
+
+}
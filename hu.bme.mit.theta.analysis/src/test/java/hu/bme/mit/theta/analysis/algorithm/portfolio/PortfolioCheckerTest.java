@@ -0,0 +1,167 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.analysis.stubs.PrecStub;
+import hu.bme.mit.theta.analysis.stubs.StateStub;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+
+public class PortfolioCheckerTest {
+
+	@Test
+	public void testFirstResultWinsAndOthersAreCancelled() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		final PortfolioChecker<StateStub, ActionStub, PrecStub> checker = PortfolioChecker
+				.<StateStub, ActionStub, PrecStub>builder().add("slow", p -> {
+					started.countDown();
+					while (!Thread.currentThread().isInterrupted()) {
+						Thread.yield();
+					}
+					interrupted.countDown();
+					throw new IllegalStateException("Cancelled");
+				}).add("failing", p -> {
+					throw new UnsupportedOperationException();
+				}).add("fast", p -> {
+					try {
+						started.await();
+					} catch (final InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return SafetyResult.safe(ARG.create((s1, s2) -> false));
+				}).build();
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isSafe());
+		assertTrue(result.getStats().isPresent());
+		assertTrue(result.getStats().get() instanceof PortfolioStatistics);
+		assertEquals("fast", ((PortfolioStatistics) result.getStats().get()).getWinner());
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testAwaitTermination() {
+		final CountDownLatch started = new CountDownLatch(1);
+		final AtomicBoolean stopped = new AtomicBoolean(false);
+
+		final PortfolioChecker<StateStub, ActionStub, PrecStub> checker = PortfolioChecker
+				.<StateStub, ActionStub, PrecStub>builder().add("slow", p -> {
+					started.countDown();
+					while (!Thread.currentThread().isInterrupted()) {
+						Thread.yield();
+					}
+					// Cleanup that takes some time after the interrupt
+					final long cleanupEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+					while (System.nanoTime() < cleanupEnd) {
+						Thread.yield();
+					}
+					stopped.set(true);
+					throw new IllegalStateException("Cancelled");
+				}).add("fast", p -> {
+					try {
+						started.await();
+					} catch (final InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return SafetyResult.safe(ARG.create((s1, s2) -> false));
+				}).awaitTermination(true).build();
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isSafe());
+		assertTrue(stopped.get());
+	}
+
+	@Test
+	public void testUnknownIsNotConclusive() {
+		final CountDownLatch unknownDone = new CountDownLatch(1);
+
+		final PortfolioChecker<StateStub, ActionStub, PrecStub> checker = PortfolioChecker
+				.<StateStub, ActionStub, PrecStub>builder().add("unknown", p -> {
+					unknownDone.countDown();
+					return SafetyResult.unknown(ARG.create((s1, s2) -> false));
+				}).add("safe", p -> {
+					try {
+						unknownDone.await();
+					} catch (final InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return SafetyResult.safe(ARG.create((s1, s2) -> false));
+				}).build();
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isSafe());
+		assertEquals("safe", ((PortfolioStatistics) result.getStats().get()).getWinner());
+	}
+
+	@Test
+	public void testOwnInitPrecs() {
+		final ExplPrec explPrec = ExplPrec.empty();
+		final PrecStub precStub = new PrecStub();
+		final Set<Prec> precs = ConcurrentHashMap.newKeySet();
+
+		final SafetyChecker<StateStub, ActionStub, ExplPrec> explChecker = p -> {
+			precs.add(p);
+			return SafetyResult.unknown(ARG.create((s1, s2) -> false));
+		};
+		final SafetyChecker<StateStub, ActionStub, PrecStub> stubChecker = p -> {
+			precs.add(p);
+			return SafetyResult.unknown(ARG.create((s1, s2) -> false));
+		};
+		final PortfolioChecker<StateStub, ActionStub, UnitPrec> checker = PortfolioChecker
+				.<StateStub, ActionStub, UnitPrec>builder().add("expl", explChecker, explPrec)
+				.add("stub", stubChecker, precStub).build();
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(UnitPrec.getInstance());
+
+		assertTrue(result.isUnknown());
+		assertEquals(ImmutableSet.of(explPrec, precStub), precs);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAllFailing() {
+		final PortfolioChecker<StateStub, ActionStub, PrecStub> checker = PortfolioChecker
+				.<StateStub, ActionStub, PrecStub>builder().add("failing1", p -> {
+					throw new UnsupportedOperationException();
+				}).add("failing2", p -> {
+					throw new UnsupportedOperationException();
+				}).build();
+		checker.check(new PrecStub());
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.portfolio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetExceededException;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.analysis.stubs.PrecStub;
+import hu.bme.mit.theta.analysis.stubs.StateStub;
+import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.RandomWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+
+public class SwarmCheckerTest {
+
+	@Test
+	public void testFirstCexStopsWorkers() {
+		final SwarmChecker<StateStub, ActionStub, PrecStub> checker = SwarmChecker
+				.<StateStub, ActionStub, PrecStub>builder((worker, budget) -> p -> {
+					final ARG<StateStub, ActionStub> arg = ARG.create((s1, s2) -> false);
+					if (worker == 2) {
+						final Trace<StateStub, ActionStub> cex = Trace.of(
+								Collections.singletonList(new StateStub("s")), Collections.emptyList());
+						return SafetyResult.unsafe(cex, arg);
+					}
+					try {
+						while (true) {
+							budget.check();
+						}
+					} catch (final BudgetExceededException e) {
+						return SafetyResult.unknown(arg);
+					}
+				}).workers(4).build();
+
+		final SafetyResult<StateStub, ActionStub> result = checker.check(new PrecStub());
+
+		assertTrue(result.isUnsafe());
+		assertEquals("Worker 2", ((PortfolioStatistics) result.getStats().get()).getWinner());
+	}
+
+	@Test
+	public void testDiversifiedWaitlists() {
+		assertTrue(SwarmChecker.createWaitlist(0, 0, ArgNodeComparators.bfs()) instanceof PriorityWaitlist);
+		assertTrue(SwarmChecker.createWaitlist(1, 0, ArgNodeComparators.bfs()) instanceof PriorityWaitlist);
+		assertTrue(SwarmChecker.createWaitlist(100, 0, ArgNodeComparators.bfs()) instanceof RandomWaitlist);
+	}
+
+	@Test
+	public void testWorkersDiffer() {
+		for (final ArgNodeComparator comparator : ImmutableList.of(
+				ArgNodeComparators.combine(ArgNodeComparators.targetFirst(), ArgNodeComparators.bfs()),
+				ArgNodeComparators.combine(ArgNodeComparators.targetFirst(), ArgNodeComparators.dfs()))) {
+			final Set<String> waitlists = new HashSet<>();
+			for (int worker = 0; worker < 5; ++worker) {
+				final Waitlist<?> waitlist = SwarmChecker.createWaitlist(worker, 0, comparator);
+				assertTrue(waitlist instanceof PriorityWaitlist);
+				assertTrue(waitlists.add(waitlist.toString()));
+			}
+			assertTrue(SwarmChecker.createWaitlist(5, 0, comparator) instanceof RandomWaitlist);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.cegar.RefinerResult;
+import hu.bme.mit.theta.analysis.expl.ExplOrd;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.analysis.stubs.PrecStub;
+import hu.bme.mit.theta.core.decl.Decls;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntLitExpr;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+
+public class MultiExprTraceRefinerTest {
+
+	private static final VarDecl<IntType> X = Decls.Var("x", Int());
+
+	private static final ExprAction ACT = new ExprAction() {
+		@Override
+		public Expr<BoolType> toExpr() {
+			return True();
+		}
+
+		@Override
+		public VarIndexing nextIndexing() {
+			return VarIndexing.all(1);
+		}
+	};
+
+	private final AtomicInteger refinements = new AtomicInteger();
+	private final PrecRefiner<ExplState, ExprAction, PrecStub, Refutation> precRefiner = (p, t, r) -> {
+		refinements.incrementAndGet();
+		return p;
+	};
+
+	private ARG<ExplState, ExprAction> arg;
+	private ArgNode<ExplState, ExprAction> n0;
+
+	@Before
+	public void before() {
+		// Pruning indexes are encoded into the value of the last state
+		arg = ARG.create(ExplOrd.getInstance());
+		n0 = arg.createInitNode(state(0), false);
+		final ArgNode<ExplState, ExprAction> a1 = arg.createSuccNode(n0, ACT, state(10), false);
+		arg.createSuccNode(a1, ACT, state(1), true);
+		arg.createSuccNode(a1, ACT, state(2), true);
+		arg.createSuccNode(n0, ACT, state(1), true);
+		arg.createSuccNode(n0, ACT, state(20), false);
+	}
+
+	@Test
+	public void testSpurious() {
+		for (final int threads : new int[] { 1, 2 }) {
+			before();
+			refinements.set(0);
+			final MultiExprTraceRefiner<ExplState, ExprAction, PrecStub, Refutation> refiner = MultiExprTraceRefiner
+					.builder(this::check, () -> this::check, precRefiner).threads(threads).build();
+
+			final RefinerResult<ExplState, ExprAction, PrecStub> result = refiner.refine(arg, new PrecStub());
+
+			assertTrue(result.isSpurious());
+			assertEquals(3, refinements.get());
+			assertEquals(ImmutableSet.of(0, 20), arg.getNodes().map(n -> value(n.getState())).collect(toSet()));
+			assertTrue(arg.isSafe());
+		}
+	}
+
+	@Test
+	public void testMaxCexs() {
+		final MultiExprTraceRefiner<ExplState, ExprAction, PrecStub, Refutation> refiner = MultiExprTraceRefiner
+				.builder(this::check, () -> this::check, precRefiner).maxCexs(1).build();
+
+		final RefinerResult<ExplState, ExprAction, PrecStub> result = refiner.refine(arg, new PrecStub());
+
+		assertTrue(result.isSpurious());
+		assertEquals(1, refinements.get());
+		assertEquals(2, arg.getUnsafeNodes().count() + refinements.get());
+	}
+
+	@Test
+	public void testFeasible() {
+		final ArgNode<ExplState, ExprAction> target = arg.createSuccNode(n0, ACT, state(-1), true);
+		final MultiExprTraceRefiner<ExplState, ExprAction, PrecStub, Refutation> refiner = MultiExprTraceRefiner
+				.builder(this::check, () -> this::check, precRefiner).build();
+
+		final RefinerResult<ExplState, ExprAction, PrecStub> result = refiner.refine(arg, new PrecStub());
+
+		assertTrue(result.isUnsafe());
+		assertEquals(target.getState(), result.asUnsafe().getCex().getState(1));
+		assertEquals(0, refinements.get());
+		assertEquals(4, arg.getUnsafeNodes().count());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+		final MultiExprTraceRefiner<ExplState, ExprAction, PrecStub, Refutation> refiner = MultiExprTraceRefiner
+				.builder(this::check, () -> this::check, precRefiner).threads(2).build();
+		refiner.close();
+		refiner.refine(arg, new PrecStub());
+	}
+
+	private ExprTraceStatus<Refutation> check(final Trace<? extends ExprState, ? extends ExprAction> trace) {
+		final int value = value((ExplState) trace.getState(trace.length()));
+		if (value < 0) {
+			return ExprTraceStatus.feasible(Trace.of(
+					Collections.nCopies(trace.length() + 1, ImmutableValuation.empty()), trace.getActions()));
+		} else {
+			return ExprTraceStatus.infeasible(() -> value);
+		}
+	}
+
+	private static ExplState state(final int value) {
+		return ExplState.of(ImmutableValuation.builder().put(X, Int(value)).build());
+	}
+
+	private static int value(final ExplState state) {
+		return ((IntLitExpr) state.eval(X).get()).getValue();
+	}
+
+}
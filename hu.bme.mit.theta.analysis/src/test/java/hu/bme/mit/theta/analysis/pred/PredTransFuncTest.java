@@ -16,15 +16,21 @@
 package hu.bme.mit.theta.analysis.pred;
 
 import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Iff;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Gt;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+import static java.util.stream.Collectors.toList;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -37,7 +43,10 @@ import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.stmt.Stmt;
 import hu.bme.mit.theta.core.stmt.Stmts;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 
@@ -46,6 +55,9 @@ public class PredTransFuncTest {
 	private final VarDecl<IntType> y = Var("y", Int());
 	private final Solver solver = Z3SolverFactory.getInstace().createSolver();
 	private final PredTransFunc transFunc = PredTransFunc.create(PredAbstractors.booleanSplitAbstractor(solver));
+	private final PredTransFunc splitTransFunc = PredTransFunc.create(PredAbstractors.booleanSplitAbstractor(solver));
+	private final PredTransFunc boolTransFunc = PredTransFunc.create(PredAbstractors.booleanAbstractor(solver));
+	private final PredTransFunc allSatTransFunc = PredTransFunc.create(PredAbstractors.allSatAbstractor(solver));
 
 	@Test
 	public void test1() {
@@ -85,6 +97,70 @@ public class PredTransFuncTest {
 		Assert.assertEquals(PredState.bottom(), Utils.singleElementOf(succStates));
 	}
 
+	@Test
+	public void testAllSat() {
+		// (x>0) ---[x := x+1]--> (x>0, y>0)?
+		final PredPrec prec = PredPrec.of(ImmutableList.of(Gt(x.getRef(), Int(0)), Gt(y.getRef(), Int(0))));
+		final PredState state = PredState.of(Gt(x.getRef(), Int(0)));
+		final ExprAction action = new BasicStmtAction(Stmts.Assign(x, Add(x.getRef(), Int(1))));
+		final Collection<? extends PredState> succStates = allSatTransFunc.getSuccStates(state, action, prec);
+		// y>0 is unconstrained, so it is omitted
+		Assert.assertEquals(1, succStates.size());
+		Assert.assertEquals(PredState.of(Gt(x.getRef(), Int(0))), Utils.singleElementOf(succStates));
+		Assert.assertSame(succStates, allSatTransFunc.getSuccStates(state, action, prec));
+	}
+
+	@Test
+	public void testAllSatMinimized() {
+		// (x>0) ---[x := x+y]--> (x>0, y>0)?
+		final PredPrec prec = PredPrec.of(ImmutableList.of(Gt(x.getRef(), Int(0)), Gt(y.getRef(), Int(0))));
+		final PredState state = PredState.of(Gt(x.getRef(), Int(0)));
+		final ExprAction action = new BasicStmtAction(Stmts.Assign(x, Add(x.getRef(), y.getRef())));
+		// The three valuations are covered by the cubes (x>0) and (y<=0)
+		Assert.assertEquals(3, splitTransFunc.getSuccStates(state, action, prec).size());
+		Assert.assertEquals(2, allSatTransFunc.getSuccStates(state, action, prec).size());
+		assertSameAbstraction(state, action, prec);
+	}
+
+	@Test
+	public void testAllSatSameAsBoolean() {
+		final PredPrec prec = PredPrec.of(
+				ImmutableList.of(Gt(x.getRef(), Int(0)), Lt(x.getRef(), Int(5)), Gt(y.getRef(), Int(0))));
+
+		// (x>0) ---[x := x+1]--> (x>0, x<5, y>0)?
+		assertSameAbstraction(PredState.of(Gt(x.getRef(), Int(0))),
+				new BasicStmtAction(Stmts.Assign(x, Add(x.getRef(), Int(1)))), prec);
+		// (x>0) ---[x := x+y]--> (x>0, x<5, y>0)?
+		assertSameAbstraction(PredState.of(Gt(x.getRef(), Int(0))),
+				new BasicStmtAction(Stmts.Assign(x, Add(x.getRef(), y.getRef()))), prec);
+		// (x<5, y>0) ---[y := y+1]--> (x>0, x<5, y>0)?
+		assertSameAbstraction(PredState.of(Lt(x.getRef(), Int(5)), Gt(y.getRef(), Int(0))),
+				new BasicStmtAction(Stmts.Assign(y, Add(y.getRef(), Int(1)))), prec);
+		// () ---[assume x=y]--> (x>0, x<5, y>0)?
+		assertSameAbstraction(PredState.of(), new BasicStmtAction(Stmts.Assume(Eq(x.getRef(), y.getRef()))), prec);
+	}
+
+	// The all-SAT states only consist of predicates of the precision and they
+	// are equivalent to the states of the Boolean abstraction
+	private void assertSameAbstraction(final PredState state, final ExprAction action, final PredPrec prec) {
+		final Collection<? extends PredState> allSatStates = allSatTransFunc.getSuccStates(state, action, prec);
+		final Collection<? extends PredState> boolStates = boolTransFunc.getSuccStates(state, action, prec);
+
+		final Set<Expr<BoolType>> literals = new HashSet<>();
+		for (final Expr<BoolType> pred : prec.getPreds()) {
+			literals.add(pred);
+			literals.add(prec.negate(pred));
+		}
+		for (final PredState succState : allSatStates) {
+			Assert.assertTrue(literals.containsAll(succState.getPreds()));
+		}
+
+		final Expr<BoolType> allSatExpr = Or(allSatStates.stream().map(PredState::toExpr).collect(toList()));
+		final Expr<BoolType> boolExpr = Utils.singleElementOf(boolStates).toExpr();
+		Assert.assertTrue(solver.check(ImmutableList.of(PathUtils.unfold(Not(Iff(allSatExpr, boolExpr)), 0))).isUnsat());
+		Assert.assertTrue(allSatStates.size() <= splitTransFunc.getSuccStates(state, action, prec).size());
+	}
+
 	private static final class BasicStmtAction extends StmtAction {
 		private final Stmt stmt;
 
@@ -0,0 +1,125 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.reachedset;
+
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.expl.ExplOrd;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.stubs.ActionStub;
+import hu.bme.mit.theta.core.decl.Decls;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public class IndexedReachedSetTest {
+
+	private final VarDecl<IntType> X = Decls.Var("x", Int());
+	private final VarDecl<IntType> Y = Decls.Var("y", Int());
+
+	private final ExplState s0 = ExplState.of(ImmutableValuation.builder().put(X, Int(0)).build());
+	private final ExplState s1 = ExplState.of(ImmutableValuation.builder().put(X, Int(1)).build());
+	private final ExplState s2 = ExplState.of(ImmutableValuation.builder().put(X, Int(2)).build());
+	private final ExplState s11 = ExplState.of(ImmutableValuation.builder().put(X, Int(1)).put(Y, Int(1)).build());
+	private final ExplState s12 = ExplState.of(ImmutableValuation.builder().put(X, Int(1)).put(Y, Int(2)).build());
+
+	private final Action act = new ActionStub("A");
+
+	@Test
+	public void testExactFirst() {
+		final ARG<ExplState, Action> arg = ARG.create(ExplOrd.getInstance());
+		final ReachedSet<ExplState, Action> reachedSet = IndexedReachedSet.create(s -> s.eval(X), s -> s);
+
+		final ArgNode<ExplState, Action> n0 = arg.createInitNode(s0, false);
+		final ArgNode<ExplState, Action> n1 = arg.createSuccNode(n0, act, s1, false);
+		final ArgNode<ExplState, Action> n11 = arg.createSuccNode(n0, act, s11, false);
+		final ArgNode<ExplState, Action> n11b = arg.createSuccNode(n0, act, s11, false);
+		reachedSet.addAll(arg.getNodes());
+
+		reachedSet.tryToCover(n11b);
+		assertEquals(n11, n11b.getCoveringNode().get());
+		assertFalse(n1.isSubsumed());
+	}
+
+	@Test
+	public void testSubsumed() {
+		final ARG<ExplState, Action> arg = ARG.create(ExplOrd.getInstance());
+		final ReachedSet<ExplState, Action> reachedSet = IndexedReachedSet.create(s -> s.eval(X), s -> s);
+
+		final ArgNode<ExplState, Action> n0 = arg.createInitNode(s0, false);
+		final ArgNode<ExplState, Action> n11 = arg.createSuccNode(n0, act, s11, false);
+		final ArgNode<ExplState, Action> n1 = arg.createSuccNode(n0, act, s1, false);
+		final ArgNode<ExplState, Action> n12 = arg.createSuccNode(n0, act, s12, false);
+		final ArgNode<ExplState, Action> n2 = arg.createSuccNode(n0, act, s2, false);
+		reachedSet.addAll(arg.getNodes());
+
+		reachedSet.tryToCover(n12);
+		assertEquals(n1, n12.getCoveringNode().get());
+
+		reachedSet.tryToCover(n2);
+		assertFalse(n2.isSubsumed());
+		assertFalse(n11.isSubsumed());
+	}
+
+	@Test
+	public void testLiterals() {
+		final ARG<ExplState, Action> arg = ARG.create(ExplOrd.getInstance());
+		final ReachedSet<ExplState, Action> reachedSet = IndexedReachedSet.create(s -> 0, s -> s,
+				s -> s.toMap().entrySet());
+
+		final ArgNode<ExplState, Action> n0 = arg.createInitNode(s0, false);
+		final ArgNode<ExplState, Action> n11 = arg.createSuccNode(n0, act, s11, false);
+		final ArgNode<ExplState, Action> n1 = arg.createSuccNode(n0, act, s1, false);
+		final ArgNode<ExplState, Action> n12 = arg.createSuccNode(n0, act, s12, false);
+		final ArgNode<ExplState, Action> n2 = arg.createSuccNode(n0, act, s2, false);
+		reachedSet.addAll(arg.getNodes());
+
+		reachedSet.tryToCover(n12);
+		assertEquals(n1, n12.getCoveringNode().get());
+
+		reachedSet.tryToCover(n2);
+		assertFalse(n2.isSubsumed());
+
+		final ArgNode<ExplState, Action> nTop = arg.createSuccNode(n0, act, ExplState.top(), false);
+		final ArgNode<ExplState, Action> nY = arg.createSuccNode(n0, act,
+				ExplState.of(ImmutableValuation.builder().put(Y, Int(1)).build()), false);
+		reachedSet.add(nTop);
+		reachedSet.tryToCover(nY);
+		assertEquals(nTop, nY.getCoveringNode().get());
+		assertFalse(n11.isSubsumed());
+	}
+
+	@Test
+	public void testDescendantNotCovering() {
+		final ARG<ExplState, Action> arg = ARG.create(ExplOrd.getInstance());
+		final ReachedSet<ExplState, Action> reachedSet = IndexedReachedSet.create(s -> 0, s -> s);
+
+		final ArgNode<ExplState, Action> n11 = arg.createInitNode(s11, false);
+		arg.createSuccNode(n11, act, s1, false);
+		reachedSet.addAll(arg.getNodes());
+
+		reachedSet.tryToCover(n11);
+		assertFalse(n11.isSubsumed());
+	}
+
+}
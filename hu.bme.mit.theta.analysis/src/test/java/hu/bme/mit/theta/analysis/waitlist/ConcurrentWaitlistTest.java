@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.waitlist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+public class ConcurrentWaitlistTest {
+
+	private static final int THREADS = 4;
+	private static final int ITEMS_PER_THREAD = 10000;
+
+	@Test
+	public void testFifo() {
+		final Waitlist<String> waitlist = ConcurrentFifoWaitlist.create();
+		waitlist.add("A");
+		waitlist.add("B");
+		waitlist.add("C");
+		assertEquals(3, waitlist.size());
+		assertEquals("A", waitlist.remove());
+		assertEquals("B", waitlist.remove());
+		waitlist.add("D");
+		assertEquals("C", waitlist.remove());
+		assertEquals("D", waitlist.remove());
+		assertTrue(waitlist.isEmpty());
+		assertFalse(waitlist.poll().isPresent());
+	}
+
+	@Test
+	public void testWorkStealingSingleThread() {
+		final Waitlist<String> waitlist = WorkStealingWaitlist.create(4);
+		waitlist.add("A");
+		waitlist.add("B");
+		waitlist.add("C");
+		assertEquals(3, waitlist.size());
+		assertEquals("C", waitlist.remove());
+		waitlist.add("D");
+		assertEquals("D", waitlist.remove());
+		assertEquals("B", waitlist.remove());
+		assertEquals("A", waitlist.remove());
+		assertTrue(waitlist.isEmpty());
+	}
+
+	@Test
+	public void testWorkStealingSteal() throws InterruptedException {
+		final Waitlist<String> waitlist = WorkStealingWaitlist.create(2);
+		waitlist.add("A");
+		waitlist.add("B");
+		final List<String> stolen = new ArrayList<>();
+		final Thread thief = new Thread(() -> stolen.add(waitlist.remove()));
+		thief.start();
+		thief.join();
+		// The oldest item is stolen
+		assertEquals("A", stolen.get(0));
+		assertEquals("B", waitlist.remove());
+	}
+
+	@Test
+	public void testMultiQueueSingleQueue() {
+		final Waitlist<String> waitlist = MultiQueueWaitlist.create(Comparator.naturalOrder(), 1);
+		waitlist.add("C");
+		waitlist.add("A");
+		waitlist.add("D");
+		waitlist.add("B");
+		assertEquals("A", waitlist.remove());
+		assertEquals("B", waitlist.remove());
+		waitlist.add("E");
+		assertEquals("C", waitlist.remove());
+		waitlist.clear();
+		assertEquals(0, waitlist.size());
+		assertTrue(waitlist.isEmpty());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testMultiQueueException() {
+		final Waitlist<String> waitlist = MultiQueueWaitlist.create(Comparator.naturalOrder(), 4);
+		waitlist.remove();
+	}
+
+	@Test
+	public void testFifoConcurrent() throws InterruptedException {
+		testConcurrent(ConcurrentFifoWaitlist.create());
+	}
+
+	@Test
+	public void testWorkStealingConcurrent() throws InterruptedException {
+		testConcurrent(WorkStealingWaitlist.create(THREADS));
+	}
+
+	@Test
+	public void testMultiQueueConcurrent() throws InterruptedException {
+		testConcurrent(MultiQueueWaitlist.create(Comparator.naturalOrder(), 2 * THREADS));
+	}
+
+	// Each thread adds its own items and removes items until all items are
+	// removed, checking that every item is removed exactly once
+	private void testConcurrent(final Waitlist<Integer> waitlist) throws InterruptedException {
+		final int total = THREADS * ITEMS_PER_THREAD;
+		final AtomicIntegerArray removed = new AtomicIntegerArray(total);
+		final AtomicInteger removedCount = new AtomicInteger(0);
+		final List<Thread> threads = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; ++t) {
+			final int offset = t * ITEMS_PER_THREAD;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < ITEMS_PER_THREAD; ++i) {
+					waitlist.add(offset + i);
+					if (i % 2 == 1) {
+						waitlist.poll().ifPresent(item -> {
+							removed.incrementAndGet(item);
+							removedCount.incrementAndGet();
+						});
+					}
+				}
+				while (removedCount.get() < total) {
+					final Optional<Integer> item = waitlist.poll();
+					if (item.isPresent()) {
+						removed.incrementAndGet(item.get());
+						removedCount.incrementAndGet();
+					}
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+
+		for (int i = 0; i < total; ++i) {
+			assertEquals(1, removed.get(i));
+		}
+		assertTrue(waitlist.isEmpty());
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.waitlist;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Measures the throughput of the concurrent waitlists with 1 to 64 threads. The
+ * results are printed to the standard output, only the number of removed items
+ * is checked.
+ */
+@RunWith(Parameterized.class)
+public class WaitlistThroughputTest {
+
+	private static final int ITEMS = 1 << 16;
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+
+	@Parameter(value = 0)
+	public String name;
+
+	@Parameter(value = 1)
+	public IntFunction<Waitlist<Integer>> factory;
+
+	@Parameter(value = 2)
+	public int threads;
+
+	@Parameters(name = "{0}, {2} threads")
+	public static Collection<Object[]> data() {
+		final List<Object[]> data = new ArrayList<>();
+		for (final int threads : THREADS) {
+			data.add(new Object[] { "ConcurrentFifo", (IntFunction<Waitlist<Integer>>) n -> ConcurrentFifoWaitlist
+					.create(), threads });
+			data.add(new Object[] { "WorkStealing", (IntFunction<Waitlist<Integer>>) WorkStealingWaitlist::create,
+					threads });
+			data.add(new Object[] { "MultiQueue", (IntFunction<Waitlist<Integer>>) n -> MultiQueueWaitlist
+					.create(Comparator.naturalOrder(), 2 * n), threads });
+		}
+		return data;
+	}
+
+	// Each thread alternates between adding and removing items, then removes
+	// items until all of them are removed
+	@Test
+	public void test() throws Exception {
+		final Waitlist<Integer> waitlist = factory.apply(threads);
+		final int itemsPerThread = ITEMS / threads;
+		final int total = itemsPerThread * threads;
+		final AtomicInteger removed = new AtomicInteger(0);
+		final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+		final List<Thread> workers = new ArrayList<>();
+
+		for (int t = 0; t < threads; ++t) {
+			final int offset = t * itemsPerThread;
+			workers.add(new Thread(() -> {
+				try {
+					barrier.await();
+				} catch (final Exception e) {
+					throw new IllegalStateException(e);
+				}
+				for (int i = 0; i < itemsPerThread; ++i) {
+					waitlist.add(offset + i);
+					if (i % 2 == 1 && waitlist.poll().isPresent()) {
+						removed.incrementAndGet();
+					}
+				}
+				while (removed.get() < total) {
+					final Optional<Integer> item = waitlist.poll();
+					if (item.isPresent()) {
+						removed.incrementAndGet();
+					}
+				}
+			}));
+		}
+
+		workers.forEach(Thread::start);
+		barrier.await();
+		final long start = System.nanoTime();
+		for (final Thread worker : workers) {
+			worker.join();
+		}
+		final long elapsed = System.nanoTime() - start;
+
+		assertEquals(total, removed.get());
+		// An operation is an addition or a removal
+		System.out.println(String.format("%s, %d threads: %.0f ops/ms", name, threads,
+				2.0 * total / (elapsed / 1_000_000.0)));
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.zone;
+
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Geq;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Gt;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Leq;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Lt;
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.clock.constr.ClockConstr;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.rattype.RatType;
+
+public class ZoneFederationTest {
+
+	private final VarDecl<RatType> x = Var("x", Rat());
+	private final VarDecl<RatType> y = Var("y", Rat());
+	private final Collection<VarDecl<RatType>> clocks = ImmutableList.of(x, y);
+
+	private ZoneState zone(final ClockConstr... constrs) {
+		return ZoneState.zero(clocks).transform().up().and(ImmutableList.copyOf(constrs)).build();
+	}
+
+	@Test
+	public void testSubtractDisjoint() {
+		final DBM dbm1 = zone(Leq(x, 3)).getDbm();
+		final DBM dbm2 = zone(Gt(x, 3)).getDbm();
+
+		final Collection<DBM> result = dbm1.subtract(dbm2);
+
+		assertEquals(1, result.size());
+		assertEquals(dbm1, result.iterator().next());
+		assertFalse(dbm1.intersects(dbm2));
+	}
+
+	@Test
+	public void testSubtractIncluded() {
+		final DBM dbm1 = zone(Leq(x, 3)).getDbm();
+		final DBM dbm2 = zone(Leq(x, 5)).getDbm();
+
+		assertTrue(dbm1.subtract(dbm2).isEmpty());
+	}
+
+	@Test
+	public void testSubtractSplits() {
+		final DBM dbm1 = zone(Leq(x, 10)).getDbm();
+		final DBM dbm2 = zone(Geq(x, 3), Leq(x, 5)).getDbm();
+
+		final Collection<DBM> result = dbm1.subtract(dbm2);
+
+		assertEquals(2, result.size());
+		for (final DBM piece : result) {
+			assertTrue(piece.isLeq(dbm1));
+			assertFalse(piece.intersects(dbm2));
+		}
+	}
+
+	@Test
+	public void testCoversByUnion() {
+		final ZoneFederation federation = ZoneFederation.of(ImmutableList.of(zone(Leq(x, 5)), zone(Geq(x, 3))));
+
+		assertEquals(2, federation.getZones().size());
+		assertTrue(federation.covers(zone(Leq(x, 10))));
+		assertTrue(federation.covers(zone(Lt(x, 0))));
+	}
+
+	@Test
+	public void testDoesNotCoverGap() {
+		final ZoneFederation federation = ZoneFederation.of(ImmutableList.of(zone(Lt(x, 3)), zone(Gt(x, 3))));
+
+		assertFalse(federation.covers(zone(Leq(x, 10))));
+		assertTrue(federation.covers(zone(Leq(x, 2))));
+	}
+
+	@Test
+	public void testAddReduces() {
+		final ZoneFederation federation1 = ZoneFederation.of(ImmutableList.of(zone(Leq(x, 3)), zone(Geq(y, 2))));
+		final ZoneFederation federation2 = federation1.add(zone(Leq(x, 1)));
+		final ZoneFederation federation3 = federation1.add(zone(Leq(x, 5)));
+
+		assertSame(federation1, federation2);
+		assertEquals(2, federation3.getZones().size());
+		assertTrue(federation3.getZones().contains(zone(Leq(x, 5))));
+		assertFalse(federation3.getZones().contains(zone(Leq(x, 3))));
+	}
+
+}
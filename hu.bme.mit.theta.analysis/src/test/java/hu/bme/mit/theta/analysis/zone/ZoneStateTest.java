@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.zone;
+
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Geq;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Gt;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Leq;
+import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Lt;
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.clock.constr.ClockConstr;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.rattype.RatType;
+
+public class ZoneStateTest {
+
+	private final VarDecl<RatType> x = Var("x", Rat());
+	private final VarDecl<RatType> y = Var("y", Rat());
+	private final Collection<VarDecl<RatType>> clocks = ImmutableList.of(x, y);
+
+	@Test
+	public void testEqualZonesAreEqual() {
+		final ZoneState zone1 = ZoneState.zero(clocks).transform().up().and(Leq(x, 5)).build();
+		final ZoneState zone2 = ZoneState.zero(clocks).transform().up().and(Leq(y, 5)).build();
+		final ZoneState zone3 = ZoneState.zero(clocks).transform().up().and(Lt(x, 5)).build();
+
+		assertEquals(zone1, zone2);
+		assertEquals(zone1.hashCode(), zone2.hashCode());
+		assertNotEquals(zone1, zone3);
+	}
+
+	@Test
+	public void testBottomZonesAreEqual() {
+		final ZoneState zone1 = ZoneState.zero(clocks).transform().and(Lt(x, 0)).build();
+		final ZoneState zone2 = ZoneState.zero(clocks).transform().up().and(Lt(y, -3)).build();
+
+		assertTrue(zone1.isBottom());
+		assertEquals(zone1, zone2);
+		assertEquals(zone1.hashCode(), zone2.hashCode());
+	}
+
+	@Test
+	public void testPackedDbmEqualsUnpacked() {
+		final DBM dbm1 = DBM.zero(clocks);
+		dbm1.up();
+		dbm1.and(Leq(x, 10));
+		final DBM dbm2 = DBM.copyOf(dbm1);
+		dbm2.pack();
+
+		assertTrue(dbm2.isPacked());
+		assertFalse(dbm1.isPacked());
+		assertEquals(dbm1, dbm2);
+		assertEquals(dbm1.hashCode(), dbm2.hashCode());
+		assertTrue(dbm1.isLeq(dbm2) && dbm2.isLeq(dbm1));
+	}
+
+	@Test
+	public void testLargeBoundsAreNotPacked() {
+		final DBM dbm = DBM.zero(clocks);
+		dbm.up();
+		dbm.and(Leq(x, 100000));
+		dbm.pack();
+
+		assertFalse(dbm.isPacked());
+		assertEquals(DBM.copyOf(dbm), dbm);
+	}
+
+	@Test
+	public void testBatchedAnd() {
+		final Collection<ClockConstr> constrs = ImmutableList.of(Leq(x, 10), Geq(x, 3), Lt(y, 7), Geq(y, 1),
+				Leq(x, y, 4));
+		final ZoneState.Builder builder = ZoneState.top().project(clocks);
+		for (final ClockConstr constr : constrs) {
+			builder.and(constr);
+		}
+		final ZoneState zone1 = builder.build();
+		final ZoneState zone2 = ZoneState.top().project(clocks).and(constrs).build();
+
+		assertEquals(zone1, zone2);
+		assertTrue(ZoneState.top().project(clocks).and(ImmutableList.of(Leq(x, 3), Leq(y, 5), Gt(x, 3))).build().isBottom());
+	}
+
+	@Test
+	public void testNonnegative() {
+		final ZoneState zone = ZoneState.zero(clocks).transform().up().and(Geq(x, 5)).down().nonnegative().build();
+		final ZoneState expected = ZoneState.top().project(clocks).and(ImmutableList.of(Geq(x, 0), Geq(y, 0),
+				Geq(x, y, 0), Leq(x, y, 0))).build();
+
+		assertEquals(expected, zone);
+	}
+
+	@Test
+	public void testExtraLuPlus() {
+		final BoundFunc bounds = BoundFunc.builder().add(Gt(x, 5)).add(Lt(x, 3)).build();
+		final ZoneState zone = ZoneState.zero(clocks).transform().up().and(Geq(x, 10)).extraLuPlus(bounds).build();
+		final ZoneState expected = ZoneState.zero(clocks).transform().up().free(y).and(Gt(x, 3)).build();
+
+		assertEquals(expected, zone);
+	}
+
+	@Test
+	public void testExtraLuPlusKeepsSmallConstants() {
+		final BoundFunc bounds = BoundFunc.builder().add(Gt(x, 5)).add(Lt(x, 5)).add(Gt(y, 5)).add(Lt(y, 5)).build();
+		final ZoneState zone = ZoneState.zero(clocks).transform().up().and(Leq(x, 4)).extraLuPlus(bounds).build();
+		final ZoneState expected = ZoneState.zero(clocks).transform().up().and(Leq(x, 4)).build();
+
+		assertEquals(expected, zone);
+	}
+
+	@Test
+	public void testIntern() {
+		final ZoneState zone1 = ZoneState.zero(clocks).transform().up().and(Leq(x, 7)).build();
+		final ZoneState zone2 = ZoneState.zero(clocks).transform().up().and(Leq(x, 7)).build();
+
+		assertNotSame(zone1, zone2);
+		assertSame(zone1.intern(), zone2.intern());
+	}
+
+}
@@ -17,18 +17,31 @@ package hu.bme.mit.theta.cfa.tool;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Analysis;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetedSolverFactory;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
+import hu.bme.mit.theta.analysis.algorithm.portfolio.SwarmChecker;
 import hu.bme.mit.theta.analysis.expl.ExplPrec;
 import hu.bme.mit.theta.analysis.expl.ExplState;
 import hu.bme.mit.theta.analysis.expl.ExplStmtAnalysis;
@@ -41,6 +54,7 @@ import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceFwBinItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceSeqItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceUnsatCoreChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ItpRefutation;
+import hu.bme.mit.theta.analysis.expr.refinement.MultiExprTraceRefiner;
 import hu.bme.mit.theta.analysis.expr.refinement.PrecRefiner;
 import hu.bme.mit.theta.analysis.expr.refinement.Refutation;
 import hu.bme.mit.theta.analysis.expr.refinement.RefutationToPrec;
@@ -53,7 +67,7 @@ import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
 import hu.bme.mit.theta.analysis.pred.PredAnalysis;
 import hu.bme.mit.theta.analysis.pred.PredPrec;
 import hu.bme.mit.theta.analysis.pred.PredState;
-import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.cfa.CFA;
 import hu.bme.mit.theta.cfa.analysis.CfaAction;
 import hu.bme.mit.theta.cfa.analysis.CfaAnalysis;
@@ -74,12 +88,14 @@ import hu.bme.mit.theta.cfa.analysis.prec.LocalCfaPrecRefiner;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
 import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.impl.PooledSolverFactory;
 import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 
 public class CfaConfigBuilder {
 	public enum Domain {
-		EXPL, PRED_BOOL, PRED_CART, PRED_SPLIT
+		EXPL, PRED_BOOL, PRED_CART, PRED_SPLIT, PRED_ALLSAT
 	};
 
 	public enum Refinement {
@@ -189,6 +205,7 @@ public class CfaConfigBuilder {
 
 	private Logger logger = NullLogger.getInstance();
 	private SolverFactory solverFactory = Z3SolverFactory.getInstace();
+	private PooledSolverFactory solverPool = null;
 	private final Domain domain;
 	private final Refinement refinement;
 	private Search search = Search.BFS;
@@ -197,6 +214,13 @@ public class CfaConfigBuilder {
 	private Encoding encoding = Encoding.LBE;
 	private int maxEnum = 0;
 	private InitPrec initPrec = InitPrec.EMPTY;
+	private int threads = 1;
+	private boolean reproducible = false;
+	private boolean strengthen = false;
+	private int cexs = 1;
+	private Budget budget = Budget.unlimited();
+	private int worker = 0;
+	private long seed = 0;
 
 	public CfaConfigBuilder(final Domain domain, final Refinement refinement) {
 		this.domain = domain;
@@ -213,6 +237,16 @@ public class CfaConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Lease the solvers from a pool owned by the caller (instead of a pool of
+	 * the configuration over the solver factory), so that solvers can be reused
+	 * across configurations. The pool is not closed with the configuration.
+	 */
+	public CfaConfigBuilder solverPool(final PooledSolverFactory solverPool) {
+		this.solverPool = solverPool;
+		return this;
+	}
+
 	public CfaConfigBuilder search(final Search search) {
 		this.search = search;
 		return this;
@@ -243,37 +277,82 @@ public class CfaConfigBuilder {
 		return this;
 	}
 
+	public CfaConfigBuilder threads(final int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	public CfaConfigBuilder reproducible(final boolean reproducible) {
+		this.reproducible = reproducible;
+		return this;
+	}
+
+	public CfaConfigBuilder strengthen(final boolean strengthen) {
+		this.strengthen = strengthen;
+		return this;
+	}
+
+	public CfaConfigBuilder cexs(final int cexs) {
+		this.cexs = cexs;
+		return this;
+	}
+
+	public CfaConfigBuilder budget(final Budget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	/**
+	 * Diversify the search order for a given worker of a swarm.
+	 *
+	 * @see SwarmChecker#createWaitlist
+	 */
+	public CfaConfigBuilder diversify(final int worker, final long seed) {
+		this.worker = worker;
+		this.seed = seed;
+		return this;
+	}
+
 	public Config<? extends State, ? extends Action, ? extends Prec> build(final CFA cfa) {
-		final ItpSolver solver = solverFactory.createItpSolver();
-		final CfaLts lts = encoding.getLts();
+		final List<AutoCloseable> resources = Collections.synchronizedList(new ArrayList<>());
+		// Registered first, so that it is closed last, after the solvers
+		// leased from it are returned
+		final PooledSolverFactory pool = solverPool != null ? solverPool
+				: register(resources, PooledSolverFactory.create(solverFactory));
+		final SolverFactory solvers = BudgetedSolverFactory.create(pool, budget);
+		final ItpSolver solver = register(resources, solvers.createItpSolver());
 
 		if (domain == Domain.EXPL) {
-			final Analysis<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> analysis = CfaAnalysis
-					.create(cfa.getInitLoc(), ExplStmtAnalysis.create(solver, True(), maxEnum));
-			final ArgBuilder<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> argBuilder = ArgBuilder.create(lts,
-					analysis, s -> s.getLoc().equals(cfa.getErrorLoc()), true);
-			final Abstractor<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> abstractor = BasicAbstractor
-					.builder(argBuilder).projection(CfaState::getLoc)
-					.waitlist(PriorityWaitlist.create(search.getComp(cfa))).logger(logger).build();
+			final Function<Solver, ArgBuilder<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>>> argBuilderFactory = s -> {
+				final Analysis<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> analysis = CfaAnalysis
+						.create(cfa.getInitLoc(), ExplStmtAnalysis.create(s, True(), maxEnum));
+				return ArgBuilder.create(encoding.getLts(), analysis, n -> n.getLoc().equals(cfa.getErrorLoc()), true);
+			};
+			final ArgBuilder<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> argBuilder = argBuilderFactory
+					.apply(solver);
+			final Abstractor<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> abstractor = createAbstractor(
+					resources, solvers, argBuilder, argBuilderFactory,
+					SwarmChecker.createWaitlist(worker, seed, search.getComp(cfa)),
+					s -> s.getState().toMap().entrySet());
 
 			Refiner<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> refiner = null;
 
 			switch (refinement) {
 			case FW_BIN_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(True(), True(), solver),
-						precGranularity.createRefiner(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers, s -> ExprTraceFwBinItpChecker.create(True(), True(), s), solver,
+						precGranularity.createRefiner(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case BW_BIN_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(True(), True(), solver),
-						precGranularity.createRefiner(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers, s -> ExprTraceBwBinItpChecker.create(True(), True(), s), solver,
+						precGranularity.createRefiner(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case SEQ_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(True(), True(), solver),
-						precGranularity.createRefiner(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers, s -> ExprTraceSeqItpChecker.create(True(), True(), s), solver,
+						precGranularity.createRefiner(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case UNSAT_CORE:
-				refiner = SingleExprTraceRefiner.create(ExprTraceUnsatCoreChecker.create(True(), True(), solver),
-						precGranularity.createRefiner(new VarsRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers, s -> ExprTraceUnsatCoreChecker.create(True(), True(), s), solver,
+						precGranularity.createRefiner(new VarsRefToExplPrec()), argBuilder);
 				break;
 			default:
 				throw new UnsupportedOperationException(
@@ -281,63 +360,125 @@ public class CfaConfigBuilder {
 			}
 
 			final SafetyChecker<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> checker = CegarChecker
-					.create(abstractor, refiner, logger);
+					.create(abstractor, refiner, budget, logger);
 
 			final CfaPrec<ExplPrec> prec = precGranularity.createPrec(initPrec.builder.createExpl(cfa));
 
-			return Config.create(checker, prec);
-
-		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT) {
-			PredAbstractor predAbstractor = null;
-			switch (domain) {
-			case PRED_BOOL:
-				predAbstractor = PredAbstractors.booleanAbstractor(solver);
-				break;
-			case PRED_SPLIT:
-				predAbstractor = PredAbstractors.booleanSplitAbstractor(solver);
-				break;
-			case PRED_CART:
-				predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-				break;
-			default:
-				throw new UnsupportedOperationException(domain + " domain is not supported.");
-			}
-			final Analysis<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> analysis = CfaAnalysis
-					.create(cfa.getInitLoc(), PredAnalysis.create(solver, predAbstractor, True()));
-			final ArgBuilder<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> argBuilder = ArgBuilder.create(lts,
-					analysis, s -> s.getLoc().equals(cfa.getErrorLoc()), true);
-			final Abstractor<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> abstractor = BasicAbstractor
-					.builder(argBuilder).projection(CfaState::getLoc)
-					.waitlist(PriorityWaitlist.create(search.getComp(cfa))).logger(logger).build();
-
-			ExprTraceChecker<ItpRefutation> exprTraceChecker = null;
+			return Config.create(checker, prec, resources);
+
+		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT
+				|| domain == Domain.PRED_ALLSAT) {
+			final Function<Solver, ArgBuilder<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>>> argBuilderFactory = s -> {
+				final Analysis<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> analysis = CfaAnalysis
+						.create(cfa.getInitLoc(), PredAnalysis.create(s, createPredAbstractor(s), True()));
+				return ArgBuilder.create(encoding.getLts(), analysis, n -> n.getLoc().equals(cfa.getErrorLoc()), true);
+			};
+			final ArgBuilder<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> argBuilder = argBuilderFactory
+					.apply(solver);
+			final Abstractor<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> abstractor = createAbstractor(
+					resources, solvers, argBuilder, argBuilderFactory,
+					SwarmChecker.createWaitlist(worker, seed, search.getComp(cfa)),
+					s -> Collections.emptySet());
+
+			Function<ItpSolver, ExprTraceChecker<ItpRefutation>> exprTraceCheckerFactory = null;
 			switch (refinement) {
 			case FW_BIN_ITP:
-				exprTraceChecker = ExprTraceFwBinItpChecker.create(True(), True(), solver);
+				exprTraceCheckerFactory = s -> ExprTraceFwBinItpChecker.create(True(), True(), s);
 				break;
 			case BW_BIN_ITP:
-				exprTraceChecker = ExprTraceBwBinItpChecker.create(True(), True(), solver);
+				exprTraceCheckerFactory = s -> ExprTraceBwBinItpChecker.create(True(), True(), s);
 				break;
 			case SEQ_ITP:
-				exprTraceChecker = ExprTraceSeqItpChecker.create(True(), True(), solver);
+				exprTraceCheckerFactory = s -> ExprTraceSeqItpChecker.create(True(), True(), s);
 				break;
 			default:
 				throw new UnsupportedOperationException(
 						domain + " domain does not support " + refinement + " refinement.");
 			}
 			final ItpRefToPredPrec refToPrec = new ItpRefToPredPrec(predSplit.splitter);
-			final Refiner<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> refiner = SingleExprTraceRefiner
-					.create(exprTraceChecker, precGranularity.createRefiner(refToPrec), logger);
+			final Refiner<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> refiner = createTraceRefiner(
+					resources, solvers, exprTraceCheckerFactory, solver, precGranularity.createRefiner(refToPrec), argBuilder);
 
 			final SafetyChecker<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> checker = CegarChecker
-					.create(abstractor, refiner, logger);
+					.create(abstractor, refiner, budget, logger);
 
 			final CfaPrec<PredPrec> prec = precGranularity.createPrec(initPrec.builder.createPred(cfa));
 
-			return Config.create(checker, prec);
+			return Config.create(checker, prec, resources);
 
 		} else {
 			throw new UnsupportedOperationException(domain + " domain is not supported.");
 		}
 	}
+
+	private PredAbstractor createPredAbstractor(final Solver solver) {
+		switch (domain) {
+		case PRED_BOOL:
+			return PredAbstractors.booleanAbstractor(solver);
+		case PRED_SPLIT:
+			return PredAbstractors.booleanSplitAbstractor(solver);
+		case PRED_CART:
+			return PredAbstractors.cartesianAbstractor(solver);
+		case PRED_ALLSAT:
+			return PredAbstractors.allSatAbstractor(solver);
+		default:
+			throw new UnsupportedOperationException(domain + " domain is not supported.");
+		}
+	}
+
+	private <S extends CfaState<?>, P extends Prec> Abstractor<S, CfaAction, P> createAbstractor(
+			final List<AutoCloseable> resources, final SolverFactory solvers,
+			final ArgBuilder<S, CfaAction, P> argBuilder,
+			final Function<Solver, ArgBuilder<S, CfaAction, P>> argBuilderFactory,
+			final Waitlist<ArgNode<S, CfaAction>> waitlist,
+			final Function<? super S, ? extends Collection<?>> literals) {
+		if (threads > 1) {
+			return register(resources, ParallelAbstractor
+					.builder(argBuilder, () -> argBuilderFactory.apply(register(resources, solvers.createSolver())))
+					.projection(CfaState::getLoc).fingerprint(CfaState::getState).literals(literals)
+					.waitlist(waitlist).stopCriterion(createStopCriterion()).threads(threads)
+					.reproducible(reproducible).budget(budget).logger(logger).build());
+		} else {
+			return BasicAbstractor.builder(argBuilder).projection(CfaState::getLoc).fingerprint(CfaState::getState)
+					.literals(literals).waitlist(waitlist).stopCriterion(createStopCriterion()).budget(budget)
+					.logger(logger).build();
+		}
+	}
+
+	private <S extends ExprState, P extends Prec, R extends Refutation> Refiner<S, CfaAction, P> createTraceRefiner(
+			final List<AutoCloseable> resources, final SolverFactory solvers,
+			final Function<ItpSolver, ExprTraceChecker<R>> exprTraceCheckerFactory, final ItpSolver solver,
+			final PrecRefiner<S, CfaAction, P, R> precRefiner, final ArgBuilder<S, CfaAction, P> argBuilder) {
+		final ExprTraceChecker<R> exprTraceChecker = exprTraceCheckerFactory.apply(solver);
+		if (cexs != 1) {
+			if (strengthen) {
+				throw new UnsupportedOperationException("Strengthening is not supported with multiple cexs.");
+			}
+			return register(resources, MultiExprTraceRefiner
+					.builder(exprTraceChecker,
+							() -> exprTraceCheckerFactory.apply(register(resources, solvers.createItpSolver())),
+							precRefiner)
+					.maxCexs(cexs).threads(threads).logger(logger).build());
+		} else if (strengthen) {
+			return SingleExprTraceRefiner.create(exprTraceChecker, precRefiner, argBuilder, logger);
+		} else {
+			return SingleExprTraceRefiner.create(exprTraceChecker, precRefiner, logger);
+		}
+	}
+
+	// Resources are closed with the configuration
+	private static <T extends AutoCloseable> T register(final List<AutoCloseable> resources, final T resource) {
+		resources.add(resource);
+		return resource;
+	}
+
+	private <S extends State> StopCriterion<S, CfaAction> createStopCriterion() {
+		if (cexs == 1) {
+			return StopCriterions.firstCex();
+		} else if (cexs == 0) {
+			return StopCriterions.fullExploration();
+		} else {
+			return StopCriterions.atLeastNCexs(cexs);
+		}
+	}
 }
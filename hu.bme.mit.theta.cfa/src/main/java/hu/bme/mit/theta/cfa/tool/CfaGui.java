@@ -176,12 +176,13 @@ public class CfaGui extends BaseGui {
 		protected Void call() throws Exception {
 			try {
 				final CFA cfa = CfaDslManager.createCfa(taModel.getText());
-				final Config<?, ?, ?> config = new CfaConfigBuilder(cbDomain.getValue(), cbRefinement.getValue())
+				try (Config<?, ?, ?> config = new CfaConfigBuilder(cbDomain.getValue(), cbRefinement.getValue())
 						.search(cbSearch.getValue()).predSplit(cbPredSplit.getValue())
 						.precGranularity(cbPrecGranularity.getValue()).encoding(cbEncoding.getValue())
 						.maxEnum(spMaxEnum.getValue()).initPrec(cbInitPrec.getValue())
-						.logger(new TextAreaLogger(cbLogLevel.getValue(), taOutput)).build(cfa);
-				safetyResult = config.check();
+						.logger(new TextAreaLogger(cbLogLevel.getValue(), taOutput)).build(cfa)) {
+					safetyResult = config.check();
+				}
 			} catch (final Exception ex) {
 				Platform.runLater(() -> displayException(ex));
 			} finally {
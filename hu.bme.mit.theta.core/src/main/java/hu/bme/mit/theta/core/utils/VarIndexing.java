@@ -41,6 +41,8 @@ public class VarIndexing {
 	private final int defaultIndex;
 	private final Map<VarDecl<?>, Integer> varToOffset;
 
+	private volatile int hashCode = 0;
+
 	private VarIndexing(final Builder builder) {
 		defaultIndex = builder.defaultIndex;
 		varToOffset = ImmutableMap.copyOf(builder.varToOffset);
@@ -151,6 +153,28 @@ public class VarIndexing {
 		return defaultIndex + offset;
 	}
 
+	@Override
+	public int hashCode() {
+		int result = hashCode;
+		if (result == 0) {
+			result = 31 * defaultIndex + varToOffset.hashCode();
+			hashCode = result;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof VarIndexing) {
+			final VarIndexing that = (VarIndexing) obj;
+			return this.defaultIndex == that.defaultIndex && this.varToOffset.equals(that.varToOffset);
+		} else {
+			return false;
+		}
+	}
+
 	@Override
 	public String toString() {
 		final StringJoiner sj = new StringJoiner(", ", "IndexMap(", ")");
@@ -189,7 +213,11 @@ public class VarIndexing {
 				final Integer offset = varToOffset.getOrDefault(varDecl, 0);
 				final Integer newOffset = offset + n;
 				checkArgument(defaultIndex + newOffset >= 0, "Negative index for variable");
-				varToOffset.put(varDecl, newOffset);
+				if (newOffset != 0) {
+					varToOffset.put(varDecl, newOffset);
+				} else {
+					varToOffset.remove(varDecl);
+				}
 			}
 
 			return this;
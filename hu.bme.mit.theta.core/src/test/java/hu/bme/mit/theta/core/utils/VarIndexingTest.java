@@ -18,6 +18,7 @@ package hu.bme.mit.theta.core.utils;
 import static hu.bme.mit.theta.core.decl.Decls.Var;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import org.junit.Test;
 
@@ -120,4 +121,14 @@ public class VarIndexingTest {
 		indexes1.sub(indexes2);
 	}
 
+	@Test
+	public void testEquals() {
+		final VarIndexing indexes1 = VarIndexing.builder(1).inc(x).inc(y).inc(y, -1).build();
+		final VarIndexing indexes2 = VarIndexing.all(1).inc(x);
+
+		assertEquals(indexes1, indexes2);
+		assertEquals(indexes1.hashCode(), indexes2.hashCode());
+		assertNotEquals(indexes1, VarIndexing.all(1));
+	}
+
 }
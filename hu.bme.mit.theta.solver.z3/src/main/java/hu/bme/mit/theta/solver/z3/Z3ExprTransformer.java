@@ -16,10 +16,7 @@
 package hu.bme.mit.theta.solver.z3;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.microsoft.z3.Context;
 
@@ -80,21 +77,21 @@ import hu.bme.mit.theta.core.type.rattype.RatSubExpr;
 
 final class Z3ExprTransformer {
 
-	private static final int CACHE_SIZE = 1000;
-
 	private final Z3TransformationManager transformer;
+	private final Z3TermCache cache;
 	private final Context context;
 
-	private final Cache<Expr<?>, com.microsoft.z3.Expr> exprToTerm;
 	private final DispatchTable<com.microsoft.z3.Expr> table;
 	private final Env env;
+	private int binderDepth;
 
-	public Z3ExprTransformer(final Z3TransformationManager transformer, final Context context) {
+	public Z3ExprTransformer(final Z3TransformationManager transformer, final Z3TermCache cache,
+			final Context context) {
 		this.context = context;
 		this.transformer = transformer;
+		this.cache = cache;
 		this.env = new Env();
-
-		exprToTerm = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+		this.binderDepth = 0;
 
 		table = DispatchTable.<com.microsoft.z3.Expr>builder()
 
@@ -202,11 +199,20 @@ final class Z3ExprTransformer {
 	}
 
 	public com.microsoft.z3.Expr toTerm(final Expr<?> expr) {
-		try {
-			return exprToTerm.get(expr, () -> table.dispatch(expr));
-		} catch (final ExecutionException e) {
-			throw new AssertionError();
+		final com.microsoft.z3.Expr cachedTerm = cache.getTerm(expr);
+		if (cachedTerm != null) {
+			return cachedTerm;
+		}
+
+		final com.microsoft.z3.Expr term = table.dispatch(expr);
+		if (binderDepth == 0) {
+			cache.put(expr, term);
+		} else {
+			// Parameters are translated to constants that only make sense
+			// under their binder, so the term is not translated back
+			cache.putTerm(expr, term);
 		}
+		return term;
 	}
 
 	////
@@ -285,20 +291,28 @@ final class Z3ExprTransformer {
 
 	private com.microsoft.z3.Expr transformExists(final ExistsExpr expr) {
 		env.push();
-		final com.microsoft.z3.Expr[] paramTerms = transformParamDecls(expr.getParamDecls());
-		final com.microsoft.z3.BoolExpr opTerm = (com.microsoft.z3.BoolExpr) toTerm(expr.getOp());
-		final com.microsoft.z3.BoolExpr result = context.mkExists(paramTerms, opTerm, 1, null, null, null, null);
-		env.pop();
-		return result;
+		binderDepth++;
+		try {
+			final com.microsoft.z3.Expr[] paramTerms = transformParamDecls(expr.getParamDecls());
+			final com.microsoft.z3.BoolExpr opTerm = (com.microsoft.z3.BoolExpr) toTerm(expr.getOp());
+			return context.mkExists(paramTerms, opTerm, 1, null, null, null, null);
+		} finally {
+			binderDepth--;
+			env.pop();
+		}
 	}
 
 	private com.microsoft.z3.Expr transformForall(final ForallExpr expr) {
 		env.push();
-		final com.microsoft.z3.Expr[] paramTerms = transformParamDecls(expr.getParamDecls());
-		final com.microsoft.z3.BoolExpr opTerm = (com.microsoft.z3.BoolExpr) toTerm(expr.getOp());
-		final com.microsoft.z3.BoolExpr result = context.mkForall(paramTerms, opTerm, 1, null, null, null, null);
-		env.pop();
-		return result;
+		binderDepth++;
+		try {
+			final com.microsoft.z3.Expr[] paramTerms = transformParamDecls(expr.getParamDecls());
+			final com.microsoft.z3.BoolExpr opTerm = (com.microsoft.z3.BoolExpr) toTerm(expr.getOp());
+			return context.mkForall(paramTerms, opTerm, 1, null, null, null, null);
+		} finally {
+			binderDepth--;
+			env.pop();
+		}
 	}
 
 	private com.microsoft.z3.Expr[] transformParamDecls(final List<ParamDecl<?>> paramDecls) {
@@ -161,6 +161,11 @@ final class Z3ItpSolver implements ItpSolver {
 		return solver.check();
 	}
 
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		return solver.check(assumptions);
+	}
+
 	@Override
 	public void push() {
 		markers.push();
@@ -181,6 +186,7 @@ final class Z3ItpSolver implements ItpSolver {
 
 	@Override
 	public void reset() {
+		markers.clear();
 		solver.reset();
 	}
 
@@ -204,4 +210,9 @@ final class Z3ItpSolver implements ItpSolver {
 		return solver.getAssertions();
 	}
 
+	@Override
+	public void close() {
+		solver.close();
+	}
+
 }
@@ -53,8 +53,11 @@ final class Z3Solver implements Solver {
 
 	private final Stack<Expr<BoolType>> assertions;
 	private final Map<String, Expr<BoolType>> assumptions;
+	private final Map<Expr<BoolType>, com.microsoft.z3.BoolExpr> activationLits;
+	private boolean activationFrame;
 
 	private static final String ASSUMPTION_LABEL = "_LABEL_%d";
+	private static final int MAX_ACTIVATIONS = 1000;
 	private int labelNum = 0;
 
 	private Valuation model;
@@ -72,6 +75,8 @@ final class Z3Solver implements Solver {
 
 		assertions = new StackImpl<>();
 		assumptions = new HashMap<>();
+		activationLits = new HashMap<>();
+		activationFrame = false;
 	}
 
 	////
@@ -84,6 +89,7 @@ final class Z3Solver implements Solver {
 	}
 
 	void add(final Expr<BoolType> assertion, final com.microsoft.z3.BoolExpr term) {
+		retireActivations();
 		assertions.add(assertion);
 		z3Solver.add(term);
 		clearState();
@@ -92,6 +98,7 @@ final class Z3Solver implements Solver {
 	@Override
 	public void track(final Expr<BoolType> assertion) {
 		checkNotNull(assertion);
+		retireActivations();
 
 		assertions.add(assertion);
 		final com.microsoft.z3.BoolExpr term = (com.microsoft.z3.BoolExpr) transformationManager.toTerm(assertion);
@@ -107,11 +114,63 @@ final class Z3Solver implements Solver {
 
 	@Override
 	public SolverStatus check() {
+		clearState();
 		final Status z3Status = z3Solver.check();
 		status = transformStatus(z3Status);
 		return status;
 	}
 
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		checkNotNull(assumptions);
+		if (activationLits.size() >= MAX_ACTIVATIONS) {
+			retireActivations();
+		}
+		final com.microsoft.z3.BoolExpr[] lits = new com.microsoft.z3.BoolExpr[assumptions.size()];
+		int i = 0;
+		for (final Expr<BoolType> assumption : assumptions) {
+			lits[i] = activate(checkNotNull(assumption));
+			i++;
+		}
+		clearState();
+		final Status z3Status = z3Solver.check(lits);
+		status = transformStatus(z3Status);
+		return status;
+	}
+
+	// Each assumption is assumed by an activation literal that implies it. The
+	// implications are asserted in a frame of their own above the frames of
+	// the user, so repeated assumptions are only translated and asserted once.
+	// The frame is popped before the assertions or frames are modified, and
+	// once it holds MAX_ACTIVATIONS literals.
+	private com.microsoft.z3.BoolExpr activate(final Expr<BoolType> assumption) {
+		com.microsoft.z3.BoolExpr lit = activationLits.get(assumption);
+		if (lit == null) {
+			if (!activationFrame) {
+				z3Solver.push();
+				activationFrame = true;
+			}
+			final com.microsoft.z3.BoolExpr term = (com.microsoft.z3.BoolExpr) transformationManager
+					.toTerm(assumption);
+			final String label = String.format(ASSUMPTION_LABEL, labelNum++);
+			lit = z3Context.mkBoolConst(label);
+			z3Solver.add(z3Context.mkImplies(lit, term));
+			assumptions.put(label, assumption);
+			activationLits.put(assumption, lit);
+		}
+		return lit;
+	}
+
+	private void retireActivations() {
+		if (activationFrame) {
+			z3Solver.pop();
+			activationFrame = false;
+			activationLits.values().forEach(lit -> assumptions.remove(lit.toString()));
+			activationLits.clear();
+			clearState();
+		}
+	}
+
 	private SolverStatus transformStatus(final Status z3Status) {
 		switch (z3Status) {
 		case SATISFIABLE:
@@ -125,12 +184,14 @@ final class Z3Solver implements Solver {
 
 	@Override
 	public void push() {
+		retireActivations();
 		assertions.push();
 		z3Solver.push();
 	}
 
 	@Override
 	public void pop(final int n) {
+		retireActivations();
 		assertions.pop(n);
 		z3Solver.pop(n);
 		clearState();
@@ -138,7 +199,12 @@ final class Z3Solver implements Solver {
 
 	@Override
 	public void reset() {
-		throw new UnsupportedOperationException();
+		assertions.clear();
+		assumptions.clear();
+		activationLits.clear();
+		activationFrame = false;
+		z3Solver.reset();
+		clearState();
 	}
 
 	@Override
@@ -209,6 +275,11 @@ final class Z3Solver implements Solver {
 		return assertions.toCollection();
 	}
 
+	@Override
+	public void close() {
+		z3Context.close();
+	}
+
 	private void clearState() {
 		status = null;
 		model = null;
@@ -15,6 +15,8 @@
  */
 package hu.bme.mit.theta.solver.z3;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.microsoft.z3.InterpolationContext;
 
 import hu.bme.mit.theta.common.OsHelper;
@@ -24,20 +26,33 @@ import hu.bme.mit.theta.solver.SolverFactory;
 
 public final class Z3SolverFactory implements SolverFactory {
 
+	private static final long DEFAULT_CACHE_SIZE = 100_000;
 	private static final Z3SolverFactory INSTACE;
 
 	static {
 		loadLibraries();
-		INSTACE = new Z3SolverFactory();
+		INSTACE = new Z3SolverFactory(DEFAULT_CACHE_SIZE);
 	}
 
-	private Z3SolverFactory() {
+	private final long cacheSize;
+
+	private Z3SolverFactory(final long cacheSize) {
+		checkArgument(cacheSize > 0, "Cache size must be positive.");
+		this.cacheSize = cacheSize;
 	}
 
 	public static Z3SolverFactory getInstace() {
 		return INSTACE;
 	}
 
+	/**
+	 * Creates a factory whose solvers cache at most the given number of
+	 * translations between expressions and terms in each direction.
+	 */
+	public static Z3SolverFactory create(final long cacheSize) {
+		return new Z3SolverFactory(cacheSize);
+	}
+
 	private static void loadLibraries() {
 		switch (OsHelper.getOs()) {
 		case WINDOWS:
@@ -57,8 +72,10 @@ public final class Z3SolverFactory implements SolverFactory {
 		final com.microsoft.z3.Solver z3Solver = z3Context.mkSimpleSolver();
 
 		final Z3SymbolTable symbolTable = new Z3SymbolTable();
-		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context);
-		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable);
+		final Z3TermCache cache = new Z3TermCache(cacheSize);
+		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, cache,
+				z3Context);
+		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable, cache);
 
 		return new Z3Solver(symbolTable, transformationManager, termTransformer, z3Context, z3Solver);
 	}
@@ -69,8 +86,10 @@ public final class Z3SolverFactory implements SolverFactory {
 		final com.microsoft.z3.Solver z3Solver = z3Context.mkSimpleSolver();
 
 		final Z3SymbolTable symbolTable = new Z3SymbolTable();
-		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context);
-		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable);
+		final Z3TermCache cache = new Z3TermCache(cacheSize);
+		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, cache,
+				z3Context);
+		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable, cache);
 
 		return new Z3ItpSolver(symbolTable, transformationManager, termTransformer, z3Context, z3Solver);
 	}
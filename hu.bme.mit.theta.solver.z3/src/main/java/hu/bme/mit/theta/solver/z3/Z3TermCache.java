@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import hu.bme.mit.theta.core.type.Expr;
+
+/**
+ * Bidirectional cache between expressions and the terms of a Z3 context.
+ * Expressions are compared by identity and referenced weakly in both
+ * directions, so that each node of an expression DAG is translated once while
+ * it is reachable, and its entries are evicted once it is not. Terms are
+ * hash-consed by Z3, so they are compared by equality.
+ */
+final class Z3TermCache {
+
+	private final Cache<Expr<?>, com.microsoft.z3.Expr> exprToTerm;
+	private final Cache<com.microsoft.z3.Expr, Expr<?>> termToExpr;
+
+	Z3TermCache(final long maxSize) {
+		checkArgument(maxSize > 0, "Cache size must be positive.");
+		exprToTerm = CacheBuilder.newBuilder().weakKeys().maximumSize(maxSize).build();
+		termToExpr = CacheBuilder.newBuilder().weakValues().maximumSize(maxSize).build();
+	}
+
+	public com.microsoft.z3.Expr getTerm(final Expr<?> expr) {
+		return exprToTerm.getIfPresent(expr);
+	}
+
+	public Expr<?> getExpr(final com.microsoft.z3.Expr term) {
+		return termToExpr.getIfPresent(term);
+	}
+
+	/**
+	 * Caches the translation of an expression to a term that contains no
+	 * bound variables, in both directions.
+	 */
+	public void put(final Expr<?> expr, final com.microsoft.z3.Expr term) {
+		checkNotNull(expr);
+		checkNotNull(term);
+		exprToTerm.put(expr, term);
+		termToExpr.put(term, expr);
+	}
+
+	/**
+	 * Caches the translation of an expression to a term only from the
+	 * expression, e.g., because the term depends on the enclosing binders.
+	 */
+	public void putTerm(final Expr<?> expr, final com.microsoft.z3.Expr term) {
+		checkNotNull(expr);
+		checkNotNull(term);
+		exprToTerm.put(expr, term);
+	}
+
+}
@@ -74,10 +74,12 @@ final class Z3TermTransformer {
 	private static final String PARAM_NAME_FORMAT = "_p%d";
 
 	private final Z3SymbolTable symbolTable;
+	private final Z3TermCache cache;
 	private final Map<String, BiFunction<com.microsoft.z3.Expr, List<Decl<?>>, Expr<?>>> environment;
 
-	public Z3TermTransformer(final Z3SymbolTable symbolTable) {
+	public Z3TermTransformer(final Z3SymbolTable symbolTable, final Z3TermCache cache) {
 		this.symbolTable = symbolTable;
+		this.cache = cache;
 
 		environment = new HashMap<>();
 		environment.put("true", this::transformTrue);
@@ -108,6 +110,23 @@ final class Z3TermTransformer {
 	////////
 
 	private Expr<?> transform(final com.microsoft.z3.Expr term, final List<Decl<?>> vars) {
+		// Terms under a binder might refer to its variables by index, and
+		// literals are cheap to translate and must be translated to literals
+		if (!vars.isEmpty() || isLit(term)) {
+			return transformTerm(term, vars);
+		}
+
+		final Expr<?> cachedExpr = cache.getExpr(term);
+		if (cachedExpr != null) {
+			return cachedExpr;
+		}
+
+		final Expr<?> expr = transformTerm(term, vars);
+		cache.put(expr, term);
+		return expr;
+	}
+
+	private Expr<?> transformTerm(final com.microsoft.z3.Expr term, final List<Decl<?>> vars) {
 		if (term.isIntNum()) {
 			return transformIntLit(term);
 
@@ -129,6 +148,10 @@ final class Z3TermTransformer {
 		}
 	}
 
+	private static boolean isLit(final com.microsoft.z3.Expr term) {
+		return term.isIntNum() || term.isRatNum() || term.isTrue() || term.isFalse();
+	}
+
 	private <T extends Type> List<Expr<T>> transformAll(final com.microsoft.z3.Expr[] terms, final List<Decl<?>> vars,
 			final T type) {
 		final List<Expr<T>> result = new LinkedList<>();
@@ -18,16 +18,29 @@ package hu.bme.mit.theta.solver.z3;
 import static hu.bme.mit.theta.core.decl.Decls.Const;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Optional;
+
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.core.decl.ConstDecl;
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
 import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverStatus;
 
@@ -54,4 +67,70 @@ public final class Z3SolverTest {
 		solver.pop();
 	}
 
+	@Test
+	public void testReset() {
+		final Solver solver = Z3SolverFactory.getInstace().createSolver();
+
+		final ConstDecl<BoolType> ca = Const("a", Bool());
+
+		solver.push();
+		solver.track(And(ca.getRef(), False()));
+		assertTrue(solver.check().isUnsat());
+
+		solver.reset();
+		assertTrue(solver.getAssertions().isEmpty());
+
+		solver.track(ca.getRef());
+		assertTrue(solver.check().isSat());
+
+		solver.close();
+	}
+
+	@Test
+	public void testAssumptions() {
+		final Solver solver = Z3SolverFactory.getInstace().createSolver();
+
+		final ConstDecl<BoolType> ca = Const("a", Bool());
+		final ConstDecl<BoolType> cb = Const("b", Bool());
+
+		solver.add(Or(ca.getRef(), cb.getRef()));
+
+		assertTrue(solver.check(ImmutableList.of(Not(ca.getRef()), Not(cb.getRef()))).isUnsat());
+		assertTrue(solver.getUnsatCore().contains(Not(cb.getRef())));
+
+		assertTrue(solver.check(ImmutableList.of(Not(ca.getRef()))).isSat());
+		assertEquals(Optional.of(True()), solver.getModel().eval(cb));
+
+		assertTrue(solver.check().isSat());
+		assertEquals(1, solver.getAssertions().size());
+
+		solver.close();
+	}
+
+	@Test
+	public void testAssumptionsRetired() {
+		final Solver solver = Z3SolverFactory.getInstace().createSolver();
+
+		final ConstDecl<IntType> cx = Const("x", Int());
+
+		solver.add(Geq(cx.getRef(), Int(0)));
+		for (int i = 0; i < 2500; i++) {
+			assertTrue(solver.check(ImmutableList.of(Eq(cx.getRef(), Int(i)))).isSat());
+			assertEquals(Optional.of(Int(i)), solver.getModel().eval(cx));
+		}
+		assertTrue(solver.check(ImmutableList.of(Lt(cx.getRef(), Int(0)))).isUnsat());
+
+		solver.push();
+		assertTrue(solver.check(ImmutableList.of(Eq(cx.getRef(), Int(1)))).isSat());
+		solver.add(Eq(cx.getRef(), Int(2)));
+		assertTrue(solver.check().isSat());
+		assertEquals(Optional.of(Int(2)), solver.getModel().eval(cx));
+		solver.pop();
+
+		assertTrue(solver.check(ImmutableList.of(Eq(cx.getRef(), Int(3)))).isSat());
+		assertEquals(1, solver.getAssertions().size());
+
+		solver.close();
+	}
+
 }
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import static hu.bme.mit.theta.core.decl.Decls.Const;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.z3.Context;
+
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public final class Z3TermCacheTest {
+
+	static {
+		Z3SolverFactory.getInstace();
+	}
+
+	private final ConstDecl<BoolType> ca = Const("a", Bool());
+	private final ConstDecl<IntType> cx = Const("x", Int());
+
+	private Context context;
+	private Z3TermCache cache;
+	private Z3TransformationManager transformationManager;
+	private Z3TermTransformer termTransformer;
+
+	@Before
+	public void before() {
+		context = new Context();
+		final Z3SymbolTable symbolTable = new Z3SymbolTable();
+		cache = new Z3TermCache(100);
+		transformationManager = new Z3TransformationManager(symbolTable, cache, context);
+		termTransformer = new Z3TermTransformer(symbolTable, cache);
+	}
+
+	@Test
+	public void testSharedSubexpr() {
+		final Expr<BoolType> shared = And(ca.getRef(), Eq(cx.getRef(), Int(1)));
+		final Expr<BoolType> expr = Or(shared, Not(shared));
+
+		final com.microsoft.z3.Expr term = transformationManager.toTerm(expr);
+
+		assertSame(term, transformationManager.toTerm(expr));
+		assertEquals(term.getArgs()[0], cache.getTerm(shared));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final Expr<BoolType> expr = Or(ca.getRef(), Not(Eq(cx.getRef(), Int(1))));
+
+		final com.microsoft.z3.Expr term = transformationManager.toTerm(expr);
+
+		assertSame(expr, termTransformer.toExpr(term));
+	}
+
+	@Test
+	public void testTermToExpr() {
+		transformationManager.toTerm(And(ca.getRef(), Eq(cx.getRef(), Int(1))));
+		final com.microsoft.z3.BoolExpr a = (com.microsoft.z3.BoolExpr) transformationManager.toTerm(ca.getRef());
+		final com.microsoft.z3.ArithExpr x = (com.microsoft.z3.ArithExpr) transformationManager.toTerm(cx.getRef());
+
+		final Expr<?> expr1 = termTransformer.toExpr(context.mkOr(a, context.mkGt(x, context.mkInt(2))));
+		final Expr<?> expr2 = termTransformer.toExpr(context.mkOr(a, context.mkGt(x, context.mkInt(2))));
+
+		assertSame(expr1, expr2);
+		assertEquals(Int(2), termTransformer.toExpr(context.mkInt(2)));
+	}
+
+}
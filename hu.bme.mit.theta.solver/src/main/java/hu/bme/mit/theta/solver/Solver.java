@@ -21,7 +21,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
-public interface Solver {
+public interface Solver extends AutoCloseable {
 
 	void add(Expr<BoolType> assertion);
 
@@ -41,6 +41,16 @@ public interface Solver {
 
 	SolverStatus check();
 
+	/**
+	 * Checks the satisfiability of the assertions under the given assumptions.
+	 * Unlike assertions added between a push and a pop, the assumptions only
+	 * hold for this check, so the solver can keep what it has learned. If the
+	 * result is unsatisfiable, the unsat core may also contain assumptions.
+	 */
+	default SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		throw new UnsupportedOperationException();
+	}
+
 	void push();
 
 	void pop(final int n);
@@ -58,4 +68,12 @@ public interface Solver {
 	Collection<Expr<BoolType>> getUnsatCore();
 
 	Collection<Expr<BoolType>> getAssertions();
+
+	/**
+	 * Releases the resources held by the solver, which cannot be used
+	 * afterwards.
+	 */
+	@Override
+	default void close() {
+	}
 }
@@ -31,6 +31,8 @@ public interface Stack<T> extends Iterable<T> {
 		pop(1);
 	}
 
+	void clear();
+
 	Collection<T> toCollection();
 
 }
@@ -0,0 +1,348 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.decl.IndexedConstDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.Type;
+import hu.bme.mit.theta.core.type.anytype.RefExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+/**
+ * Solver decorator that answers checks from the cache of its factory. The
+ * assertions are only passed to the underlying solver if a check, a model or
+ * an unsat core is not cached.
+ */
+final class CachingSolver implements Solver {
+	private final Solver solver;
+	private final CachingSolverFactory factory;
+
+	private final List<Expr<BoolType>> assertions;
+	private final List<Boolean> tracked;
+	private final List<Integer> frames;
+
+	// The underlying solver holds the first syncedSize assertions in its first
+	// syncedDepth frames
+	private int syncedSize;
+	private int syncedDepth;
+	private boolean solverChecked;
+	private List<Expr<BoolType>> solverAssumptions;
+
+	private List<Expr<BoolType>> assumptions;
+	private int offset;
+	private Result result;
+	private SolverStatus status;
+	private Valuation model;
+	private Collection<Expr<BoolType>> unsatCore;
+
+	CachingSolver(final Solver solver, final CachingSolverFactory factory) {
+		this.solver = checkNotNull(solver);
+		this.factory = checkNotNull(factory);
+		assertions = new ArrayList<>();
+		tracked = new ArrayList<>();
+		frames = new ArrayList<>();
+		syncedSize = 0;
+		syncedDepth = 0;
+		solverChecked = false;
+		solverAssumptions = null;
+		assumptions = Collections.emptyList();
+	}
+
+	@Override
+	public void add(final Expr<BoolType> assertion) {
+		checkNotNull(assertion);
+		assertions.add(assertion);
+		tracked.add(false);
+		clearState();
+	}
+
+	@Override
+	public void track(final Expr<BoolType> assertion) {
+		checkNotNull(assertion);
+		assertions.add(assertion);
+		tracked.add(true);
+		clearState();
+	}
+
+	@Override
+	public SolverStatus check() {
+		return check(Collections.emptyList());
+	}
+
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		this.assumptions = ImmutableList.copyOf(assumptions);
+		model = null;
+		unsatCore = null;
+		offset = minIndex(Iterables.concat(assertions, this.assumptions));
+		final Set<Expr<BoolType>> added = new HashSet<>();
+		final Set<Expr<BoolType>> trackedAssertions = new HashSet<>();
+		for (int i = 0; i < assertions.size(); i++) {
+			final Expr<BoolType> normalized = shift(assertions.get(i), -offset);
+			(tracked.get(i) ? trackedAssertions : added).add(normalized);
+		}
+		final Set<Expr<BoolType>> assumed = new HashSet<>();
+		for (final Expr<BoolType> assumption : this.assumptions) {
+			assumed.add(shift(assumption, -offset));
+		}
+		final Query query = new Query(added, trackedAssertions, assumed);
+
+		final Result cachedResult = factory.lookup(query);
+		if (cachedResult != null) {
+			result = cachedResult;
+		} else {
+			result = new Result(checkSolver());
+			factory.store(query, result);
+		}
+		status = result.status;
+		return status;
+	}
+
+	@Override
+	public void push() {
+		frames.add(assertions.size());
+		clearState();
+	}
+
+	@Override
+	public void pop(final int n) {
+		checkArgument(n > 0);
+		final int depth = frames.size();
+		checkArgument(depth >= n);
+
+		final int newDepth = depth - n;
+		final int size = frames.get(newDepth);
+		frames.subList(newDepth, depth).clear();
+		assertions.subList(size, assertions.size()).clear();
+		tracked.subList(size, tracked.size()).clear();
+
+		if (syncedDepth > newDepth) {
+			solver.pop(syncedDepth - newDepth);
+			syncedDepth = newDepth;
+		}
+		syncedSize = Math.min(syncedSize, size);
+		clearState();
+	}
+
+	@Override
+	public void reset() {
+		solver.reset();
+		assertions.clear();
+		tracked.clear();
+		frames.clear();
+		syncedSize = 0;
+		syncedDepth = 0;
+		clearState();
+	}
+
+	@Override
+	public SolverStatus getStatus() {
+		checkState(status != null, "Solver status is unknown.");
+		return status;
+	}
+
+	@Override
+	public Valuation getModel() {
+		checkState(status == SolverStatus.SAT, "Cannot get model if status is not SAT.");
+		if (model == null) {
+			if (result.model == null) {
+				checkSolver();
+				final Valuation solverModel = solver.getModel();
+				result.model = shift(solverModel, -offset);
+				model = solverModel;
+			} else {
+				model = shift(result.model, offset);
+			}
+		}
+		return model;
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getUnsatCore() {
+		checkState(status == SolverStatus.UNSAT, "Cannot get unsat core if status is not UNSAT");
+		if (unsatCore == null) {
+			if (result.unsatCore == null) {
+				checkSolver();
+				final Collection<Expr<BoolType>> solverUnsatCore = solver.getUnsatCore();
+				result.unsatCore = solverUnsatCore.stream().map(e -> shift(e, -offset)).collect(toImmutableList());
+				unsatCore = solverUnsatCore;
+			} else {
+				unsatCore = result.unsatCore.stream().map(e -> shift(e, offset)).collect(toImmutableList());
+			}
+		}
+		return Collections.unmodifiableCollection(unsatCore);
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getAssertions() {
+		return Collections.unmodifiableCollection(assertions);
+	}
+
+	@Override
+	public void close() {
+		solver.close();
+	}
+
+	////
+
+	private SolverStatus checkSolver() {
+		if (!solverChecked || !assumptions.equals(solverAssumptions)) {
+			sync();
+			final SolverStatus solverStatus = assumptions.isEmpty() ? solver.check() : solver.check(assumptions);
+			assert status == null || status == solverStatus;
+			solverChecked = true;
+			solverAssumptions = assumptions;
+		}
+		return solver.getStatus();
+	}
+
+	private void sync() {
+		for (int i = syncedSize; i < assertions.size(); i++) {
+			while (syncedDepth < frames.size() && frames.get(syncedDepth) <= i) {
+				solver.push();
+				syncedDepth++;
+			}
+			if (tracked.get(i)) {
+				solver.track(assertions.get(i));
+			} else {
+				solver.add(assertions.get(i));
+			}
+		}
+		while (syncedDepth < frames.size()) {
+			solver.push();
+			syncedDepth++;
+		}
+		syncedSize = assertions.size();
+	}
+
+	private void clearState() {
+		solverChecked = false;
+		assumptions = Collections.emptyList();
+		result = null;
+		status = null;
+		model = null;
+		unsatCore = null;
+	}
+
+	private static int minIndex(final Iterable<? extends Expr<BoolType>> exprs) {
+		final Collection<Integer> indexes = ExprUtils.getVarsIndexed(exprs).getNonEmptyIndexes();
+		return indexes.isEmpty() ? 0 : Collections.min(indexes);
+	}
+
+	private static <T extends Type> Expr<T> shift(final Expr<T> expr, final int offset) {
+		if (offset == 0) {
+			return expr;
+		} else if (expr instanceof RefExpr) {
+			final Decl<T> decl = ((RefExpr<T>) expr).getDecl();
+			if (decl instanceof IndexedConstDecl) {
+				return shift((IndexedConstDecl<T>) decl, offset).getRef();
+			} else {
+				return expr;
+			}
+		} else {
+			return expr.map(op -> shift(op, offset));
+		}
+	}
+
+	private static <T extends Type> IndexedConstDecl<T> shift(final IndexedConstDecl<T> decl, final int offset) {
+		return decl.getVarDecl().getConstDecl(decl.getIndex() + offset);
+	}
+
+	private static Valuation shift(final Valuation val, final int offset) {
+		final ImmutableValuation.Builder builder = ImmutableValuation.builder();
+		for (final Map.Entry<Decl<?>, LitExpr<?>> entry : val.toMap().entrySet()) {
+			final Decl<?> decl = entry.getKey();
+			if (decl instanceof IndexedConstDecl && offset != 0) {
+				builder.put(shift((IndexedConstDecl<?>) decl, offset), entry.getValue());
+			} else {
+				builder.put(decl, entry.getValue());
+			}
+		}
+		return builder.build();
+	}
+
+	////
+
+	static final class Query {
+		private final Set<Expr<BoolType>> assertions;
+		private final Set<Expr<BoolType>> trackedAssertions;
+		private final Set<Expr<BoolType>> assumptions;
+		private final int hashCode;
+
+		private Query(final Collection<Expr<BoolType>> assertions, final Collection<Expr<BoolType>> trackedAssertions,
+				final Collection<Expr<BoolType>> assumptions) {
+			this.assertions = assertions.stream().collect(toImmutableSet());
+			this.trackedAssertions = trackedAssertions.stream().collect(toImmutableSet());
+			this.assumptions = assumptions.stream().collect(toImmutableSet());
+			hashCode = 31 * (31 * this.assertions.hashCode() + this.trackedAssertions.hashCode())
+					+ this.assumptions.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof Query) {
+				final Query that = (Query) obj;
+				return this.hashCode == that.hashCode && this.assertions.equals(that.assertions)
+						&& this.trackedAssertions.equals(that.trackedAssertions)
+					&& this.assumptions.equals(that.assumptions);
+			} else {
+				return false;
+			}
+		}
+	}
+
+	static final class Result {
+		private final SolverStatus status;
+		private volatile Valuation model;
+		private volatile Collection<Expr<BoolType>> unsatCore;
+
+		private Result(final SolverStatus status) {
+			this.status = checkNotNull(status);
+		}
+	}
+
+}
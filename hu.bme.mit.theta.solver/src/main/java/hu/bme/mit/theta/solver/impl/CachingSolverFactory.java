@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+
+/**
+ * Solver factory decorator whose solvers share a bounded cache of query
+ * results. Queries are identified by their assertions with the indices of
+ * the indexed constants shifted to start from zero, so unfoldings of the same
+ * formula at different indices share their status, model and unsat core.
+ * Interpolating solvers are not cached.
+ */
+public final class CachingSolverFactory implements SolverFactory {
+	private final SolverFactory solverFactory;
+	private final Cache<CachingSolver.Query, CachingSolver.Result> cache;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	private CachingSolverFactory(final SolverFactory solverFactory, final long maxSize) {
+		checkArgument(maxSize > 0, "Cache size must be positive.");
+		this.solverFactory = checkNotNull(solverFactory);
+		cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+		hits = new AtomicLong();
+		misses = new AtomicLong();
+	}
+
+	public static CachingSolverFactory create(final SolverFactory solverFactory, final long maxSize) {
+		return new CachingSolverFactory(solverFactory, maxSize);
+	}
+
+	@Override
+	public Solver createSolver() {
+		return new CachingSolver(solverFactory.createSolver(), this);
+	}
+
+	@Override
+	public ItpSolver createItpSolver() {
+		return solverFactory.createItpSolver();
+	}
+
+	/**
+	 * Gets the number of checks answered from the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Gets the number of checks passed to the underlying solver.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public double getHitRate() {
+		final long total = getHits() + getMisses();
+		return total == 0 ? 0 : (double) getHits() / total;
+	}
+
+	////
+
+	CachingSolver.Result lookup(final CachingSolver.Query query) {
+		final CachingSolver.Result result = cache.getIfPresent(query);
+		if (result != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return result;
+	}
+
+	void store(final CachingSolver.Query query, final CachingSolver.Result result) {
+		cache.put(query, result);
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Collection;
+
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+/**
+ * Solver leased from a {@link PooledSolverFactory}, which is returned to the
+ * pool when closed.
+ */
+final class PooledSolver implements Solver {
+	private final PooledSolverFactory pool;
+	private Solver solver;
+
+	PooledSolver(final Solver solver, final PooledSolverFactory pool) {
+		this.solver = checkNotNull(solver);
+		this.pool = checkNotNull(pool);
+	}
+
+	@Override
+	public void add(final Expr<BoolType> assertion) {
+		solver().add(assertion);
+	}
+
+	@Override
+	public void track(final Expr<BoolType> assertion) {
+		solver().track(assertion);
+	}
+
+	@Override
+	public SolverStatus check() {
+		return solver().check();
+	}
+
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		return solver().check(assumptions);
+	}
+
+	@Override
+	public void push() {
+		solver().push();
+	}
+
+	@Override
+	public void pop(final int n) {
+		solver().pop(n);
+	}
+
+	@Override
+	public void reset() {
+		solver().reset();
+	}
+
+	@Override
+	public SolverStatus getStatus() {
+		return solver().getStatus();
+	}
+
+	@Override
+	public Valuation getModel() {
+		return solver().getModel();
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getUnsatCore() {
+		return solver().getUnsatCore();
+	}
+
+	@Override
+	public Collection<Expr<BoolType>> getAssertions() {
+		return solver().getAssertions();
+	}
+
+	@Override
+	public void close() {
+		if (solver != null) {
+			final Solver released = solver;
+			solver = null;
+			pool.release(this, released);
+		}
+	}
+
+	private Solver solver() {
+		checkState(solver != null, "Solver is returned to the pool.");
+		return solver;
+	}
+
+}
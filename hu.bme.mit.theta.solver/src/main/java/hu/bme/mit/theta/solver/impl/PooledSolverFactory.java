@@ -0,0 +1,170 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+
+/**
+ * Solver factory decorator that leases solvers from a pool. Closing a leased
+ * solver resets the underlying solver and returns it to the pool, so that the
+ * next lease can reuse it instead of creating a new one. Closing the factory
+ * closes every solver it created, including the ones that are still leased.
+ */
+public final class PooledSolverFactory implements SolverFactory, AutoCloseable {
+	private static final int DEFAULT_MAX_IDLE = 16;
+
+	private final SolverFactory solverFactory;
+	private final int maxIdle;
+
+	private final Deque<Solver> idleSolvers;
+	private final Deque<ItpSolver> idleItpSolvers;
+	private final Set<Solver> leases;
+
+	private boolean closed;
+	private long created;
+	private long reused;
+
+	private PooledSolverFactory(final SolverFactory solverFactory, final int maxIdle) {
+		checkArgument(maxIdle >= 0, "Number of idle solvers must be non-negative.");
+		this.solverFactory = checkNotNull(solverFactory);
+		this.maxIdle = maxIdle;
+		idleSolvers = new ArrayDeque<>();
+		idleItpSolvers = new ArrayDeque<>();
+		leases = new LinkedHashSet<>();
+		closed = false;
+		created = 0;
+		reused = 0;
+	}
+
+	public static PooledSolverFactory create(final SolverFactory solverFactory) {
+		return create(solverFactory, DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * Creates a pool that keeps at most the given number of idle solvers (and
+	 * as many idle interpolating solvers). Solvers returned to a full pool are
+	 * closed.
+	 */
+	public static PooledSolverFactory create(final SolverFactory solverFactory, final int maxIdle) {
+		return new PooledSolverFactory(solverFactory, maxIdle);
+	}
+
+	@Override
+	public synchronized Solver createSolver() {
+		checkState(!closed, "Solver pool is closed.");
+		Solver solver = idleSolvers.pollLast();
+		if (solver == null) {
+			solver = solverFactory.createSolver();
+			created++;
+		} else {
+			reused++;
+		}
+		final Solver lease = new PooledSolver(solver, this);
+		leases.add(lease);
+		return lease;
+	}
+
+	@Override
+	public synchronized ItpSolver createItpSolver() {
+		checkState(!closed, "Solver pool is closed.");
+		ItpSolver solver = idleItpSolvers.pollLast();
+		if (solver == null) {
+			solver = solverFactory.createItpSolver();
+			created++;
+		} else {
+			reused++;
+		}
+		final ItpSolver lease = new PooledItpSolver(solver, this);
+		leases.add(lease);
+		return lease;
+	}
+
+	/**
+	 * Returns every leased solver to the pool, e.g., when the checker that
+	 * leased them has finished. The returned solvers cannot be used afterwards.
+	 */
+	public synchronized void releaseAll() {
+		new ArrayList<>(leases).forEach(Solver::close);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			releaseAll();
+			idleSolvers.forEach(Solver::close);
+			idleSolvers.clear();
+			idleItpSolvers.forEach(Solver::close);
+			idleItpSolvers.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of solvers created by the underlying factory.
+	 */
+	public synchronized long getCreated() {
+		return created;
+	}
+
+	/**
+	 * Gets the number of leases served by reusing an idle solver.
+	 */
+	public synchronized long getReused() {
+		return reused;
+	}
+
+	////
+
+	synchronized void release(final PooledSolver lease, final Solver solver) {
+		if (leases.remove(lease)) {
+			recycle(solver, idleSolvers);
+		}
+	}
+
+	synchronized void release(final PooledItpSolver lease, final ItpSolver solver) {
+		if (leases.remove(lease)) {
+			recycle(solver, idleItpSolvers);
+		}
+	}
+
+	private <S extends Solver> void recycle(final S solver, final Deque<S> idle) {
+		if (closed || idle.size() >= maxIdle) {
+			solver.close();
+			return;
+		}
+
+		try {
+			solver.reset();
+		} catch (final UnsupportedOperationException e) {
+			solver.close();
+			return;
+		}
+		idle.addLast(solver);
+	}
+
+}
@@ -61,6 +61,12 @@ public class StackImpl<T> implements Stack<T> {
 		items.subList(size, items.size()).clear();
 	}
 
+	@Override
+	public void clear() {
+		items.clear();
+		sizes.clear();
+	}
+
 	@Override
 	public Collection<T> toCollection() {
 		return Collections.unmodifiableCollection(items);
@@ -0,0 +1,67 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+/**
+ * A helper class for temporary assertions using the try-with-resources
+ * statement, as an alternative of {@link WithPushPop} that keeps the learned
+ * facts of the solver. Assertions are not added to the solver, but assumed by
+ * each check of the guard, so nothing is left in the solver when the guard is
+ * closed.
+ */
+public class WithGuard implements Closeable {
+
+	private final Solver solver;
+	private final List<Expr<BoolType>> assertions;
+
+	public WithGuard(final Solver solver) {
+		this.solver = checkNotNull(solver);
+		assertions = new ArrayList<>();
+	}
+
+	public void add(final Expr<BoolType> assertion) {
+		assertions.add(checkNotNull(assertion));
+	}
+
+	public SolverStatus check() {
+		return solver.check(assertions);
+	}
+
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		final List<Expr<BoolType>> guardedAssumptions = new ArrayList<>(assertions.size() + assumptions.size());
+		guardedAssumptions.addAll(assertions);
+		guardedAssumptions.addAll(assumptions);
+		return solver.check(guardedAssumptions);
+	}
+
+	@Override
+	public void close() {
+		assertions.clear();
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.core.utils.IndexedVars;
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+public final class CachingSolverFactoryTest {
+
+	private final VarDecl<BoolType> x = Var("x", Bool());
+	private final VarDecl<BoolType> y = Var("y", Bool());
+
+	private StubSolverFactory stubFactory;
+	private CachingSolverFactory factory;
+
+	@Before
+	public void before() {
+		stubFactory = new StubSolverFactory();
+		factory = CachingSolverFactory.create(stubFactory, 100);
+	}
+
+	@Test
+	public void testSameQuery() {
+		final Solver solver1 = factory.createSolver();
+		solver1.add(And(x.getConstDecl(0).getRef(), y.getConstDecl(1).getRef()));
+		assertTrue(solver1.check().isSat());
+
+		final Solver solver2 = factory.createSolver();
+		solver2.add(And(x.getConstDecl(0).getRef(), y.getConstDecl(1).getRef()));
+		assertTrue(solver2.check().isSat());
+
+		assertEquals(1, stubFactory.checks);
+		assertEquals(1, factory.getHits());
+		assertEquals(1, factory.getMisses());
+	}
+
+	@Test
+	public void testShiftedQuery() {
+		final Solver solver1 = factory.createSolver();
+		solver1.add(And(x.getConstDecl(0).getRef(), y.getConstDecl(1).getRef()));
+		assertTrue(solver1.check().isSat());
+		assertEquals(True(), solver1.getModel().eval(y.getConstDecl(1)).get());
+
+		final Solver solver2 = factory.createSolver();
+		solver2.add(And(x.getConstDecl(3).getRef(), y.getConstDecl(4).getRef()));
+		assertTrue(solver2.check().isSat());
+		final Valuation model = solver2.getModel();
+		assertEquals(True(), model.eval(x.getConstDecl(3)).get());
+		assertEquals(True(), model.eval(y.getConstDecl(4)).get());
+		assertTrue(!model.eval(y.getConstDecl(1)).isPresent());
+
+		assertEquals(1, stubFactory.checks);
+		assertEquals(1, factory.getHits());
+	}
+
+	@Test
+	public void testPushPop() {
+		final Solver solver = factory.createSolver();
+		solver.add(x.getConstDecl(0).getRef());
+		solver.push();
+		solver.add(False());
+		assertTrue(solver.check().isUnsat());
+		solver.pop();
+		assertTrue(solver.check().isSat());
+		solver.push();
+		solver.add(False());
+		assertTrue(solver.check().isUnsat());
+		solver.pop();
+		assertTrue(solver.check().isSat());
+
+		assertEquals(2, stubFactory.checks);
+		assertEquals(2, factory.getHits());
+		assertEquals(1, solver.getAssertions().size());
+	}
+
+	@Test
+	public void testUnsatCore() {
+		final Solver solver1 = factory.createSolver();
+		solver1.add(x.getConstDecl(1).getRef());
+		solver1.track(And(y.getConstDecl(1).getRef(), False()));
+		assertTrue(solver1.check().isUnsat());
+		assertEquals(1, solver1.getUnsatCore().size());
+
+		final Solver solver2 = factory.createSolver();
+		solver2.add(x.getConstDecl(2).getRef());
+		solver2.track(And(y.getConstDecl(2).getRef(), False()));
+		assertTrue(solver2.check().isUnsat());
+		assertEquals(Collections.singletonList(And(y.getConstDecl(2).getRef(), False())),
+				new ArrayList<>(solver2.getUnsatCore()));
+
+		assertEquals(1, stubFactory.checks);
+	}
+
+	////
+
+	private static final class StubSolverFactory implements SolverFactory {
+		private int checks = 0;
+
+		@Override
+		public Solver createSolver() {
+			return new StubSolver(this);
+		}
+
+		@Override
+		public ItpSolver createItpSolver() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Solver for conjunctions of Boolean constants and False: a set of
+	 * assertions is unsatisfiable iff some assertion contains False.
+	 */
+	private static final class StubSolver implements Solver {
+		private final StubSolverFactory factory;
+		private final StackImpl<Expr<BoolType>> assertions;
+		private final List<Expr<BoolType>> tracked;
+		private SolverStatus status;
+
+		private StubSolver(final StubSolverFactory factory) {
+			this.factory = factory;
+			assertions = new StackImpl<>();
+			tracked = new ArrayList<>();
+		}
+
+		@Override
+		public void add(final Expr<BoolType> assertion) {
+			assertions.add(assertion);
+			status = null;
+		}
+
+		@Override
+		public void track(final Expr<BoolType> assertion) {
+			add(assertion);
+			tracked.add(assertion);
+		}
+
+		@Override
+		public SolverStatus check() {
+			factory.checks++;
+			status = getUnsatCore(assertions.toCollection()).isEmpty() ? SolverStatus.SAT : SolverStatus.UNSAT;
+			return status;
+		}
+
+		@Override
+		public void push() {
+			assertions.push();
+		}
+
+		@Override
+		public void pop(final int n) {
+			assertions.pop(n);
+			tracked.retainAll(assertions.toCollection());
+			status = null;
+		}
+
+		@Override
+		public void reset() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public SolverStatus getStatus() {
+			return status;
+		}
+
+		@Override
+		public Valuation getModel() {
+			final ImmutableValuation.Builder builder = ImmutableValuation.builder();
+			for (final Expr<BoolType> assertion : assertions) {
+				final IndexedVars indexedVars = ExprUtils.getVarsIndexed(assertion);
+				for (final int i : indexedVars.getNonEmptyIndexes()) {
+					indexedVars.getVars(i).forEach(v -> builder.put(v.getConstDecl(i), True()));
+				}
+			}
+			return builder.build();
+		}
+
+		@Override
+		public Collection<Expr<BoolType>> getUnsatCore() {
+			return getUnsatCore(tracked);
+		}
+
+		private static Collection<Expr<BoolType>> getUnsatCore(final Collection<Expr<BoolType>> exprs) {
+			final List<Expr<BoolType>> result = new ArrayList<>();
+			for (final Expr<BoolType> expr : exprs) {
+				if (ExprUtils.getConjuncts(expr).contains(False())) {
+					result.add(expr);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public Collection<Expr<BoolType>> getAssertions() {
+			return assertions.toCollection();
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.impl;
+
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+public final class PooledSolverFactoryTest {
+
+	private StubSolverFactory stubFactory;
+	private PooledSolverFactory factory;
+
+	@Before
+	public void before() {
+		stubFactory = new StubSolverFactory();
+		factory = PooledSolverFactory.create(stubFactory, 1);
+	}
+
+	@Test
+	public void testReuse() {
+		final Solver solver1 = factory.createSolver();
+		solver1.add(True());
+		solver1.close();
+
+		final Solver solver2 = factory.createSolver();
+		assertTrue(solver2.getAssertions().isEmpty());
+		assertEquals(1, factory.getCreated());
+		assertEquals(1, factory.getReused());
+		assertEquals(1, stubFactory.solvers.size());
+	}
+
+	@Test
+	public void testMaxIdle() {
+		factory.createSolver();
+		factory.createSolver();
+		factory.releaseAll();
+
+		assertEquals(2, factory.getCreated());
+		assertEquals(1, stubFactory.solvers.stream().filter(s -> s.closed).count());
+	}
+
+	@Test
+	public void testClose() {
+		factory.createSolver();
+		factory.createSolver().close();
+		factory.close();
+
+		assertTrue(stubFactory.solvers.stream().allMatch(s -> s.closed));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleased() {
+		final Solver solver = factory.createSolver();
+		solver.close();
+		solver.add(True());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() {
+		factory.close();
+		factory.createSolver();
+	}
+
+	////
+
+	private static final class StubSolverFactory implements SolverFactory {
+		private final List<StubSolver> solvers = new ArrayList<>();
+
+		@Override
+		public Solver createSolver() {
+			final StubSolver solver = new StubSolver();
+			solvers.add(solver);
+			return solver;
+		}
+
+		@Override
+		public ItpSolver createItpSolver() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static final class StubSolver implements Solver {
+		private final List<Expr<BoolType>> assertions = new ArrayList<>();
+		private boolean closed = false;
+
+		@Override
+		public void add(final Expr<BoolType> assertion) {
+			assertions.add(assertion);
+		}
+
+		@Override
+		public void track(final Expr<BoolType> assertion) {
+			assertions.add(assertion);
+		}
+
+		@Override
+		public SolverStatus check() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void push() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void pop(final int n) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void reset() {
+			assertions.clear();
+		}
+
+		@Override
+		public SolverStatus getStatus() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Valuation getModel() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Collection<Expr<BoolType>> getUnsatCore() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Collection<Expr<BoolType>> getAssertions() {
+			return assertions;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+}
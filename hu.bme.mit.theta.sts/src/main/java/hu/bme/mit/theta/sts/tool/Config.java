@@ -15,28 +15,73 @@
  */
 package hu.bme.mit.theta.sts.tool;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 
-public final class Config<S extends State, A extends Action, P extends Prec> {
+/**
+ * A configuration built by the config builder. Closing the configuration
+ * releases the resources (e.g., solvers and thread pools) of the checker.
+ */
+public final class Config<S extends State, A extends Action, P extends Prec> implements AutoCloseable {
 	private final SafetyChecker<S, A, P> checker;
 	private final P initPrec;
+	private final Collection<? extends AutoCloseable> resources;
 
-	private Config(final SafetyChecker<S, A, P> checker, final P initPrec) {
+	private Config(final SafetyChecker<S, A, P> checker, final P initPrec,
+			final Collection<? extends AutoCloseable> resources) {
 		this.checker = checker;
 		this.initPrec = initPrec;
+		this.resources = resources;
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> Config<S, A, P> create(
 			final SafetyChecker<S, A, P> checker, final P initPrec) {
-		return new Config<>(checker, initPrec);
+		return create(checker, initPrec, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a configuration that closes the given resources when it is
+	 * closed. Resources added to the collection later (e.g., solvers of
+	 * workers created on demand) are also closed.
+	 */
+	public static <S extends State, A extends Action, P extends Prec> Config<S, A, P> create(
+			final SafetyChecker<S, A, P> checker, final P initPrec,
+			final Collection<? extends AutoCloseable> resources) {
+		return new Config<>(checker, initPrec, resources);
 	}
 
 	public SafetyResult<S, A> check() {
 		return checker.check(initPrec);
 	}
 
+	@Override
+	public void close() {
+		// Resources are closed in reverse order of their creation
+		final List<AutoCloseable> reversed = new ArrayList<>(resources);
+		Collections.reverse(reversed);
+		RuntimeException failure = null;
+		for (final AutoCloseable resource : reversed) {
+			try {
+				resource.close();
+			} catch (final Exception e) {
+				if (failure == null) {
+					failure = new IllegalStateException("Could not close resource.", e);
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
 }
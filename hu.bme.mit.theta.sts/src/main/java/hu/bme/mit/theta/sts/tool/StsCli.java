@@ -21,18 +21,31 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 
+import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarStatistics;
+import hu.bme.mit.theta.analysis.algorithm.portfolio.PortfolioChecker;
+import hu.bme.mit.theta.analysis.algorithm.portfolio.PortfolioStatistics;
+import hu.bme.mit.theta.analysis.algorithm.portfolio.SwarmChecker;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.analysis.utils.ArgVisualizer;
 import hu.bme.mit.theta.analysis.utils.TraceVisualizer;
+import hu.bme.mit.theta.common.Tuple2;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.common.logging.ConsoleLogger;
 import hu.bme.mit.theta.common.logging.Logger;
@@ -44,6 +57,10 @@ import hu.bme.mit.theta.common.visualization.Graph;
 import hu.bme.mit.theta.common.visualization.writer.GraphvizWriter;
 import hu.bme.mit.theta.core.type.booltype.BoolExprs;
 import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.impl.CachingSolverFactory;
+import hu.bme.mit.theta.solver.impl.PooledSolverFactory;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 import hu.bme.mit.theta.sts.STS;
 import hu.bme.mit.theta.sts.StsUtils;
 import hu.bme.mit.theta.sts.aiger.AigerParser;
@@ -63,13 +80,16 @@ import hu.bme.mit.theta.sts.tool.StsConfigBuilder.Search;
  */
 public class StsCli {
 	private static final String JAR_NAME = "theta-sts.jar";
+	private static final List<Tuple2<Domain, Refinement>> PORTFOLIO = ImmutableList.of(
+			Tuple2.of(Domain.EXPL, Refinement.SEQ_ITP), Tuple2.of(Domain.EXPL, Refinement.UNSAT_CORE),
+			Tuple2.of(Domain.PRED_CART, Refinement.SEQ_ITP), Tuple2.of(Domain.PRED_BOOL, Refinement.BW_BIN_ITP));
 	private final String[] args;
 	private final TableWriter writer;
 
-	@Parameter(names = { "--domain" }, description = "Abstract domain", required = true)
+	@Parameter(names = { "--domain" }, description = "Abstract domain (required without --portfolio)")
 	Domain domain;
 
-	@Parameter(names = { "--refinement" }, description = "Refinement strategy", required = true)
+	@Parameter(names = { "--refinement" }, description = "Refinement strategy (required without --portfolio)")
 	Refinement refinement;
 
 	@Parameter(names = { "--search" }, description = "Search strategy")
@@ -84,6 +104,42 @@ public class StsCli {
 	@Parameter(names = { "--initprec" }, description = "Initial precision")
 	InitPrec initPrec = InitPrec.EMPTY;
 
+	@Parameter(names = { "--threads" }, description = "Number of threads for building the ARG")
+	Integer threads = 1;
+
+	@Parameter(names = { "--reproducible" }, description = "Reproducible (deterministic) parallel ARG building")
+	Boolean reproducible = false;
+
+	@Parameter(names = { "--strengthen" }, description = "Strengthen the ARG in place after refinement instead of pruning it (only with --cexs 1)")
+	Boolean strengthen = false;
+
+	@Parameter(names = { "--cexs" }, description = "Number of counterexamples to refine in each iteration (0: all)")
+	Integer cexs = 1;
+
+	@Parameter(names = { "--timeout" }, description = "Timeout in seconds (0: unlimited)")
+	Integer timeout = 0;
+
+	@Parameter(names = { "--maxnodes" }, description = "Maximal number of ARG nodes (0: unlimited)")
+	Integer maxNodes = 0;
+
+	@Parameter(names = { "--maxiterations" }, description = "Maximal number of CEGAR iterations (0: unlimited)")
+	Integer maxIterations = 0;
+
+	@Parameter(names = { "--maxheap" }, description = "Heap usage threshold in megabytes (0: unlimited)")
+	Integer maxHeap = 0;
+
+	@Parameter(names = { "--solvercache" }, description = "Maximal number of cached solver queries (0: no caching)")
+	Integer solverCache = 0;
+
+	@Parameter(names = { "--swarm" }, description = "Number of diversified workers in swarm mode (1: no swarm)")
+	Integer swarm = 1;
+
+	@Parameter(names = { "--seed" }, description = "Random seed for the workers in swarm mode")
+	Long seed = 0L;
+
+	@Parameter(names = { "--portfolio" }, description = "Run a fixed portfolio of domains and refinements concurrently instead of --domain and --refinement")
+	Boolean portfolio = false;
+
 	@Parameter(names = { "--loglevel" }, description = "Detailedness of logging")
 	Logger.Level logLevel = Level.SUBSTEP;
 
@@ -97,6 +153,8 @@ public class StsCli {
 	boolean headerOnly = false;
 
 	private Logger logger;
+	private CachingSolverFactory cachingSolverFactory = null;
+	private PooledSolverFactory solverPool = null;
 
 	public StsCli(final String[] args) {
 		this.args = args;
@@ -110,7 +168,11 @@ public class StsCli {
 
 	private void run() {
 		try {
-			JCommander.newBuilder().addObject(this).programName(JAR_NAME).build().parse(args);
+			final JCommander jc = JCommander.newBuilder().addObject(this).programName(JAR_NAME).build();
+			jc.parse(args);
+			if (!headerOnly) {
+				checkParameters(jc);
+			}
 			logger = benchmarkMode ? NullLogger.getInstance() : new ConsoleLogger(logLevel);
 		} catch (final ParameterException ex) {
 			System.out.println("Invalid parameters, details:");
@@ -127,8 +189,10 @@ public class StsCli {
 		try {
 			final Stopwatch sw = Stopwatch.createStarted();
 			final STS sts = loadModel();
-			final Config<?, ?, ?> configuration = buildConfiguration(sts);
-			final SafetyResult<?, ?> status = configuration.check();
+			if (solverCache > 0) {
+				cachingSolverFactory = CachingSolverFactory.create(Z3SolverFactory.getInstace(), solverCache);
+			}
+			final SafetyResult<?, ?> status = check(sts);
 			sw.stop();
 			printResult(status, sts, sw.elapsed(TimeUnit.MILLISECONDS));
 			if (dotfile != null) {
@@ -142,9 +206,24 @@ public class StsCli {
 		}
 	}
 
+	private void checkParameters(final JCommander jc) {
+		String error = null;
+		if (portfolio && swarm > 1) {
+			error = "--portfolio and --swarm cannot be combined.";
+		} else if (!portfolio && (domain == null || refinement == null)) {
+			error = "--domain and --refinement are required without --portfolio.";
+		}
+		if (error != null) {
+			final ParameterException ex = new ParameterException(error);
+			ex.setJCommander(jc);
+			throw ex;
+		}
+	}
+
 	private void printHeader() {
 		final String[] header = new String[] { "Result", "TimeMs", "AlgoTimeMs", "AbsTimeMs", "RefTimeMs", "Iterations",
-				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CexLen", "Vars", "Size" };
+				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CexLen", "Vars", "Size", "SolverCacheHits",
+				"SolverCacheMisses", "Winner" };
 		for (final String str : header) {
 			writer.cell(str);
 		}
@@ -169,23 +248,121 @@ public class StsCli {
 		}
 	}
 
-	private Config<?, ?, ?> buildConfiguration(final STS sts) {
-		return new StsConfigBuilder(domain, refinement).initPrec(initPrec).search(search).predSplit(predSplit)
-				.logger(logger).build(sts);
+	private SafetyResult<?, ?> check(final STS sts) {
+		// Swarm workers lease their solvers from a shared pool and close their
+		// own configuration on their thread, returning the solvers. The swarm
+		// waits for the losing workers, so the pool is closed after them.
+		if (swarm > 1) {
+			try (PooledSolverFactory pool = PooledSolverFactory.create(createSolverFactory())) {
+				solverPool = pool;
+				final SafetyChecker<State, Action, UnitPrec> checker = SwarmChecker.<State, Action, UnitPrec>builder(
+						(worker, budget) -> asChecker(createConfigBuilder(domain, refinement).solverPool(pool)
+								.diversify(worker, seed).budget(budget).build(sts)))
+						.workers(swarm).budget(this::createBudget).awaitTermination(true).logger(logger).build();
+				return checker.check(UnitPrec.getInstance());
+			}
+		} else if (portfolio) {
+			// Members share a solver pool like swarm workers, but have their
+			// own budgets, as the losers are interrupted anyway
+			try (PooledSolverFactory pool = PooledSolverFactory.create(createSolverFactory())) {
+				solverPool = pool;
+				final PortfolioChecker.Builder<State, Action, UnitPrec> builder = PortfolioChecker
+						.<State, Action, UnitPrec>builder().awaitTermination(true).logger(logger);
+				for (final Tuple2<Domain, Refinement> member : PORTFOLIO) {
+					builder.add(member.get1() + "/" + member.get2(),
+							createMember(member.get1(), member.get2(), sts, pool));
+				}
+				return builder.build().check(UnitPrec.getInstance());
+			}
+		} else {
+			try (Config<?, ?, ?> config = createConfigBuilder(domain, refinement).budget(createBudget())
+					.logger(logger).build(sts)) {
+				return config.check();
+			}
+		}
+	}
+
+	private StsConfigBuilder createConfigBuilder(final Domain domain, final Refinement refinement) {
+		final StsConfigBuilder builder = new StsConfigBuilder(domain, refinement).initPrec(initPrec).search(search)
+				.predSplit(predSplit).threads(threads).reproducible(reproducible).strengthen(strengthen).cexs(cexs);
+		builder.solverFactory(createSolverFactory());
+		return builder;
+	}
+
+	private SolverFactory createSolverFactory() {
+		if (cachingSolverFactory != null) {
+			return cachingSolverFactory;
+		} else {
+			return Z3SolverFactory.getInstace();
+		}
+	}
+
+	// Members are built lazily, on their own thread. Results are only read,
+	// so the (covariant) cast is safe.
+	@SuppressWarnings("unchecked")
+	private SafetyChecker<State, Action, UnitPrec> createMember(final Domain domain, final Refinement refinement,
+			final STS sts, final PooledSolverFactory pool) {
+		return p -> (SafetyResult<State, Action>) asChecker(createConfigBuilder(domain, refinement).solverPool(pool)
+				.budget(createBudget()).build(sts)).check(p);
+	}
+
+	// Captures the types of a configuration
+	private static <S extends State, A extends Action> SafetyChecker<S, A, UnitPrec> asChecker(
+			final Config<S, A, ?> config) {
+		return p -> {
+			try {
+				return config.check();
+			} finally {
+				config.close();
+			}
+		};
+	}
+
+	private CegarStatistics getCegarStatistics(final SafetyResult<?, ?> status) {
+		final Statistics stats = status.getStats().get();
+		if (stats instanceof PortfolioStatistics) {
+			return (CegarStatistics) ((PortfolioStatistics) stats).getWinnerStats().get();
+		} else {
+			return (CegarStatistics) stats;
+		}
+	}
+
+	// Swarms and portfolios report the name of the conclusive checker
+	private Optional<String> getWinner(final SafetyResult<?, ?> status) {
+		final Statistics stats = status.getStats().get();
+		if (stats instanceof PortfolioStatistics) {
+			return Optional.of(((PortfolioStatistics) stats).getWinner());
+		} else {
+			return Optional.empty();
+		}
+	}
+
+	private Budget createBudget() {
+		return Budget.builder().timeout(timeout, TimeUnit.SECONDS).maxNodes(maxNodes).maxIterations(maxIterations)
+				.maxHeapBytes(maxHeap * 1024L * 1024L).build();
 	}
 
 	private void printResult(final SafetyResult<?, ?> status, final STS sts, final long totalTimeMs) {
-		final CegarStatistics stats = (CegarStatistics) status.getStats().get();
+		final CegarStatistics stats = getCegarStatistics(status);
+		final Optional<String> winner = getWinner(status);
 		if (benchmarkMode) {
-			writer.cell(status.isSafe());
+			writer.cell(status.isUnknown() ? "UNKNOWN" : status.isSafe());
 			writer.cell(totalTimeMs);
 			writer.cell(stats.getAlgorithmTimeMs());
 			writer.cell(stats.getAbstractorTimeMs());
 			writer.cell(stats.getRefinerTimeMs());
 			writer.cell(stats.getIterations());
-			writer.cell(status.getArg().size());
-			writer.cell(status.getArg().getDepth());
-			writer.cell(status.getArg().getMeanBranchingFactor());
+			// Unknown results (e.g., budget exceeded) can have an empty ARG
+			final ARG<?, ?> arg = status.getArg();
+			if (arg.size() > 0) {
+				writer.cell(arg.size());
+				writer.cell(arg.getDepth());
+				writer.cell(arg.getMeanBranchingFactor());
+			} else {
+				writer.cell("");
+				writer.cell("");
+				writer.cell("");
+			}
 			if (status.isUnsafe()) {
 				writer.cell(status.asUnsafe().getTrace().length() + "");
 			} else {
@@ -193,6 +370,27 @@ public class StsCli {
 			}
 			writer.cell(sts.getVars().size());
 			writer.cell(ExprUtils.nodeCountSize(BoolExprs.And(sts.getInit(), sts.getTrans())));
+			if (cachingSolverFactory != null) {
+				writer.cell(cachingSolverFactory.getHits());
+				writer.cell(cachingSolverFactory.getMisses());
+			} else {
+				writer.cell("");
+				writer.cell("");
+			}
+			writer.cell(winner.orElse(""));
+		} else {
+			if (winner.isPresent()) {
+				logger.write(Level.RESULT, "Winner: %s%n", winner.get());
+			}
+			if (cachingSolverFactory != null) {
+				logger.write(Level.RESULT, "Solver cache: %d hits, %d misses (%.2f hit rate)%n",
+						cachingSolverFactory.getHits(), cachingSolverFactory.getMisses(),
+						cachingSolverFactory.getHitRate());
+			}
+			if (solverPool != null) {
+				logger.write(Level.RESULT, "Solver pool: %d created, %d reused%n", solverPool.getCreated(),
+						solverPool.getReused());
+			}
 		}
 	}
 
@@ -211,9 +409,9 @@ public class StsCli {
 
 	private void writeVisualStatus(final SafetyResult<?, ?> status, final String filename)
 			throws FileNotFoundException {
-		final Graph graph = status.isSafe()
-				? new ArgVisualizer<>(State::toString, a -> "").visualize(status.asSafe().getArg())
-				: new TraceVisualizer<>(State::toString, a -> "").visualize(status.asUnsafe().getTrace());
+		final Graph graph = status.isUnsafe()
+				? new TraceVisualizer<>(State::toString, a -> "").visualize(status.asUnsafe().getTrace())
+				: new ArgVisualizer<>(State::toString, a -> "").visualize(status.getArg());
 		GraphvizWriter.getInstance().writeFile(graph, filename);
 	}
 }
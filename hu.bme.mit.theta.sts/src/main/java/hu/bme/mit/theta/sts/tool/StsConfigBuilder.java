@@ -17,6 +17,11 @@ package hu.bme.mit.theta.sts.tool;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 import hu.bme.mit.theta.analysis.Action;
@@ -25,13 +30,20 @@ import hu.bme.mit.theta.analysis.LTS;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetedSolverFactory;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
+import hu.bme.mit.theta.analysis.algorithm.portfolio.SwarmChecker;
 import hu.bme.mit.theta.analysis.expl.ExplAnalysis;
 import hu.bme.mit.theta.analysis.expl.ExplPrec;
 import hu.bme.mit.theta.analysis.expl.ExplState;
@@ -48,6 +60,9 @@ import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceSeqItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceUnsatCoreChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ItpRefutation;
 import hu.bme.mit.theta.analysis.expr.refinement.JoiningPrecRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.MultiExprTraceRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.PrecRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.Refutation;
 import hu.bme.mit.theta.analysis.expr.refinement.SingleExprTraceRefiner;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters.ExprSplitter;
@@ -57,13 +72,15 @@ import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
 import hu.bme.mit.theta.analysis.pred.PredAnalysis;
 import hu.bme.mit.theta.analysis.pred.PredPrec;
 import hu.bme.mit.theta.analysis.pred.PredState;
-import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.impl.PooledSolverFactory;
 import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 import hu.bme.mit.theta.sts.STS;
 import hu.bme.mit.theta.sts.analysis.StsAction;
@@ -75,7 +92,7 @@ import hu.bme.mit.theta.sts.analysis.initprec.StsPropInitPrec;
 public final class StsConfigBuilder {
 
 	public enum Domain {
-		EXPL, PRED_BOOL, PRED_CART, PRED_SPLIT
+		EXPL, PRED_BOOL, PRED_CART, PRED_SPLIT, PRED_ALLSAT
 	};
 
 	public enum Refinement {
@@ -122,11 +139,19 @@ public final class StsConfigBuilder {
 
 	private Logger logger = NullLogger.getInstance();
 	private SolverFactory solverFactory = Z3SolverFactory.getInstace();
+	private PooledSolverFactory solverPool = null;
 	private final Domain domain;
 	private final Refinement refinement;
 	private Search search = Search.BFS;
 	private PredSplit predSplit = PredSplit.WHOLE;
 	private InitPrec initPrec = InitPrec.EMPTY;
+	private int threads = 1;
+	private boolean reproducible = false;
+	private boolean strengthen = false;
+	private int cexs = 1;
+	private Budget budget = Budget.unlimited();
+	private int worker = 0;
+	private long seed = 0;
 
 	public StsConfigBuilder(final Domain domain, final Refinement refinement) {
 		this.domain = domain;
@@ -143,6 +168,16 @@ public final class StsConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Lease the solvers from a pool owned by the caller (instead of a pool of
+	 * the configuration over the solver factory), so that solvers can be reused
+	 * across configurations. The pool is not closed with the configuration.
+	 */
+	public StsConfigBuilder solverPool(final PooledSolverFactory solverPool) {
+		this.solverPool = solverPool;
+		return this;
+	}
+
 	public StsConfigBuilder search(final Search search) {
 		this.search = search;
 		return this;
@@ -158,42 +193,91 @@ public final class StsConfigBuilder {
 		return this;
 	}
 
+	public StsConfigBuilder threads(final int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	public StsConfigBuilder reproducible(final boolean reproducible) {
+		this.reproducible = reproducible;
+		return this;
+	}
+
+	public StsConfigBuilder strengthen(final boolean strengthen) {
+		this.strengthen = strengthen;
+		return this;
+	}
+
+	public StsConfigBuilder cexs(final int cexs) {
+		this.cexs = cexs;
+		return this;
+	}
+
+	public StsConfigBuilder budget(final Budget budget) {
+		this.budget = budget;
+		return this;
+	}
+
+	/**
+	 * Diversify the search order for a given worker of a swarm.
+	 *
+	 * @see SwarmChecker#createWaitlist
+	 */
+	public StsConfigBuilder diversify(final int worker, final long seed) {
+		this.worker = worker;
+		this.seed = seed;
+		return this;
+	}
+
 	public InitPrec getInitPrec() {
 		return initPrec;
 	}
 
 	public Config<? extends State, ? extends Action, ? extends Prec> build(final STS sts) {
-		final ItpSolver solver = solverFactory.createItpSolver();
-		final LTS<State, StsAction> lts = StsLts.create(sts);
+		final List<AutoCloseable> resources = Collections.synchronizedList(new ArrayList<>());
+		// Registered first, so that it is closed last, after the solvers
+		// leased from it are returned
+		final PooledSolverFactory pool = solverPool != null ? solverPool
+				: register(resources, PooledSolverFactory.create(solverFactory));
+		final SolverFactory solvers = BudgetedSolverFactory.create(pool, budget);
+		final ItpSolver solver = register(resources, solvers.createItpSolver());
 		final Expr<BoolType> init = sts.getInit();
 		final Expr<BoolType> negProp = Not(sts.getProp());
 
 		if (domain == Domain.EXPL) {
-			final Predicate<ExplState> target = new ExplStatePredicate(negProp, solver);
-			final Analysis<ExplState, ExprAction, ExplPrec> analysis = ExplAnalysis.create(solver, init);
-			final ArgBuilder<ExplState, StsAction, ExplPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<ExplState, StsAction, ExplPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator)).logger(logger).build();
+			final Function<Solver, ArgBuilder<ExplState, StsAction, ExplPrec>> argBuilderFactory = s -> {
+				final LTS<State, StsAction> lts = StsLts.create(sts);
+				final Predicate<ExplState> target = new ExplStatePredicate(negProp, s);
+				final Analysis<ExplState, ExprAction, ExplPrec> analysis = ExplAnalysis.create(s, init);
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final ArgBuilder<ExplState, StsAction, ExplPrec> argBuilder = argBuilderFactory.apply(solver);
+			final Abstractor<ExplState, StsAction, ExplPrec> abstractor = createAbstractor(resources, solvers, argBuilder,
+					argBuilderFactory, SwarmChecker.createWaitlist(worker, seed, search.comparator),
+					s -> s.toMap().entrySet());
 
 			Refiner<ExplState, StsAction, ExplPrec> refiner = null;
 
 			switch (refinement) {
 			case FW_BIN_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(init, negProp, solver),
-						JoiningPrecRefiner.create(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers,
+						s -> ExprTraceFwBinItpChecker.create(init, negProp, s), solver,
+						JoiningPrecRefiner.create(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case BW_BIN_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(init, negProp, solver),
-						JoiningPrecRefiner.create(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers,
+						s -> ExprTraceBwBinItpChecker.create(init, negProp, s), solver,
+						JoiningPrecRefiner.create(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case SEQ_ITP:
-				refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(init, negProp, solver),
-						JoiningPrecRefiner.create(new ItpRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers,
+						s -> ExprTraceSeqItpChecker.create(init, negProp, s), solver,
+						JoiningPrecRefiner.create(new ItpRefToExplPrec()), argBuilder);
 				break;
 			case UNSAT_CORE:
-				refiner = SingleExprTraceRefiner.create(ExprTraceUnsatCoreChecker.create(init, negProp, solver),
-						JoiningPrecRefiner.create(new VarsRefToExplPrec()), logger);
+				refiner = createTraceRefiner(resources, solvers,
+						s -> ExprTraceUnsatCoreChecker.create(init, negProp, s), solver,
+						JoiningPrecRefiner.create(new VarsRefToExplPrec()), argBuilder);
 				break;
 			default:
 				throw new UnsupportedOperationException(
@@ -201,58 +285,119 @@ public final class StsConfigBuilder {
 			}
 
 			final SafetyChecker<ExplState, StsAction, ExplPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					budget, logger);
 			final ExplPrec prec = initPrec.builder.createExpl(sts);
-			return Config.create(checker, prec);
-
-		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT) {
-			PredAbstractor predAbstractor = null;
-			switch (domain) {
-			case PRED_BOOL:
-				predAbstractor = PredAbstractors.booleanAbstractor(solver);
-				break;
-			case PRED_SPLIT:
-				predAbstractor = PredAbstractors.booleanSplitAbstractor(solver);
-				break;
-			case PRED_CART:
-				predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-				break;
-			default:
-				throw new UnsupportedOperationException(domain + " domain is not supported.");
-			}
-			final Predicate<ExprState> target = new ExprStatePredicate(negProp, solver);
-			final Analysis<PredState, ExprAction, PredPrec> analysis = PredAnalysis.create(solver, predAbstractor,
-					init);
-			final ArgBuilder<PredState, StsAction, PredPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<PredState, StsAction, PredPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator)).logger(logger).build();
-
-			ExprTraceChecker<ItpRefutation> exprTraceChecker = null;
+			return Config.create(checker, prec, resources);
+
+		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT
+				|| domain == Domain.PRED_ALLSAT) {
+			final Function<Solver, ArgBuilder<PredState, StsAction, PredPrec>> argBuilderFactory = s -> {
+				final LTS<State, StsAction> lts = StsLts.create(sts);
+				final Predicate<ExprState> target = new ExprStatePredicate(negProp, s);
+				final Analysis<PredState, ExprAction, PredPrec> analysis = PredAnalysis.create(s,
+						createPredAbstractor(s), init);
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final ArgBuilder<PredState, StsAction, PredPrec> argBuilder = argBuilderFactory.apply(solver);
+			final Abstractor<PredState, StsAction, PredPrec> abstractor = createAbstractor(resources, solvers, argBuilder,
+					argBuilderFactory, SwarmChecker.createWaitlist(worker, seed, search.comparator),
+					s -> Collections.emptySet());
+
+			Function<ItpSolver, ExprTraceChecker<ItpRefutation>> exprTraceCheckerFactory = null;
 			switch (refinement) {
 			case FW_BIN_ITP:
-				exprTraceChecker = ExprTraceFwBinItpChecker.create(init, negProp, solver);
+				exprTraceCheckerFactory = s -> ExprTraceFwBinItpChecker.create(init, negProp, s);
 				break;
 			case BW_BIN_ITP:
-				exprTraceChecker = ExprTraceBwBinItpChecker.create(init, negProp, solver);
+				exprTraceCheckerFactory = s -> ExprTraceBwBinItpChecker.create(init, negProp, s);
 				break;
 			case SEQ_ITP:
-				exprTraceChecker = ExprTraceSeqItpChecker.create(init, negProp, solver);
+				exprTraceCheckerFactory = s -> ExprTraceSeqItpChecker.create(init, negProp, s);
 				break;
 			default:
 				throw new UnsupportedOperationException(
 						domain + " domain does not support " + refinement + " refinement.");
 			}
-			final Refiner<PredState, StsAction, PredPrec> refiner = SingleExprTraceRefiner.create(exprTraceChecker,
-					JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), logger);
+			final Refiner<PredState, StsAction, PredPrec> refiner = createTraceRefiner(resources, solvers,
+					exprTraceCheckerFactory, solver, JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)),
+					argBuilder);
 
 			final SafetyChecker<PredState, StsAction, PredPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					budget, logger);
 
 			final PredPrec prec = initPrec.builder.createPred(sts);
-			return Config.create(checker, prec);
+			return Config.create(checker, prec, resources);
 		} else {
 			throw new UnsupportedOperationException(domain + " domain is not supported.");
 		}
 	}
+
+	private PredAbstractor createPredAbstractor(final Solver solver) {
+		switch (domain) {
+		case PRED_BOOL:
+			return PredAbstractors.booleanAbstractor(solver);
+		case PRED_SPLIT:
+			return PredAbstractors.booleanSplitAbstractor(solver);
+		case PRED_CART:
+			return PredAbstractors.cartesianAbstractor(solver);
+		case PRED_ALLSAT:
+			return PredAbstractors.allSatAbstractor(solver);
+		default:
+			throw new UnsupportedOperationException(domain + " domain is not supported.");
+		}
+	}
+
+	private <S extends State, P extends Prec> Abstractor<S, StsAction, P> createAbstractor(
+			final List<AutoCloseable> resources, final SolverFactory solvers,
+			final ArgBuilder<S, StsAction, P> argBuilder,
+			final Function<Solver, ArgBuilder<S, StsAction, P>> argBuilderFactory,
+			final Waitlist<ArgNode<S, StsAction>> waitlist,
+			final Function<? super S, ? extends Collection<?>> literals) {
+		if (threads > 1) {
+			return register(resources, ParallelAbstractor
+					.builder(argBuilder, () -> argBuilderFactory.apply(register(resources, solvers.createSolver())))
+					.fingerprint(s -> s).literals(literals).waitlist(waitlist).stopCriterion(createStopCriterion())
+					.threads(threads).reproducible(reproducible).budget(budget).logger(logger).build());
+		} else {
+			return BasicAbstractor.builder(argBuilder).fingerprint(s -> s).literals(literals).waitlist(waitlist)
+					.stopCriterion(createStopCriterion()).budget(budget).logger(logger).build();
+		}
+	}
+
+	private <S extends ExprState, P extends Prec, R extends Refutation> Refiner<S, StsAction, P> createTraceRefiner(
+			final List<AutoCloseable> resources, final SolverFactory solvers,
+			final Function<ItpSolver, ExprTraceChecker<R>> exprTraceCheckerFactory, final ItpSolver solver,
+			final PrecRefiner<S, StsAction, P, R> precRefiner, final ArgBuilder<S, StsAction, P> argBuilder) {
+		final ExprTraceChecker<R> exprTraceChecker = exprTraceCheckerFactory.apply(solver);
+		if (cexs != 1) {
+			if (strengthen) {
+				throw new UnsupportedOperationException("Strengthening is not supported with multiple cexs.");
+			}
+			return register(resources, MultiExprTraceRefiner
+					.builder(exprTraceChecker,
+							() -> exprTraceCheckerFactory.apply(register(resources, solvers.createItpSolver())),
+							precRefiner)
+					.maxCexs(cexs).threads(threads).logger(logger).build());
+		} else if (strengthen) {
+			return SingleExprTraceRefiner.create(exprTraceChecker, precRefiner, argBuilder, logger);
+		} else {
+			return SingleExprTraceRefiner.create(exprTraceChecker, precRefiner, logger);
+		}
+	}
+
+	// Resources are closed with the configuration
+	private static <T extends AutoCloseable> T register(final List<AutoCloseable> resources, final T resource) {
+		resources.add(resource);
+		return resource;
+	}
+
+	private <S extends State> StopCriterion<S, StsAction> createStopCriterion() {
+		if (cexs == 1) {
+			return StopCriterions.firstCex();
+		} else if (cexs == 0) {
+			return StopCriterions.fullExploration();
+		} else {
+			return StopCriterions.atLeastNCexs(cexs);
+		}
+	}
 }
@@ -160,10 +160,11 @@ public class StsGui extends BaseGui {
 					throw new UnsupportedOperationException("STS contains multiple properties.");
 				}
 				sts = StsUtils.eliminateIte(Utils.singleElementOf(stss));
-				final Config<?, ?, ?> config = new StsConfigBuilder(cbDomain.getValue(), cbRefinement.getValue())
+				try (Config<?, ?, ?> config = new StsConfigBuilder(cbDomain.getValue(), cbRefinement.getValue())
 						.search(cbSearch.getValue()).predSplit(cbPredSplit.getValue()).initPrec(cbInitPrec.getValue())
-						.logger(new TextAreaLogger(cbLogLevel.getValue(), taOutput)).build(sts);
-				safetyResult = config.check();
+						.logger(new TextAreaLogger(cbLogLevel.getValue(), taOutput)).build(sts)) {
+					safetyResult = config.check();
+				}
 			} catch (final Exception ex) {
 				Platform.runLater(() -> displayException(ex));
 			} finally {
@@ -18,23 +18,41 @@ package hu.bme.mit.theta.xta.analysis;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.xta.XtaProcess.LocKind.COMMITTED;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 
 import hu.bme.mit.theta.analysis.LTS;
 import hu.bme.mit.theta.xta.Label;
 import hu.bme.mit.theta.xta.Sync;
-import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.Sync.Kind;
+import hu.bme.mit.theta.xta.XtaProcess;
 import hu.bme.mit.theta.xta.XtaProcess.Edge;
 import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaSystem;
 
+/**
+ * LTS of a network of timed automata. The outgoing edges of each location are
+ * indexed in advance, and the enabled actions are cached for each location
+ * vector, so repeated queries for the same locations return the same
+ * (immutable) collection of actions without allocation. The LTS can be shared
+ * by multiple threads.
+ */
 public final class XtaLts implements LTS<XtaState<?>, XtaAction> {
 
 	private final XtaSystem system;
+	private final Map<Loc, LocEdges> locEdges;
+	private final Map<List<Loc>, Collection<XtaAction>> actionCache;
 
 	private XtaLts(final XtaSystem system) {
 		this.system = checkNotNull(system);
+		locEdges = createLocEdges(system);
+		actionCache = new ConcurrentHashMap<>();
 	}
 
 	public static XtaLts create(final XtaSystem system) {
@@ -43,72 +61,94 @@ public final class XtaLts implements LTS<XtaState<?>, XtaAction> {
 
 	@Override
 	public Collection<XtaAction> getEnabledActionsFor(final XtaState<?> state) {
-		final Collection<XtaAction> result = new ArrayList<>();
-		for (final Loc loc : state.getLocs()) {
-			for (final Edge edge : loc.getOutEdges()) {
-				addActionsForEdge(result, system, state, edge);
-			}
+		final List<Loc> locs = state.getLocs();
+		final Collection<XtaAction> actions = actionCache.get(locs);
+		if (actions != null) {
+			return actions;
 		}
-		return result;
+		return actionCache.computeIfAbsent(locs, l -> createEnabledActions(l, state.isCommitted()));
 	}
 
-	private static void addActionsForEdge(final Collection<XtaAction> result, final XtaSystem system,
-			final XtaState<?> state, final Edge edge) {
-		if (edge.getSync().isPresent()) {
-			addSyncActionsForEdge(result, system, state, edge);
-		} else {
-			addSimpleActionsForEdge(result, system, state, edge);
+	private Collection<XtaAction> createEnabledActions(final List<Loc> locs, final boolean committed) {
+		final ImmutableList.Builder<XtaAction> builder = ImmutableList.builder();
+		for (final Loc loc : locs) {
+			for (final Edge edge : locEdges.get(loc).actionEdges) {
+				if (edge.getSync().isPresent()) {
+					addSyncActionsForEdge(builder, locs, committed, edge);
+				} else {
+					addSimpleActionsForEdge(builder, locs, committed, edge);
+				}
+			}
 		}
+		return builder.build();
 	}
 
-	private static void addSyncActionsForEdge(final Collection<XtaAction> result, final XtaSystem system,
-			final XtaState<?> state, final Edge emitEdge) {
-
+	private void addSyncActionsForEdge(final ImmutableList.Builder<XtaAction> builder, final List<Loc> locs,
+			final boolean committed, final Edge emitEdge) {
 		final Loc emitLoc = emitEdge.getSource();
-		final Sync emitSync = emitEdge.getSync().get();
-		if (emitSync.getKind() != Kind.EMIT) {
-			return;
-		}
+		final Label emitLabel = emitEdge.getSync().get().getLabel();
 
-		final Label emitLabel = emitSync.getLabel();
-
-		for (final Loc recvLoc : state.getLocs()) {
+		for (final Loc recvLoc : locs) {
 			if (recvLoc == emitLoc) {
 				continue;
 			}
 
-			if (state.isCommitted() && emitLoc.getKind() != COMMITTED && recvLoc.getKind() != COMMITTED) {
+			if (committed && emitLoc.getKind() != COMMITTED && recvLoc.getKind() != COMMITTED) {
 				continue;
 			}
 
-			for (final Edge recvEdge : recvLoc.getOutEdges()) {
-				if (!recvEdge.getSync().isPresent()) {
-					continue;
-				}
-
-				final Sync recvSync = recvEdge.getSync().get();
-				if (recvSync.getKind() != Kind.RECV) {
-					continue;
-				}
-
-				final Label recvLabel = recvSync.getLabel();
-
-				if (emitLabel.equals(recvLabel)) {
-					final XtaAction action = XtaAction.synced(system, state.getLocs(), emitEdge, recvEdge);
-					result.add(action);
-				}
+			for (final Edge recvEdge : locEdges.get(recvLoc).recvEdges.get(emitLabel)) {
+				builder.add(XtaAction.synced(system, locs, emitEdge, recvEdge));
 			}
 		}
 	}
 
-	private static void addSimpleActionsForEdge(final Collection<XtaAction> result, final XtaSystem system,
-			final XtaState<?> state, final Edge edge) {
+	private void addSimpleActionsForEdge(final ImmutableList.Builder<XtaAction> builder, final List<Loc> locs,
+			final boolean committed, final Edge edge) {
 		final Loc loc = edge.getSource();
-		if (state.isCommitted() && loc.getKind() != COMMITTED) {
+		if (committed && loc.getKind() != COMMITTED) {
 			return;
 		}
-		final XtaAction action = XtaAction.simple(system, state.getLocs(), edge);
-		result.add(action);
+		builder.add(XtaAction.simple(system, locs, edge));
+	}
+
+	private static Map<Loc, LocEdges> createLocEdges(final XtaSystem system) {
+		final ImmutableMap.Builder<Loc, LocEdges> builder = ImmutableMap.builder();
+		for (final XtaProcess process : system.getProcesses()) {
+			for (final Loc loc : process.getLocs()) {
+				builder.put(loc, new LocEdges(loc));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Outgoing edges of a location, split into edges that can initiate an
+	 * action (simple and emitting edges, in their original order) and
+	 * receiving edges indexed by their label.
+	 */
+	private static final class LocEdges {
+		final List<Edge> actionEdges;
+		final ImmutableListMultimap<Label, Edge> recvEdges;
+
+		LocEdges(final Loc loc) {
+			final ImmutableList.Builder<Edge> actionEdgesBuilder = ImmutableList.builder();
+			final ImmutableListMultimap.Builder<Label, Edge> recvEdgesBuilder = ImmutableListMultimap.builder();
+			for (final Edge edge : loc.getOutEdges()) {
+				if (edge.getSync().isPresent()) {
+					final Sync sync = edge.getSync().get();
+					if (sync.getKind() == Kind.EMIT) {
+						actionEdgesBuilder.add(edge);
+					} else {
+						recvEdgesBuilder.put(sync.getLabel(), edge);
+					}
+				} else {
+					actionEdgesBuilder.add(edge);
+				}
+			}
+			actionEdges = actionEdgesBuilder.build();
+			recvEdges = recvEdgesBuilder.build();
+		}
 	}
 
 }
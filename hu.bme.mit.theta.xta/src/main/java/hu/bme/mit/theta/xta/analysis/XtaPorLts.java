@@ -0,0 +1,224 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.xta.XtaProcess.LocKind.NORMAL;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.core.utils.StmtUtils;
+import hu.bme.mit.theta.xta.Guard;
+import hu.bme.mit.theta.xta.Update;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Edge;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaSystem;
+
+/**
+ * LTS decorating {@link XtaLts} with a partial-order reduction. If a process is
+ * in a location whose only outgoing edge is a local step, the ample set of the
+ * state consists of that step only, and the other processes are not
+ * interleaved with it.
+ * <p>
+ * A local step is an edge without guards, synchronization and clock resets,
+ * between two normal locations with the same invariants, which only updates
+ * data variables that no other process and no target refers to. Such a step
+ * is always enabled in a non-committed state, it is independent of the steps
+ * of the other processes (it leaves the zone and the variables of other
+ * processes unchanged), and it is invisible for the target. To avoid ignoring
+ * the other processes, local steps on cycles of local steps are not reduced.
+ * Resetting clocks would change the zone depending on the time the step is
+ * taken, so it would need local-time semantics, which is not supported.
+ */
+public final class XtaPorLts implements LTS<XtaState<?>, XtaAction> {
+
+	private final XtaLts lts;
+	private final Map<Loc, Edge> localEdges;
+	private final Map<List<Loc>, Collection<XtaAction>> actionCache;
+
+	private XtaPorLts(final XtaSystem system, final Optional<XtaTarget> target) {
+		checkNotNull(system);
+		checkNotNull(target);
+		lts = XtaLts.create(system);
+		localEdges = createLocalEdges(system, target);
+		actionCache = new ConcurrentHashMap<>();
+	}
+
+	public static XtaPorLts create(final XtaSystem system) {
+		return new XtaPorLts(system, Optional.empty());
+	}
+
+	/**
+	 * Creates a reduced LTS that preserves the reachability of the given
+	 * target.
+	 */
+	public static XtaPorLts create(final XtaSystem system, final XtaTarget target) {
+		return new XtaPorLts(system, Optional.of(target));
+	}
+
+	@Override
+	public Collection<XtaAction> getEnabledActionsFor(final XtaState<?> state) {
+		final Collection<XtaAction> actions = lts.getEnabledActionsFor(state);
+		if (state.isCommitted()) {
+			return actions;
+		}
+		final List<Loc> locs = state.getLocs();
+		final Collection<XtaAction> reducedActions = actionCache.get(locs);
+		if (reducedActions != null) {
+			return reducedActions;
+		}
+		return actionCache.computeIfAbsent(locs, l -> createAmpleSet(l, actions));
+	}
+
+	private Collection<XtaAction> createAmpleSet(final List<Loc> locs, final Collection<XtaAction> actions) {
+		for (final Loc loc : locs) {
+			final Edge localEdge = localEdges.get(loc);
+			if (localEdge != null) {
+				for (final XtaAction action : actions) {
+					if (action.isBasic() && action.asBasic().getEdge() == localEdge) {
+						return ImmutableList.of(action);
+					}
+				}
+				throw new AssertionError();
+			}
+		}
+		return actions;
+	}
+
+	private static Map<Loc, Edge> createLocalEdges(final XtaSystem system, final Optional<XtaTarget> target) {
+		final Set<Loc> visibleLocs = new HashSet<>();
+		final Set<VarDecl<?>> visibleVars = new HashSet<>();
+		if (target.isPresent()) {
+			visibleLocs.addAll(target.get().getLocs());
+			visibleVars.addAll(ExprUtils.getVars(target.get().getDataConstr()));
+		}
+
+		final Map<XtaProcess, Set<VarDecl<?>>> processVars = new HashMap<>();
+		for (final XtaProcess process : system.getProcesses()) {
+			processVars.put(process, getVars(process));
+		}
+
+		final ImmutableMap.Builder<Loc, Edge> builder = ImmutableMap.builder();
+		for (final XtaProcess process : system.getProcesses()) {
+			final Set<VarDecl<?>> sharedVars = new HashSet<>(visibleVars);
+			processVars.forEach((p, vars) -> {
+				if (p != process) {
+					sharedVars.addAll(vars);
+				}
+			});
+
+			final Map<Loc, Edge> candidates = new HashMap<>();
+			for (final Loc loc : process.getLocs()) {
+				if (loc.getOutEdges().size() == 1) {
+					final Edge edge = loc.getOutEdges().iterator().next();
+					if (isLocal(edge, visibleLocs, sharedVars)) {
+						candidates.put(loc, edge);
+					}
+				}
+			}
+
+			candidates.forEach((loc, edge) -> {
+				if (!isOnCycle(loc, candidates)) {
+					builder.put(loc, edge);
+				}
+			});
+		}
+		return builder.build();
+	}
+
+	private static boolean isLocal(final Edge edge, final Set<Loc> visibleLocs, final Set<VarDecl<?>> sharedVars) {
+		final Loc source = edge.getSource();
+		final Loc target = edge.getTarget();
+		if (source.getKind() != NORMAL || target.getKind() != NORMAL) {
+			return false;
+		}
+		if (visibleLocs.contains(source) || visibleLocs.contains(target)) {
+			return false;
+		}
+		if (!edge.getGuards().isEmpty() || edge.getSync().isPresent()) {
+			return false;
+		}
+		if (!getInvarExprs(source).equals(getInvarExprs(target))) {
+			return false;
+		}
+		for (final Update update : edge.getUpdates()) {
+			if (!update.isDataUpdate()) {
+				return false;
+			}
+			final Set<VarDecl<?>> vars = StmtUtils.getVars(update.toStmt());
+			if (vars.stream().anyMatch(sharedVars::contains)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isOnCycle(final Loc loc, final Map<Loc, Edge> candidates) {
+		Loc current = loc;
+		for (int i = 0; i < candidates.size(); i++) {
+			final Edge edge = candidates.get(current);
+			if (edge == null) {
+				return false;
+			}
+			current = edge.getTarget();
+			if (current == loc) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<Object> getInvarExprs(final Loc loc) {
+		return loc.getInvars().stream().map(Guard::toExpr).collect(toSet());
+	}
+
+	private static Set<VarDecl<?>> getVars(final XtaProcess process) {
+		final Set<VarDecl<?>> result = new HashSet<>();
+		for (final Loc loc : process.getLocs()) {
+			for (final Guard invar : loc.getInvars()) {
+				result.addAll(ExprUtils.getVars(invar.toExpr()));
+			}
+		}
+		for (final Edge edge : process.getEdges()) {
+			for (final Guard guard : edge.getGuards()) {
+				result.addAll(ExprUtils.getVars(guard.toExpr()));
+			}
+			for (final Update update : edge.getUpdates()) {
+				result.addAll(StmtUtils.getVars(update.toStmt()));
+			}
+			if (edge.getSync().isPresent()) {
+				result.addAll(ExprUtils.getVars(edge.getSync().get().getArgs()));
+			}
+		}
+		return result;
+	}
+
+}
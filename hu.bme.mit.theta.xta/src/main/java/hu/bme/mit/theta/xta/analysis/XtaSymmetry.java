@@ -0,0 +1,408 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.prod2.Prod2State;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.BasicSubstitution;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.model.Substitution;
+import hu.bme.mit.theta.core.stmt.AssignStmt;
+import hu.bme.mit.theta.core.stmt.Stmt;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
+import hu.bme.mit.theta.core.type.inttype.IntLitExpr;
+import hu.bme.mit.theta.core.type.rattype.RatType;
+import hu.bme.mit.theta.core.utils.ExprUtils;
+import hu.bme.mit.theta.core.utils.StmtUtils;
+import hu.bme.mit.theta.xta.Guard;
+import hu.bme.mit.theta.xta.Sync;
+import hu.bme.mit.theta.xta.Update;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Edge;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaSystem;
+
+/**
+ * Symmetry reduction over identical process instances. Two processes are
+ * symmetric if they are equal up to the renaming of their own locations,
+ * clocks and local variables, which are matched by their names without the
+ * process name prefix. Processes referred to by the target are not permuted.
+ * <p>
+ * A state is canonized by sorting the processes of each group of symmetric
+ * processes by their locations and local variables, and permuting the location
+ * vector, the local variables and the clocks of the zone accordingly. Symmetric
+ * states have the same canonical representative in most cases, so covering
+ * canonical states covers all symmetric ones. Processes that are distinguished
+ * by a parameter (e.g., a process identifier written to a shared variable) are
+ * not symmetric in this sense, as that would need permuting values too.
+ */
+public final class XtaSymmetry {
+
+	private final List<Group> groups;
+
+	private XtaSymmetry(final XtaSystem system, final Optional<XtaTarget> target) {
+		checkNotNull(system);
+		checkNotNull(target);
+		groups = createGroups(system, target);
+	}
+
+	public static XtaSymmetry create(final XtaSystem system) {
+		return new XtaSymmetry(system, Optional.empty());
+	}
+
+	/**
+	 * Creates a symmetry reduction that preserves the reachability of the
+	 * given target.
+	 */
+	public static XtaSymmetry create(final XtaSystem system, final XtaTarget target) {
+		return new XtaSymmetry(system, Optional.of(target));
+	}
+
+	/**
+	 * Gets the groups of symmetric processes, each given by the indices of its
+	 * processes in the system.
+	 */
+	public List<List<Integer>> getGroups() {
+		return groups.stream().map(g -> g.indices).collect(toList());
+	}
+
+	public XtaState<Prod2State<ExplState, ZoneState>> canonize(final XtaState<Prod2State<ExplState, ZoneState>> state) {
+		checkNotNull(state);
+		if (groups.isEmpty() || state.isBottom()) {
+			return state;
+		}
+
+		final List<Loc> locs = state.getLocs();
+		final ExplState expl = state.getState().getState1();
+		final List<Loc> newLocs = new ArrayList<>(locs);
+		final Map<Decl<?>, LitExpr<?>> newValues = new HashMap<>(expl.toMap());
+		final Map<VarDecl<RatType>, VarDecl<RatType>> clockPermutation = new HashMap<>();
+		boolean changed = false;
+
+		for (final Group group : groups) {
+			final int size = group.indices.size();
+			final Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, group.comparator(locs, expl));
+
+			for (int i = 0; i < size; i++) {
+				final int source = order[i];
+				if (source == i) {
+					continue;
+				}
+				changed = true;
+				final int rank = group.locRanks.get(locs.get(group.indices.get(source)));
+				newLocs.set(group.indices.get(i), group.locs.get(i).get(rank));
+				for (int j = 0; j < group.dataVars.get(i).size(); j++) {
+					final VarDecl<?> sourceVar = group.dataVars.get(source).get(j);
+					final VarDecl<?> targetVar = group.dataVars.get(i).get(j);
+					final Optional<? extends LitExpr<?>> value = expl.eval(sourceVar);
+					if (value.isPresent()) {
+						newValues.put(targetVar, value.get());
+					} else {
+						newValues.remove(targetVar);
+					}
+				}
+				for (int j = 0; j < group.clockVars.get(i).size(); j++) {
+					clockPermutation.put(group.clockVars.get(source).get(j), group.clockVars.get(i).get(j));
+				}
+			}
+		}
+
+		if (!changed) {
+			return state;
+		}
+
+		final ImmutableValuation.Builder builder = ImmutableValuation.builder();
+		newValues.forEach(builder::put);
+		final ExplState newExpl = ExplState.of(builder.build());
+		final ZoneState newZone = state.getState().getState2().transform().permute(clockPermutation).build()
+				.intern();
+		return XtaState.of(newLocs, Prod2State.of(newExpl, newZone));
+	}
+
+	////
+
+	private static final class Group {
+		private final List<Integer> indices;
+		private final Map<Loc, Integer> locRanks;
+		private final List<List<Loc>> locs;
+		private final List<List<VarDecl<?>>> dataVars;
+		private final List<List<VarDecl<RatType>>> clockVars;
+
+		private Group(final List<Integer> indices, final Map<Loc, Integer> locRanks, final List<List<Loc>> locs,
+				final List<List<VarDecl<?>>> dataVars, final List<List<VarDecl<RatType>>> clockVars) {
+			this.indices = ImmutableList.copyOf(indices);
+			this.locRanks = locRanks;
+			this.locs = locs;
+			this.dataVars = dataVars;
+			this.clockVars = clockVars;
+		}
+
+		private Comparator<Integer> comparator(final List<Loc> stateLocs, final ExplState expl) {
+			Comparator<Integer> result = Comparator.comparing(i -> locRanks.get(stateLocs.get(indices.get(i))));
+			for (int j = 0; j < dataVars.get(0).size(); j++) {
+				final int index = j;
+				result = result.thenComparing((i1, i2) -> compareValues(expl.eval(dataVars.get(i1).get(index)),
+						expl.eval(dataVars.get(i2).get(index))));
+			}
+			return result;
+		}
+
+		private static int compareValues(final Optional<? extends LitExpr<?>> value1,
+				final Optional<? extends LitExpr<?>> value2) {
+			if (!value1.isPresent() || !value2.isPresent()) {
+				return Boolean.compare(value1.isPresent(), value2.isPresent());
+			}
+			final LitExpr<?> lit1 = value1.get();
+			final LitExpr<?> lit2 = value2.get();
+			if (lit1 instanceof IntLitExpr && lit2 instanceof IntLitExpr) {
+				return ((IntLitExpr) lit1).compareTo((IntLitExpr) lit2);
+			} else if (lit1 instanceof BoolLitExpr && lit2 instanceof BoolLitExpr) {
+				return Boolean.compare(((BoolLitExpr) lit1).getValue(), ((BoolLitExpr) lit2).getValue());
+			} else {
+				return 0;
+			}
+		}
+	}
+
+	////
+
+	private static List<Group> createGroups(final XtaSystem system, final Optional<XtaTarget> target) {
+		final List<XtaProcess> processes = system.getProcesses();
+
+		final Map<VarDecl<?>, Integer> occurrences = new HashMap<>();
+		for (final XtaProcess process : processes) {
+			process.getDataVars().forEach(v -> occurrences.merge(v, 1, Integer::sum));
+			process.getClockVars().forEach(v -> occurrences.merge(v, 1, Integer::sum));
+		}
+		final Function<XtaProcess, List<VarDecl<?>>> localDataVars = p -> sortedBySuffix(p,
+				p.getDataVars().stream().filter(v -> occurrences.get(v) == 1).collect(toList()), Decl::getName);
+		final Function<XtaProcess, List<VarDecl<RatType>>> localClockVars = p -> sortedBySuffix(p,
+				p.getClockVars().stream().filter(v -> occurrences.get(v) == 1).collect(toList()), Decl::getName);
+
+		final Set<VarDecl<?>> visibleVars = new HashSet<>();
+		final Set<Loc> visibleLocs = new HashSet<>();
+		if (target.isPresent()) {
+			visibleLocs.addAll(target.get().getLocs());
+			visibleVars.addAll(ExprUtils.getVars(target.get().getDataConstr()));
+			visibleVars.addAll(target.get().getClockConstr().getVars());
+		}
+
+		final boolean[] assigned = new boolean[processes.size()];
+		for (int i = 0; i < processes.size(); i++) {
+			final XtaProcess process = processes.get(i);
+			if (process.getLocs().stream().anyMatch(visibleLocs::contains)
+					|| process.getDataVars().stream().filter(v -> occurrences.get(v) == 1)
+							.anyMatch(visibleVars::contains)
+					|| process.getClockVars().stream().filter(v -> occurrences.get(v) == 1)
+							.anyMatch(visibleVars::contains)) {
+				assigned[i] = true;
+			}
+		}
+
+		final List<Group> groups = new ArrayList<>();
+		for (int i = 0; i < processes.size(); i++) {
+			if (assigned[i]) {
+				continue;
+			}
+			final XtaProcess ref = processes.get(i);
+			final List<Integer> indices = new ArrayList<>();
+			indices.add(i);
+			for (int j = i + 1; j < processes.size(); j++) {
+				if (!assigned[j] && isSymmetric(ref, processes.get(j), localDataVars, localClockVars)) {
+					indices.add(j);
+					assigned[j] = true;
+				}
+			}
+			if (indices.size() > 1) {
+				groups.add(createGroup(processes, indices, localDataVars, localClockVars));
+			}
+		}
+		return ImmutableList.copyOf(groups);
+	}
+
+	private static Group createGroup(final List<XtaProcess> processes, final List<Integer> indices,
+			final Function<XtaProcess, List<VarDecl<?>>> localDataVars,
+			final Function<XtaProcess, List<VarDecl<RatType>>> localClockVars) {
+		final Map<Loc, Integer> locRanks = new HashMap<>();
+		final List<List<Loc>> locs = new ArrayList<>();
+		final List<List<VarDecl<?>>> dataVars = new ArrayList<>();
+		final List<List<VarDecl<RatType>>> clockVars = new ArrayList<>();
+		for (final int index : indices) {
+			final XtaProcess process = processes.get(index);
+			final List<Loc> processLocs = sortedBySuffix(process, process.getLocs(), Loc::getName);
+			for (int rank = 0; rank < processLocs.size(); rank++) {
+				locRanks.put(processLocs.get(rank), rank);
+			}
+			locs.add(processLocs);
+			dataVars.add(localDataVars.apply(process));
+			clockVars.add(localClockVars.apply(process));
+		}
+		return new Group(indices, locRanks, locs, dataVars, clockVars);
+	}
+
+	private static boolean isSymmetric(final XtaProcess ref, final XtaProcess process,
+			final Function<XtaProcess, List<VarDecl<?>>> localDataVars,
+			final Function<XtaProcess, List<VarDecl<RatType>>> localClockVars) {
+		final List<VarDecl<?>> refVars = new ArrayList<>();
+		refVars.addAll(localDataVars.apply(ref));
+		refVars.addAll(localClockVars.apply(ref));
+		final List<VarDecl<?>> vars = new ArrayList<>();
+		vars.addAll(localDataVars.apply(process));
+		vars.addAll(localClockVars.apply(process));
+		if (refVars.size() != vars.size() || localClockVars.apply(ref).size() != localClockVars.apply(process).size()) {
+			return false;
+		}
+
+		final Map<VarDecl<?>, VarDecl<?>> varMapping = new HashMap<>();
+		final BasicSubstitution.Builder substitution = BasicSubstitution.builder();
+		for (int i = 0; i < vars.size(); i++) {
+			final VarDecl<?> var = vars.get(i);
+			final VarDecl<?> refVar = refVars.get(i);
+			if (!suffix(process, var.getName()).equals(suffix(ref, refVar.getName()))
+					|| !var.getType().equals(refVar.getType())) {
+				return false;
+			}
+			varMapping.put(var, refVar);
+			substitution.put(var, refVar.getRef());
+		}
+		final Substitution sub = substitution.build();
+
+		final Map<String, Loc> refLocs = new HashMap<>();
+		ref.getLocs().forEach(l -> refLocs.put(suffix(ref, l.getName()), l));
+		if (refLocs.size() != ref.getLocs().size() || process.getLocs().size() != refLocs.size()) {
+			return false;
+		}
+		final Map<Loc, Loc> locMapping = new HashMap<>();
+		for (final Loc loc : process.getLocs()) {
+			final Loc refLoc = refLocs.get(suffix(process, loc.getName()));
+			if (refLoc == null || refLoc.getKind() != loc.getKind()
+					|| !substitute(loc.getInvars(), sub).equals(toExprs(refLoc.getInvars()))) {
+				return false;
+			}
+			locMapping.put(loc, refLoc);
+		}
+		if (locMapping.get(process.getInitLoc()) != ref.getInitLoc()) {
+			return false;
+		}
+
+		if (process.getEdges().size() != ref.getEdges().size()) {
+			return false;
+		}
+		final Iterator<Edge> refEdges = ref.getEdges().iterator();
+		for (final Edge edge : process.getEdges()) {
+			if (!isSymmetric(refEdges.next(), edge, locMapping, varMapping, sub)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSymmetric(final Edge refEdge, final Edge edge, final Map<Loc, Loc> locMapping,
+			final Map<VarDecl<?>, VarDecl<?>> varMapping, final Substitution sub) {
+		if (locMapping.get(edge.getSource()) != refEdge.getSource()
+				|| locMapping.get(edge.getTarget()) != refEdge.getTarget()) {
+			return false;
+		}
+		if (!substitute(edge.getGuards(), sub).equals(toExprs(refEdge.getGuards()))) {
+			return false;
+		}
+
+		if (edge.getSync().isPresent() != refEdge.getSync().isPresent()) {
+			return false;
+		}
+		if (edge.getSync().isPresent()) {
+			final Sync sync = edge.getSync().get();
+			final Sync refSync = refEdge.getSync().get();
+			if (!sync.getLabel().equals(refSync.getLabel()) || sync.getKind() != refSync.getKind()) {
+				return false;
+			}
+			final List<Expr<?>> args = sync.getArgs().stream().map(sub::apply).collect(toList());
+			if (!args.equals(refSync.getArgs())) {
+				return false;
+			}
+		}
+
+		final List<Update> updates = edge.getUpdates();
+		final List<Update> refUpdates = refEdge.getUpdates();
+		if (updates.size() != refUpdates.size()) {
+			return false;
+		}
+		for (int i = 0; i < updates.size(); i++) {
+			final Stmt stmt = updates.get(i).toStmt();
+			final Stmt refStmt = refUpdates.get(i).toStmt();
+			if (stmt instanceof AssignStmt && refStmt instanceof AssignStmt) {
+				final AssignStmt<?> assign = (AssignStmt<?>) stmt;
+				final AssignStmt<?> refAssign = (AssignStmt<?>) refStmt;
+				final VarDecl<?> lhs = varMapping.getOrDefault(assign.getVarDecl(), assign.getVarDecl());
+				if (!lhs.equals(refAssign.getVarDecl()) || !sub.apply(assign.getExpr()).equals(refAssign.getExpr())) {
+					return false;
+				}
+			} else if (!stmt.equals(refStmt) || StmtUtils.getVars(stmt).stream().anyMatch(varMapping::containsKey)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Set<Expr<?>> substitute(final Collection<Guard> guards, final Substitution sub) {
+		return guards.stream().map(g -> sub.apply(g.toExpr())).collect(toSet());
+	}
+
+	private static Set<Expr<?>> toExprs(final Collection<Guard> guards) {
+		return guards.stream().map(Guard::toExpr).collect(toSet());
+	}
+
+	private static <T> List<T> sortedBySuffix(final XtaProcess process, final Collection<? extends T> elems,
+			final Function<? super T, String> name) {
+		final List<T> result = new ArrayList<>(elems);
+		result.sort(Comparator.comparing(e -> suffix(process, name.apply(e))));
+		return result;
+	}
+
+	private static String suffix(final XtaProcess process, final String name) {
+		final String prefix = process.getName() + "_";
+		return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.SmartBoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.SmartBoolExprs.Not;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.core.clock.constr.ClockConstr;
+import hu.bme.mit.theta.core.clock.constr.ClockConstrs;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntExprs;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.type.rattype.RatType;
+import hu.bme.mit.theta.xta.Guard;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaSystem;
+
+/**
+ * A reachability target of an XTA system: a conjunction of process locations,
+ * a constraint over the data variables and a constraint over the clocks.
+ */
+public final class XtaTarget {
+	private static final Pattern COMPARISON = Pattern.compile("(.+?)\\s*(<=|>=|==|!=|<|>)\\s*(-?\\d+|true|false)");
+	private static final Pattern LOCATION = Pattern.compile("(.+)\\.(\\w+)");
+
+	private final List<Loc> locs;
+	private final Expr<BoolType> dataConstr;
+	private final ClockConstr clockConstr;
+
+	private XtaTarget(final Collection<? extends Loc> locs, final Expr<BoolType> dataConstr,
+			final ClockConstr clockConstr) {
+		this.locs = ImmutableList.copyOf(checkNotNull(locs));
+		this.dataConstr = checkNotNull(dataConstr);
+		this.clockConstr = checkNotNull(clockConstr);
+	}
+
+	public static XtaTarget create(final Collection<? extends Loc> locs, final Expr<BoolType> dataConstr,
+			final ClockConstr clockConstr) {
+		return new XtaTarget(locs, dataConstr, clockConstr);
+	}
+
+	/**
+	 * Parses a target of the form {@code E<> P(1).cs && id == 1 && P(1).x > 2}.
+	 * Atoms are locations ({@code process.loc}) or comparisons of a data
+	 * variable or clock with an integer (or boolean) literal, and are separated
+	 * by {@code &&}. The {@code E<>} prefix of UPPAAL queries is optional.
+	 */
+	public static XtaTarget parse(final XtaSystem system, final String query) {
+		checkNotNull(system);
+		String body = query.trim();
+		if (body.startsWith("E<>")) {
+			body = body.substring(3).trim();
+		}
+		checkArgument(!body.isEmpty(), "Empty target");
+
+		final List<Loc> locs = new ArrayList<>();
+		final List<Expr<BoolType>> dataConstrs = new ArrayList<>();
+		final List<ClockConstr> clockConstrs = new ArrayList<>();
+
+		for (final String atom : body.split("&&")) {
+			final String trimmedAtom = atom.trim();
+			final Matcher comparison = COMPARISON.matcher(trimmedAtom);
+			final Matcher location = LOCATION.matcher(trimmedAtom);
+			if (comparison.matches()) {
+				final String name = normalizeName(comparison.group(1));
+				final String op = comparison.group(2);
+				final String value = comparison.group(3);
+				final Optional<VarDecl<RatType>> clock = system.getClockVars().stream()
+						.filter(c -> c.getName().equals(name)).findAny();
+				if (clock.isPresent()) {
+					clockConstrs.add(createClockConstr(clock.get(), op, value));
+				} else {
+					final VarDecl<?> var = system.getDataVars().stream().filter(v -> v.getName().equals(name))
+							.findAny().orElseThrow(() -> new IllegalArgumentException("Unknown variable: " + name));
+					dataConstrs.add(createDataConstr(var, op, value));
+				}
+			} else if (location.matches()) {
+				final String processName = normalizeName(location.group(1));
+				final XtaProcess process = system.getProcesses().stream()
+						.filter(p -> p.getName().equals(processName)).findAny()
+						.orElseThrow(() -> new IllegalArgumentException("Unknown process: " + processName));
+				final String locName = processName + "_" + location.group(2);
+				final Loc loc = process.getLocs().stream().filter(l -> l.getName().equals(locName)).findAny()
+						.orElseThrow(() -> new IllegalArgumentException("Unknown location: " + locName));
+				locs.add(loc);
+			} else {
+				throw new IllegalArgumentException("Invalid target atom: " + trimmedAtom);
+			}
+		}
+
+		return create(locs, And(dataConstrs), ClockConstrs.And(clockConstrs));
+	}
+
+	public List<Loc> getLocs() {
+		return locs;
+	}
+
+	public Expr<BoolType> getDataConstr() {
+		return dataConstr;
+	}
+
+	public ClockConstr getClockConstr() {
+		return clockConstr;
+	}
+
+	/**
+	 * Checks whether every target location is contained in the given location
+	 * vector.
+	 */
+	public boolean isTargetLocs(final List<Loc> locs) {
+		return locs.containsAll(this.locs);
+	}
+
+	/**
+	 * Returns the target with its clock constraint strengthened by the clock
+	 * invariants of the given locations. Zones are not restricted by the
+	 * invariants of their own locations, so this is the constraint a zone has
+	 * to be consistent with.
+	 */
+	public XtaTarget withInvariants(final List<Loc> locs) {
+		final List<ClockConstr> clockConstrs = new ArrayList<>();
+		clockConstrs.add(clockConstr);
+		for (final Loc loc : locs) {
+			for (final Guard invar : loc.getInvars()) {
+				if (invar.isClockGuard()) {
+					clockConstrs.add(invar.asClockGuard().getClockConstr());
+				}
+			}
+		}
+		return create(this.locs, dataConstr, ClockConstrs.And(clockConstrs));
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(locs.stream().map(Loc::getName))
+				.add(dataConstr).add(clockConstr).toString();
+	}
+
+	////
+
+	private static String normalizeName(final String name) {
+		final String normalized = name.replaceAll("\\s", "").replaceAll("[(),]+", "_").replace('.', '_');
+		return normalized.replaceAll("_+$", "").replaceAll("_+", "_");
+	}
+
+	private static ClockConstr createClockConstr(final VarDecl<RatType> clock, final String op, final String value) {
+		final int bound = Integer.parseInt(value);
+		switch (op) {
+		case "<":
+			return ClockConstrs.Lt(clock, bound);
+		case "<=":
+			return ClockConstrs.Leq(clock, bound);
+		case "==":
+			return ClockConstrs.Eq(clock, bound);
+		case ">=":
+			return ClockConstrs.Geq(clock, bound);
+		case ">":
+			return ClockConstrs.Gt(clock, bound);
+		default:
+			throw new IllegalArgumentException("Unsupported clock constraint: " + clock.getName() + " " + op);
+		}
+	}
+
+	private static Expr<BoolType> createDataConstr(final VarDecl<?> var, final String op, final String value) {
+		if (var.getType() instanceof BoolType) {
+			checkArgument(value.equals("true") || value.equals("false"), "Boolean literal expected: " + value);
+			checkArgument(op.equals("==") || op.equals("!="), "Unsupported boolean operator: " + op);
+			final Expr<BoolType> ref = cast(var.getRef(), Bool());
+			final boolean positive = value.equals("true") == op.equals("==");
+			return positive ? ref : Not(ref);
+		} else if (var.getType() instanceof IntType) {
+			final Expr<IntType> ref = cast(var.getRef(), Int());
+			final Expr<IntType> lit = Int(Integer.parseInt(value));
+			switch (op) {
+			case "<":
+				return IntExprs.Lt(ref, lit);
+			case "<=":
+				return IntExprs.Leq(ref, lit);
+			case "==":
+				return IntExprs.Eq(ref, lit);
+			case "!=":
+				return IntExprs.Neq(ref, lit);
+			case ">=":
+				return IntExprs.Geq(ref, lit);
+			case ">":
+				return IntExprs.Gt(ref, lit);
+			default:
+				throw new AssertionError();
+			}
+		} else {
+			throw new IllegalArgumentException("Unsupported variable type: " + var.getType());
+		}
+	}
+
+}
@@ -23,6 +23,7 @@ import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
 
 interface AlgorithmStrategy<S1 extends State, S2 extends State> {
@@ -39,4 +40,9 @@ interface AlgorithmStrategy<S1 extends State, S2 extends State> {
 	void block(ArgNode<S1, XtaAction> node, final XtaAction action, final S1 succState,
 			Collection<ArgNode<S1, XtaAction>> uncoveredNodes, final Builder stats);
 
+	boolean isTarget(S1 state, XtaTarget target);
+
+	void blockTarget(ArgNode<S1, XtaAction> node, XtaTarget target, Collection<ArgNode<S1, XtaAction>> uncoveredNodes,
+			final Builder stats);
+
 }
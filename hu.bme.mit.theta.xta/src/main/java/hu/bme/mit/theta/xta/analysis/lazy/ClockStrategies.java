@@ -17,6 +17,8 @@ package hu.bme.mit.theta.xta.analysis.lazy;
 
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.prod2.Prod2State;
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaState;
 import hu.bme.mit.theta.xta.analysis.zone.itp.ItpZoneState;
@@ -42,6 +44,11 @@ final class ClockStrategies {
 		return new BwItpZoneStrategy<>(system, createRightLens());
 	}
 
+	public static <S extends State> AlgorithmStrategy<XtaState<Prod2State<S, ZoneState>>, ZoneState> createExtraStrategy(
+			final XtaSystem system, final BoundFunc targetBounds) {
+		return new ExtraZoneStrategy<>(system, targetBounds, createRightLens());
+	}
+
 	private static <S1 extends State, S2 extends State> Lens<XtaState<Prod2State<S1, S2>>, S2> createRightLens() {
 		return new Lens<XtaState<Prod2State<S1, S2>>, S2>() {
 			@Override
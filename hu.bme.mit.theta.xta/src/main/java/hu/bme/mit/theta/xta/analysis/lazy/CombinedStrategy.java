@@ -33,6 +33,7 @@ import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
 import hu.bme.mit.theta.xta.analysis.XtaAnalysis;
 import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
 
 final class CombinedStrategy<S1 extends State, S2 extends State>
@@ -94,6 +95,32 @@ final class CombinedStrategy<S1 extends State, S2 extends State>
 		}
 	}
 
+	@Override
+	public boolean isTarget(final XtaState<Prod2State<S1, S2>> state, final XtaTarget target) {
+		if (!target.isTargetLocs(state.getLocs())) {
+			return false;
+		}
+		final XtaTarget localTarget = target.withInvariants(state.getLocs());
+		return strategy1.isTarget(state, localTarget) && strategy2.isTarget(state, localTarget);
+	}
+
+	@Override
+	public void blockTarget(final ArgNode<XtaState<Prod2State<S1, S2>>, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<XtaState<Prod2State<S1, S2>>, XtaAction>> uncoveredNodes, final Builder stats) {
+		final XtaState<Prod2State<S1, S2>> state = node.getState();
+		if (!target.isTargetLocs(state.getLocs())) {
+			return;
+		}
+		final XtaTarget localTarget = target.withInvariants(state.getLocs());
+		if (!strategy1.isTarget(state, localTarget)) {
+			strategy1.blockTarget(node, localTarget, uncoveredNodes, stats);
+		} else if (!strategy2.isTarget(state, localTarget)) {
+			strategy2.blockTarget(node, localTarget, uncoveredNodes, stats);
+		} else {
+			throw new AssertionError();
+		}
+	}
+
 	////
 
 	private Analysis<XtaState<Prod2State<S1, S2>>, XtaAction, UnitPrec> createAnalysis(final XtaSystem system) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.xta.analysis.lazy;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 
 import java.util.Collection;
 import java.util.function.Function;
@@ -25,8 +26,10 @@ import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.expl.ExplState;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.core.utils.ExprUtils;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.expl.XtaExplAnalysis;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
 
@@ -72,4 +75,17 @@ final class ExplStrategy<S extends State> implements AlgorithmStrategy<S, ExplSt
 		return;
 	}
 
+	@Override
+	public boolean isTarget(final S state, final XtaTarget target) {
+		final ExplState explState = lens.get(state);
+		return ExprUtils.simplify(target.getDataConstr(), explState).equals(True());
+	}
+
+	@Override
+	public void blockTarget(final ArgNode<S, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert !isTarget(node.getState(), target);
+		return;
+	}
+
 }
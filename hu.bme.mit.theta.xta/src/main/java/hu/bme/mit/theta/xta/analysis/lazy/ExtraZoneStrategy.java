@@ -0,0 +1,104 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.lazy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.common.Unit.unit;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+import hu.bme.mit.theta.analysis.Analysis;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.impl.PrecMappingAnalysis;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.analysis.zone.ZonePrec;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
+import hu.bme.mit.theta.xta.analysis.zone.XtaZoneAnalysis;
+import hu.bme.mit.theta.xta.analysis.zone.extra.ExtraZoneAnalysis;
+import hu.bme.mit.theta.xta.analysis.zone.extra.StaticLuBounds;
+
+/**
+ * Non-lazy clock strategy: zones are extrapolated eagerly with Extra+_LU using
+ * static LU bounds, so no refinement is needed.
+ */
+final class ExtraZoneStrategy<S extends State> implements AlgorithmStrategy<S, ZoneState> {
+
+	private final Lens<S, ZoneState> lens;
+	private final Analysis<ZoneState, XtaAction, UnitPrec> analysis;
+	private final Function<ZoneState, ?> projection;
+
+	public ExtraZoneStrategy(final XtaSystem system, final BoundFunc targetBounds, final Lens<S, ZoneState> lens) {
+		checkNotNull(system);
+		checkNotNull(targetBounds);
+		this.lens = checkNotNull(lens);
+		final ZonePrec zonePrec = ZonePrec.of(system.getClockVars());
+		final StaticLuBounds bounds = StaticLuBounds.create(system, targetBounds);
+		analysis = PrecMappingAnalysis.create(
+				ExtraZoneAnalysis.create(XtaZoneAnalysis.getInstance(), system.getInitLocs(), bounds), p -> zonePrec);
+		projection = s -> unit();
+	}
+
+	@Override
+	public Analysis<ZoneState, XtaAction, UnitPrec> getAnalysis() {
+		return analysis;
+	}
+
+	@Override
+	public Function<ZoneState, ?> getProjection() {
+		return projection;
+	}
+
+	@Override
+	public boolean mightCover(final ArgNode<S, XtaAction> coveree, final ArgNode<S, XtaAction> coverer) {
+		final ZoneState covereeZone = lens.get(coveree.getState());
+		final ZoneState covererZone = lens.get(coverer.getState());
+		return covereeZone.isLeq(covererZone);
+	}
+
+	@Override
+	public void cover(final ArgNode<S, XtaAction> coveree, final ArgNode<S, XtaAction> coverer,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		return;
+	}
+
+	@Override
+	public void block(final ArgNode<S, XtaAction> node, final XtaAction action, final S succState,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert lens.get(succState).isBottom();
+		return;
+	}
+
+	@Override
+	public boolean isTarget(final S state, final XtaTarget target) {
+		final ZoneState zone = lens.get(state);
+		return !zone.transform().and(target.getClockConstr()).build().isBottom();
+	}
+
+	@Override
+	public void blockTarget(final ArgNode<S, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert !isTarget(node.getState(), target);
+		return;
+	}
+
+}
@@ -35,8 +35,10 @@ import hu.bme.mit.theta.core.model.ImmutableValuation;
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.ExprUtils;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.expl.XtaExplAnalysis;
 import hu.bme.mit.theta.xta.analysis.expl.XtaExplUtils;
 import hu.bme.mit.theta.xta.analysis.expl.itp.ItpExplAnalysis;
@@ -91,6 +93,21 @@ abstract class ItpExplStrategy<S extends State> implements AlgorithmStrategy<S,
 		stats.stopExpandExplRefinement();
 	}
 
+	@Override
+	public final boolean isTarget(final S state, final XtaTarget target) {
+		final ExplState concrExpl = lens.get(state).getConcrState();
+		return ExprUtils.simplify(target.getDataConstr(), concrExpl).equals(True());
+	}
+
+	@Override
+	public final void blockTarget(final ArgNode<S, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert !isTarget(node.getState(), target);
+		stats.startExpandExplRefinement();
+		blockExpl(node, target.getDataConstr(), uncoveredNodes, stats);
+		stats.stopExpandExplRefinement();
+	}
+
 	////
 
 	protected abstract Valuation blockExpl(final ArgNode<S, XtaAction> node, final Expr<BoolType> expr,
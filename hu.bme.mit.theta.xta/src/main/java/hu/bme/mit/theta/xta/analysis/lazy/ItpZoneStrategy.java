@@ -31,6 +31,7 @@ import hu.bme.mit.theta.analysis.zone.ZonePrec;
 import hu.bme.mit.theta.analysis.zone.ZoneState;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
 import hu.bme.mit.theta.xta.analysis.zone.XtaZoneAnalysis;
 import hu.bme.mit.theta.xta.analysis.zone.XtaZoneUtils;
@@ -91,6 +92,22 @@ abstract class ItpZoneStrategy<S extends State> implements AlgorithmStrategy<S,
 		stats.stopExpandZoneRefinement();
 	}
 
+	@Override
+	public final boolean isTarget(final S state, final XtaTarget target) {
+		final ZoneState concrZone = lens.get(state).getConcrState();
+		return !concrZone.transform().and(target.getClockConstr()).build().isBottom();
+	}
+
+	@Override
+	public final void blockTarget(final ArgNode<S, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert !isTarget(node.getState(), target);
+		stats.startExpandZoneRefinement();
+		final ZoneState targetZone = ZoneState.top().project(prec.getVars()).and(target.getClockConstr()).build();
+		blockZone(node, targetZone, uncoveredNodes, stats);
+		stats.stopExpandZoneRefinement();
+	}
+
 	////
 
 	protected abstract ZoneState blockZone(final ArgNode<S, XtaAction> node, final ZoneState zone,
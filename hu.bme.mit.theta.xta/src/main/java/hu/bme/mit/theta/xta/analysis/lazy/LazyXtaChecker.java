@@ -19,39 +19,101 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 import com.google.common.collect.Lists;
 
+import hu.bme.mit.theta.analysis.LTS;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.ArgTrace;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 import hu.bme.mit.theta.analysis.algorithm.SearchStrategy;
-import hu.bme.mit.theta.analysis.reachedset.Partition;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetExceededException;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.analysis.zone.ZoneFederation;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
 import hu.bme.mit.theta.xta.analysis.XtaLts;
 import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 
 final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>, XtaAction, UnitPrec> {
-	private final XtaLts lts;
+	private final LTS<XtaState<?>, XtaAction> lts;
 	private final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy;
 	private final SearchStrategy searchStrategy;
+	private final Optional<XtaTarget> target;
+	private final Budget budget;
+	private final Optional<Function<? super XtaState<S>, ZoneState>> zoneFunction;
 
-	private LazyXtaChecker(final XtaSystem system, final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy,
-			final SearchStrategy searchStrategy) {
-		checkNotNull(system);
-		lts = XtaLts.create(system);
+	private LazyXtaChecker(final LTS<XtaState<?>, XtaAction> lts,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Optional<XtaTarget> target, final Budget budget,
+			final Optional<Function<? super XtaState<S>, ZoneState>> zoneFunction) {
+		this.lts = checkNotNull(lts);
 		this.algorithmStrategy = checkNotNull(algorithmStrategy);
 		this.searchStrategy = checkNotNull(searchStrategy);
+		this.target = checkNotNull(target);
+		this.budget = checkNotNull(budget);
+		this.zoneFunction = checkNotNull(zoneFunction);
 	}
 
 	public static <S extends State> LazyXtaChecker<S> create(final XtaSystem system,
 			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy) {
-		return new LazyXtaChecker<>(system, algorithmStrategy, searchStrategy);
+		return new LazyXtaChecker<>(XtaLts.create(system), algorithmStrategy, searchStrategy, Optional.empty(),
+				Budget.unlimited(), Optional.empty());
+	}
+
+	public static <S extends State> LazyXtaChecker<S> create(final XtaSystem system,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Budget budget) {
+		return new LazyXtaChecker<>(XtaLts.create(system), algorithmStrategy, searchStrategy, Optional.empty(), budget,
+				Optional.empty());
+	}
+
+	/**
+	 * Creates a checker that stops at the first reachable state satisfying the
+	 * target and returns the symbolic trace leading to it.
+	 */
+	public static <S extends State> LazyXtaChecker<S> create(final XtaSystem system,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final XtaTarget target, final Budget budget) {
+		return new LazyXtaChecker<>(XtaLts.create(system), algorithmStrategy, searchStrategy, Optional.of(target),
+				budget, Optional.empty());
+	}
+
+	/**
+	 * Creates a checker that also covers a node if its zone is included in the
+	 * union of the zones of the expanded nodes with the same discrete state.
+	 * Only sound if the strategy never refines nodes after they are expanded.
+	 */
+	public static <S extends State> LazyXtaChecker<S> create(final XtaSystem system,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Optional<XtaTarget> target, final Budget budget,
+			final Function<? super XtaState<S>, ZoneState> zoneFunction) {
+		return new LazyXtaChecker<>(XtaLts.create(system), algorithmStrategy, searchStrategy, target, budget,
+				Optional.of(zoneFunction));
+	}
+
+	/**
+	 * Creates a checker that explores the given LTS instead of the one of the
+	 * system, e.g., a reduced one.
+	 */
+	public static <S extends State> LazyXtaChecker<S> create(final LTS<XtaState<?>, XtaAction> lts,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Optional<XtaTarget> target, final Budget budget,
+			final Optional<Function<? super XtaState<S>, ZoneState>> zoneFunction) {
+		return new LazyXtaChecker<>(lts, algorithmStrategy, searchStrategy, target, budget, zoneFunction);
 	}
 
 	@Override
@@ -62,47 +124,73 @@ final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>
 	private final class CheckMethod {
 		final ARG<XtaState<S>, XtaAction> arg;
 		final LazyXtaStatistics.Builder stats;
-		final Partition<ArgNode<XtaState<S>, XtaAction>, ?> passed;
+		final Map<Integer, List<ArgNode<XtaState<S>, XtaAction>>> passed;
 		final Waitlist<ArgNode<XtaState<S>, XtaAction>> waiting;
+		final Map<Object, Integer> discreteKeys;
+		final Map<Integer, ZoneFederation> passedZones;
 
 		public CheckMethod() {
 			arg = ARG.create(algorithmStrategy.getAnalysis().getPartialOrd());
 			stats = LazyXtaStatistics.builder(arg);
-			passed = Partition.of(n -> algorithmStrategy.getProjection().apply(n.getState()));
+			passed = new HashMap<>();
 			waiting = searchStrategy.createWaitlist();
+			discreteKeys = new HashMap<>();
+			passedZones = new HashMap<>();
 		}
 
 		public SafetyResult<XtaState<S>, XtaAction> run() {
 			stats.startAlgorithm();
+			budget.start();
 
-			init();
-			waiting.addAll(arg.getInitNodes());
-			while (!waiting.isEmpty()) {
-				final ArgNode<XtaState<S>, XtaAction> v = waiting.remove();
-				assert v.isFeasible();
+			Optional<ArgNode<XtaState<S>, XtaAction>> targetNode = Optional.empty();
+			boolean budgetExceeded = false;
+			try {
+				targetNode = init();
+				waiting.addAll(arg.getInitNodes());
+				while (!waiting.isEmpty() && !targetNode.isPresent()) {
+					budget.checkNodes(arg.size());
+					final ArgNode<XtaState<S>, XtaAction> v = waiting.remove();
+					assert v.isFeasible();
 
-				close(v);
-				if (!v.isCovered()) {
-					expand(v);
+					final int key = getKey(v);
+					if (!close(v, key)) {
+						targetNode = expand(v, key);
+					}
 				}
+			} catch (final BudgetExceededException e) {
+				budgetExceeded = true;
 			}
 
 			stats.stopAlgorithm();
 			final LazyXtaStatistics statistics = stats.build();
-			final SafetyResult<XtaState<S>, XtaAction> result = SafetyResult.safe(arg, statistics);
+			final SafetyResult<XtaState<S>, XtaAction> result;
+			if (budgetExceeded) {
+				result = SafetyResult.unknown(arg, statistics);
+			} else if (targetNode.isPresent()) {
+				result = SafetyResult.unsafe(ArgTrace.to(targetNode.get()).toTrace(), arg, statistics);
+			} else {
+				result = SafetyResult.safe(arg, statistics);
+			}
 			return result;
 		}
 
-		private void init() {
+		private Optional<ArgNode<XtaState<S>, XtaAction>> init() {
 			final Collection<? extends XtaState<S>> initStates = algorithmStrategy.getAnalysis().getInitFunc()
 					.getInitStates(UnitPrec.getInstance());
-			initStates.forEach(s -> arg.createInitNode(s, false));
+			initStates.forEach(s -> arg.createInitNode(s, isTarget(s)));
+			arg.setInitialized();
+			return arg.getInitNodes().filter(ArgNode::isTarget).findFirst();
+		}
+
+		private boolean isTarget(final XtaState<S> state) {
+			return target.isPresent() && algorithmStrategy.isTarget(state, target.get());
 		}
 
-		private void close(final ArgNode<XtaState<S>, XtaAction> coveree) {
+		private boolean close(final ArgNode<XtaState<S>, XtaAction> coveree, final int key) {
 			stats.startClosing();
 
-			final Iterable<ArgNode<XtaState<S>, XtaAction>> candidates = Lists.reverse(passed.get(coveree));
+			final Iterable<ArgNode<XtaState<S>, XtaAction>> candidates = Lists
+					.reverse(passed.getOrDefault(key, Collections.emptyList()));
 			for (final ArgNode<XtaState<S>, XtaAction> coverer : candidates) {
 
 				stats.checkCoverage();
@@ -119,19 +207,44 @@ final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>
 					if (coveree.isCovered()) {
 						stats.successfulCoverage();
 						stats.stopClosing();
-						return;
+						return true;
+					}
+				}
+			}
+
+			if (zoneFunction.isPresent()) {
+				final ZoneFederation federation = passedZones.get(key);
+				// a single zone has already been checked above
+				if (federation != null && federation.getZones().size() > 1) {
+					stats.checkCoverage();
+					stats.attemptCoverage();
+					if (federation.covers(zoneFunction.get().apply(coveree.getState()))) {
+						coveree.setUnionCoveringNodes(passed.get(key));
+						stats.successfulCoverage();
+						stats.stopClosing();
+						return true;
 					}
 				}
 			}
 
 			stats.stopClosing();
+			return false;
 		}
 
-		private void expand(final ArgNode<XtaState<S>, XtaAction> node) {
+		private Optional<ArgNode<XtaState<S>, XtaAction>> expand(final ArgNode<XtaState<S>, XtaAction> node,
+				final int key) {
 			stats.startExpanding();
+
+			if (target.isPresent()) {
+				final Collection<ArgNode<XtaState<S>, XtaAction>> uncoveredNodes = new ArrayList<>();
+				algorithmStrategy.blockTarget(node, target.get(), uncoveredNodes, stats);
+				waiting.addAll(uncoveredNodes);
+			}
+
 			final XtaState<S> state = node.getState();
 
 			for (final XtaAction action : lts.getEnabledActionsFor(state)) {
+				stats.exploreAction();
 				final Collection<? extends XtaState<S>> succStates = algorithmStrategy.getAnalysis().getTransFunc()
 						.getSuccStates(state, action, UnitPrec.getInstance());
 
@@ -142,14 +255,35 @@ final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>
 						waiting.addAll(uncoveredNodes);
 					} else {
 						final ArgNode<XtaState<S>, XtaAction> succNode = arg.createSuccNode(node, action, succState,
-								false);
+								isTarget(succState));
+						if (succNode.isTarget()) {
+							stats.stopExpanding();
+							return Optional.of(succNode);
+						}
 						waiting.add(succNode);
 					}
 				}
 			}
 
-			passed.add(node);
+			arg.setExpanded(node, true);
+			passed.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+			if (zoneFunction.isPresent()) {
+				final ZoneState zone = zoneFunction.get().apply(state);
+				passedZones.merge(key, ZoneFederation.empty().add(zone), (f1, f2) -> f1.add(zone));
+			}
 			stats.stopExpanding();
+			return Optional.empty();
+		}
+
+		/**
+		 * Interns the projection (location vector and discrete part) of a node
+		 * to a dense integer. The key is computed once each time the node is
+		 * removed from the waitlist and passed to closing and expansion, so no
+		 * per-node state is kept.
+		 */
+		private int getKey(final ArgNode<XtaState<S>, XtaAction> node) {
+			final Object projection = algorithmStrategy.getProjection().apply(node.getState());
+			return discreteKeys.computeIfAbsent(projection, p -> discreteKeys.size());
 		}
 	}
 
@@ -15,12 +15,28 @@
  */
 package hu.bme.mit.theta.xta.analysis.lazy;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Optional;
+
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 import hu.bme.mit.theta.analysis.algorithm.SearchStrategy;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.prod2.Prod2State;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaLts;
+import hu.bme.mit.theta.xta.analysis.XtaPorLts;
 import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.XtaSymmetry;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 
 public final class LazyXtaCheckerFactory {
 
@@ -29,14 +45,195 @@ public final class LazyXtaCheckerFactory {
 
 	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
 			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy) {
-		final CombinedStrategy<?, ?> algorithmStrategy = combineStrategies(system, dataStrategy, clockStrategy);
+		return create(system, dataStrategy, clockStrategy, searchStrategy, Budget.unlimited());
+	}
+
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final Budget budget) {
+		final CombinedStrategy<?, ?> algorithmStrategy = combineStrategies(system, dataStrategy, clockStrategy,
+				BoundFunc.top());
 		final SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> checker = LazyXtaChecker.create(system,
-				algorithmStrategy, searchStrategy);
+				algorithmStrategy, searchStrategy, budget);
 		return checker;
 	}
 
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final XtaTarget target, final Budget budget) {
+		final BoundFunc targetBounds = BoundFunc.builder().add(target.getClockConstr()).build();
+		final CombinedStrategy<?, ?> algorithmStrategy = combineStrategies(system, dataStrategy, clockStrategy,
+				targetBounds);
+		final SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> checker = LazyXtaChecker.create(system,
+				algorithmStrategy, searchStrategy, target, budget);
+		return checker;
+	}
+
+	/**
+	 * Creates a checker with the given coverage strategy. Federation coverage
+	 * is only supported without refinement, i.e., with {@link DataStrategy#NONE}
+	 * and {@link ClockStrategy#EXTRA}.
+	 */
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.empty(), 1,
+				false, false, budget);
+	}
+
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final XtaTarget target, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.of(target), 1,
+				false, false, budget);
+	}
+
+	/**
+	 * Creates a checker that explores the state space with the given number
+	 * of threads. Multiple threads are only supported with single node
+	 * coverage.
+	 */
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final int threads, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.empty(),
+				threads, false, false, budget);
+	}
+
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final XtaTarget target, final int threads, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.of(target),
+				threads, false, false, budget);
+	}
+
+	/**
+	 * Creates a checker that optionally explores the LTS reduced by
+	 * {@link XtaPorLts} instead of the full {@link XtaLts}.
+	 */
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final int threads, final boolean partialOrderReduction,
+			final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.empty(),
+				threads, partialOrderReduction, false, budget);
+	}
+
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final XtaTarget target, final int threads,
+			final boolean partialOrderReduction, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.of(target),
+				threads, partialOrderReduction, false, budget);
+	}
+
+	/**
+	 * Creates a checker that optionally canonizes states by an
+	 * {@link XtaSymmetry} of identical processes. Symmetry reduction is only
+	 * supported without refinement, i.e., with {@link DataStrategy#NONE} and
+	 * {@link ClockStrategy#EXTRA}. Counterexamples are mapped back from the
+	 * canonical states to a trace of the system.
+	 */
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final int threads, final boolean partialOrderReduction,
+			final boolean symmetryReduction, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.empty(),
+				threads, partialOrderReduction, symmetryReduction, budget);
+	}
+
+	public static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final XtaTarget target, final int threads,
+			final boolean partialOrderReduction, final boolean symmetryReduction, final Budget budget) {
+		return create(system, dataStrategy, clockStrategy, searchStrategy, coverageStrategy, Optional.of(target),
+				threads, partialOrderReduction, symmetryReduction, budget);
+	}
+
+	private static SafetyChecker<? extends XtaState<?>, XtaAction, UnitPrec> create(final XtaSystem system,
+			final DataStrategy dataStrategy, final ClockStrategy clockStrategy, final SearchStrategy searchStrategy,
+			final CoverageStrategy coverageStrategy, final Optional<XtaTarget> target, final int threads,
+			final boolean partialOrderReduction, final boolean symmetryReduction, final Budget budget) {
+		checkArgument(threads > 0, "Number of threads must be positive.");
+		final BoundFunc targetBounds = target.isPresent()
+				? BoundFunc.builder().add(target.get().getClockConstr()).build()
+				: BoundFunc.top();
+		final LTS<XtaState<?>, XtaAction> lts;
+		if (partialOrderReduction) {
+			lts = target.isPresent() ? XtaPorLts.create(system, target.get()) : XtaPorLts.create(system);
+		} else {
+			lts = XtaLts.create(system);
+		}
+		if (symmetryReduction) {
+			checkArgument(dataStrategy == DataStrategy.NONE && clockStrategy == ClockStrategy.EXTRA,
+					"Symmetry reduction is only supported with NONE data and EXTRA clock strategies");
+			final XtaSymmetry symmetry = target.isPresent() ? XtaSymmetry.create(system, target.get())
+					: XtaSymmetry.create(system);
+			final SymmetryStrategy symmetryStrategy = new SymmetryStrategy(new CombinedStrategy<>(system,
+					DataStrategies.createExplStrategy(system), ClockStrategies.createExtraStrategy(system, targetBounds)),
+					symmetry);
+			final SafetyChecker<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> checker;
+			switch (coverageStrategy) {
+			case SINGLE:
+				if (threads > 1) {
+					checker = ParallelLazyXtaChecker.create(lts, symmetryStrategy, searchStrategy, target, budget,
+							threads);
+				} else {
+					checker = LazyXtaChecker.create(lts, symmetryStrategy, searchStrategy, target, budget,
+							Optional.empty());
+				}
+				break;
+			case FEDERATION:
+				checkArgument(threads == 1, "Federation coverage is only supported with a single thread");
+				checker = LazyXtaChecker.create(lts, symmetryStrategy, searchStrategy, target, budget,
+						Optional.of(s -> s.getState().getState2()));
+				break;
+			default:
+				throw new AssertionError();
+			}
+			return concretizing(checker, symmetryStrategy, lts, target);
+		}
+		switch (coverageStrategy) {
+		case SINGLE:
+			final CombinedStrategy<?, ?> combinedStrategy = combineStrategies(system, dataStrategy, clockStrategy,
+					targetBounds);
+			if (threads > 1) {
+				return ParallelLazyXtaChecker.create(lts, combinedStrategy, searchStrategy, target, budget, threads);
+			} else {
+				return LazyXtaChecker.create(lts, combinedStrategy, searchStrategy, target, budget, Optional.empty());
+			}
+		case FEDERATION:
+			checkArgument(threads == 1, "Federation coverage is only supported with a single thread");
+			checkArgument(dataStrategy == DataStrategy.NONE && clockStrategy == ClockStrategy.EXTRA,
+					"Federation coverage is only supported with NONE data and EXTRA clock strategies");
+			final CombinedStrategy<ExplState, ZoneState> algorithmStrategy = new CombinedStrategy<>(system,
+					DataStrategies.createExplStrategy(system), ClockStrategies.createExtraStrategy(system, targetBounds));
+			return LazyXtaChecker.create(lts, algorithmStrategy, searchStrategy, target, budget,
+					Optional.of(s -> s.getState().getState2()));
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	// Counterexamples of the reduced state space are mapped back to the system
+	private static SafetyChecker<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> concretizing(
+			final SafetyChecker<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> checker,
+			final SymmetryStrategy symmetryStrategy, final LTS<XtaState<?>, XtaAction> lts,
+			final Optional<XtaTarget> target) {
+		return prec -> {
+			final SafetyResult<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> result = checker.check(prec);
+			if (result.isUnsafe()) {
+				final Trace<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> trace = symmetryStrategy
+						.concretize(result.asUnsafe().getTrace(), lts, target.get());
+				return SafetyResult.unsafe(trace, result.getArg(), result.getStats().get());
+			} else {
+				return result;
+			}
+		};
+	}
+
 	private static CombinedStrategy<?, ?> combineStrategies(final XtaSystem system, final DataStrategy dataStrategy,
-			final ClockStrategy clockStrategy) {
+			final ClockStrategy clockStrategy, final BoundFunc targetBounds) {
 
 		switch (dataStrategy) {
 		case BWITP:
@@ -51,6 +248,9 @@ public final class LazyXtaCheckerFactory {
 			case LU:
 				return new CombinedStrategy<>(system, DataStrategies.createBwItpStrategy(system),
 						ClockStrategies.createLuStrategy(system));
+			case EXTRA:
+				return new CombinedStrategy<>(system, DataStrategies.createBwItpStrategy(system),
+						ClockStrategies.createExtraStrategy(system, targetBounds));
 			default:
 				throw new AssertionError();
 			}
@@ -67,6 +267,9 @@ public final class LazyXtaCheckerFactory {
 			case LU:
 				return new CombinedStrategy<>(system, DataStrategies.createFwItpStrategy(system),
 						ClockStrategies.createLuStrategy(system));
+			case EXTRA:
+				return new CombinedStrategy<>(system, DataStrategies.createFwItpStrategy(system),
+						ClockStrategies.createExtraStrategy(system, targetBounds));
 			default:
 				throw new AssertionError();
 			}
@@ -83,6 +286,9 @@ public final class LazyXtaCheckerFactory {
 			case LU:
 				return new CombinedStrategy<>(system, DataStrategies.createExplStrategy(system),
 						ClockStrategies.createLuStrategy(system));
+			case EXTRA:
+				return new CombinedStrategy<>(system, DataStrategies.createExplStrategy(system),
+						ClockStrategies.createExtraStrategy(system, targetBounds));
 			default:
 				throw new AssertionError();
 			}
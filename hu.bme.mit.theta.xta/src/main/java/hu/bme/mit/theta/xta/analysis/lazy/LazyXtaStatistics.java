@@ -39,23 +39,29 @@ public final class LazyXtaStatistics extends Statistics {
 	private final long coverageSuccesses;
 	private final long explRefinementSteps;
 	private final long zoneRefinementSteps;
+	private final long exploredActions;
 	private final long argDepth;
 	private final long argNodes;
 	private final long argNodesExpanded;
 
 	private LazyXtaStatistics(final Builder builder) {
 		algorithmTimeInMs = builder.algorithmTimer.elapsed(MILLISECONDS);
-		expandTimeInMs = builder.expandTimer.elapsed(MILLISECONDS);
-		closeTimeInMs = builder.closeTimer.elapsed(MILLISECONDS);
-		expandExplRefinementTimeInMs = builder.expandExplRefinementTimer.elapsed(MILLISECONDS);
-		expandZoneRefinementTimeInMs = builder.expandZoneRefinementTimer.elapsed(MILLISECONDS);
-		closeExplRefinementTimeInMs = builder.closeExplRefinementTimer.elapsed(MILLISECONDS);
-		closeZoneRefinementTimeInMs = builder.closeZoneRefinementTimer.elapsed(MILLISECONDS);
+		expandTimeInMs = builder.expandTimer.elapsed(MILLISECONDS) + builder.mergedExpandTimeInMs;
+		closeTimeInMs = builder.closeTimer.elapsed(MILLISECONDS) + builder.mergedCloseTimeInMs;
+		expandExplRefinementTimeInMs = builder.expandExplRefinementTimer.elapsed(MILLISECONDS)
+				+ builder.mergedExpandExplRefinementTimeInMs;
+		expandZoneRefinementTimeInMs = builder.expandZoneRefinementTimer.elapsed(MILLISECONDS)
+				+ builder.mergedExpandZoneRefinementTimeInMs;
+		closeExplRefinementTimeInMs = builder.closeExplRefinementTimer.elapsed(MILLISECONDS)
+				+ builder.mergedCloseExplRefinementTimeInMs;
+		closeZoneRefinementTimeInMs = builder.closeZoneRefinementTimer.elapsed(MILLISECONDS)
+				+ builder.mergedCloseZoneRefinementTimeInMs;
 		coverageChecks = builder.coverageChecks;
 		coverageAttempts = builder.coverageAttempts;
 		coverageSuccesses = builder.coverageSuccesses;
 		explRefinementSteps = builder.explRefinementSteps;
 		zoneRefinementSteps = builder.zoneRefinementSteps;
+		exploredActions = builder.exploredActions;
 		argDepth = builder.arg.getDepth();
 		argNodes = builder.arg.size();
 		argNodesExpanded = builder.arg.getNodes().filter(n -> !n.isSubsumed()).count();
@@ -72,6 +78,7 @@ public final class LazyXtaStatistics extends Statistics {
 		addStat("CoverageSuccesses", this::getCoverageSuccesses);
 		addStat("ExplRefinementSteps", this::getExplRefinementSteps);
 		addStat("ZoneRefinementSteps", this::getZoneRefinementSteps);
+		addStat("ExploredActions", this::getExploredActions);
 		addStat("ArgDepth", this::getArgDepth);
 		addStat("ArgNodes", this::getArgNodes);
 		addStat("ArgNodesExpanded", this::getArgNodesExpanded);
@@ -129,6 +136,14 @@ public final class LazyXtaStatistics extends Statistics {
 		return zoneRefinementSteps;
 	}
 
+	/**
+	 * Number of actions whose successors were computed during expansion. A
+	 * partial-order reduction decreases this number.
+	 */
+	public long getExploredActions() {
+		return exploredActions;
+	}
+
 	public long getArgDepth() {
 		return argDepth;
 	}
@@ -154,6 +169,7 @@ public final class LazyXtaStatistics extends Statistics {
 		writer.cell("CoverageSuccesses");
 		writer.cell("ExplRefinementSteps");
 		writer.cell("ZoneRefinementSteps");
+		writer.cell("ExploredActions");
 		writer.cell("ArgDepth");
 		writer.cell("ArgNodes");
 		writer.cell("ArgNodesExpanded");
@@ -173,6 +189,7 @@ public final class LazyXtaStatistics extends Statistics {
 		writer.cell(coverageSuccesses);
 		writer.cell(explRefinementSteps);
 		writer.cell(zoneRefinementSteps);
+		writer.cell(exploredActions);
 		writer.cell(argDepth);
 		writer.cell(argNodes);
 		writer.cell(argNodesExpanded);
@@ -200,6 +217,13 @@ public final class LazyXtaStatistics extends Statistics {
 		private long coverageSuccesses;
 		private long explRefinementSteps;
 		private long zoneRefinementSteps;
+		private long exploredActions;
+		private long mergedExpandTimeInMs;
+		private long mergedCloseTimeInMs;
+		private long mergedExpandExplRefinementTimeInMs;
+		private long mergedExpandZoneRefinementTimeInMs;
+		private long mergedCloseExplRefinementTimeInMs;
+		private long mergedCloseZoneRefinementTimeInMs;
 
 		private Builder(final ARG<?, ?> arg) {
 			this.arg = checkNotNull(arg);
@@ -216,6 +240,13 @@ public final class LazyXtaStatistics extends Statistics {
 			coverageSuccesses = 0;
 			explRefinementSteps = 0;
 			zoneRefinementSteps = 0;
+			exploredActions = 0;
+			mergedExpandTimeInMs = 0;
+			mergedCloseTimeInMs = 0;
+			mergedExpandExplRefinementTimeInMs = 0;
+			mergedExpandZoneRefinementTimeInMs = 0;
+			mergedCloseExplRefinementTimeInMs = 0;
+			mergedCloseZoneRefinementTimeInMs = 0;
 		}
 
 		public void startAlgorithm() {
@@ -327,6 +358,37 @@ public final class LazyXtaStatistics extends Statistics {
 			zoneRefinementSteps++;
 		}
 
+		public void exploreAction() {
+			checkState(state == State.EXPANDING);
+			exploredActions++;
+		}
+
+		/**
+		 * Adds the counters and times of a stopped builder, e.g., of a worker
+		 * thread. Times of parallel workers are summed, so they can exceed the
+		 * algorithm time.
+		 */
+		void merge(final Builder that) {
+			checkState(state == State.STOPPED);
+			checkState(that.state == State.STOPPED);
+			mergedExpandTimeInMs += that.expandTimer.elapsed(MILLISECONDS) + that.mergedExpandTimeInMs;
+			mergedCloseTimeInMs += that.closeTimer.elapsed(MILLISECONDS) + that.mergedCloseTimeInMs;
+			mergedExpandExplRefinementTimeInMs += that.expandExplRefinementTimer.elapsed(MILLISECONDS)
+					+ that.mergedExpandExplRefinementTimeInMs;
+			mergedExpandZoneRefinementTimeInMs += that.expandZoneRefinementTimer.elapsed(MILLISECONDS)
+					+ that.mergedExpandZoneRefinementTimeInMs;
+			mergedCloseExplRefinementTimeInMs += that.closeExplRefinementTimer.elapsed(MILLISECONDS)
+					+ that.mergedCloseExplRefinementTimeInMs;
+			mergedCloseZoneRefinementTimeInMs += that.closeZoneRefinementTimer.elapsed(MILLISECONDS)
+					+ that.mergedCloseZoneRefinementTimeInMs;
+			coverageChecks += that.coverageChecks;
+			coverageAttempts += that.coverageAttempts;
+			coverageSuccesses += that.coverageSuccesses;
+			explRefinementSteps += that.explRefinementSteps;
+			zoneRefinementSteps += that.zoneRefinementSteps;
+			exploredActions += that.exploredActions;
+		}
+
 		public LazyXtaStatistics build() {
 			checkState(state == State.STOPPED);
 			state = State.BUILT;
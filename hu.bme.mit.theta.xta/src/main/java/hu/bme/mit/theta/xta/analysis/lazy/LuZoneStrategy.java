@@ -32,6 +32,7 @@ import hu.bme.mit.theta.analysis.zone.BoundFunc;
 import hu.bme.mit.theta.analysis.zone.ZonePrec;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
 import hu.bme.mit.theta.xta.analysis.zone.XtaLuZoneUtils;
 import hu.bme.mit.theta.xta.analysis.zone.XtaZoneAnalysis;
@@ -89,6 +90,22 @@ final class LuZoneStrategy<S extends State> implements AlgorithmStrategy<S, LuZo
 		stats.stopExpandZoneRefinement();
 	}
 
+	@Override
+	public boolean isTarget(final S state, final XtaTarget target) {
+		final LuZoneState luZoneState = lens.get(state);
+		return !luZoneState.getZone().transform().and(target.getClockConstr()).build().isBottom();
+	}
+
+	@Override
+	public void blockTarget(final ArgNode<S, XtaAction> node, final XtaTarget target,
+			final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
+		assert !isTarget(node.getState(), target);
+		stats.startExpandZoneRefinement();
+		final BoundFunc targetBound = BoundFunc.builder().add(target.getClockConstr()).build();
+		propagateBounds(node, targetBound, uncoveredNodes, stats);
+		stats.stopExpandZoneRefinement();
+	}
+
 	////
 
 	private void propagateBounds(final ArgNode<S, XtaAction> node, final BoundFunc boundFunc,
@@ -0,0 +1,421 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.lazy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.collect.Lists;
+
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.ArgTrace;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.SearchStrategy;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.algorithm.budget.BudgetExceededException;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.waitlist.ConcurrentFifoWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.common.Tuple3;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
+
+/**
+ * Multi-threaded variant of {@link LazyXtaChecker}. Each discrete key of the
+ * passed list (location vector and discrete part) is owned by one worker,
+ * which closes and expands all nodes with that key using its own waitlist and
+ * passed list, so the passed lists need no locking. Successors are computed
+ * without locking, as they only depend on the concrete parts of the states,
+ * which are never refined. Refining node states can propagate to the
+ * ancestors of a node in any partition, so refinements (covering, blocking a
+ * bottom successor or a target) take a write lock, while coverage checks and
+ * node creation of different workers share a read lock. Node creation is
+ * additionally serialized by a short lock on the ARG. Idle workers block until
+ * a node is scheduled to them, and the exploration terminates when no node is
+ * scheduled or being processed.
+ */
+final class ParallelLazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>, XtaAction, UnitPrec> {
+	private final LTS<XtaState<?>, XtaAction> lts;
+	private final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy;
+	private final SearchStrategy searchStrategy;
+	private final Optional<XtaTarget> target;
+	private final Budget budget;
+	private final int threads;
+
+	private ParallelLazyXtaChecker(final LTS<XtaState<?>, XtaAction> lts,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Optional<XtaTarget> target, final Budget budget, final int threads) {
+		checkArgument(threads > 0, "Number of threads must be positive.");
+		this.lts = checkNotNull(lts);
+		this.algorithmStrategy = checkNotNull(algorithmStrategy);
+		this.searchStrategy = checkNotNull(searchStrategy);
+		this.target = checkNotNull(target);
+		this.budget = checkNotNull(budget);
+		this.threads = threads;
+	}
+
+	public static <S extends State> ParallelLazyXtaChecker<S> create(final LTS<XtaState<?>, XtaAction> lts,
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy, final SearchStrategy searchStrategy,
+			final Optional<XtaTarget> target, final Budget budget, final int threads) {
+		return new ParallelLazyXtaChecker<>(lts, algorithmStrategy, searchStrategy, target, budget, threads);
+	}
+
+	@Override
+	public SafetyResult<XtaState<S>, XtaAction> check(final UnitPrec prec) {
+		return new CheckMethod().run();
+	}
+
+	private final class CheckMethod {
+		final ARG<XtaState<S>, XtaAction> arg;
+		final LazyXtaStatistics.Builder stats;
+		final Lock readLock;
+		final Lock writeLock;
+		final Lock argLock;
+		final List<Worker> workers;
+		final Map<Object, Integer> discreteKeys;
+		final AtomicInteger nextKey;
+		// Number of nodes that are scheduled or being processed
+		final AtomicLong pending;
+		final AtomicReference<ArgNode<XtaState<S>, XtaAction>> targetNode;
+		final AtomicReference<BudgetExceededException> budgetExceeded;
+		volatile long argSize;
+		volatile boolean stopped;
+
+		public CheckMethod() {
+			arg = ARG.create(algorithmStrategy.getAnalysis().getPartialOrd());
+			stats = LazyXtaStatistics.builder(arg);
+			final ReadWriteLock lock = new ReentrantReadWriteLock();
+			readLock = lock.readLock();
+			writeLock = lock.writeLock();
+			argLock = new ReentrantLock();
+			workers = new ArrayList<>(threads);
+			for (int i = 0; i < threads; i++) {
+				workers.add(new Worker());
+			}
+			discreteKeys = new ConcurrentHashMap<>();
+			nextKey = new AtomicInteger(0);
+			pending = new AtomicLong(0);
+			targetNode = new AtomicReference<>();
+			budgetExceeded = new AtomicReference<>();
+			argSize = 0;
+			stopped = false;
+		}
+
+		public SafetyResult<XtaState<S>, XtaAction> run() {
+			stats.startAlgorithm();
+			budget.start();
+
+			final Optional<ArgNode<XtaState<S>, XtaAction>> initTarget = init();
+			if (initTarget.isPresent()) {
+				targetNode.set(initTarget.get());
+			} else {
+				arg.getInitNodes().forEach(this::schedule);
+				if (pending.get() > 0) {
+					explore();
+				}
+			}
+
+			stats.stopAlgorithm();
+			workers.forEach(w -> stats.merge(w.stats));
+			final LazyXtaStatistics statistics = stats.build();
+			final SafetyResult<XtaState<S>, XtaAction> result;
+			if (budgetExceeded.get() != null) {
+				result = SafetyResult.unknown(arg, statistics);
+			} else if (targetNode.get() != null) {
+				result = SafetyResult.unsafe(ArgTrace.to(targetNode.get()).toTrace(), arg, statistics);
+			} else {
+				result = SafetyResult.safe(arg, statistics);
+			}
+			return result;
+		}
+
+		private Optional<ArgNode<XtaState<S>, XtaAction>> init() {
+			final Collection<? extends XtaState<S>> initStates = algorithmStrategy.getAnalysis().getInitFunc()
+					.getInitStates(UnitPrec.getInstance());
+			initStates.forEach(s -> arg.createInitNode(s, isTarget(s)));
+			arg.setInitialized();
+			argSize = arg.size();
+			return arg.getInitNodes().filter(ArgNode::isTarget).findFirst();
+		}
+
+		private void explore() {
+			final ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				final List<Future<?>> futures = workers.stream().map(executor::submit).collect(toList());
+				for (final Future<?> future : futures) {
+					future.get();
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while exploring.", e);
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				} else {
+					throw new IllegalStateException(e.getCause());
+				}
+			} finally {
+				stop();
+				executor.shutdownNow();
+			}
+		}
+
+		// Wakes up the idle workers so that they can terminate
+		private void stop() {
+			stopped = true;
+			workers.forEach(w -> w.signal.release());
+		}
+
+		private boolean isTarget(final XtaState<S> state) {
+			return target.isPresent() && algorithmStrategy.isTarget(state, target.get());
+		}
+
+		private void schedule(final ArgNode<XtaState<S>, XtaAction> node) {
+			final Worker owner = workers.get(getKey(node) % threads);
+			pending.incrementAndGet();
+			owner.inbox.add(node);
+			owner.signal.release();
+		}
+
+		private void scheduleAll(final Collection<ArgNode<XtaState<S>, XtaAction>> nodes) {
+			nodes.forEach(this::schedule);
+		}
+
+		/**
+		 * Interns the projection of a node to a dense integer, which also
+		 * determines the worker owning the node. The projection only depends
+		 * on the concrete parts of the state, so it does not change during
+		 * refinement. No per-node state is kept, the owner computes the key
+		 * again when it removes the node from its waitlist.
+		 */
+		private int getKey(final ArgNode<XtaState<S>, XtaAction> node) {
+			final Object projection = algorithmStrategy.getProjection().apply(node.getState());
+			return discreteKeys.computeIfAbsent(projection, p -> nextKey.getAndIncrement());
+		}
+
+		private final class Worker implements Runnable {
+			final LazyXtaStatistics.Builder stats;
+			final Waitlist<ArgNode<XtaState<S>, XtaAction>> inbox;
+			// Released for each scheduled node and on termination
+			final Semaphore signal;
+			final Waitlist<ArgNode<XtaState<S>, XtaAction>> waiting;
+			final Map<Integer, List<ArgNode<XtaState<S>, XtaAction>>> passed;
+
+			Worker() {
+				stats = LazyXtaStatistics.builder(arg);
+				inbox = ConcurrentFifoWaitlist.create();
+				signal = new Semaphore(0);
+				waiting = searchStrategy.createWaitlist();
+				passed = new HashMap<>();
+			}
+
+			@Override
+			public void run() {
+				stats.startAlgorithm();
+				try {
+					while (!stopped) {
+						// Permits of the drained nodes are consumed, later ones
+						// wake up the worker
+						signal.drainPermits();
+						for (Optional<ArgNode<XtaState<S>, XtaAction>> node = inbox.poll(); node
+								.isPresent(); node = inbox.poll()) {
+							waiting.add(node.get());
+						}
+
+						if (waiting.isEmpty()) {
+							signal.acquire();
+							continue;
+						}
+
+						budget.checkNodes(argSize);
+						final ArgNode<XtaState<S>, XtaAction> v = waiting.remove();
+						final int key = getKey(v);
+						if (!close(v, key)) {
+							expand(v, key);
+						}
+						// Successors are scheduled before, so no node is left
+						if (pending.decrementAndGet() == 0) {
+							stop();
+						}
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (final BudgetExceededException e) {
+					budgetExceeded.compareAndSet(null, e);
+				} catch (final RuntimeException | Error e) {
+					stop();
+					throw e;
+				}
+				stop();
+				stats.stopAlgorithm();
+			}
+
+			private boolean close(final ArgNode<XtaState<S>, XtaAction> coveree, final int key) {
+				stats.startClosing();
+
+				final Iterable<ArgNode<XtaState<S>, XtaAction>> candidates = Lists
+						.reverse(passed.getOrDefault(key, Collections.emptyList()));
+				for (final ArgNode<XtaState<S>, XtaAction> coverer : candidates) {
+
+					stats.checkCoverage();
+					if (mightCover(coveree, coverer)) {
+
+						stats.attemptCoverage();
+
+						final Collection<ArgNode<XtaState<S>, XtaAction>> uncoveredNodes = new ArrayList<>();
+						final boolean covered;
+						writeLock.lock();
+						try {
+							// The coverer might have been refined since the check
+							if (!algorithmStrategy.mightCover(coveree, coverer)) {
+								continue;
+							}
+							coveree.setCoveringNode(coverer);
+							algorithmStrategy.cover(coveree, coverer, uncoveredNodes, stats);
+							covered = coveree.isCovered();
+						} finally {
+							writeLock.unlock();
+						}
+
+						scheduleAll(uncoveredNodes.stream().filter(n -> !n.equals(coveree)).collect(toList()));
+
+						if (covered) {
+							stats.successfulCoverage();
+							stats.stopClosing();
+							return true;
+						}
+					}
+				}
+
+				stats.stopClosing();
+				return false;
+			}
+
+			private boolean mightCover(final ArgNode<XtaState<S>, XtaAction> coveree,
+					final ArgNode<XtaState<S>, XtaAction> coverer) {
+				readLock.lock();
+				try {
+					return algorithmStrategy.mightCover(coveree, coverer);
+				} finally {
+					readLock.unlock();
+				}
+			}
+
+			private void expand(final ArgNode<XtaState<S>, XtaAction> node, final int key) {
+				stats.startExpanding();
+
+				final Collection<ArgNode<XtaState<S>, XtaAction>> uncoveredNodes = new ArrayList<>();
+				XtaState<S> state;
+				readLock.lock();
+				try {
+					state = node.getState();
+				} finally {
+					readLock.unlock();
+				}
+				// Locations are never refined, so only nodes at the target
+				// locations can be refined by blocking the target
+				if (target.isPresent() && target.get().isTargetLocs(state.getLocs())) {
+					writeLock.lock();
+					try {
+						algorithmStrategy.blockTarget(node, target.get(), uncoveredNodes, stats);
+						state = node.getState();
+					} finally {
+						writeLock.unlock();
+					}
+				}
+
+				final List<Tuple3<XtaAction, XtaState<S>, Boolean>> succs = new ArrayList<>();
+				for (final XtaAction action : lts.getEnabledActionsFor(state)) {
+					stats.exploreAction();
+					final Collection<? extends XtaState<S>> succStates = algorithmStrategy.getAnalysis()
+							.getTransFunc().getSuccStates(state, action, UnitPrec.getInstance());
+					for (final XtaState<S> succState : succStates) {
+						succs.add(Tuple3.of(action, succState, !succState.isBottom() && isTarget(succState)));
+					}
+				}
+
+				final Collection<ArgNode<XtaState<S>, XtaAction>> succNodes = new ArrayList<>();
+				if (succs.stream().anyMatch(succ -> succ.get2().isBottom())) {
+					writeLock.lock();
+					try {
+						for (final Tuple3<XtaAction, XtaState<S>, Boolean> succ : succs) {
+							if (succ.get2().isBottom()) {
+								algorithmStrategy.block(node, succ.get1(), succ.get2(), uncoveredNodes, stats);
+							}
+						}
+					} finally {
+						writeLock.unlock();
+					}
+				}
+				readLock.lock();
+				argLock.lock();
+				try {
+					for (final Tuple3<XtaAction, XtaState<S>, Boolean> succ : succs) {
+						if (!succ.get2().isBottom()) {
+							succNodes.add(arg.createSuccNode(node, succ.get1(), succ.get2(), succ.get3()));
+						}
+					}
+					arg.setExpanded(node, true);
+					argSize = arg.size();
+				} finally {
+					argLock.unlock();
+					readLock.unlock();
+				}
+
+				scheduleAll(uncoveredNodes);
+				for (final ArgNode<XtaState<S>, XtaAction> succNode : succNodes) {
+					if (succNode.isTarget()) {
+						targetNode.compareAndSet(null, succNode);
+						stop();
+						break;
+					}
+					schedule(succNode);
+				}
+
+				passed.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+				stats.stopExpanding();
+			}
+		}
+	}
+
+}
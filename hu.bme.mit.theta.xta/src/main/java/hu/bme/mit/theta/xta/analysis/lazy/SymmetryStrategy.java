@@ -0,0 +1,208 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.lazy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import hu.bme.mit.theta.analysis.Analysis;
+import hu.bme.mit.theta.analysis.InitFunc;
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.PartialOrd;
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.TransFunc;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.prod2.Prod2State;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.XtaSymmetry;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
+
+/**
+ * Strategy that canonizes the initial and successor states of a strategy by
+ * an {@link XtaSymmetry}, so that symmetric states can cover each other.
+ * Refinement is not supported, as the states of the ARG are only reachable up
+ * to symmetry. For the same reason, the counterexamples found in the ARG have
+ * to be mapped back to the system by {@link #concretize}.
+ */
+final class SymmetryStrategy
+		implements AlgorithmStrategy<XtaState<Prod2State<ExplState, ZoneState>>, XtaState<Prod2State<ExplState, ZoneState>>> {
+
+	private final AlgorithmStrategy<XtaState<Prod2State<ExplState, ZoneState>>, XtaState<Prod2State<ExplState, ZoneState>>> strategy;
+	private final XtaSymmetry symmetry;
+	private final Analysis<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> analysis;
+
+	public SymmetryStrategy(
+			final AlgorithmStrategy<XtaState<Prod2State<ExplState, ZoneState>>, XtaState<Prod2State<ExplState, ZoneState>>> strategy,
+			final XtaSymmetry symmetry) {
+		this.strategy = checkNotNull(strategy);
+		this.symmetry = checkNotNull(symmetry);
+		analysis = new SymmetryAnalysis(strategy.getAnalysis());
+	}
+
+	@Override
+	public Analysis<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> getAnalysis() {
+		return analysis;
+	}
+
+	@Override
+	public Function<XtaState<Prod2State<ExplState, ZoneState>>, ?> getProjection() {
+		return strategy.getProjection();
+	}
+
+	@Override
+	public boolean mightCover(final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> coveree,
+			final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> coverer) {
+		return strategy.mightCover(coveree, coverer);
+	}
+
+	@Override
+	public void cover(final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> coveree,
+			final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> coverer,
+			final Collection<ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction>> uncoveredNodes,
+			final Builder stats) {
+		strategy.cover(coveree, coverer, uncoveredNodes, stats);
+	}
+
+	@Override
+	public void block(final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> node,
+			final XtaAction action, final XtaState<Prod2State<ExplState, ZoneState>> succState,
+			final Collection<ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction>> uncoveredNodes,
+			final Builder stats) {
+		strategy.block(node, action, succState, uncoveredNodes, stats);
+	}
+
+	@Override
+	public boolean isTarget(final XtaState<Prod2State<ExplState, ZoneState>> state, final XtaTarget target) {
+		return strategy.isTarget(state, target);
+	}
+
+	@Override
+	public void blockTarget(final ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> node,
+			final XtaTarget target,
+			final Collection<ArgNode<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction>> uncoveredNodes,
+			final Builder stats) {
+		strategy.blockTarget(node, target, uncoveredNodes, stats);
+	}
+
+	/**
+	 * Maps a counterexample of canonical states back to a trace of the system,
+	 * i.e., to a trace whose states are connected by its actions. Each state of
+	 * the result has the same canonical locations and data as the corresponding
+	 * state of the counterexample.
+	 */
+	public Trace<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> concretize(
+			final Trace<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> trace,
+			final LTS<XtaState<?>, XtaAction> lts, final XtaTarget target) {
+		checkNotNull(trace);
+		checkNotNull(lts);
+		checkNotNull(target);
+		final List<XtaState<Prod2State<ExplState, ZoneState>>> states = new ArrayList<>();
+		final List<XtaAction> actions = new ArrayList<>();
+		for (final XtaState<Prod2State<ExplState, ZoneState>> initState : strategy.getAnalysis().getInitFunc()
+				.getInitStates(UnitPrec.getInstance())) {
+			if (matches(initState, trace.getState(0)) && extend(initState, trace, lts, target, states, actions)) {
+				return Trace.of(states, actions);
+			}
+		}
+		throw new IllegalStateException("Counterexample cannot be mapped back to the system.");
+	}
+
+	// Depth-first search for successors matching the counterexample, as ties of
+	// the canonization can leave the order of symmetric clocks ambiguous
+	private boolean extend(final XtaState<Prod2State<ExplState, ZoneState>> state,
+			final Trace<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction> trace,
+			final LTS<XtaState<?>, XtaAction> lts, final XtaTarget target,
+			final List<XtaState<Prod2State<ExplState, ZoneState>>> states, final List<XtaAction> actions) {
+		states.add(state);
+		final int index = states.size() - 1;
+		if (index == trace.length()) {
+			if (strategy.isTarget(state, target)) {
+				return true;
+			}
+		} else {
+			for (final XtaAction action : lts.getEnabledActionsFor(state)) {
+				actions.add(action);
+				for (final XtaState<Prod2State<ExplState, ZoneState>> succState : strategy.getAnalysis()
+						.getTransFunc().getSuccStates(state, action, UnitPrec.getInstance())) {
+					if (matches(succState, trace.getState(index + 1))
+							&& extend(succState, trace, lts, target, states, actions)) {
+						return true;
+					}
+				}
+				actions.remove(actions.size() - 1);
+			}
+		}
+		states.remove(index);
+		return false;
+	}
+
+	private boolean matches(final XtaState<Prod2State<ExplState, ZoneState>> state,
+			final XtaState<Prod2State<ExplState, ZoneState>> canonicalState) {
+		if (state.isBottom()) {
+			return false;
+		}
+		final XtaState<Prod2State<ExplState, ZoneState>> canonized = symmetry.canonize(state);
+		return canonized.getLocs().equals(canonicalState.getLocs())
+				&& canonized.getState().getState1().equals(canonicalState.getState().getState1());
+	}
+
+	////
+
+	private final class SymmetryAnalysis
+			implements Analysis<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> {
+
+		private final Analysis<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> analysis;
+		private final InitFunc<XtaState<Prod2State<ExplState, ZoneState>>, UnitPrec> initFunc;
+		private final TransFunc<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> transFunc;
+
+		private SymmetryAnalysis(final Analysis<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> analysis) {
+			this.analysis = analysis;
+			initFunc = prec -> canonize(analysis.getInitFunc().getInitStates(prec));
+			transFunc = (state, action, prec) -> canonize(analysis.getTransFunc().getSuccStates(state, action, prec));
+		}
+
+		@Override
+		public PartialOrd<XtaState<Prod2State<ExplState, ZoneState>>> getPartialOrd() {
+			return analysis.getPartialOrd();
+		}
+
+		@Override
+		public InitFunc<XtaState<Prod2State<ExplState, ZoneState>>, UnitPrec> getInitFunc() {
+			return initFunc;
+		}
+
+		@Override
+		public TransFunc<XtaState<Prod2State<ExplState, ZoneState>>, XtaAction, UnitPrec> getTransFunc() {
+			return transFunc;
+		}
+
+		private Collection<XtaState<Prod2State<ExplState, ZoneState>>> canonize(
+				final Collection<? extends XtaState<Prod2State<ExplState, ZoneState>>> states) {
+			return states.stream().map(symmetry::canonize).collect(toList());
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package hu.bme.mit.theta.xta.analysis.zone;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.clock.constr.ClockConstrs.Eq;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import com.google.common.collect.Lists;
 
 import hu.bme.mit.theta.analysis.zone.ZonePrec;
 import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.core.clock.constr.ClockConstr;
 import hu.bme.mit.theta.core.clock.op.ResetOp;
 import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.type.rattype.RatType;
@@ -178,13 +180,15 @@ public final class XtaZoneUtils {
 	}
 
 	private static void applyInvariants(final ZoneState.Builder builder, final Collection<Loc> locs) {
+		final Collection<ClockConstr> invars = new ArrayList<>();
 		for (final Loc target : locs) {
 			for (final Guard invar : target.getInvars()) {
 				if (invar.isClockGuard()) {
-					builder.and(invar.asClockGuard().getClockConstr());
+					invars.add(invar.asClockGuard().getClockConstr());
 				}
 			}
 		}
+		builder.and(invars);
 	}
 
 	private static void applyUpdates(final ZoneState.Builder builder, final Edge edge) {
@@ -211,11 +215,13 @@ public final class XtaZoneUtils {
 	}
 
 	private static void applyGuards(final ZoneState.Builder builder, final Edge edge) {
+		final Collection<ClockConstr> guards = new ArrayList<>();
 		for (final Guard guard : edge.getGuards()) {
 			if (guard.isClockGuard()) {
-				builder.and(guard.asClockGuard().getClockConstr());
+				guards.add(guard.asClockGuard().getClockConstr());
 			}
 		}
+		builder.and(guards);
 	}
 
 }
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.zone.extra;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import hu.bme.mit.theta.analysis.Analysis;
+import hu.bme.mit.theta.analysis.InitFunc;
+import hu.bme.mit.theta.analysis.PartialOrd;
+import hu.bme.mit.theta.analysis.TransFunc;
+import hu.bme.mit.theta.analysis.zone.ZoneOrd;
+import hu.bme.mit.theta.analysis.zone.ZonePrec;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+
+/**
+ * Zone analysis that applies Extra+_LU extrapolation to every state with
+ * respect to the static LU bounds of its location vector.
+ */
+public final class ExtraZoneAnalysis implements Analysis<ZoneState, XtaAction, ZonePrec> {
+
+	private final InitFunc<ZoneState, ZonePrec> initFunc;
+	private final TransFunc<ZoneState, XtaAction, ZonePrec> transFunc;
+
+	private ExtraZoneAnalysis(final Analysis<ZoneState, ? super XtaAction, ZonePrec> analysis,
+			final List<Loc> initLocs, final StaticLuBounds bounds) {
+		checkNotNull(analysis);
+		checkNotNull(initLocs);
+		checkNotNull(bounds);
+		initFunc = ExtraZoneInitFunc.create(analysis.getInitFunc(), initLocs, bounds);
+		transFunc = ExtraZoneTransFunc.create(analysis.getTransFunc(), bounds);
+	}
+
+	public static ExtraZoneAnalysis create(final Analysis<ZoneState, ? super XtaAction, ZonePrec> analysis,
+			final List<Loc> initLocs, final StaticLuBounds bounds) {
+		return new ExtraZoneAnalysis(analysis, initLocs, bounds);
+	}
+
+	@Override
+	public PartialOrd<ZoneState> getPartialOrd() {
+		return ZoneOrd.getInstance();
+	}
+
+	@Override
+	public InitFunc<ZoneState, ZonePrec> getInitFunc() {
+		return initFunc;
+	}
+
+	@Override
+	public TransFunc<ZoneState, XtaAction, ZonePrec> getTransFunc() {
+		return transFunc;
+	}
+
+}
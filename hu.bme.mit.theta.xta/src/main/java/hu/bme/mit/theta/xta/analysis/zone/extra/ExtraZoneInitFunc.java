@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.zone.extra;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import hu.bme.mit.theta.analysis.InitFunc;
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.analysis.zone.ZonePrec;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+
+final class ExtraZoneInitFunc implements InitFunc<ZoneState, ZonePrec> {
+
+	private final InitFunc<ZoneState, ZonePrec> initFunc;
+	private final BoundFunc initBounds;
+
+	private ExtraZoneInitFunc(final InitFunc<ZoneState, ZonePrec> initFunc, final List<Loc> initLocs,
+			final StaticLuBounds bounds) {
+		this.initFunc = checkNotNull(initFunc);
+		initBounds = bounds.getBounds(initLocs);
+	}
+
+	public static ExtraZoneInitFunc create(final InitFunc<ZoneState, ZonePrec> initFunc, final List<Loc> initLocs,
+			final StaticLuBounds bounds) {
+		return new ExtraZoneInitFunc(initFunc, initLocs, bounds);
+	}
+
+	////
+
+	@Override
+	public Collection<ZoneState> getInitStates(final ZonePrec prec) {
+		checkNotNull(prec);
+		final Collection<ZoneState> result = new ArrayList<>();
+		final Collection<? extends ZoneState> subInitStates = initFunc.getInitStates(prec);
+		for (final ZoneState subInitState : subInitStates) {
+			final ZoneState initState = subInitState.transform().extraLuPlus(initBounds).build().intern();
+			result.add(initState);
+		}
+		return result;
+	}
+
+}
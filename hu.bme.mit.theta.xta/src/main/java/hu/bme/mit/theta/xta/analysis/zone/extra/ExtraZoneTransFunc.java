@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.zone.extra;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import hu.bme.mit.theta.analysis.TransFunc;
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.analysis.zone.ZonePrec;
+import hu.bme.mit.theta.analysis.zone.ZoneState;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+
+final class ExtraZoneTransFunc implements TransFunc<ZoneState, XtaAction, ZonePrec> {
+
+	private final TransFunc<ZoneState, ? super XtaAction, ZonePrec> transFunc;
+	private final StaticLuBounds bounds;
+
+	private ExtraZoneTransFunc(final TransFunc<ZoneState, ? super XtaAction, ZonePrec> transFunc,
+			final StaticLuBounds bounds) {
+		this.transFunc = checkNotNull(transFunc);
+		this.bounds = checkNotNull(bounds);
+	}
+
+	public static ExtraZoneTransFunc create(final TransFunc<ZoneState, ? super XtaAction, ZonePrec> transFunc,
+			final StaticLuBounds bounds) {
+		return new ExtraZoneTransFunc(transFunc, bounds);
+	}
+
+	@Override
+	public Collection<ZoneState> getSuccStates(final ZoneState state, final XtaAction action, final ZonePrec prec) {
+		checkNotNull(state);
+		checkNotNull(action);
+		checkNotNull(prec);
+
+		final BoundFunc succBounds = bounds.getBounds(action.getTargetLocs());
+		final Collection<? extends ZoneState> subSuccStates = transFunc.getSuccStates(state, action, prec);
+		final Collection<ZoneState> result = new ArrayList<>(subSuccStates.size());
+		for (final ZoneState subSuccState : subSuccStates) {
+			final ZoneState succState = subSuccState.transform().extraLuPlus(succBounds).build().intern();
+			result.add(succState);
+		}
+		return result;
+	}
+
+}
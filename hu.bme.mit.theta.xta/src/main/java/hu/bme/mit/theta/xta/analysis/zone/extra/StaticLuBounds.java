@@ -0,0 +1,145 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.zone.extra;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import hu.bme.mit.theta.analysis.zone.BoundFunc;
+import hu.bme.mit.theta.core.clock.op.ResetOp;
+import hu.bme.mit.theta.xta.Guard;
+import hu.bme.mit.theta.xta.Update;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Edge;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaSystem;
+
+/**
+ * Static LU bounds of an XTA system. The bounds of a location are the largest
+ * constants a clock is compared to by the invariants and guards reachable from
+ * it before the clock is reset. The bounds of a location vector are the
+ * maximum of the bounds of its locations, so clocks that are dead in every
+ * process get no bound at all.
+ */
+public final class StaticLuBounds {
+
+	private final BoundFunc globalBounds;
+	private final Map<Loc, BoundFunc> locToBounds;
+	private final Map<List<Loc>, BoundFunc> locsToBounds;
+
+	private StaticLuBounds(final XtaSystem system, final BoundFunc globalBounds) {
+		checkNotNull(system);
+		this.globalBounds = checkNotNull(globalBounds);
+		locToBounds = new HashMap<>();
+		for (final XtaProcess process : system.getProcesses()) {
+			computeBounds(process);
+		}
+		locsToBounds = new ConcurrentHashMap<>();
+	}
+
+	public static StaticLuBounds create(final XtaSystem system) {
+		return new StaticLuBounds(system, BoundFunc.top());
+	}
+
+	/**
+	 * Creates the bounds of the system, extended in every location by the
+	 * given bounds (e.g. the constants of a reachability target).
+	 */
+	public static StaticLuBounds create(final XtaSystem system, final BoundFunc globalBounds) {
+		return new StaticLuBounds(system, globalBounds);
+	}
+
+	public BoundFunc getBounds(final Loc loc) {
+		checkNotNull(loc);
+		final BoundFunc bounds = locToBounds.get(loc);
+		checkNotNull(bounds, "Unknown location " + loc.getName());
+		return bounds;
+	}
+
+	public BoundFunc getBounds(final List<Loc> locs) {
+		checkNotNull(locs);
+		return locsToBounds.computeIfAbsent(locs, ls -> {
+			BoundFunc result = globalBounds;
+			for (final Loc loc : ls) {
+				result = result.merge(getBounds(loc));
+			}
+			return result;
+		});
+	}
+
+	////
+
+	private void computeBounds(final XtaProcess process) {
+		final Deque<Loc> waitlist = new ArrayDeque<>();
+		for (final Loc loc : process.getLocs()) {
+			final BoundFunc.Builder builder = BoundFunc.builder();
+			addInvariants(builder, loc);
+			for (final Edge edge : loc.getOutEdges()) {
+				addGuards(builder, edge);
+			}
+			locToBounds.put(loc, builder.build());
+			waitlist.add(loc);
+		}
+
+		while (!waitlist.isEmpty()) {
+			final Loc target = waitlist.remove();
+			final BoundFunc targetBounds = locToBounds.get(target);
+			for (final Edge edge : target.getInEdges()) {
+				final Loc source = edge.getSource();
+				final BoundFunc sourceBounds = locToBounds.get(source);
+				final BoundFunc preBounds = removeResets(targetBounds, edge);
+				if (!preBounds.isLeq(sourceBounds)) {
+					locToBounds.put(source, sourceBounds.merge(preBounds));
+					waitlist.add(source);
+				}
+			}
+		}
+	}
+
+	private static void addInvariants(final BoundFunc.Builder builder, final Loc loc) {
+		for (final Guard invar : loc.getInvars()) {
+			if (invar.isClockGuard()) {
+				builder.add(invar.asClockGuard().getClockConstr());
+			}
+		}
+	}
+
+	private static void addGuards(final BoundFunc.Builder builder, final Edge edge) {
+		for (final Guard guard : edge.getGuards()) {
+			if (guard.isClockGuard()) {
+				builder.add(guard.asClockGuard().getClockConstr());
+			}
+		}
+	}
+
+	private static BoundFunc removeResets(final BoundFunc bounds, final Edge edge) {
+		final BoundFunc.Builder builder = bounds.transform();
+		for (final Update update : edge.getUpdates()) {
+			if (update.isClockUpdate()) {
+				final ResetOp op = (ResetOp) update.asClockUpdate().getClockOp();
+				builder.remove(op.getVar());
+			}
+		}
+		return builder.build();
+	}
+
+}
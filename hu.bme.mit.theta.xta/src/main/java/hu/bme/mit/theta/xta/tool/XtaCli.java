@@ -19,6 +19,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
@@ -27,6 +31,7 @@ import com.beust.jcommander.ParameterException;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 import hu.bme.mit.theta.analysis.algorithm.SearchStrategy;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.analysis.utils.ArgVisualizer;
 import hu.bme.mit.theta.analysis.utils.TraceVisualizer;
@@ -35,7 +40,9 @@ import hu.bme.mit.theta.common.table.TableWriter;
 import hu.bme.mit.theta.common.visualization.Graph;
 import hu.bme.mit.theta.common.visualization.writer.GraphvizWriter;
 import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.XtaTarget;
 import hu.bme.mit.theta.xta.analysis.lazy.ClockStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.CoverageStrategy;
 import hu.bme.mit.theta.xta.analysis.lazy.DataStrategy;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaCheckerFactory;
 import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics;
@@ -55,9 +62,36 @@ public final class XtaCli {
 	@Parameter(names = { "--clock" }, description = "Refinement strategy for clock variables", required = true)
 	ClockStrategy clockStrategy;
 
+	@Parameter(names = { "--coverage" }, description = "Coverage check: single node or union of zones (FEDERATION requires --clock EXTRA)")
+	CoverageStrategy coverageStrategy = CoverageStrategy.SINGLE;
+
+	@Parameter(names = { "--threads" }, description = "Number of threads exploring the state space")
+	Integer threads = 1;
+
+	@Parameter(names = { "--por" }, description = "Partial-order reduction of local steps")
+	boolean partialOrderReduction = false;
+
+	@Parameter(names = { "--symmetry" }, description = "Symmetry reduction of identical processes")
+	boolean symmetryReduction = false;
+
 	@Parameter(names = { "--search" }, description = "Search strategy", required = true)
 	SearchStrategy searchStrategy;
 
+	@Parameter(names = { "--target" }, description = "Target to reach, e.g. \"P(1).cs && P(2).cs\" (default: full exploration)")
+	String target = null;
+
+	@Parameter(names = { "--query" }, description = "Path of a query file containing an E<> reachability query")
+	String query = null;
+
+	@Parameter(names = { "--timeout" }, description = "Timeout in seconds (0: unlimited)")
+	Integer timeout = 0;
+
+	@Parameter(names = { "--maxnodes" }, description = "Maximal number of ARG nodes (0: unlimited)")
+	Integer maxNodes = 0;
+
+	@Parameter(names = { "--maxheap" }, description = "Heap usage threshold in megabytes (0: unlimited)")
+	Integer maxHeap = 0;
+
 	@Parameter(names = { "--benchmark" }, description = "Benchmark mode (only print metrics)")
 	Boolean benchmarkMode = false;
 
@@ -94,8 +128,9 @@ public final class XtaCli {
 
 		try {
 			final XtaSystem system = loadModel();
-			final SafetyChecker<?, ?, UnitPrec> checker = LazyXtaCheckerFactory.create(system, dataStrategy,
-					clockStrategy, searchStrategy);
+			final Budget budget = Budget.builder().timeout(timeout, TimeUnit.SECONDS).maxNodes(maxNodes)
+					.maxHeapBytes(maxHeap * 1024L * 1024L).build();
+			final SafetyChecker<?, ?, UnitPrec> checker = buildChecker(system, budget);
 			final SafetyResult<?, ?> result = checker.check(UnitPrec.getInstance());
 			printResult(result);
 			if (dotfile != null) {
@@ -112,11 +147,31 @@ public final class XtaCli {
 		}
 	}
 
+	private SafetyChecker<?, ?, UnitPrec> buildChecker(final XtaSystem system, final Budget budget)
+			throws IOException {
+		final String targetString = query != null ? loadQuery() : target;
+		if (targetString == null) {
+			return LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, searchStrategy,
+					coverageStrategy, threads, partialOrderReduction, symmetryReduction, budget);
+		} else {
+			final XtaTarget xtaTarget = XtaTarget.parse(system, targetString);
+			return LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, searchStrategy,
+					coverageStrategy, xtaTarget, threads, partialOrderReduction, symmetryReduction, budget);
+		}
+	}
+
+	private String loadQuery() throws IOException {
+		return Files.readAllLines(Paths.get(query), StandardCharsets.UTF_8).stream().map(String::trim)
+				.filter(l -> !l.isEmpty() && !l.startsWith("//")).findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("No query found in " + query));
+	}
+
 	private void printResult(final SafetyResult<?, ?> result) {
 		final LazyXtaStatistics stats = (LazyXtaStatistics) result.getStats().get();
 		if (benchmarkMode) {
 			stats.writeData(writer);
 		} else {
+			System.out.println(result.toString());
 			System.out.println(stats.toString());
 		}
 	}
@@ -134,8 +189,8 @@ public final class XtaCli {
 
 	private void writeVisualStatus(final SafetyResult<?, ?> status, final String filename)
 			throws FileNotFoundException {
-		final Graph graph = status.isSafe() ? ArgVisualizer.getDefault().visualize(status.asSafe().getArg())
-				: TraceVisualizer.getDefault().visualize(status.asUnsafe().getTrace());
+		final Graph graph = status.isUnsafe() ? TraceVisualizer.getDefault().visualize(status.asUnsafe().getTrace())
+				: ArgVisualizer.getDefault().visualize(status.getArg());
 		GraphvizWriter.getInstance().writeFile(graph, filename);
 	}
 
@@ -0,0 +1,73 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.lazy.ClockStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.DataStrategy;
+import hu.bme.mit.theta.xta.dsl.XtaDslManager;
+
+/**
+ * Common fixture of parameterized tests that check a model with every
+ * combination of data and clock strategies of the lazy checker.
+ */
+public abstract class LazyXtaStrategyFixture {
+	protected static final String MODEL_FISCHER = "/fischer-2-32-64.xta";
+	protected static final String MODEL_FISCHER_EXIT = "/fischer-exit-2-32-64.xta";
+
+	private final String model;
+
+	@Parameter(0)
+	public DataStrategy dataStrategy;
+
+	@Parameter(1)
+	public ClockStrategy clockStrategy;
+
+	protected XtaSystem system;
+
+	protected LazyXtaStrategyFixture(final String model) {
+		this.model = checkNotNull(model);
+	}
+
+	@Parameters(name = "discrete: {0}, clock: {1}")
+	public static Collection<Object[]> data() {
+		final Collection<Object[]> result = new ArrayList<>();
+		for (final DataStrategy dataStrategy : DataStrategy.values()) {
+			for (final ClockStrategy clockStrategy : ClockStrategy.values()) {
+				result.add(new Object[] { dataStrategy, clockStrategy });
+			}
+		}
+		return result;
+	}
+
+	@Before
+	public void initialize() throws IOException {
+		final InputStream inputStream = getClass().getResourceAsStream(model);
+		system = XtaDslManager.createSystem(inputStream);
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static hu.bme.mit.theta.analysis.algorithm.SearchStrategy.BFS;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.xta.analysis.lazy.CoverageStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaCheckerFactory;
+
+@RunWith(Parameterized.class)
+public final class ParallelLazyXtaCheckerTest extends LazyXtaStrategyFixture {
+	private static final int THREADS = 4;
+
+	public ParallelLazyXtaCheckerTest() {
+		super(MODEL_FISCHER);
+	}
+
+	@Test
+	public void testFullExploration() {
+		final SafetyResult<?, ?> result = LazyXtaCheckerFactory
+				.create(system, dataStrategy, clockStrategy, BFS, CoverageStrategy.SINGLE, THREADS, Budget.unlimited())
+				.check(UnitPrec.getInstance());
+		assertTrue(result.isSafe());
+	}
+
+	@Test
+	public void testMutualExclusion() {
+		assertTrue(check("P(1).cs && P(2).cs").isSafe());
+	}
+
+	@Test
+	public void testReachableLocation() {
+		final SafetyResult<?, ?> result = check("P(1).cs && id == 1");
+		assertTrue(result.isUnsafe());
+		final int length = result.asUnsafe().getTrace().length();
+		final XtaState<?> last = (XtaState<?>) result.asUnsafe().getTrace().getState(length);
+		assertTrue(last.getLocs().stream().anyMatch(l -> l.getName().equals("P_1_cs")));
+	}
+
+	@Test
+	public void testClockConstraint() {
+		assertTrue(check("P(1).req && P(1).x > 32").isSafe());
+		assertTrue(check("P(1).req && P(1).x > 31").isUnsafe());
+	}
+
+	private SafetyResult<?, ?> check(final String target) {
+		return LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, BFS, CoverageStrategy.SINGLE,
+				XtaTarget.parse(system, target), THREADS, Budget.unlimited()).check(UnitPrec.getInstance());
+	}
+
+}
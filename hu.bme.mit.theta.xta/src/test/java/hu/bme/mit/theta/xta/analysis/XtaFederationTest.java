@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static hu.bme.mit.theta.analysis.algorithm.SearchStrategy.BFS;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.lazy.ClockStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.CoverageStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.DataStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaCheckerFactory;
+import hu.bme.mit.theta.xta.dsl.XtaDslManager;
+
+@RunWith(Parameterized.class)
+public final class XtaFederationTest {
+	// Some zones of this model are only covered by the union of zones
+	private static final String MODEL_FDDI = "/fddi-2.xta";
+
+	@Parameter(0)
+	public CoverageStrategy coverageStrategy;
+
+	private XtaSystem system;
+
+	@Parameters(name = "coverage: {0}")
+	public static Collection<Object[]> data() {
+		return Arrays.asList(new Object[][] {
+
+				{ CoverageStrategy.SINGLE },
+
+				{ CoverageStrategy.FEDERATION },
+
+		});
+	}
+
+	@Before
+	public void initialize() throws IOException {
+		final InputStream inputStream = getClass().getResourceAsStream(MODEL_FDDI);
+		system = XtaDslManager.createSystem(inputStream);
+	}
+
+	@Test
+	public void testArgIsComplete() {
+		final SafetyResult<? extends XtaState<?>, XtaAction> result = LazyXtaCheckerFactory
+				.create(system, DataStrategy.NONE, ClockStrategy.EXTRA, BFS, coverageStrategy, Budget.unlimited())
+				.check(UnitPrec.getInstance());
+		final ARG<? extends XtaState<?>, XtaAction> arg = result.getArg();
+
+		assertTrue(result.isSafe());
+		assertTrue(arg.isComplete());
+		assertTrue(ArgChecker.create(Z3SolverFactory.getInstace().createSolver()).isWellLabeled(arg));
+		if (coverageStrategy == CoverageStrategy.FEDERATION) {
+			assertTrue(arg.getNodes().anyMatch(n -> n.getUnionCoveringNodes().findAny().isPresent()));
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *  
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static hu.bme.mit.theta.analysis.algorithm.SearchStrategy.BFS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.unit.UnitState;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Edge;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.analysis.lazy.CoverageStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaCheckerFactory;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics;
+
+@RunWith(Parameterized.class)
+public final class XtaPorLtsTest extends LazyXtaStrategyFixture {
+
+	public XtaPorLtsTest() {
+		super(MODEL_FISCHER_EXIT);
+	}
+
+	@Test
+	public void testReduction() {
+		final SafetyResult<?, ?> full = LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, BFS,
+				CoverageStrategy.SINGLE, 1, false, Budget.unlimited()).check(UnitPrec.getInstance());
+		final SafetyResult<?, ?> reduced = LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, BFS,
+				CoverageStrategy.SINGLE, 1, true, Budget.unlimited()).check(UnitPrec.getInstance());
+		assertTrue(reduced.isSafe());
+		final LazyXtaStatistics fullStats = (LazyXtaStatistics) full.getStats().get();
+		final LazyXtaStatistics reducedStats = (LazyXtaStatistics) reduced.getStats().get();
+		assertTrue(reducedStats.getExploredActions() < fullStats.getExploredActions());
+	}
+
+	@Test
+	public void testSharedWriteIsVisible() {
+		final XtaPorLts lts = XtaPorLts.create(system);
+
+		// cs -> exit1 writes id, which the other process reads, so it must
+		// not hide the steps of the other process
+		final Collection<XtaAction> csActions = lts.getEnabledActionsFor(createState("P_1_cs", "P_2_A"));
+		assertEquals(2, csActions.size());
+		assertTrue(csActions.stream().anyMatch(a -> a.asBasic().getEdge().getTarget().getName().equals("P_2_req")));
+
+		// exit1 -> exit2 is local, so it is the only step in the ample set
+		final Collection<XtaAction> exitActions = lts.getEnabledActionsFor(createState("P_1_exit1", "P_2_A"));
+		assertEquals(1, exitActions.size());
+		assertEquals("P_1_exit2", exitActions.iterator().next().asBasic().getEdge().getTarget().getName());
+	}
+
+	// The variables of a process are collected from its edges, so every edge
+	// must be listed by the process
+	@Test
+	public void testProcessEdges() {
+		for (final XtaProcess process : system.getProcesses()) {
+			final Collection<Edge> outEdges = new HashSet<>();
+			process.getLocs().forEach(l -> outEdges.addAll(l.getOutEdges()));
+			assertFalse(outEdges.isEmpty());
+			assertEquals(outEdges, new HashSet<>(process.getEdges()));
+		}
+	}
+
+	@Test
+	public void testSameResults() {
+		assertSameResult("P(1).cs && P(2).cs");
+		assertSameResult("P(1).cs && id == 1");
+		assertSameResult("P(1).exit2 && P(2).cs");
+		assertSameResult("P(1).exit1 && P(2).exit2");
+		assertSameResult("P(1).req && P(1).x > 31");
+	}
+
+	private void assertSameResult(final String target) {
+		final XtaTarget xtaTarget = XtaTarget.parse(system, target);
+		final SafetyResult<?, ?> full = LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, BFS,
+				CoverageStrategy.SINGLE, xtaTarget, 1, false, Budget.unlimited()).check(UnitPrec.getInstance());
+		final SafetyResult<?, ?> reduced = LazyXtaCheckerFactory.create(system, dataStrategy, clockStrategy, BFS,
+				CoverageStrategy.SINGLE, xtaTarget, 1, true, Budget.unlimited()).check(UnitPrec.getInstance());
+		assertEquals(full.isSafe(), reduced.isSafe());
+	}
+
+	private XtaState<?> createState(final String... locNames) {
+		final List<Loc> locs = new ArrayList<>();
+		for (final String locName : locNames) {
+			locs.add(system.getProcesses().stream().flatMap(p -> p.getLocs().stream())
+					.filter(l -> l.getName().equals(locName)).findFirst().get());
+		}
+		return XtaState.of(locs, UnitState.getInstance());
+	}
+
+}
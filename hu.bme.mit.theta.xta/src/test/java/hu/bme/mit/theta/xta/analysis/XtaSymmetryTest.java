@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis;
+
+import static hu.bme.mit.theta.analysis.algorithm.SearchStrategy.BFS;
+import static hu.bme.mit.theta.analysis.algorithm.SearchStrategy.DFS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.budget.Budget;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.lazy.ClockStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.CoverageStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.DataStrategy;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaCheckerFactory;
+import hu.bme.mit.theta.xta.dsl.XtaDslManager;
+
+@RunWith(Parameterized.class)
+public final class XtaSymmetryTest {
+	private static final String MODEL_COUNTER = "/counter-4.xta";
+	private static final String MODEL_FISCHER = "/fischer-4-32-64.xta";
+
+	@Parameter(0)
+	public CoverageStrategy coverageStrategy;
+
+	private XtaSystem system;
+
+	@Parameters(name = "coverage: {0}")
+	public static Collection<Object[]> data() {
+		return Arrays.asList(new Object[][] {
+
+				{ CoverageStrategy.SINGLE },
+
+				{ CoverageStrategy.FEDERATION },
+
+		});
+	}
+
+	@Before
+	public void initialize() throws IOException {
+		system = load(MODEL_COUNTER);
+	}
+
+	@Test
+	public void testGroups() throws IOException {
+		assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2, 3)), XtaSymmetry.create(system).getGroups());
+		assertEquals(Collections.singletonList(Arrays.asList(1, 2, 3)),
+				XtaSymmetry.create(system, XtaTarget.parse(system, "P(1).busy")).getGroups());
+		assertTrue(XtaSymmetry.create(load(MODEL_FISCHER)).getGroups().isEmpty());
+	}
+
+	@Test
+	public void testReduction() {
+		final SafetyResult<?, ?> full = LazyXtaCheckerFactory.create(system, DataStrategy.NONE, ClockStrategy.EXTRA,
+				BFS, coverageStrategy, 1, false, false, Budget.unlimited()).check(UnitPrec.getInstance());
+		final SafetyResult<?, ?> reduced = LazyXtaCheckerFactory.create(system, DataStrategy.NONE,
+				ClockStrategy.EXTRA, BFS, coverageStrategy, 1, false, true, Budget.unlimited())
+				.check(UnitPrec.getInstance());
+		assertTrue(full.isSafe());
+		assertTrue(reduced.isSafe());
+		assertTrue(reduced.getArg().size() < full.getArg().size());
+	}
+
+	@Test
+	public void testSameResults() {
+		assertSameResult("cnt == 4");
+		assertSameResult("cnt == 3");
+		assertSameResult("P(1).busy && cnt == 3");
+		assertSameResult("P(1).busy && P(1).x > 3");
+		assertSameResult("P(2).c == 1 && cnt == 3");
+	}
+
+	@Test
+	public void testConcreteTrace() {
+		assertConcreteTrace("cnt == 3");
+		assertConcreteTrace("P(1).busy && cnt == 3");
+		assertConcreteTrace("P(2).c == 1 && cnt == 3");
+		assertConcreteTrace("P(1).c == 1 && P(2).c == 1 && cnt == 2");
+	}
+
+	// Depth-first search finds counterexamples in which symmetric processes are
+	// permuted by the canonization
+	private void assertConcreteTrace(final String target) {
+		final XtaTarget xtaTarget = XtaTarget.parse(system, target);
+		final SafetyResult<? extends XtaState<?>, XtaAction> result = LazyXtaCheckerFactory.create(system,
+				DataStrategy.NONE, ClockStrategy.EXTRA, DFS, coverageStrategy, xtaTarget, 1, false, true,
+				Budget.unlimited()).check(UnitPrec.getInstance());
+		assertTrue(result.isUnsafe());
+		final Trace<? extends XtaState<?>, XtaAction> trace = result.asUnsafe().getTrace();
+		for (int i = 0; i < trace.length(); i++) {
+			assertEquals(trace.getState(i).getLocs(), trace.getAction(i).getSourceLocs());
+			assertEquals(trace.getState(i + 1).getLocs(), trace.getAction(i).getTargetLocs());
+		}
+		assertTrue(xtaTarget.isTargetLocs(trace.getState(trace.length()).getLocs()));
+	}
+
+	private void assertSameResult(final String target) {
+		final XtaTarget xtaTarget = XtaTarget.parse(system, target);
+		final SafetyResult<?, ?> full = LazyXtaCheckerFactory.create(system, DataStrategy.NONE, ClockStrategy.EXTRA,
+				BFS, coverageStrategy, xtaTarget, 1, false, false, Budget.unlimited()).check(UnitPrec.getInstance());
+		final SafetyResult<?, ?> reduced = LazyXtaCheckerFactory.create(system, DataStrategy.NONE,
+				ClockStrategy.EXTRA, BFS, coverageStrategy, xtaTarget, 1, false, true, Budget.unlimited())
+				.check(UnitPrec.getInstance());
+		assertEquals(full.isSafe(), reduced.isSafe());
+	}
+
+	private XtaSystem load(final String model) throws IOException {
+		final InputStream inputStream = getClass().getResourceAsStream(model);
+		return XtaDslManager.createSystem(inputStream);
+	}
+
+}